@@ -0,0 +1,94 @@
+package com.elevatorsimulation;
+
+import java.io.Writer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks Elevator.pressElevatorButton with many button presser threads
+ * pressing random buttons on the same elevator. The elevator is not running,
+ * so once every button has been pressed most presses take the already pressed
+ * path. The events of the elevator are either discarded or published to an
+ * AsyncEventSink that renders them to a writer that discards the text, which
+ * measures the cost of publishing events from many threads.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ElevatorButtonPressBenchmark {
+    private static final int RANDOM_BUTTONS = 1 << 12;
+
+    @Param({ "50", "1000" })
+    public int floors;
+
+    @Param({ "none", "async" })
+    public String eventSink;
+
+    private Elevator elevator;
+    private AsyncEventSink asyncEventSink;
+
+    @State(Scope.Thread)
+    public static class ButtonPresserState {
+        private Button[] buttons;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ElevatorButtonPressBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            buttons = new Button[RANDOM_BUTTONS];
+            for (int i = 0; i < RANDOM_BUTTONS; i++) {
+                buttons[i] = new Button(random.nextInt(benchmark.floors), Direction.values()[random.nextInt(3)]);
+            }
+            next = 0;
+        }
+
+        public Button nextButton() {
+            return buttons[next++ & (RANDOM_BUTTONS - 1)];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        elevator = new Elevator(1, 0);
+        if (eventSink.equals("async")) {
+            asyncEventSink = new AsyncEventSink(new EventRenderer(Writer.nullWriter(), true),
+                    AsyncEventSink.OverflowPolicy.DROP);
+            elevator.setEventSink(asyncEventSink);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (asyncEventSink != null) {
+            asyncEventSink.close();
+            asyncEventSink = null;
+        }
+    }
+
+    @Benchmark
+    public void pressElevatorButton(ButtonPresserState state) {
+        elevator.pressElevatorButton(state.nextButton());
+    }
+}
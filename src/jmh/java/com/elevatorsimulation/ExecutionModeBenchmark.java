@@ -0,0 +1,75 @@
+package com.elevatorsimulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks running a real time simulation with a large number of elevators,
+ * each with its own button presser, on platform threads and on virtual
+ * threads. Every button presser presses the UP button on the floor its elevator
+ * is waiting on, so each elevator opens its doors, waits for passengers and then
+ * terminates. The time taken is mostly the cost of starting, blocking and
+ * joining the threads.
+ * <p>
+ * VIRTUAL falls back to platform threads unless the benchmarks are run on Java
+ * 21 or later. Running with "-prof gc" also shows the memory used by each mode.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionModeBenchmark {
+
+    @Param({ "PLATFORM", "VIRTUAL" })
+    public ExecutionMode mode;
+
+    @Param({ "1000", "10000" })
+    public int elevators;
+
+    @Benchmark
+    public long runElevators() throws InterruptedException {
+        ThreadFactory elevatorThreadFactory = mode.threadFactory("elevator-");
+        ThreadFactory buttonPresserThreadFactory = mode.threadFactory("button-presser-");
+        List<Elevator> bank = new ArrayList<>(elevators);
+        List<Thread> threads = new ArrayList<>(2 * elevators);
+        for (int i = 0; i < elevators; i++) {
+            Elevator elevator = new Elevator(i + 1, 0);
+            bank.add(elevator);
+            threads.add(elevatorThreadFactory.newThread(elevator));
+            threads.add(buttonPresserThreadFactory.newThread(() -> {
+                elevator.pressElevatorButton(new Button(0, Direction.UP));
+                elevator.terminate();
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long requestsCompleted = 0;
+        for (Elevator elevator : bank) {
+            requestsCompleted += elevator.getStatsCollector().getSummaryStatistics().getCount();
+        }
+        return requestsCompleted;
+    }
+}
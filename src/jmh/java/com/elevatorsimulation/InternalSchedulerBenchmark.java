@@ -0,0 +1,93 @@
+package com.elevatorsimulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the InternalScheduler implementations. The scheduler is filled to
+ * the queue depth with requests spread over the floors, and then every
+ * operation adds one new request and removes the current one, so the depth stays
+ * the same for the whole measurement.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InternalSchedulerBenchmark {
+    private static final int RANDOM_REQUESTS = 1 << 16;
+
+    @Param({ "LOOK_WITH_DIRECTION", "INDEXED_LOOK_WITH_DIRECTION" })
+    public SchedulerType schedulerType;
+
+    @Param({ "16", "256", "4096" })
+    public int queueDepth;
+
+    @Param({ "50", "1000", "20000" })
+    public int floors;
+
+    private InternalScheduler scheduler;
+    private int[] randomFloors;
+    private Direction[] randomDirections;
+    private long timeCreatedInNs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        randomFloors = new int[RANDOM_REQUESTS];
+        randomDirections = new Direction[RANDOM_REQUESTS];
+        for (int i = 0; i < RANDOM_REQUESTS; i++) {
+            randomFloors[i] = random.nextInt(floors);
+            randomDirections[i] = Direction.values()[random.nextInt(3)];
+        }
+
+        Elevator elevator = new Elevator(1, floors / 2);
+        scheduler = schedulerType.create(elevator);
+        timeCreatedInNs = System.nanoTime();
+        next = 0;
+        for (int i = 0; i < queueDepth; i++) {
+            scheduler.addRequest(nextRequest());
+        }
+    }
+
+    private Request nextRequest() {
+        int index = next++ & (RANDOM_REQUESTS - 1);
+        return new Request(randomFloors[index], randomDirections[index], timeCreatedInNs);
+    }
+
+    @Benchmark
+    public Request addPeekRemove() {
+        scheduler.addRequest(nextRequest());
+        Request request = scheduler.getCurrentRequest();
+        scheduler.removeRequest(request);
+        return request;
+    }
+
+    @Benchmark
+    public Request peek() {
+        return scheduler.getCurrentRequest();
+    }
+
+    @Benchmark
+    public boolean hasRequests() {
+        return scheduler.hasRequests();
+    }
+}
@@ -0,0 +1,96 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the queries of a RequestLogQuery over a log of generated requests
+ * on different numbers of threads. The log is written once for each trial and
+ * is in the page cache while the queries run, so the time is the cost of
+ * scanning the mapped columns. The largest log takes about 3 GB of disk.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestLogQueryBenchmark {
+    private static final long HOUR_IN_NS = 3_600_000_000_000L;
+
+    @Param({ "10000000", "100000000" })
+    public long records;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private Path file;
+    private RequestLogQuery query;
+    private RequestLogQuery.Filter morningHallCalls;
+
+    @Setup(Level.Trial)
+    public void writeLog() throws IOException {
+        file = Files.createTempFile("requests", ".elvr");
+        try (RequestLog log = new RequestLog(file, 0)) {
+            SplittableRandom random = new SplittableRandom(1);
+            Direction[] directions = Direction.values();
+            for (long i = 0; i < records; i++) {
+                // A request every 10 ms, waiting up to 30 seconds
+                long createdInNs = i * 10_000_000L;
+                long completionTimeInNs = random.nextLong(30_000_000_000L);
+                log.append(random.nextInt(50), directions[random.nextInt(directions.length)], createdInNs,
+                        createdInNs + completionTimeInNs, 1 + random.nextInt(8), random.nextInt(20));
+            }
+        }
+        query = new RequestLogQuery(file, threads);
+        morningHallCalls = new RequestLogQuery.Filter(8 * HOUR_IN_NS, 9 * HOUR_IN_NS, RequestLogQuery.ANY_FLOOR,
+                true);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteLog() throws IOException {
+        query.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<RequestLogQuery.Group> groupByFloor() {
+        return query.groupByFloor(RequestLogQuery.Filter.ALL);
+    }
+
+    @Benchmark
+    public List<RequestLogQuery.Group> groupByFloorInTheMorning() {
+        return query.groupByFloor(morningHallCalls);
+    }
+
+    @Benchmark
+    public List<RequestLogQuery.Group> groupByHour() {
+        return query.groupByTimeWindow(HOUR_IN_NS, RequestLogQuery.Filter.ALL);
+    }
+
+    @Benchmark
+    public long percentile() {
+        return query.getCompletionTimeHistogram(RequestLogQuery.Filter.ALL).getValueAtPercentile(99);
+    }
+}
@@ -0,0 +1,62 @@
+package com.elevatorsimulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a ShardedSimulation of eight banks of four elevators under UP_PEAK
+ * traffic on different numbers of threads, with the banks linked in a ring by
+ * sky lobby transfers and without any transfers. The time should fall nearly
+ * linearly with the threads, up to the number of cores, and the transfers
+ * show the cost of synchronizing the shards at the end of every window.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardedSimulationBenchmark {
+    private static final int SHARDS = 8;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "true", "false" })
+    public boolean transfers;
+
+    @Benchmark
+    public long runShards() {
+        List<ShardedSimulation.Shard> shards = new ArrayList<>();
+        List<ShardedSimulation.Transfer> links = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            SimulationConfig config = new SimulationConfig(new ElevatorConfig(4, 0, 500, 500,
+                    SchedulerType.LOOK_WITH_DIRECTION), DispatchMode.CONVENTIONAL,
+                    new TrafficGenerator.Building(0, 20, 0, 1000), TrafficGenerator.Pattern.UP_PEAK, 12, 20_000,
+                    1 + i, null);
+            shards.add(ShardedSimulation.createShard("bank-" + i, config));
+            if (transfers) {
+                links.add(new ShardedSimulation.Transfer(i, 20, (i + 1) % SHARDS, 20, 10, 30_000));
+            }
+        }
+
+        ShardedSimulation simulation = new ShardedSimulation(shards, links, threads);
+        simulation.run();
+        return simulation.getEventsProcessed();
+    }
+}
@@ -0,0 +1,72 @@
+package com.elevatorsimulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks StatsCollector.addCompletedRequest, both from a single thread and
+ * from several threads sharing one collector, as happens when many elevators
+ * report to the same collector. Also benchmarks taking a snapshot of the
+ * statistics while they are being recorded.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatsCollectorBenchmark {
+    private StatsCollector statsCollector;
+    private Request request;
+    private long timeCompletedInNs;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        statsCollector = new StatsCollector();
+        request = new Request(1, Direction.UP, 0);
+        timeCompletedInNs = 5_400_000_000L;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void addCompletedRequest() {
+        statsCollector.addCompletedRequest(request, timeCompletedInNs);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void addCompletedRequestContended() {
+        statsCollector.addCompletedRequest(request, timeCompletedInNs);
+    }
+
+    @Benchmark
+    @Group("recordWhileReading")
+    @GroupThreads(3)
+    public void recordWhileReadingAdd() {
+        statsCollector.addCompletedRequest(request, timeCompletedInNs);
+    }
+
+    @Benchmark
+    @Group("recordWhileReading")
+    @GroupThreads(1)
+    public StatsRecorder.Snapshot recordWhileReadingSnapshot() {
+        return statsCollector.getSnapshot();
+    }
+}
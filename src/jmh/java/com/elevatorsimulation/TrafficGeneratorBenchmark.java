@@ -0,0 +1,53 @@
+package com.elevatorsimulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks how fast a TrafficGenerator can generate passengers and press
+ * their hall calls. The button presses are passed on to a handler that ignores
+ * them, and nobody boards, so the queues of waiting passengers keep growing as
+ * they would under a load that the elevators can not keep up with.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrafficGeneratorBenchmark {
+
+    @Param({ "UP_PEAK", "LUNCH" })
+    public TrafficGenerator.Pattern pattern;
+
+    private TrafficGenerator generator;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        generator = new TrafficGenerator(pattern, new TrafficGenerator.Building(0, 100, 0, 10_000),
+                button -> {
+                }, 12, Long.MAX_VALUE, 42);
+    }
+
+    @Benchmark
+    public long generateAndPress() {
+        generator.next();
+        generator.pressElevatorButton(Button.of(generator.getFloor(), generator.getDirection()));
+        return generator.getDelayBeforePressing();
+    }
+}
@@ -0,0 +1,101 @@
+package com.elevatorsimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arguments has helpers for reading the values of command line arguments.
+ * Every flag that takes a value is followed by it, so the value of the flag at
+ * index i is at index i + 1. A missing or invalid value throws an
+ * IllegalArgumentException with a message that names the flag, so a main
+ * method can catch it, print the message and its usage, and exit.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+final class Arguments {
+
+    private Arguments() {
+    }
+
+    /**
+     * Returns the value of the flag at index i.
+     *
+     * @param args the command line arguments
+     * @param i    the index of the flag
+     * @return the value of the flag
+     * @throws IllegalArgumentException if there is no value after the flag
+     */
+    static String value(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            throw new IllegalArgumentException(args[i] + " needs a value");
+        }
+        return args[i + 1];
+    }
+
+    static int intValue(String[] args, int i) {
+        return parseInt(args[i], value(args, i));
+    }
+
+    /**
+     * Returns the comma separated whole numbers after the flag at index i.
+     */
+    static List<Integer> intListValue(String[] args, int i) {
+        List<Integer> values = new ArrayList<>();
+        for (String value : value(args, i).split(",")) {
+            values.add(parseInt(args[i], value));
+        }
+        return values;
+    }
+
+    static long longValue(String[] args, int i) {
+        String value = value(args, i);
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(args[i] + " needs a whole number but was '" + value + "'");
+        }
+    }
+
+    static double doubleValue(String[] args, int i) {
+        String value = value(args, i);
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(args[i] + " needs a number but was '" + value + "'");
+        }
+    }
+
+    static <E extends Enum<E>> E enumValue(String[] args, int i, Class<E> type) {
+        return parseEnum(args[i], value(args, i), type);
+    }
+
+    /**
+     * Returns the comma separated constants after the flag at index i.
+     */
+    static <E extends Enum<E>> List<E> enumListValue(String[] args, int i, Class<E> type) {
+        List<E> values = new ArrayList<>();
+        for (String value : value(args, i).split(",")) {
+            values.add(parseEnum(args[i], value, type));
+        }
+        return values;
+    }
+
+    private static int parseInt(String flag, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(flag + " needs a whole number but was '" + value + "'");
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(String flag, String value, Class<E> type) {
+        try {
+            return Enum.valueOf(type, value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(flag + " needs one of " + Arrays.toString(type.getEnumConstants())
+                    + " but was '" + value + "'");
+        }
+    }
+}
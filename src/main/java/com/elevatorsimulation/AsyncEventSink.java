@@ -0,0 +1,283 @@
+package com.elevatorsimulation;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AsyncEventSink is a class that implements the EventSink interface by handing
+ * events to a background thread, which renders them with an EventRenderer.
+ * This keeps console and file output off the simulation threads.
+ * <p>
+ * Events are passed through a bounded ring buffer of preallocated slots. Any
+ * number of threads can publish at once: a publisher claims the next slot with
+ * a compare-and-set on the tail of the buffer, fills in the fields of the event
+ * and then publishes the slot by updating its sequence number. No locks are
+ * taken and nothing is allocated. The background thread is the only consumer,
+ * so it reads the slots in order without any compare-and-set. Events are
+ * rendered in the order they were published. When there is nothing to render
+ * the background thread parks, and the next publisher unparks it.
+ * <p>
+ * When the buffer is full, the OverflowPolicy decides what happens. DROP
+ * discards the event and counts it, so publishers never wait. BLOCK makes the
+ * publisher wait for the background thread to make room, which slows the
+ * simulation down to the speed of the output instead of losing events. A
+ * waiting publisher spins briefly and then parks for longer and longer times,
+ * so it does not keep a core busy while the output catches up.
+ * <p>
+ * Closing the sink renders all remaining events and then stops the background
+ * thread. Events published after the sink is closed are dropped. Publishers
+ * are counted while they are in publish, and the background thread only stops
+ * once none are left, so an event that was claimed just as the sink was closed
+ * is still rendered rather than lost.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class AsyncEventSink implements EventSink, Closeable {
+    /**
+     * What to do with an event when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the event and count it as dropped.
+         */
+        DROP,
+        /**
+         * Wait until there is room for the event.
+         */
+        BLOCK
+    }
+
+    /**
+     * The default number of events the buffer can hold.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final long MIN_BLOCK_PARK_TIME_IN_NS = 1_000;
+    private static final long MAX_BLOCK_PARK_TIME_IN_NS = 1_000_000;
+
+    private static final class Slot {
+        // Equal to the position when free, and the position + 1 when published
+        volatile long sequence;
+        SimulationEvent event;
+        int elevatorId;
+        int floor;
+        Direction direction;
+        int value;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail;
+    private final AtomicLong droppedEvents;
+    private final AtomicInteger activePublishers;
+    private final OverflowPolicy overflowPolicy;
+    private final EventRenderer renderer;
+    private final Thread consumer;
+    private long head; // Only used by the consumer thread
+    private volatile boolean consumerParked;
+    private volatile boolean closed;
+
+    /**
+     * Class constructor specifying how to render the events and what to do when
+     * the buffer is full. The buffer holds DEFAULT_CAPACITY events.
+     *
+     * @param renderer       renders the events on the background thread
+     * @param overflowPolicy what to do with an event when the buffer is full
+     */
+    public AsyncEventSink(EventRenderer renderer, OverflowPolicy overflowPolicy) {
+        this(renderer, overflowPolicy, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Class constructor specifying how to render the events, what to do when the
+     * buffer is full and how many events the buffer can hold. The background
+     * thread is started straight away.
+     *
+     * @param renderer       renders the events on the background thread
+     * @param overflowPolicy what to do with an event when the buffer is full
+     * @param capacity       how many events the buffer can hold. This must be a
+     *                       power of two.
+     * @throws IllegalArgumentException if the capacity is not a power of two
+     */
+    public AsyncEventSink(EventRenderer renderer, OverflowPolicy overflowPolicy, int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two: " + capacity);
+        }
+
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+        mask = capacity - 1;
+        tail = new AtomicLong();
+        droppedEvents = new AtomicLong();
+        activePublishers = new AtomicInteger();
+        this.overflowPolicy = overflowPolicy;
+        this.renderer = renderer;
+        head = 0;
+        consumerParked = false;
+        closed = false;
+
+        consumer = new Thread(this::consumeEvents, "event-sink");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Returns how many events have been dropped because the buffer was full or
+     * the sink was closed.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    @Override
+    public void publish(SimulationEvent event, int elevatorId, int floor, Direction direction, int value) {
+        // Counted before closed is read, so the consumer waits for this event
+        // unless it is dropped
+        activePublishers.incrementAndGet();
+        try {
+            claimAndPublish(event, elevatorId, floor, direction, value);
+        } finally {
+            activePublishers.decrementAndGet();
+        }
+    }
+
+    private void claimAndPublish(SimulationEvent event, int elevatorId, int floor, Direction direction, int value) {
+        long position = tail.get();
+        Slot slot;
+        int waits = 0;
+        while (true) {
+            if (closed) {
+                droppedEvents.incrementAndGet();
+                return;
+            }
+
+            slot = slots[(int) position & mask];
+            long difference = slot.sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The slot still holds an event from one lap ago, so the buffer is full
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    droppedEvents.incrementAndGet();
+                    return;
+                }
+                unparkConsumer();
+                waitForRoom(waits++);
+                position = tail.get();
+            } else {
+                position = tail.get(); // Another publisher claimed the slot first
+            }
+        }
+
+        slot.event = event;
+        slot.elevatorId = elevatorId;
+        slot.floor = floor;
+        slot.direction = direction;
+        slot.value = value;
+        slot.sequence = position + 1;
+        unparkConsumer();
+    }
+
+    private void unparkConsumer() {
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private static void waitForRoom(int waits) {
+        if (waits < SPINS_BEFORE_PARKING) {
+            Thread.onSpinWait();
+        } else {
+            int doublings = Math.min(waits - SPINS_BEFORE_PARKING, 10);
+            LockSupport.parkNanos(Math.min(MIN_BLOCK_PARK_TIME_IN_NS << doublings, MAX_BLOCK_PARK_TIME_IN_NS));
+        }
+    }
+
+    /**
+     * Renders all of the events published so far and then stops the background
+     * thread and closes the renderer. Waits for the background thread to finish.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consumeEvents() {
+        long reportedDroppedEvents = 0;
+        while (true) {
+            boolean wasClosed = closed;
+            int rendered = renderAvailableEvents();
+
+            long dropped = droppedEvents.get();
+            if (dropped != reportedDroppedEvents) {
+                renderer.renderText("[EVENTS] " + (dropped - reportedDroppedEvents) + " events dropped.");
+                reportedDroppedEvents = dropped;
+            }
+
+            if (rendered == 0) {
+                renderer.flush();
+                if (wasClosed && activePublishers.get() == 0 && !hasClaimedEvents()) {
+                    break;
+                }
+                parkUntilPublished();
+            }
+        }
+        renderer.close();
+    }
+
+    private void parkUntilPublished() {
+        consumerParked = true;
+        // A publisher reads consumerParked after publishing its slot, so either it
+        // unparks this thread or the slot is seen here
+        if (slots[(int) head & mask].sequence != head + 1 && !closed) {
+            LockSupport.park(this);
+        }
+        consumerParked = false;
+    }
+
+    private int renderAvailableEvents() {
+        int rendered = 0;
+        while (true) {
+            Slot slot = slots[(int) head & mask];
+            if (slot.sequence != head + 1) {
+                return rendered;
+            }
+
+            renderer.render(slot.event, slot.elevatorId, slot.floor, slot.direction, slot.value);
+            slot.event = null;
+            slot.direction = null;
+            slot.sequence = head + slots.length; // Free the slot for the next lap
+            head++;
+            rendered++;
+        }
+    }
+
+    /**
+     * Returns whether any publisher has claimed a slot that has not been rendered
+     * yet, so the consumer does not stop while an event is still being filled in.
+     */
+    private boolean hasClaimedEvents() {
+        return tail.get() != head;
+    }
+}
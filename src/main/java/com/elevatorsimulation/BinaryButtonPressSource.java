@@ -0,0 +1,319 @@
+package com.elevatorsimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.*;
+
+/**
+ * BinaryButtonPressSource is a class that implements the ButtonPressSource
+ * interface by reading button presses from a binary trace file. Binary traces
+ * are written by the BinaryTraceConverter and are much faster to replay than
+ * csv files, since nothing has to be parsed.
+ * <p>
+ * A binary trace starts with a 16 byte header:
+ * <ul>
+ * <li>the magic bytes "ELVB"</li>
+ * <li>the format version as an unsigned 16 bit integer (currently 2)</li>
+ * <li>the size of each record in bytes as an unsigned 16 bit integer
+ * (currently 13)</li>
+ * <li>the number of records as a 64 bit integer</li>
+ * </ul>
+ * The header is followed by the fixed size records, one for each button press:
+ * <ul>
+ * <li>the requested floor as a 32 bit integer</li>
+ * <li>the ordinal of the requested direction as a byte</li>
+ * <li>the delay before pressing, in milliseconds since the previous button
+ * press, as an unsigned 32 bit integer</li>
+ * <li>the destination floor of a destination button as a 32 bit integer, or
+ * Button.NO_DESTINATION for any other button</li>
+ * </ul>
+ * All values are big-endian. Traces of version 1 are read as well. They have
+ * 9 byte records without the destination floor, since they were written
+ * before there were destination buttons.
+ * <p>
+ * The file is memory-mapped a window at a time and the fields are read straight
+ * out of the mapped bytes, so opening a trace takes the same time no matter how
+ * many button presses it holds.
+ * <p>
+ * When the source is serialized, for a SimulationCheckpoint, only the path of
+ * the trace and the index of the current record are saved. The restored source
+ * maps the trace again from that record.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class BinaryButtonPressSource implements ButtonPressSource, Closeable, Serializable {
+    private static final long serialVersionUID = 1L;
+    static final byte[] MAGIC = { 'E', 'L', 'V', 'B' };
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 13;
+    static final int VERSION_WITHOUT_DESTINATIONS = 1;
+    static final int RECORD_SIZE_WITHOUT_DESTINATIONS = 9;
+
+    private static final Logger LOGGER = Logger.getLogger(BinaryButtonPressSource.class.getName());
+    private static final int DEFAULT_RECORDS_PER_WINDOW = 64 * 1024 * 1024 / RECORD_SIZE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The serialized form of a BinaryButtonPressSource, which is the index of the
+     * current record in the trace.
+     */
+    private static final class SerializedForm implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String traceFile;
+        private final int recordsPerWindow;
+        private final boolean open;
+        private final long recordIndex;
+
+        SerializedForm(BinaryButtonPressSource source) {
+            traceFile = source.traceFile.toString();
+            recordsPerWindow = source.recordsPerWindow;
+            open = source.channel != null;
+            recordIndex = source.recordIndex;
+        }
+
+        private Object readResolve() {
+            BinaryButtonPressSource source = new BinaryButtonPressSource(Path.of(traceFile), recordsPerWindow);
+            if (open) {
+                source.restore(recordIndex);
+            } else {
+                source.close();
+            }
+            return source;
+        }
+    }
+
+    private final Path traceFile;
+    private final int recordsPerWindow;
+    private FileChannel channel;
+    private long numberOfRecords;
+    private int recordSize;
+    private MappedByteBuffer window;
+    private long windowFirstRecord;
+    private int windowRecords;
+    private long recordIndex;
+    private int recordPosition;
+    private long malformedRecords;
+
+    /**
+     * Class constructor specifying the binary trace file to read the button
+     * presses from. If the file can not be opened or is not a valid binary trace,
+     * the error is logged and the source has no button presses.
+     *
+     * @param traceFile the path of the binary trace file
+     */
+    public BinaryButtonPressSource(String traceFile) {
+        this(Path.of(traceFile), DEFAULT_RECORDS_PER_WINDOW);
+    }
+
+    /**
+     * Class constructor specifying the binary trace file and how many records to
+     * map at a time.
+     *
+     * @param traceFile        the path of the binary trace file
+     * @param recordsPerWindow the number of records to map at a time
+     */
+    BinaryButtonPressSource(Path traceFile, int recordsPerWindow) {
+        this.traceFile = traceFile;
+        this.recordsPerWindow = recordsPerWindow;
+        numberOfRecords = 0;
+        recordSize = RECORD_SIZE;
+        recordIndex = -1;
+        malformedRecords = 0;
+
+        try {
+            channel = FileChannel.open(traceFile, StandardOpenOption.READ);
+            if (readHeader()) {
+                map(0);
+                LOGGER.info("Replaying " + numberOfRecords + " button presses from file '" + traceFile + "'...");
+            } else {
+                close();
+            }
+        } catch (NoSuchFileException e) {
+            LOGGER.severe("Could not open file '" + traceFile + "'! ");
+            channel = null;
+        } catch (IOException e) {
+            LOGGER.severe("Error reading '" + traceFile + "'!");
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    /**
+     * Returns the number of button presses in the trace.
+     *
+     * @return the number of records in the trace
+     */
+    public long getNumberOfRecords() {
+        return numberOfRecords;
+    }
+
+    /**
+     * Returns the number of records that were skipped because their direction
+     * byte is not the ordinal of a Direction, such as in a corrupt trace.
+     *
+     * @return the number of malformed records so far
+     */
+    public long getMalformedRecords() {
+        return malformedRecords;
+    }
+
+    /**
+     * Moves to the next button press of the trace. A record whose direction is
+     * not valid is logged with its byte offset in the file and skipped.
+     *
+     * @return true if there is another button press
+     */
+    @Override
+    public boolean next() {
+        while (true) {
+            if (channel == null) {
+                return false;
+            }
+            if (recordIndex + 1 >= numberOfRecords) {
+                close();
+                return false;
+            }
+
+            recordIndex++;
+            if (recordIndex >= windowFirstRecord + windowRecords) {
+                try {
+                    map(recordIndex);
+                } catch (IOException e) {
+                    LOGGER.severe("Error reading '" + traceFile + "'!");
+                    e.printStackTrace();
+                    close();
+                    return false;
+                }
+            }
+            recordPosition = (int) (recordIndex - windowFirstRecord) * recordSize;
+
+            int direction = window.get(recordPosition + 4);
+            if (direction >= 0 && direction < DIRECTIONS.length) {
+                return true;
+            }
+            malformedRecords++;
+            LOGGER.severe("Skipping record " + (recordIndex + 1) + " at byte offset "
+                    + (HEADER_SIZE + recordIndex * recordSize) + " of '" + traceFile + "', whose direction "
+                    + direction + " is not valid!");
+        }
+    }
+
+    @Override
+    public int getFloor() {
+        return window.getInt(recordPosition);
+    }
+
+    @Override
+    public Direction getDirection() {
+        return DIRECTIONS[window.get(recordPosition + 4)];
+    }
+
+    @Override
+    public long getDelayBeforePressing() {
+        return Integer.toUnsignedLong(window.getInt(recordPosition + 5));
+    }
+
+    @Override
+    public int getDestinationFloor() {
+        return (recordSize == RECORD_SIZE) ? window.getInt(recordPosition + 9) : Button.NO_DESTINATION;
+    }
+
+    /**
+     * Closes the file. No more button presses are returned after this.
+     */
+    @Override
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warning("Error closing '" + traceFile + "'.");
+            }
+            channel = null;
+            window = null;
+        }
+    }
+
+    private void restore(long recordIndex) {
+        if (channel == null || recordIndex < 0) {
+            return;
+        }
+        if (recordIndex >= numberOfRecords) {
+            LOGGER.severe("Binary trace '" + traceFile + "' has fewer records than when the checkpoint was taken!");
+            close();
+            return;
+        }
+        try {
+            map(recordIndex);
+            this.recordIndex = recordIndex;
+            recordPosition = 0;
+        } catch (IOException e) {
+            LOGGER.severe("Error reading '" + traceFile + "'!");
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("A BinaryButtonPressSource must be restored from its SerializedForm");
+    }
+
+    private boolean readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // Keep reading until the header is full or the file ends
+        }
+        header.flip();
+
+        if (header.remaining() < HEADER_SIZE) {
+            LOGGER.severe("File '" + traceFile + "' is too short to be a binary trace!");
+            return false;
+        }
+        for (byte magicByte : MAGIC) {
+            if (header.get() != magicByte) {
+                LOGGER.severe("File '" + traceFile + "' is not a binary trace!");
+                return false;
+            }
+        }
+        int version = Short.toUnsignedInt(header.getShort());
+        recordSize = Short.toUnsignedInt(header.getShort());
+        if (!(version == VERSION && recordSize == RECORD_SIZE) && !(version == VERSION_WITHOUT_DESTINATIONS
+                && recordSize == RECORD_SIZE_WITHOUT_DESTINATIONS)) {
+            LOGGER.severe("Unsupported binary trace version " + version + " with records of " + recordSize
+                    + " bytes in '" + traceFile + "'!");
+            return false;
+        }
+
+        numberOfRecords = header.getLong();
+        long recordsInFile = (channel.size() - HEADER_SIZE) / recordSize;
+        if (numberOfRecords < 0 || numberOfRecords > recordsInFile) {
+            LOGGER.severe("Binary trace '" + traceFile + "' should have " + numberOfRecords
+                    + " records but only has " + recordsInFile + "!");
+            numberOfRecords = Math.max(0, recordsInFile);
+        }
+        return true;
+    }
+
+    private void map(long firstRecord) throws IOException {
+        windowFirstRecord = firstRecord;
+        windowRecords = (int) Math.min(recordsPerWindow, numberOfRecords - firstRecord);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstRecord * recordSize,
+                (long) windowRecords * recordSize);
+    }
+}
@@ -0,0 +1,107 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * BinaryTraceConverter is a class for writing button presses to the binary
+ * trace format read by the BinaryButtonPressSource. It is mostly used to
+ * convert csv files of button presses, which are slow to replay when they get
+ * large, into binary traces.
+ * <p>
+ * It can be run from the command line with the csv file and the binary trace
+ * file to write:
+ * <p>
+ * "java com.elevatorsimulation.BinaryTraceConverter trace.csv trace.elvb"
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class BinaryTraceConverter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Writes all the button presses of a source to a binary trace file.
+     *
+     * @param buttonPressSource the button presses to write
+     * @param traceFile         the path of the binary trace file to write
+     * @return the number of button presses written
+     * @throws IOException              if the file can not be written
+     * @throws IllegalArgumentException if a delay does not fit in an unsigned 32
+     *                                  bit integer
+     */
+    public static long convert(ButtonPressSource buttonPressSource, Path traceFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(traceFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            putHeader(buffer, 0);
+
+            long numberOfRecords = 0;
+            while (buttonPressSource.next()) {
+                long delayBeforePressing = buttonPressSource.getDelayBeforePressing();
+                if (delayBeforePressing < 0 || delayBeforePressing > 0xFFFFFFFFL) {
+                    throw new IllegalArgumentException("Delay of button press " + (numberOfRecords + 1)
+                            + " does not fit in a binary trace: " + delayBeforePressing);
+                }
+                if (buffer.remaining() < BinaryButtonPressSource.RECORD_SIZE) {
+                    write(channel, buffer);
+                }
+                buffer.putInt(buttonPressSource.getFloor());
+                buffer.put((byte) buttonPressSource.getDirection().ordinal());
+                buffer.putInt((int) delayBeforePressing);
+                buffer.putInt(buttonPressSource.getDestinationFloor());
+                numberOfRecords++;
+            }
+            write(channel, buffer);
+
+            // Now that the number of records is known, fill it in
+            putHeader(buffer, numberOfRecords);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+            return numberOfRecords;
+        }
+    }
+
+    private static void putHeader(ByteBuffer buffer, long numberOfRecords) {
+        buffer.clear();
+        buffer.put(BinaryButtonPressSource.MAGIC);
+        buffer.putShort((short) BinaryButtonPressSource.VERSION);
+        buffer.putShort((short) BinaryButtonPressSource.RECORD_SIZE);
+        buffer.putLong(numberOfRecords);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Converts a csv file of button presses to a binary trace file.
+     *
+     * @param args the csv file to read and the binary trace file to write
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: BinaryTraceConverter CSV_FILE BINARY_TRACE_FILE");
+            return;
+        }
+
+        try (MappedCsvButtonPressSource csvSource = new MappedCsvButtonPressSource(args[0])) {
+            long start = System.nanoTime();
+            long numberOfRecords = convert(csvSource, Path.of(args[1]));
+            System.out.println("Converted " + numberOfRecords + " button presses ("
+                    + csvSource.getMalformedRows() + " malformed rows skipped) in "
+                    + ((System.nanoTime() - start) / 1000000) + " ms.");
+        } catch (IOException e) {
+            System.out.println("Could not write '" + args[1] + "': " + e.getMessage());
+        }
+    }
+}
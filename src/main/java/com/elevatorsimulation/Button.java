@@ -1,19 +1,43 @@
 package com.elevatorsimulation;
 
-import java.util.Objects;
+import java.io.Serializable;
 
 /**
  * Button is a class for representing an elevator button that is used to direct
  * the elevator to a specified floor. The class represents both floor buttons
  * inside the elevator and buttons external to the elevator that are used to
  * summon an elevator to a floor for pickup.
+ * <p>
+ * Buttons are immutable, so the buttons for the floors from -128 to 1023 are
+ * created once and shared. Button.of returns the shared button where there is
+ * one, so pressing a button does not need to allocate. Buttons restored from a
+ * SimulationCheckpoint are swapped for the shared ones as well.
+ * <p>
+ * A destination button is the keypad of a destination dispatch system, where a
+ * passenger enters the floor they want to go to before boarding instead of
+ * pressing UP or DOWN. It has an UP or DOWN direction like an external button,
+ * worked out from the destination, and also carries the destination floor.
+ * Destination buttons are created with Button.destination and are not shared,
+ * since every press is a different passenger.
  *
  * @author Michael Zigment
  * @version 1.0
  */
-public class Button {
+public class Button implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int LOWEST_CACHED_FLOOR = -128;
+    private static final int HIGHEST_CACHED_FLOOR = 1023;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Button[] CACHE = createCache();
+
+    /**
+     * The destination floor of a button that is not a destination button.
+     */
+    public static final int NO_DESTINATION = Integer.MIN_VALUE;
+
     public final int floor;
     public final Direction direction;
+    public final int destinationFloor;
 
     /**
      * Class constructor specifying the floor and the direction (NONE is allowed)
@@ -27,6 +51,72 @@ public class Button {
     public Button(int floor, Direction direction) {
         this.floor = floor;
         this.direction = direction;
+        destinationFloor = NO_DESTINATION;
+    }
+
+    private Button(int floor, int destinationFloor) {
+        this.floor = floor;
+        direction = (destinationFloor > floor) ? Direction.UP : Direction.DOWN;
+        this.destinationFloor = destinationFloor;
+    }
+
+    /**
+     * Returns a destination button, for a passenger on the specified floor who
+     * wants to go to the destination floor.
+     *
+     * @param floor            the floor the passenger is waiting on
+     * @param destinationFloor the floor the passenger wants to go to
+     * @return a destination button with the direction of travel
+     * @throws IllegalArgumentException if the destination is the same floor or
+     *                                  is NO_DESTINATION
+     */
+    public static Button destination(int floor, int destinationFloor) {
+        if (destinationFloor == floor || destinationFloor == NO_DESTINATION) {
+            throw new IllegalArgumentException("Floor " + floor + " can not have the destination "
+                    + destinationFloor);
+        }
+        return new Button(floor, destinationFloor);
+    }
+
+    /**
+     * Returns a button for the specified floor and direction. The same instance
+     * is returned every time for floors from -128 to 1023, otherwise a new button
+     * is created.
+     *
+     * @param floor     the floor that corresponds to the button
+     * @param direction the direction that corresponds to the button
+     * @return a button for the floor and direction
+     */
+    public static Button of(int floor, Direction direction) {
+        if (floor >= LOWEST_CACHED_FLOOR && floor <= HIGHEST_CACHED_FLOOR) {
+            return CACHE[(floor - LOWEST_CACHED_FLOOR) * DIRECTIONS.length + direction.ordinal()];
+        }
+        return new Button(floor, direction);
+    }
+
+    private static Button[] createCache() {
+        Button[] cache = new Button[(HIGHEST_CACHED_FLOOR - LOWEST_CACHED_FLOOR + 1) * DIRECTIONS.length];
+        for (int floor = LOWEST_CACHED_FLOOR; floor <= HIGHEST_CACHED_FLOOR; floor++) {
+            for (Direction direction : DIRECTIONS) {
+                cache[(floor - LOWEST_CACHED_FLOOR) * DIRECTIONS.length + direction.ordinal()] = new Button(floor,
+                        direction);
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns whether this is a destination button, which carries the floor the
+     * passenger wants to go to.
+     *
+     * @return true if the button has a destination floor
+     */
+    public final boolean hasDestination() {
+        return destinationFloor != NO_DESTINATION;
+    }
+
+    private Object readResolve() {
+        return hasDestination() ? this : of(floor, direction);
     }
 
     @Override
@@ -37,12 +127,14 @@ public class Button {
             return false;
         Button button = (Button) o;
         return (floor == button.floor) &&
-                (direction == button.direction);
+                (direction == button.direction) &&
+                (destinationFloor == button.destinationFloor);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(floor, direction);
+        // Computed by hand, since Objects.hash boxes the fields into a new array
+        return 31 * (31 * floor + direction.ordinal()) + destinationFloor;
     }
 
     /**
@@ -51,6 +143,9 @@ public class Button {
      * following may be regarded as typical:
      * 
      * "Button{floor=1, direction=NONE}"
+     * <p>
+     * A destination button also shows its destination, such as
+     * "Button{floor=0, direction=UP, destinationFloor=12}".
      *
      * @return a string representation of the object
      */
@@ -59,6 +154,7 @@ public class Button {
         return "Button{" +
                 "floor=" + floor +
                 ", direction=" + direction +
+                (hasDestination() ? ", destinationFloor=" + destinationFloor : "") +
                 '}';
     }
 }
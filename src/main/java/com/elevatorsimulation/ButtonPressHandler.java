@@ -0,0 +1,22 @@
+package com.elevatorsimulation;
+
+/**
+ * ButtonPressHandler is an interface for anything that button presses can be
+ * sent to. An Elevator handles the presses for itself, whereas an
+ * ExternalScheduler handles the presses for a whole bank of elevators and
+ * hands them out to the individual elevators.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public interface ButtonPressHandler {
+    /**
+     * Processes the pressing of an elevator button. A direction of NONE represents
+     * an internal button press. Anything other than NONE for direction represents
+     * an external button press.
+     *
+     * @param button the button that was pressed which contains information for the
+     *               requested floor number and the requested direction
+     */
+    public void pressElevatorButton(Button button);
+}
@@ -0,0 +1,58 @@
+package com.elevatorsimulation;
+
+/**
+ * ButtonPressSource is an interface for a sequence of button presses that a
+ * ButtonPresser executes. The source works like a cursor: next() moves to the
+ * next button press, and the getters then describe that button press until
+ * next() is called again. This lets sources produce button presses one at a
+ * time instead of holding all of them in memory.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public interface ButtonPressSource {
+    /**
+     * Moves to the next button press.
+     *
+     * @return whether there was another button press, false once the source has
+     *         run out of button presses
+     */
+    public boolean next();
+
+    /**
+     * Returns the requested floor of the current button press.
+     *
+     * @return the requested floor
+     */
+    public int getFloor();
+
+    /**
+     * Returns the requested direction of the current button press. NONE
+     * represents an internal button press.
+     *
+     * @return the requested direction
+     */
+    public Direction getDirection();
+
+    /**
+     * Returns the destination floor of the current button press, if it is the
+     * press of a destination button. The direction is then UP or DOWN, towards
+     * the destination.
+     * <p>
+     * The default implementation returns Button.NO_DESTINATION, for a source
+     * that only has conventional button presses.
+     *
+     * @return the destination floor, or Button.NO_DESTINATION
+     */
+    public default int getDestinationFloor() {
+        return Button.NO_DESTINATION;
+    }
+
+    /**
+     * Returns how long to wait after the previous button press before executing
+     * the current one.
+     *
+     * @return the delay before pressing, in milliseconds
+     */
+    public long getDelayBeforePressing();
+}
@@ -1,37 +1,49 @@
 package com.elevatorsimulation;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.*;
 
 /**
  * ButtonPresser is a class for simulating a person pressing buttons for an
- * elevator. A ButtonPresser object reads in ButtonPressEvents from the
- * specified csv file. Currently the csv file is:
+ * elevator. The button presses come from a ButtonPressSource. By default a
+ * ButtonPresser object streams the button presses from the csv file
+ * DEFAULT_CSV_FILE using a MappedCsvButtonPressSource. Currently the csv file
+ * is:
  * "src/main/resources/buttonPresser.csv"
  * <p>
  * ButtonPresser implements the Runnable interface so it can be executed with a
  * Thread. Once started with a Thread, the object will loop through all
- * ButtonPressEvents that were read in and execute them sequentially, sleeping
- * in between events using the delay time for each ButtonPressEvent.
+ * button presses of the source and execute them sequentially, sleeping in
+ * between events using the delay time for each button press.
  * <p>
- * A ButtonPresser object acts on a single Elevator. Multiple ButtonPresser
- * objects are required to simulate multiple elevators.
+ * A ButtonPresser object acts on a single ButtonPressHandler. This is either
+ * a single Elevator, or an ExternalScheduler that hands the button presses out
+ * to a bank of elevators.
+ * <p>
+ * A ButtonPresser is Serializable as long as its handler and source are, so a
+ * DiscreteEventSimulation can be saved in a SimulationCheckpoint part way
+ * through the button presses.
  *
  * @author Michael Zigment
  * @version 1.0
  */
-public class ButtonPresser implements Runnable {
+public class ButtonPresser implements Runnable, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The csv file that the button presses are read from by default.
+     */
+    public static final String DEFAULT_CSV_FILE = "src/main/resources/buttonPresser.csv";
 
     private static final Logger LOGGER = Logger.getLogger(ButtonPresser.class.getName());
-    private final List<ButtonPressEvent> buttonPressEvents;
-    private final Elevator myElevator;
+    private final ButtonPressSource buttonPressSource;
+    private final ButtonPressHandler myElevator;
+
+    static final class ButtonPressEvent implements Serializable {
+        private static final long serialVersionUID = 1L;
 
-    private final class ButtonPressEvent {
         public final Button button;
         public final long delayBeforePressing; // milliseconds
 
@@ -50,7 +62,23 @@ public class ButtonPresser implements Runnable {
          *                            press
          */
         public ButtonPressEvent(int floor, Direction direction, long delayBeforePressing) {
-            button = new Button(floor, direction);
+            button = Button.of(floor, direction);
+            this.delayBeforePressing = delayBeforePressing;
+        }
+
+        /**
+         * Class constructor for the press of a destination button, specifying the
+         * floor the passenger is on, the floor they want to go to, and how long to
+         * wait after the previous event to execute the button press.
+         *
+         * @param floor               the floor of the destination button
+         * @param destinationFloor    the floor the passenger wants to go to
+         * @param delayBeforePressing the amount of time (in milliseconds) to wait after
+         *                            the previous event before executing the button
+         *                            press
+         */
+        public ButtonPressEvent(int floor, int destinationFloor, long delayBeforePressing) {
+            button = Button.destination(floor, destinationFloor);
             this.delayBeforePressing = delayBeforePressing;
         }
 
@@ -74,61 +102,135 @@ public class ButtonPresser implements Runnable {
     }
 
     /**
-     * Class constructor specifying the elevator that will have button press events
-     * executed on it.
+     * A ButtonPressSource over a list of ButtonPressEvents that are held in
+     * memory.
+     */
+    private static final class ButtonPressEventList implements ButtonPressSource, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final List<ButtonPressEvent> buttonPressEvents;
+        private int index;
+
+        public ButtonPressEventList(List<ButtonPressEvent> buttonPressEvents) {
+            this.buttonPressEvents = buttonPressEvents;
+            index = -1;
+        }
+
+        @Override
+        public boolean next() {
+            if (index + 1 >= buttonPressEvents.size()) {
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        @Override
+        public int getFloor() {
+            return buttonPressEvents.get(index).button.floor;
+        }
+
+        @Override
+        public Direction getDirection() {
+            return buttonPressEvents.get(index).button.direction;
+        }
+
+        @Override
+        public int getDestinationFloor() {
+            return buttonPressEvents.get(index).button.destinationFloor;
+        }
+
+        @Override
+        public long getDelayBeforePressing() {
+            return buttonPressEvents.get(index).delayBeforePressing;
+        }
+    }
+
+    /**
+     * Class constructor specifying the elevator (or bank of elevators) that will
+     * have button press events executed on it.
      *
      * @param elevator the elevator that will have button presses simulated on it
      */
-    public ButtonPresser(Elevator elevator) {
+    public ButtonPresser(ButtonPressHandler elevator) {
+        this(elevator, new MappedCsvButtonPressSource(DEFAULT_CSV_FILE));
+    }
+
+    /**
+     * Class constructor specifying the elevator (or bank of elevators) and the
+     * source of the button presses to execute on it.
+     *
+     * @param elevator          the elevator that will have button presses
+     *                          simulated on it
+     * @param buttonPressSource the source of the button presses to execute
+     */
+    public ButtonPresser(ButtonPressHandler elevator, ButtonPressSource buttonPressSource) {
         myElevator = elevator;
-        buttonPressEvents = new ArrayList<>();
-        readInEvents();
+        this.buttonPressSource = buttonPressSource;
+    }
+
+    /**
+     * Class constructor specifying the elevator and the button press events to
+     * execute on it, instead of reading them in from the csv file.
+     *
+     * @param elevator          the elevator that will have button presses
+     *                          simulated on it
+     * @param buttonPressEvents the button press events to execute, in order
+     */
+    ButtonPresser(ButtonPressHandler elevator, List<ButtonPressEvent> buttonPressEvents) {
+        this(elevator, new ButtonPressEventList(new ArrayList<>(buttonPressEvents)));
     }
 
     /**
      * Defines the code that will be executed when a thread starts. Loops through
-     * all ButtonPressEvents that were read in from the csv file and sequentially
-     * executes them using the delay time to sleep between events.
+     * all button presses of the source and sequentially executes them using the
+     * delay time to sleep between events.
      */
     @Override
     public void run() {
         try {
-            for (ButtonPressEvent buttonPress : buttonPressEvents) {
-                Thread.sleep(buttonPress.delayBeforePressing);
+            while (buttonPressSource.next()) {
+                Thread.sleep(buttonPressSource.getDelayBeforePressing());
 
-                myElevator.pressElevatorButton(buttonPress.button);
+                pressCurrentButton();
             }
         } catch (InterruptedException e) {
             LOGGER.info("Interrupted ButtonPresser");
         }
     }
 
-    private void readInEvents() {
-        String csvFile = "src/main/resources/buttonPresser.csv";
-
-        LOGGER.info("Reading in file '" + csvFile + "'...");
+    /**
+     * Returns the source of the button presses. This is used by the
+     * DiscreteEventSimulation to schedule the button presses in simulated time
+     * instead of sleeping between them.
+     *
+     * @return the source of the button presses
+     */
+    ButtonPressSource getButtonPressSource() {
+        return buttonPressSource;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
+    /**
+     * Returns the elevator (or bank of elevators) that the button presses are
+     * executed on.
+     *
+     * @return the handler of the button presses
+     */
+    ButtonPressHandler getButtonPressHandler() {
+        return myElevator;
+    }
 
-                if (values.length == 3) {
-                    ButtonPressEvent myEvent = new ButtonPressEvent(Integer.parseInt(values[0].trim()),
-                            Direction.valueOf(values[1].trim()), Long.parseLong(values[2].trim()));
-                    buttonPressEvents.add(myEvent);
-                } else {
-                    LOGGER.severe("Wrong number of fields found! Expected 3 but got " +
-                            values.length);
-                }
-            }
-        } catch (FileNotFoundException e) {
-            LOGGER.severe("Could not open file '" + csvFile + "'! ");
-            e.printStackTrace();
-        } catch (IOException e) {
-            LOGGER.severe("Error reading '" + csvFile + "'!");
-            e.printStackTrace();
+    /**
+     * Executes the current button press of the source on the elevator. A
+     * destination button is pressed if the source has a destination for it.
+     */
+    void pressCurrentButton() {
+        int destinationFloor = buttonPressSource.getDestinationFloor();
+        if (destinationFloor != Button.NO_DESTINATION) {
+            myElevator.pressElevatorButton(Button.destination(buttonPressSource.getFloor(), destinationFloor));
+        } else {
+            myElevator.pressElevatorButton(Button.of(buttonPressSource.getFloor(),
+                    buttonPressSource.getDirection()));
         }
-        LOGGER.info("Done reading file.");
     }
 }
@@ -0,0 +1,202 @@
+package com.elevatorsimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.*;
+
+/**
+ * CheckpointWriter is a class that writes SimulationCheckpoints to a file on a
+ * background thread, so compressing and writing a checkpoint never holds up the
+ * simulation.
+ * <p>
+ * The writer only has room for one checkpoint that is waiting to be written.
+ * If a new checkpoint is submitted before the previous one has been written,
+ * the previous one is dropped, since only the latest checkpoint is of any use.
+ * Each checkpoint replaces the file as a whole, so the file always holds the
+ * latest complete checkpoint.
+ * <p>
+ * Closing the writer writes the checkpoint that is waiting, if there is one,
+ * and then stops the background thread.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class CheckpointWriter implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(CheckpointWriter.class.getName());
+
+    private final Path file;
+    private final ReentrantLock lock;
+    private final Condition changed;
+    private final Thread writer;
+    private SimulationCheckpoint pending;
+    private long checkpointsSubmitted;
+    private long checkpointsWritten;
+    private long checkpointsDropped;
+    private boolean closed;
+
+    /**
+     * Class constructor specifying the file to write the checkpoints to. The
+     * background thread is started straight away.
+     *
+     * @param file the checkpoint file
+     */
+    public CheckpointWriter(Path file) {
+        this.file = file;
+        lock = new ReentrantLock();
+        changed = lock.newCondition();
+        pending = null;
+        checkpointsSubmitted = 0;
+        checkpointsWritten = 0;
+        checkpointsDropped = 0;
+        closed = false;
+
+        writer = new Thread(this::writeCheckpoints, "checkpoint-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Hands a checkpoint to the background thread to be written, replacing any
+     * checkpoint that has not been written yet. This never waits for a write.
+     *
+     * @param checkpoint the checkpoint to write
+     */
+    public void submit(SimulationCheckpoint checkpoint) {
+        lock.lock();
+        try {
+            if (closed) {
+                LOGGER.warning("Dropping a checkpoint submitted after the writer was closed.");
+                return;
+            }
+            if (pending != null) {
+                checkpointsDropped++;
+            }
+            pending = checkpoint;
+            checkpointsSubmitted++;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many checkpoints have been submitted so far.
+     *
+     * @return the number of submitted checkpoints
+     */
+    public long getCheckpointsSubmitted() {
+        lock.lock();
+        try {
+            return checkpointsSubmitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many checkpoints have been written to the file so far.
+     *
+     * @return the number of written checkpoints
+     */
+    public long getCheckpointsWritten() {
+        lock.lock();
+        try {
+            return checkpointsWritten;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the specified number of checkpoints have been submitted and
+     * every one of them has been written, replaced by a later one or failed. This
+     * is used by a shutdown hook that has requested a checkpoint, to give it time
+     * to reach the file.
+     *
+     * @param checkpointsSubmitted the number of submitted checkpoints to wait for
+     * @param timeoutInMs          the longest time to wait, in milliseconds
+     * @return true if the checkpoints were dealt with in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitCheckpoints(long checkpointsSubmitted, long timeoutInMs) throws InterruptedException {
+        long remainingInNs = TimeUnit.MILLISECONDS.toNanos(timeoutInMs);
+        lock.lock();
+        try {
+            while (this.checkpointsSubmitted < checkpointsSubmitted
+                    || checkpointsWritten + checkpointsDropped < checkpointsSubmitted) {
+                if (remainingInNs <= 0) {
+                    return false;
+                }
+                remainingInNs = changed.awaitNanos(remainingInNs);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the checkpoint that is waiting, if there is one, and stops the
+     * background thread.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeCheckpoints() {
+        while (true) {
+            SimulationCheckpoint checkpoint;
+            lock.lock();
+            try {
+                while (pending == null && !closed) {
+                    changed.awaitUninterruptibly();
+                }
+                if (pending == null) {
+                    return;
+                }
+                checkpoint = pending;
+                pending = null;
+            } finally {
+                lock.unlock();
+            }
+
+            boolean written = false;
+            try {
+                checkpoint.writeTo(file);
+                written = true;
+                LOGGER.info("Wrote checkpoint at " + (checkpoint.getSimulatedTimeInMs() * 0.001)
+                        + " simulated seconds to '" + file + "'.");
+            } catch (IOException e) {
+                LOGGER.severe("Could not write checkpoint to '" + file + "': " + e.getMessage());
+            }
+
+            lock.lock();
+            try {
+                if (written) {
+                    checkpointsWritten++;
+                } else {
+                    checkpointsDropped++;
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DestinationDispatchExternalScheduler is a class that implements the
+ * ExternalScheduler interface for a bank of elevators with destination
+ * dispatch. Instead of UP and DOWN buttons, passengers enter their destination
+ * on a keypad on their floor, and are told which elevator to take. Because the
+ * scheduler knows where every passenger is going before they are picked up,
+ * it can group passengers that are going to the same or nearby floors into the
+ * same trip, so each elevator makes fewer stops on its way.
+ * <p>
+ * A trip is the passengers that an elevator will pick up on one floor to go in
+ * one direction, along with their destinations. A passenger is given to the
+ * elevator with the lowest estimated cost, which is the time for the elevator
+ * to reach them (estimated the same way as by a NearestCarExternalScheduler)
+ * plus the time they add to the trips of the elevator. A destination that one
+ * of the trips already stops at adds nothing, and any other destination adds a
+ * stop and the distance from the nearest floor the trips stop at. Starting a
+ * new trip, rather than joining the one the elevator already has from the
+ * floor of the passenger, also adds the stop to pick them up. A trip holds at
+ * most the capacity of the elevator, and a passenger is only put into a full
+ * trip if every elevator is full. Once the elevator picks the passengers up, it
+ * presses the buttons for their destinations itself, and the trip is over.
+ * <p>
+ * Passengers are never reassigned to another elevator, since they have
+ * already been told which one to take.
+ * <p>
+ * Conventional UP and DOWN button presses, and internal button presses, are
+ * handed to a NearestCarExternalScheduler for the same bank, so a building can
+ * have both kinds of hall calls. The two schedulers do not see each other's
+ * requests.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class DestinationDispatchExternalScheduler implements ExternalScheduler, ElevatorListener, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of passengers an elevator takes on one trip if no capacity is
+     * given.
+     */
+    public static final int DEFAULT_CAR_CAPACITY = 12;
+
+    private static final class Trip implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public final int origin;
+        public final Direction direction;
+        public int passengers;
+        public int[] destinations;
+        public int destinationCount;
+
+        public Trip(int origin, Direction direction) {
+            this.origin = origin;
+            this.direction = direction;
+            passengers = 0;
+            destinations = new int[4];
+            destinationCount = 0;
+        }
+
+        public int distanceToNearestStop(int floor) {
+            int distance = Integer.MAX_VALUE;
+            for (int i = 0; i < destinationCount; i++) {
+                distance = Math.min(distance, Math.abs(destinations[i] - floor));
+            }
+            return distance;
+        }
+
+        public void addPassenger(int destination) {
+            passengers++;
+            if (distanceToNearestStop(destination) == 0) {
+                return;
+            }
+            if (destinationCount == destinations.length) {
+                destinations = Arrays.copyOf(destinations, destinationCount * 2);
+            }
+            destinations[destinationCount++] = destination;
+        }
+    }
+
+    private static final class Car implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public final NearestCarExternalScheduler.ElevatorState state;
+        public final List<Trip> trips;
+
+        public Car(Elevator elevator) {
+            state = new NearestCarExternalScheduler.ElevatorState(elevator);
+            trips = new ArrayList<>();
+        }
+
+        public Trip findTrip(int origin, Direction direction) {
+            for (Trip trip : trips) {
+                if (trip.origin == origin && trip.direction == direction) {
+                    return trip;
+                }
+            }
+            return null;
+        }
+
+        public int distanceToNearestStop(int floor) {
+            int distance = Integer.MAX_VALUE;
+            for (Trip trip : trips) {
+                distance = Math.min(distance, trip.distanceToNearestStop(floor));
+            }
+            return distance;
+        }
+    }
+
+    private final List<Elevator> elevators;
+    private final List<Car> cars;
+    private final Map<Elevator, Car> carsByElevator;
+    private final NearestCarExternalScheduler conventionalScheduler;
+    private final int carCapacity;
+    private final SimulationClock clock;
+    private final ReentrantLock lock;
+    private transient volatile EventSink eventSink;
+
+    /**
+     * Class constructor specifying the bank of elevators to schedule, which
+     * take DEFAULT_CAR_CAPACITY passengers on a trip.
+     *
+     * @param elevators the elevators in the bank
+     * @throws IllegalArgumentException if no elevators are given
+     */
+    public DestinationDispatchExternalScheduler(List<Elevator> elevators) {
+        this(elevators, DEFAULT_CAR_CAPACITY);
+    }
+
+    /**
+     * Class constructor specifying the bank of elevators to schedule and how many
+     * passengers an elevator takes on one trip. The scheduler registers itself as
+     * a listener on each of the elevators. Requests are timestamped with the
+     * clock of the first elevator.
+     *
+     * @param elevators   the elevators in the bank
+     * @param carCapacity the number of passengers in a trip
+     * @throws IllegalArgumentException if no elevators are given or the capacity
+     *                                  is not positive
+     */
+    public DestinationDispatchExternalScheduler(List<Elevator> elevators, int carCapacity) {
+        if (carCapacity <= 0) {
+            throw new IllegalArgumentException("The car capacity must be positive but was " + carCapacity);
+        }
+        conventionalScheduler = new NearestCarExternalScheduler(elevators);
+
+        this.elevators = Collections.unmodifiableList(new ArrayList<>(elevators));
+        cars = new ArrayList<>();
+        carsByElevator = new IdentityHashMap<>();
+        for (Elevator elevator : elevators) {
+            Car car = new Car(elevator);
+            cars.add(car);
+            carsByElevator.put(elevator, car);
+            elevator.addElevatorListener(this);
+        }
+        this.carCapacity = carCapacity;
+        clock = elevators.get(0).getClock();
+        lock = new ReentrantLock();
+        eventSink = EventSink.NONE;
+    }
+
+    /**
+     * Sets where the scheduler publishes the SimulationEvents that describe its
+     * decisions. By default the events are discarded. The sink is not part of a
+     * SimulationCheckpoint, so it has to be set again after resuming.
+     *
+     * @param eventSink the sink to publish events to
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+        conventionalScheduler.setEventSink(eventSink);
+    }
+
+    @Override
+    public List<Elevator> getElevators() {
+        return elevators;
+    }
+
+    /**
+     * Returns the elevator that an external button press is currently assigned
+     * to. A destination button is assigned to the elevator with a trip from its
+     * floor to its destination that has not picked its passengers up yet.
+     *
+     * @param button the external button that was pressed
+     * @return the elevator that will satisfy the button press, or null if the
+     *         button is not currently pressed
+     */
+    @Override
+    public Elevator getAssignedElevator(Button button) {
+        if (!button.hasDestination()) {
+            return conventionalScheduler.getAssignedElevator(button);
+        }
+
+        lock.lock();
+        try {
+            for (Car car : cars) {
+                Trip trip = car.findTrip(button.floor, button.direction);
+                if (trip != null && trip.distanceToNearestStop(button.destinationFloor) == 0) {
+                    return car.state.elevator;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of passengers waiting to be picked up by the elevator.
+     *
+     * @param elevator one of the elevators in the bank
+     * @return the number of passengers in the trips of the elevator
+     */
+    public int getWaitingPassengers(Elevator elevator) {
+        lock.lock();
+        try {
+            int passengers = 0;
+            for (Trip trip : carsByElevator.get(elevator).trips) {
+                passengers += trip.passengers;
+            }
+            return passengers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Processes the pressing of a button for the bank. Every press of a
+     * destination button is a passenger, who is put into the trip of the
+     * elevator with the lowest estimated cost. Any other button press is handed
+     * to the conventional scheduler.
+     *
+     * @param button the button that was pressed
+     */
+    @Override
+    public void pressElevatorButton(Button button) {
+        if (!button.hasDestination()) {
+            conventionalScheduler.pressElevatorButton(button);
+            return;
+        }
+
+        lock.lock();
+        try {
+            eventSink.publish(SimulationEvent.DESTINATION_CALL_PRESSED, 0, button.floor, button.direction,
+                    button.destinationFloor);
+
+            Request request = new Request(button.floor, button.destinationFloor, clock.nanoTime());
+            Car best = chooseCar(request, false);
+            if (best == null) {
+                best = chooseCar(request, true);
+            }
+
+            Trip trip = best.findTrip(button.floor, button.direction);
+            if (trip == null) {
+                trip = new Trip(button.floor, button.direction);
+                best.trips.add(trip);
+                best.state.assignedRequests++;
+            }
+            trip.addPassenger(button.destinationFloor);
+            NearestCarExternalScheduler.addStop(best.state, button.floor);
+            NearestCarExternalScheduler.addStop(best.state, button.destinationFloor);
+            best.state.elevator.assignRequest(request);
+
+            eventSink.publish(SimulationEvent.DESTINATION_CALL_ASSIGNED, best.state.elevator.getId(), button.floor,
+                    button.direction, button.destinationFloor);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Car chooseCar(Request request, boolean ignoreCapacity) {
+        Car best = null;
+        long bestCost = Long.MAX_VALUE;
+        for (Car car : cars) {
+            Trip trip = car.findTrip(request.getFloorNumber(), request.getDesiredDirection());
+            if (trip != null && trip.passengers >= carCapacity && !ignoreCapacity) {
+                continue;
+            }
+
+            long cost = estimateCost(car, trip, request);
+            if (cost < bestCost) {
+                best = car;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Estimates how long (in milliseconds) the passenger of the request would
+     * take to be picked up by the elevator, plus how long they would add to the
+     * trips of the elevator.
+     *
+     * @param car     the elevator
+     * @param trip    the trip of the elevator from the floor of the request, or
+     *                null if it does not have one
+     * @param request the request of the passenger
+     * @return the estimated cost of giving the passenger to the elevator
+     */
+    private static long estimateCost(Car car, Trip trip, Request request) {
+        Elevator elevator = car.state.elevator;
+        long waitTime = elevator.getTimeToWaitForPassengersInMs();
+        long cost = NearestCarExternalScheduler.estimateCost(car.state, request, trip != null);
+        if (trip == null) {
+            cost += waitTime;
+        }
+
+        int distance = car.distanceToNearestStop(request.getDestinationFloor());
+        if (distance == Integer.MAX_VALUE) {
+            cost += waitTime;
+        } else if (distance > 0) {
+            cost += waitTime + distance * elevator.getTimeToTravelBetweenFloorsInMs();
+        }
+        return cost;
+    }
+
+    @Override
+    public void onFloorChanged(Elevator elevator, int floor) {
+        lock.lock();
+        try {
+            NearestCarExternalScheduler.moveTo(carsByElevator.get(elevator).state, floor);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a picked up passenger out of their trip, and ends the trip once all
+     * of its passengers have been picked up.
+     *
+     * @param elevator the elevator that satisfied the request
+     * @param request  the request that was satisfied
+     */
+    @Override
+    public void onRequestCompleted(Elevator elevator, Request request) {
+        if (!request.hasDestination()) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            Car car = carsByElevator.get(elevator);
+            Trip trip = car.findTrip(request.getFloorNumber(), request.getDesiredDirection());
+            if (trip == null) {
+                return;
+            }
+
+            trip.passengers--;
+            if (trip.passengers == 0) {
+                car.trips.remove(trip);
+                car.state.assignedRequests--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onIdle(Elevator elevator) {
+        lock.lock();
+        try {
+            NearestCarExternalScheduler.becomeIdle(carsByElevator.get(elevator).state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        eventSink = EventSink.NONE;
+    }
+}
@@ -0,0 +1,478 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.*;
+
+/**
+ * DiscreteEventSimulation is a class for running the simulation as fast as
+ * possible instead of in real time. Rather than having the Elevator and
+ * ButtonPresser threads sleep, a VirtualClock is advanced from one timestamped
+ * event to the next. The events are kept in a priority queue ordered by time,
+ * with ties broken by the order the events were scheduled in. Events are reused
+ * once they have been processed, so a long replay does not allocate an event
+ * for every step of every elevator.
+ * <p>
+ * The events mirror the sleeps of the real time mode exactly:
+ * <ul>
+ * <li>BUTTON_PRESS - the delay of a ButtonPressEvent has elapsed</li>
+ * <li>IDLE_CHECK - an idle elevator wakes up because it was given a
+ * request</li>
+ * <li>FLOOR_ARRIVAL - an elevator finished travelling one floor</li>
+ * <li>PASSENGERS_LOADED - an elevator finished waiting for passengers</li>
+ * <li>SCHEDULED_PRESS - a button press that was scheduled from outside the
+ * simulation, such as passengers arriving from another bank of a
+ * ShardedSimulation, is due</li>
+ * </ul>
+ * Opening and closing the doors takes no time in the real time mode, so the
+ * doors are opened as part of FLOOR_ARRIVAL and closed as part of
+ * PASSENGERS_LOADED. An idle elevator wakes up as soon as it is given a
+ * request, like the real time elevator thread does when it is signalled, so the
+ * simulated timings and the resulting statistics are the same as in the real
+ * time mode.
+ * <p>
+ * The elevators must have been constructed with the same VirtualClock that is
+ * given to the simulation. A simulation can only be run once, although it can
+ * be stopped at a simulated time with runUntil and then carried on.
+ * <p>
+ * The simulation and everything it simulates are Serializable, so between two
+ * events the whole state can be copied into a SimulationCheckpoint. Given a
+ * CheckpointWriter, the simulation takes a checkpoint at a fixed interval of
+ * wall clock time, or whenever one is requested from another thread. Taking a
+ * checkpoint only copies the state on the simulation thread, and the copy is
+ * compressed and written out by the CheckpointWriter on its own thread. A
+ * restored simulation carries on from the next event exactly as the original
+ * would have, so its statistics come out the same.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class DiscreteEventSimulation implements Runnable, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(DiscreteEventSimulation.class.getName());
+    // The wall clock is only checked for a periodic checkpoint every 1024 events
+    private static final long CHECKPOINT_CHECK_MASK = 1024 - 1;
+
+    private enum EventType {
+        BUTTON_PRESS,
+        IDLE_CHECK,
+        FLOOR_ARRIVAL,
+        PASSENGERS_LOADED,
+        SCHEDULED_PRESS
+    }
+
+    private static final class Event implements Comparable<Event>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public long time; // milliseconds
+        public long sequence;
+        public EventType type;
+        public ElevatorProcess elevatorProcess;
+        public ButtonPressHandler buttonPressHandler;
+        public Button button;
+        public Event nextFree;
+
+        @Override
+        public int compareTo(Event other) {
+            if (time != other.time) {
+                return Long.compare(time, other.time);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Holds the state of an elevator between events, which in the real time mode
+     * is held on the stack of the elevator thread. It listens to its elevator so
+     * that, when an idle elevator is given a request, it can put itself on the
+     * list of elevators to wake up.
+     */
+    private static final class ElevatorProcess implements ElevatorListener, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final Elevator elevator;
+        public final int index;
+        public final List<ElevatorProcess> elevatorsToWakeUp;
+        public Request currentRequest;
+        public boolean idle;
+        public boolean wakeUpScheduled;
+
+        public ElevatorProcess(Elevator elevator, int index, List<ElevatorProcess> elevatorsToWakeUp) {
+            this.elevator = elevator;
+            this.index = index;
+            this.elevatorsToWakeUp = elevatorsToWakeUp;
+            idle = true;
+            wakeUpScheduled = false;
+        }
+
+        public void becomeIdle() {
+            idle = true;
+            if (elevator.hasRequests()) {
+                onRequestAdded(elevator);
+            }
+        }
+
+        @Override
+        public void onRequestAdded(Elevator elevator) {
+            if (idle && !wakeUpScheduled) {
+                wakeUpScheduled = true;
+                elevatorsToWakeUp.add(this);
+            }
+        }
+
+        @Override
+        public void onFloorChanged(Elevator elevator, int floor) {
+        }
+
+        @Override
+        public void onRequestCompleted(Elevator elevator, Request request) {
+        }
+
+        @Override
+        public void onIdle(Elevator elevator) {
+        }
+    }
+
+    private final VirtualClock clock;
+    private final ButtonPresser buttonPresser;
+    private final ButtonPressSource buttonPressSource;
+    private final List<ElevatorProcess> elevatorProcesses;
+    private final List<ElevatorProcess> elevatorsToWakeUp;
+    private final PriorityQueue<Event> events;
+    private transient Event freeEvents;
+    private long nextSequence;
+    private long eventsProcessed;
+    private boolean started;
+    private transient CheckpointWriter checkpointWriter;
+    private transient long checkpointIntervalInNs;
+    private transient long nextCheckpointInNs;
+    private transient volatile boolean checkpointRequested;
+
+    /**
+     * Class constructor specifying the clock to advance, the button presser that
+     * provides the button press events and the elevators that are simulated.
+     *
+     * @param clock         the clock that the elevators were constructed with
+     * @param buttonPresser the button presser whose events will be executed
+     * @param elevators     the elevators to simulate
+     */
+    public DiscreteEventSimulation(VirtualClock clock, ButtonPresser buttonPresser, Elevator... elevators) {
+        this.clock = clock;
+        this.buttonPresser = buttonPresser;
+        buttonPressSource = buttonPresser.getButtonPressSource();
+        elevatorProcesses = new ArrayList<>();
+        elevatorsToWakeUp = new ArrayList<>();
+        for (Elevator elevator : elevators) {
+            ElevatorProcess process = new ElevatorProcess(elevator, elevatorProcesses.size(), elevatorsToWakeUp);
+            elevator.addElevatorListener(process);
+            elevatorProcesses.add(process);
+        }
+        events = new PriorityQueue<>();
+        nextSequence = 0;
+        eventsProcessed = 0;
+        started = false;
+    }
+
+    /**
+     * Returns the elevators that are simulated.
+     *
+     * @return the simulated elevators, in the order they were given
+     */
+    public List<Elevator> getElevators() {
+        List<Elevator> elevators = new ArrayList<>();
+        for (ElevatorProcess process : elevatorProcesses) {
+            elevators.add(process.elevator);
+        }
+        return Collections.unmodifiableList(elevators);
+    }
+
+    /**
+     * Returns the button presser whose events are executed.
+     *
+     * @return the button presser of the simulation
+     */
+    ButtonPresser getButtonPresser() {
+        return buttonPresser;
+    }
+
+    /**
+     * Sets the writer that the checkpoints of the simulation are handed to, and
+     * how often a checkpoint is taken. The writer is not part of a checkpoint, so
+     * a restored simulation takes no checkpoints until it is given one.
+     *
+     * @param checkpointWriter the writer for the checkpoints, or null to stop
+     *                         taking them
+     * @param intervalInMs     how much wall clock time to leave between
+     *                         checkpoints, in milliseconds
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public void setCheckpointWriter(CheckpointWriter checkpointWriter, long intervalInMs) {
+        if (intervalInMs <= 0) {
+            throw new IllegalArgumentException("The checkpoint interval must be positive but was " + intervalInMs);
+        }
+        this.checkpointWriter = checkpointWriter;
+        checkpointIntervalInNs = intervalInMs * 1_000_000L;
+        nextCheckpointInNs = System.nanoTime() + checkpointIntervalInNs;
+    }
+
+    /**
+     * Asks for a checkpoint to be taken after the current event, rather than
+     * waiting for the interval to pass. This can be called from any thread, such
+     * as a shutdown hook. Nothing happens if there is no CheckpointWriter or the
+     * simulation is not running.
+     */
+    public void requestCheckpoint() {
+        checkpointRequested = true;
+    }
+
+    /**
+     * Returns the number of events that have been processed so far.
+     *
+     * @return the number of processed events
+     */
+    public long getEventsProcessed() {
+        return eventsProcessed;
+    }
+
+    /**
+     * Returns the simulated time in milliseconds.
+     *
+     * @return the current simulated time in milliseconds
+     */
+    public long getSimulatedTimeInMs() {
+        return clock.currentTimeInMs();
+    }
+
+    /**
+     * Returns the time of the next event, which is the earliest simulated time
+     * that runUntil would process anything at.
+     *
+     * @return the time of the next event in milliseconds, or Long.MAX_VALUE if
+     *         there are no events
+     */
+    public long getNextEventTimeInMs() {
+        return events.isEmpty() ? Long.MAX_VALUE : events.peek().time;
+    }
+
+    /**
+     * Schedules a button press that does not come from the ButtonPresser of the
+     * simulation. The button is pressed on the handler when the simulated time
+     * reaches the specified time, after any other events already scheduled for
+     * that time. A finished simulation can be carried on with runUntil once it
+     * has been given a button press.
+     *
+     * @param timeInMs           the simulated time in milliseconds to press the
+     *                           button at
+     * @param buttonPressHandler the handler to press the button on, such as one
+     *                           of the elevators or an ExternalScheduler
+     * @param button             the button to press
+     * @throws IllegalArgumentException if the time is before the current
+     *                                  simulated time
+     */
+    public void scheduleButtonPress(long timeInMs, ButtonPressHandler buttonPressHandler, Button button) {
+        if (timeInMs < clock.currentTimeInMs()) {
+            throw new IllegalArgumentException("Can not press a button at " + timeInMs
+                    + " ms, which is before the current time of " + clock.currentTimeInMs() + " ms");
+        }
+        Event event = schedule(timeInMs, EventType.SCHEDULED_PRESS, null);
+        event.buttonPressHandler = buttonPressHandler;
+        event.button = button;
+    }
+
+    /**
+     * Runs the simulation until all button press events have been executed and
+     * all requests have been processed by the elevators.
+     */
+    @Override
+    public void run() {
+        runUntil(Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs the simulation until the simulated time reaches the specified time,
+     * or until it has finished if that is sooner. Events at exactly that time are
+     * processed. Calling it again, or calling run, carries on from where it
+     * stopped, so a simulation can be warmed up to a time and then captured in a
+     * SimulationCheckpoint to fork several branches from.
+     *
+     * @param timeInMs the simulated time in milliseconds to stop at
+     * @return true if the simulation has finished, or false if there are still
+     *         events after the time
+     */
+    public boolean runUntil(long timeInMs) {
+        if (!started) {
+            started = true;
+            scheduleNextButtonPress();
+            // Requests given to the elevators before the simulation was built
+            for (ElevatorProcess process : elevatorProcesses) {
+                if (process.idle && process.elevator.hasRequests()) {
+                    process.onRequestAdded(process.elevator);
+                }
+            }
+            wakeUpIdleElevators();
+        }
+
+        while (!events.isEmpty() && events.peek().time <= timeInMs) {
+            Event event = events.poll();
+            clock.advanceTo(event.time);
+            eventsProcessed++;
+
+            switch (event.type) {
+                case BUTTON_PRESS:
+                    buttonPresser.pressCurrentButton();
+                    scheduleNextButtonPress();
+                    break;
+                case IDLE_CHECK:
+                    event.elevatorProcess.wakeUpScheduled = false;
+                    processNextRequest(event.elevatorProcess);
+                    break;
+                case FLOOR_ARRIVAL:
+                    travelOneFloor(event.elevatorProcess);
+                    break;
+                case PASSENGERS_LOADED:
+                    event.elevatorProcess.elevator.departFromFloor();
+                    processNextRequest(event.elevatorProcess);
+                    break;
+                case SCHEDULED_PRESS:
+                    event.buttonPressHandler.pressElevatorButton(event.button);
+                    break;
+                default:
+                    LOGGER.warning("Unknown event type: " + event.type);
+                    break;
+            }
+            recycle(event);
+
+            wakeUpIdleElevators();
+
+            if (checkpointWriter != null && (checkpointRequested
+                    || ((eventsProcessed & CHECKPOINT_CHECK_MASK) == 0 && System.nanoTime() >= nextCheckpointInNs))) {
+                takeCheckpoint();
+            }
+        }
+        return events.isEmpty();
+    }
+
+    /**
+     * Returns whether the simulation has finished, which is once all button
+     * presses have been executed and the elevators have processed all requests.
+     *
+     * @return true if the simulation has finished
+     */
+    public boolean isFinished() {
+        return started && events.isEmpty();
+    }
+
+    private void takeCheckpoint() {
+        checkpointRequested = false;
+        try {
+            checkpointWriter.submit(SimulationCheckpoint.capture(this));
+        } catch (IOException e) {
+            LOGGER.severe("Could not take a checkpoint: " + e.getMessage() + ". No more checkpoints will be taken.");
+            checkpointWriter = null;
+        }
+        nextCheckpointInNs = System.nanoTime() + checkpointIntervalInNs;
+    }
+
+    private void scheduleNextButtonPress() {
+        // The source is left on this button press until the BUTTON_PRESS event
+        // executes it, since only one button press is scheduled at a time
+        if (buttonPressSource.next()) {
+            schedule(clock.currentTimeInMs() + buttonPressSource.getDelayBeforePressing(),
+                    EventType.BUTTON_PRESS, null);
+        } else {
+            // All button presses have occurred, so signal the elevators to finish
+            for (ElevatorProcess process : elevatorProcesses) {
+                process.elevator.terminate();
+            }
+        }
+    }
+
+    private void processNextRequest(ElevatorProcess process) {
+        Elevator elevator = process.elevator;
+        if (!elevator.hasRequests()) {
+            process.idle = true;
+            return;
+        }
+
+        process.idle = false;
+        process.currentRequest = elevator.beginNextRequest();
+        if (process.currentRequest == null) {
+            process.becomeIdle();
+            return;
+        }
+        scheduleTravelOrArrival(process);
+    }
+
+    private void travelOneFloor(ElevatorProcess process) {
+        process.currentRequest = process.elevator.travelOneFloorTowardsDestination(process.currentRequest);
+        scheduleTravelOrArrival(process);
+    }
+
+    private void scheduleTravelOrArrival(ElevatorProcess process) {
+        Elevator elevator = process.elevator;
+        if (elevator.getCurrentFloor() != process.currentRequest.getFloorNumber()) {
+            schedule(clock.currentTimeInMs() + elevator.getTimeToTravelBetweenFloorsInMs(),
+                    EventType.FLOOR_ARRIVAL, process);
+        } else {
+            elevator.arrivedAtDestination(process.currentRequest);
+            process.currentRequest = null;
+            schedule(clock.currentTimeInMs() + elevator.getTimeToWaitForPassengersInMs(),
+                    EventType.PASSENGERS_LOADED, process);
+        }
+    }
+
+    /**
+     * Schedules an immediate wake up for every idle elevator that has been given
+     * a request. The wake up is scheduled as an event, rather than processed
+     * straight away, so it happens after everything else that was already
+     * scheduled for the current time. Only the elevators that put themselves on
+     * the list are looked at, and they are woken up in the order they were given
+     * to the simulation so that the order of the events does not depend on which
+     * was given a request first.
+     */
+    private void wakeUpIdleElevators() {
+        if (elevatorsToWakeUp.isEmpty()) {
+            return;
+        }
+        if (elevatorsToWakeUp.size() > 1) {
+            elevatorsToWakeUp.sort((first, second) -> Integer.compare(first.index, second.index));
+        }
+        for (ElevatorProcess process : elevatorsToWakeUp) {
+            // The request may have been taken away again, such as by an ExternalScheduler
+            if (process.elevator.hasRequests()) {
+                schedule(clock.currentTimeInMs(), EventType.IDLE_CHECK, process);
+            } else {
+                process.wakeUpScheduled = false;
+            }
+        }
+        elevatorsToWakeUp.clear();
+    }
+
+    private Event schedule(long time, EventType type, ElevatorProcess process) {
+        Event event = freeEvents;
+        if (event != null) {
+            freeEvents = event.nextFree;
+            event.nextFree = null;
+        } else {
+            event = new Event();
+        }
+        event.time = time;
+        event.sequence = nextSequence++;
+        event.type = type;
+        event.elevatorProcess = process;
+        events.add(event);
+        return event;
+    }
+
+    private void recycle(Event event) {
+        event.elevatorProcess = null;
+        event.buttonPressHandler = null;
+        event.button = null;
+        event.nextFree = freeEvents;
+        freeEvents = event;
+    }
+}
@@ -0,0 +1,45 @@
+package com.elevatorsimulation;
+
+import java.util.List;
+
+/**
+ * The ways the hall calls of a bank of elevators can work. Each mode knows
+ * how to create the ButtonPressHandler that the hall calls are pressed on.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public enum DispatchMode {
+    /**
+     * Passengers press UP or DOWN on their floor, and press the button for their
+     * destination once they are inside the elevator. A bank of elevators is
+     * scheduled by a NearestCarExternalScheduler.
+     */
+    CONVENTIONAL {
+        @Override
+        public ButtonPressHandler createButtonPressHandler(List<Elevator> elevators) {
+            return (elevators.size() == 1) ? elevators.get(0) : new NearestCarExternalScheduler(elevators);
+        }
+    },
+
+    /**
+     * Passengers enter their destination on their floor, and are told which
+     * elevator to take. A bank of elevators is scheduled by a
+     * DestinationDispatchExternalScheduler.
+     */
+    DESTINATION {
+        @Override
+        public ButtonPressHandler createButtonPressHandler(List<Elevator> elevators) {
+            return (elevators.size() == 1) ? elevators.get(0) : new DestinationDispatchExternalScheduler(elevators);
+        }
+    };
+
+    /**
+     * Creates the handler for the button presses of the elevators. A single
+     * elevator handles its own button presses.
+     *
+     * @param elevators the elevators in the bank
+     * @return the elevator, or an ExternalScheduler for a bank of elevators
+     */
+    public abstract ButtonPressHandler createButtonPressHandler(List<Elevator> elevators);
+}
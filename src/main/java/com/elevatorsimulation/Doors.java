@@ -1,5 +1,9 @@
 package com.elevatorsimulation;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
 /**
  * Doors is a class for simulating the current state and operations of the doors
  * of an elevator. The doors can open and they can close.
@@ -7,19 +11,36 @@ package com.elevatorsimulation;
  * @author Michael Zigment
  * @version 1.0
  */
-public class Doors {
+public class Doors implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private enum DoorState {
         OPEN,
         CLOSED
     }
 
     private DoorState doorState;
+    private transient EventSink eventSink;
+    private int elevatorId;
 
     /**
      * Class constructor.
      */
     public Doors() {
         doorState = DoorState.CLOSED;
+        eventSink = EventSink.NONE;
+        elevatorId = 0;
+    }
+
+    /**
+     * Sets where the doors publish the DOORS_OPENED and DOORS_CLOSED events.
+     *
+     * @param eventSink  the sink to publish door events to
+     * @param elevatorId the id of the elevator the doors belong to
+     */
+    public void setEventSink(EventSink eventSink, int elevatorId) {
+        this.eventSink = eventSink;
+        this.elevatorId = elevatorId;
     }
 
     /**
@@ -27,7 +48,7 @@ public class Doors {
      */
     public void open() {
         doorState = DoorState.OPEN;
-        System.out.println("[DOORS] Opening doors.");
+        eventSink.publish(SimulationEvent.DOORS_OPENED, elevatorId, 0, Direction.NONE, 0);
     }
 
     /**
@@ -35,7 +56,7 @@ public class Doors {
      */
     public void close() {
         doorState = DoorState.CLOSED;
-        System.out.println("[DOORS] Closing doors.");
+        eventSink.publish(SimulationEvent.DOORS_CLOSED, elevatorId, 0, Direction.NONE, 0);
     }
 
     /**
@@ -62,4 +83,9 @@ public class Doors {
                 "doorState=" + doorState +
                 '}';
     }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        eventSink = EventSink.NONE;
+    }
 }
@@ -1,30 +1,60 @@
 package com.elevatorsimulation;
 
 import java.util.logging.*;
-import java.util.HashSet;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * This class simulates an elevator. The Elevator can be kicked off in a thread
  * and it will then loop continuously waiting for requests and processing
- * existing requests.
+ * existing requests. While it has no requests, the thread waits without using
+ * any CPU until a request is added or the elevator is told to terminate.
+ * <p>
+ * The elevator only uses ReentrantLocks, never synchronized, so it can run on
+ * a virtual thread without pinning the carrier thread while it waits (see
+ * ExecutionMode).
+ * <p>
+ * The elevator is Serializable along with its scheduler, doors, pressed
+ * buttons and statistics, so a DiscreteEventSimulation can be saved in a
+ * SimulationCheckpoint between events. The event sink is not saved.
  *
  * @author Michael Zigment
  * @version 1.0
  */
-public class Elevator implements Runnable {
+public class Elevator implements Runnable, ButtonPressHandler, Serializable {
+    private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = Logger.getLogger(Elevator.class.getName());
+    public static final int DEFAULT_TIME_TO_TRAVEL_BETWEEN_FLOORS_IN_MS = 500;
+    public static final int DEFAULT_TIME_TO_WAIT_FOR_PASSENGERS_IN_MS = 500;
     private volatile boolean running = true;
 
-    private final int timeToWaitBeforeCheckingForRequestsInMs = 500;
-    private final int timeToTravelBetweenFloorsInMs = 500;
-    private final int timeToWaitForPassengersInMs = 500;
+    private final int timeToTravelBetweenFloorsInMs;
+    private final int timeToWaitForPassengersInMs;
     private final int id;
     private int currentFloor;
     private boolean isMoving;
-    private HashSet<Button> pressedButtons;
+    private final PressedButtonRegistry pressedButtons;
     private InternalScheduler internalScheduler;
     private Doors doors;
     private StatsCollector statsCollector;
+    private final ElevatorMetrics metrics;
+    private final SimulationClock clock;
+    private final List<ElevatorListener> listeners;
+    private final ReentrantLock stateLock;
+    private final ReentrantLock targetLock;
+    private Request targetRequest;
+    private long targetVersion;
+    private final List<Request> servedRequests;
+    private final ReentrantLock idleLock;
+    private final Condition requestsChanged;
+    private transient volatile EventSink eventSink;
 
     /**
      * Class constructor specifying an id number and the starting floor for
@@ -35,13 +65,89 @@ public class Elevator implements Runnable {
      * @param currentFloor the floor the elevator will start on
      */
     public Elevator(int id, int currentFloor) {
+        this(id, currentFloor, new RealTimeClock());
+    }
+
+    /**
+     * Class constructor specifying an id number, the starting floor and the clock
+     * used to timestamp requests. A VirtualClock is used when the elevator is
+     * driven by a DiscreteEventSimulation.
+     * 
+     * @param id           an identifier to distinguish the elevator if there are
+     *                     multiple ones
+     * @param currentFloor the floor the elevator will start on
+     * @param clock        the clock used to tell the time for requests and
+     *                     statistics
+     */
+    public Elevator(int id, int currentFloor, SimulationClock clock) {
+        this(id, currentFloor, clock, SchedulerType.LOOK_WITH_DIRECTION::create);
+    }
+
+    /**
+     * Class constructor specifying an id number, the starting floor, the clock
+     * used to timestamp requests and how to create the internal scheduler.
+     * 
+     * @param id               an identifier to distinguish the elevator if there
+     *                         are multiple ones
+     * @param currentFloor     the floor the elevator will start on
+     * @param clock            the clock used to tell the time for requests and
+     *                         statistics
+     * @param schedulerFactory creates the internal scheduler for the elevator
+     */
+    public Elevator(int id, int currentFloor, SimulationClock clock,
+            Function<Elevator, InternalScheduler> schedulerFactory) {
+        this(id, currentFloor, clock, schedulerFactory, DEFAULT_TIME_TO_TRAVEL_BETWEEN_FLOORS_IN_MS,
+                DEFAULT_TIME_TO_WAIT_FOR_PASSENGERS_IN_MS);
+    }
+
+    /**
+     * Class constructor specifying an id number, the starting floor, the clock
+     * used to timestamp requests, how to create the internal scheduler and how
+     * long the elevator takes to travel and to load passengers.
+     * 
+     * @param id                            an identifier to distinguish the
+     *                                      elevator if there are multiple ones
+     * @param currentFloor                  the floor the elevator will start on
+     * @param clock                         the clock used to tell the time for
+     *                                      requests and statistics
+     * @param schedulerFactory              creates the internal scheduler for
+     *                                      the elevator
+     * @param timeToTravelBetweenFloorsInMs how long it takes to travel one
+     *                                      floor, in milliseconds
+     * @param timeToWaitForPassengersInMs   how long the doors stay open for
+     *                                      passengers, in milliseconds
+     * @throws IllegalArgumentException if the time to travel is not positive or
+     *                                  the time to wait is negative
+     */
+    public Elevator(int id, int currentFloor, SimulationClock clock,
+            Function<Elevator, InternalScheduler> schedulerFactory, int timeToTravelBetweenFloorsInMs,
+            int timeToWaitForPassengersInMs) {
+        if (timeToTravelBetweenFloorsInMs <= 0) {
+            throw new IllegalArgumentException("The time to travel between floors must be positive but was "
+                    + timeToTravelBetweenFloorsInMs);
+        }
+        if (timeToWaitForPassengersInMs < 0) {
+            throw new IllegalArgumentException("The time to wait for passengers can not be negative but was "
+                    + timeToWaitForPassengersInMs);
+        }
+        this.timeToTravelBetweenFloorsInMs = timeToTravelBetweenFloorsInMs;
+        this.timeToWaitForPassengersInMs = timeToWaitForPassengersInMs;
         this.id = id;
         this.currentFloor = currentFloor;
+        this.clock = clock;
+        listeners = new CopyOnWriteArrayList<>();
+        stateLock = new ReentrantLock();
+        targetLock = new ReentrantLock();
+        servedRequests = new ArrayList<>();
+        idleLock = new ReentrantLock();
+        requestsChanged = idleLock.newCondition();
         isMoving = false;
-        internalScheduler = new LookWithDirectionInternalScheduler(this);
-        pressedButtons = new HashSet<Button>();
+        internalScheduler = schedulerFactory.apply(this);
+        pressedButtons = new PressedButtonRegistry();
         doors = new Doors();
+        eventSink = EventSink.NONE;
         statsCollector = new StatsCollector();
+        metrics = new ElevatorMetrics(currentFloor, clock.nanoTime());
     }
 
     /**
@@ -59,8 +165,30 @@ public class Elevator implements Runnable {
      *
      * @return the current floor location of the elevator
      */
-    public final synchronized int getCurrentFloor() {
-        return currentFloor;
+    public final int getCurrentFloor() {
+        stateLock.lock();
+        try {
+            return currentFloor;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the elevator straight to the specified floor without simulating any
+     * travel. This is used to put the elevator and its scheduler into a known
+     * state, such as in tests.
+     *
+     * @param floor the floor to put the elevator on
+     */
+    final void setCurrentFloor(int floor) {
+        stateLock.lock();
+        try {
+            currentFloor = floor;
+            metrics.floorChanged(floor);
+        } finally {
+            stateLock.unlock();
+        }
     }
 
     /**
@@ -74,14 +202,94 @@ public class Elevator implements Runnable {
         return statsCollector.toString();
     }
 
+    /**
+     * Returns the collector holding the statistics of all requests that have been
+     * processed by this elevator.
+     *
+     * @return the stats collector of the elevator
+     */
+    public StatsCollector getStatsCollector() {
+        return statsCollector;
+    }
+
+    /**
+     * Returns a copy of the live metrics of this elevator: its floor, what it is
+     * doing, its door cycles and how long it has been idle and moving. This never
+     * blocks the thread driving the elevator, so it can be called by a monitoring
+     * thread at any time.
+     *
+     * @return a snapshot of the metrics of the elevator
+     */
+    public ElevatorMetrics.Snapshot getMetrics() {
+        return metrics.snapshot(clock.nanoTime());
+    }
+
+    /**
+     * Returns how many requests are waiting in one of the queues of the
+     * scheduler of this elevator. This never blocks the thread driving the
+     * elevator.
+     *
+     * @param direction the direction of the queue, either UP or DOWN
+     * @param pending   whether to count the pending queue for the direction
+     *                  rather than the main queue
+     * @return the number of requests in the queue
+     */
+    public int getQueueDepth(Direction direction, boolean pending) {
+        return internalScheduler.getQueueDepth(direction, pending);
+    }
+
+    /**
+     * Returns the clock that the elevator uses to timestamp requests.
+     *
+     * @return the clock of the elevator
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets where the elevator and its doors publish the SimulationEvents that
+     * describe what they are doing. By default the events are discarded. The sink
+     * is not part of a SimulationCheckpoint, so it has to be set again after
+     * resuming.
+     *
+     * @param eventSink the sink to publish events to
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+        doors.setEventSink(eventSink, id);
+    }
+
+    /**
+     * Adds a listener that will be notified about floor changes, completed
+     * requests and the elevator becoming idle.
+     *
+     * @param listener the listener to add
+     */
+    public void addElevatorListener(ElevatorListener listener) {
+        listeners.add(listener);
+    }
+
+    final int getTimeToTravelBetweenFloorsInMs() {
+        return timeToTravelBetweenFloorsInMs;
+    }
+
+    final int getTimeToWaitForPassengersInMs() {
+        return timeToWaitForPassengersInMs;
+    }
+
+    final boolean hasRequests() {
+        return internalScheduler.hasRequests();
+    }
+
     /**
      * Returns a human readable string that represents the informative contents of
      * this elevator. The representation is subject to change, but the
      * following may be regarded as typical:
      * 
      * "Elevator{id=1, currentFloor=1, isMoving=false,
-     * doors=Doors{doorState=CLOSED}, timeToWaitBeforeCheckingForRequestsInMs=500,
-     * timeToTravelBetweenFloorsInMs=500, timeToWaitForPassengersInMs=500}"
+     * doors=Doors{doorState=CLOSED}, timeToTravelBetweenFloorsInMs=500,
+     * timeToWaitForPassengersInMs=500}"
      *
      * @return a string representation of the object
      */
@@ -92,7 +300,6 @@ public class Elevator implements Runnable {
                 ", currentFloor=" + currentFloor +
                 ", isMoving=" + isMoving +
                 ", doors=" + doors +
-                ", timeToWaitBeforeCheckingForRequestsInMs=" + timeToWaitBeforeCheckingForRequestsInMs +
                 ", timeToTravelBetweenFloorsInMs=" + timeToTravelBetweenFloorsInMs +
                 ", timeToWaitForPassengersInMs=" + timeToWaitForPassengersInMs +
                 '}';
@@ -102,8 +309,8 @@ public class Elevator implements Runnable {
      * Defines the code that will be executed when a thread starts. Continuously
      * loops while checking to see if the scheduler has any requests. If requests
      * exists, then the next request is processed and the elevator will move towards
-     * the desired floor. The elevator will sleep while waiting for new request,
-     * before waking up and checking for new requests. If the elevator is told to
+     * the desired floor. While there are no requests, the elevator waits until it
+     * is signalled that a request was added. If the elevator is told to
      * terminate, then the elevator will finish processing any remaining requests
      * and then will break out of the loop.
      */
@@ -113,12 +320,35 @@ public class Elevator implements Runnable {
             if (internalScheduler.hasRequests()) {
                 processNextRequest();
             } else {
-                try {
-                    Thread.sleep(timeToWaitBeforeCheckingForRequestsInMs);
-                } catch (InterruptedException e) {
-                    LOGGER.info("Elevator waiting for requests loop interrupted!");
-                }
+                waitForRequests();
+            }
+        }
+    }
+
+    private void waitForRequests() {
+        idleLock.lock();
+        try {
+            // Checked while holding the lock, so a request added after the check
+            // can not signal before the wait starts
+            while (running && !internalScheduler.hasRequests()) {
+                requestsChanged.await();
             }
+        } catch (InterruptedException e) {
+            LOGGER.info("Elevator waiting for requests loop interrupted!");
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up the elevator thread if it is waiting for requests.
+     */
+    private void signalRequestsChanged() {
+        idleLock.lock();
+        try {
+            requestsChanged.signalAll();
+        } finally {
+            idleLock.unlock();
         }
     }
 
@@ -128,6 +358,7 @@ public class Elevator implements Runnable {
      */
     public void terminate() {
         running = false;
+        signalRequestsChanged();
     }
 
     /**
@@ -136,38 +367,87 @@ public class Elevator implements Runnable {
      * direction of NONE represents an internal button press. Anything other than
      * NONE for direction represents an external button press. If the
      * button has already been pressed, then nothing will happen.
+     * <p>
+     * Every press of a destination button is a different passenger, so it always
+     * makes a new request, which carries the destination. When the elevator
+     * picks the passenger up, it presses the button for the destination itself.
      *
      * @param button the button that was pressed which contains information for the
      *               requested floor number and the requested direction
      */
+    @Override
     public void pressElevatorButton(Button button) {
-        System.out.println("[BUTTON_PRESS] Pressing button for floor: "
-                + button.floor + ", direction: " + button.direction);
+        if (button.hasDestination()) {
+            eventSink.publish(SimulationEvent.DESTINATION_CALL_PRESSED, id, button.floor, button.direction,
+                    button.destinationFloor);
+            assignRequest(new Request(button.floor, button.destinationFloor, clock.nanoTime()));
+            return;
+        }
 
-        if (buttonAlreadyPressed(button)) {
-            System.out.println("[BUTTON_PRESS] Button for floor: "
-                    + button.floor + ", direction: " + button.direction
-                    + " is already pressed. Ignoring request.");
+        eventSink.publish(SimulationEvent.BUTTON_PRESSED, id, button.floor, button.direction, 0);
+
+        // Checking and marking the button is one atomic step, so concurrent
+        // presses of the same button only make one request
+        if (!pressedButtons.tryPress(button.floor, button.direction)) {
+            eventSink.publish(SimulationEvent.BUTTON_IGNORED, id, button.floor, button.direction, 0);
             return;
         }
 
-        markButtonAsPressed(button);
+        Request request = new Request(button.floor, button.direction, clock.nanoTime());
+        internalScheduler.addRequest(request);
+        signalRequestAdded();
+    }
 
-        Request request = new Request(button.floor, button.direction);
+    /**
+     * Hands a request directly to the scheduler of this elevator. This is intended
+     * for an ExternalScheduler that has already decided that this elevator should
+     * satisfy the request, so the pressed buttons of the elevator are not checked.
+     *
+     * @param request the request to be scheduled
+     */
+    public void assignRequest(Request request) {
         internalScheduler.addRequest(request);
+        signalRequestAdded();
     }
 
-    private synchronized boolean buttonAlreadyPressed(Button button) {
-        return pressedButtons.contains(button);
+    private void signalRequestAdded() {
+        signalRequestsChanged();
+        for (ElevatorListener listener : listeners) {
+            listener.onRequestAdded(this);
+        }
     }
 
-    private synchronized void markButtonAsPressed(Button button) {
-        pressedButtons.add(button);
+    /**
+     * Takes a request away from the scheduler of this elevator so that it can be
+     * handed to a different elevator. The request the elevator is currently
+     * moving towards can not be taken away.
+     *
+     * @param request the request to take away
+     * @return whether the request was taken away from this elevator
+     */
+    public boolean cancelRequest(Request request) {
+        targetLock.lock();
+        try {
+            if (request == targetRequest) {
+                return false;
+            }
+            return internalScheduler.cancelRequest(request);
+        } finally {
+            targetLock.unlock();
+        }
     }
 
-    private synchronized void clearButtonPress(int floorNumber, Direction direction) {
-        Button button = new Button(floorNumber, direction);
-        pressedButtons.remove(button);
+    private Request updateTargetRequest() {
+        targetLock.lock();
+        try {
+            // Read before the request, so a change in between is seen as a newer
+            // version at the next floor
+            targetVersion = internalScheduler.getHeadVersion();
+            targetRequest = internalScheduler.getCurrentRequest();
+            return targetRequest;
+        } finally {
+            targetLock.unlock();
+        }
     }
 
     private Direction calculateMovementDirection(int destinationFloor) {
@@ -191,61 +471,178 @@ public class Elevator implements Runnable {
      * until the elevator arrives at its destination.
      */
     private void processNextRequest() {
-        Request currentRequest = internalScheduler.getCurrentRequest();
+        Request currentRequest = beginNextRequest();
         if (currentRequest == null) {
-            LOGGER.warning("Expected a request to exist, but instead got null.");
             return;
         }
 
-        int destinationFloor = currentRequest.getFloorNumber();
+        while (currentFloor != currentRequest.getFloorNumber()) {
+            try {
+                // Simulate the time it takes to move between floors
+                Thread.sleep(timeToTravelBetweenFloorsInMs);
+            } catch (InterruptedException e) {
+                LOGGER.info("Travel Interrupted!");
+            }
+
+            currentRequest = travelOneFloorTowardsDestination(currentRequest);
+        }
+
+        arrivedAtDestination(currentRequest);
+        waitForPassengers();
+        departFromFloor();
+    }
 
-        System.out.println("[DESTINATION_CHANGE] Moving elevator in direction "
-                + calculateMovementDirection(destinationFloor)
-                + " to floor " + destinationFloor);
+    /**
+     * Starts processing the top priority request as determined by the scheduler.
+     * The doors are closed and the destination is announced. This and the other
+     * package-private steps below are shared by the real time loop in run() and
+     * the DiscreteEventSimulation, so both produce the same sequence of events.
+     *
+     * @return the request being processed, or null if the scheduler unexpectedly
+     *         had no request
+     */
+    Request beginNextRequest() {
+        Request currentRequest = updateTargetRequest();
+        if (currentRequest == null) {
+            LOGGER.warning("Expected a request to exist, but instead got null.");
+            return null;
+        }
+
+        metrics.stateChanged(ElevatorMetrics.State.MOVING, clock.nanoTime());
+        eventSink.publish(SimulationEvent.DESTINATION_SET, id, currentRequest.getFloorNumber(),
+                calculateMovementDirection(currentRequest.getFloorNumber()), 0);
 
         while (!doors.areClosed()) {
             doors.close();
         }
 
-        while (currentFloor != destinationFloor) {
-            isMoving = true;
-            travelOneFloorTowardsDestination(destinationFloor);
+        return currentRequest;
+    }
 
-            // Check for a potential new job
-            Request newCurrentRequest = internalScheduler.getCurrentRequest();
-            if (newCurrentRequest != null && currentRequest != newCurrentRequest) {
-                currentRequest = newCurrentRequest;
-                destinationFloor = currentRequest.getFloorNumber();
+    /**
+     * Moves the elevator one floor towards the destination of the current request
+     * and then checks for a new higher priority request. The current request is
+     * only read again if the head version of the scheduler has changed. The time
+     * it takes to travel is simulated by the caller.
+     *
+     * @param currentRequest the request the elevator is currently moving towards
+     * @return the request the elevator should continue moving towards
+     */
+    Request travelOneFloorTowardsDestination(Request currentRequest) {
+        int destinationFloor = currentRequest.getFloorNumber();
+        if (destinationFloor == currentFloor) {
+            LOGGER.info("Destination floor (" + destinationFloor + ") and current floor ("
+                    + currentFloor + ") are the same. Elevator will not move.");
+            return currentRequest;
+        }
 
-                System.out.println(
-                        "[DESTINATION_CHANGE] Updating elevator to move in direction "
-                                + calculateMovementDirection(destinationFloor)
-                                + " to floor " + destinationFloor);
+        isMoving = true;
+        int floor;
+        stateLock.lock();
+        try {
+            if (currentFloor < destinationFloor) {
+                currentFloor++;
+            } else {
+                currentFloor--;
             }
+            floor = currentFloor;
+            metrics.floorChanged(floor);
+        } finally {
+            stateLock.unlock();
         }
-        isMoving = false;
 
-        arrivedAtDestination(currentRequest);
+        eventSink.publish(SimulationEvent.FLOOR_REACHED, id, floor, Direction.NONE, destinationFloor);
+
+        for (ElevatorListener listener : listeners) {
+            listener.onFloorChanged(this, floor);
+        }
+
+        // Check for a potential new job, which can only be there if the head of
+        // the scheduler has changed. The target version is only written by this
+        // thread, so it can be read without the lock.
+        long headVersion = internalScheduler.getHeadVersion();
+        if (headVersion != InternalScheduler.UNVERSIONED && headVersion == targetVersion) {
+            return currentRequest;
+        }
+
+        Request newCurrentRequest = updateTargetRequest();
+        if (newCurrentRequest != null && currentRequest != newCurrentRequest) {
+            currentRequest = newCurrentRequest;
+            destinationFloor = currentRequest.getFloorNumber();
+
+            eventSink.publish(SimulationEvent.DESTINATION_CHANGED, id, destinationFloor,
+                    calculateMovementDirection(destinationFloor), 0);
+        }
+        return currentRequest;
     }
 
-    private void arrivedAtDestination(Request request) {
+    /**
+     * Completes the request the elevator has arrived for, along with every other
+     * request the scheduler would satisfy next at the same floor, and opens the
+     * doors once for all of them. The passengers of destination requests press
+     * the buttons for their destinations as they board. The time spent waiting
+     * for passengers is simulated by the caller.
+     *
+     * @param request the request that the elevator arrived at the floor for
+     */
+    void arrivedAtDestination(Request request) {
+        isMoving = false;
         if (request == null) {
             LOGGER.warning("Expected a request to exist, but instead got null.");
             return;
         }
-        statsCollector.addCompletedRequest(request);
 
-        System.out.println("[ARRIVED] Destination reached. Floor: " + request.getFloorNumber());
+        servedRequests.clear();
+        targetLock.lock();
+        try {
+            // Cancelling takes the same lock, so none of the requests served at
+            // this stop can be handed to another elevator while they are removed
+            internalScheduler.removeServedRequests(request, servedRequests);
+            targetRequest = null;
+        } finally {
+            targetLock.unlock();
+        }
+
+        long timeCompletedInNs = clock.nanoTime();
+        for (int i = 0; i < servedRequests.size(); i++) {
+            Request servedRequest = servedRequests.get(i);
+            statsCollector.addCompletedRequest(servedRequest, timeCompletedInNs);
 
-        internalScheduler.removeRequest(request);
+            eventSink.publish(SimulationEvent.ARRIVED, id, servedRequest.getFloorNumber(),
+                    servedRequest.getDesiredDirection(), 0);
+
+            if (servedRequest.hasDestination()) {
+                pressElevatorButton(Button.of(servedRequest.getDestinationFloor(), Direction.NONE));
+            } else {
+                pressedButtons.clear(servedRequest.getFloorNumber(), servedRequest.getDesiredDirection());
+            }
+        }
 
-        clearButtonPress(request.getFloorNumber(), request.getDesiredDirection());
+        for (int i = 0; i < servedRequests.size(); i++) {
+            for (ElevatorListener listener : listeners) {
+                listener.onRequestCompleted(this, servedRequests.get(i));
+            }
+        }
 
+        metrics.doorsOpened(timeCompletedInNs);
         doors.open();
-        waitForPassengers();
+    }
+
+    /**
+     * Closes the doors after the passengers have loaded so that the elevator is
+     * ready to move again.
+     */
+    void departFromFloor() {
         while (!doors.areClosed()) {
             doors.close();
         }
+        metrics.stateChanged(ElevatorMetrics.State.IDLE, clock.nanoTime());
+
+        if (!internalScheduler.hasRequests()) {
+            for (ElevatorListener listener : listeners) {
+                listener.onIdle(this);
+            }
+        }
     }
 
     private void waitForPassengers() {
@@ -257,27 +654,8 @@ public class Elevator implements Runnable {
         }
     }
 
-    private void travelOneFloorTowardsDestination(int destinationFloor) {
-        if (destinationFloor == currentFloor) {
-            LOGGER.info("Destination floor (" + destinationFloor + ") and current floor ("
-                    + currentFloor + ") are the same. Elevator will not move.");
-            return;
-        }
-
-        try {
-            // Simulate the time it takes to move between floors
-            Thread.sleep(timeToTravelBetweenFloorsInMs);
-        } catch (InterruptedException e) {
-            LOGGER.info("Travel Interrupted!");
-        }
-
-        if (currentFloor < destinationFloor) {
-            currentFloor++;
-        } else {
-            currentFloor--;
-        }
-
-        System.out.println("[MOVING] Current floor is now: " + currentFloor +
-                ", destination floor is: " + destinationFloor);
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        eventSink = EventSink.NONE;
     }
 }
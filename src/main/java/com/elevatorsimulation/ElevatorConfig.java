@@ -0,0 +1,114 @@
+package com.elevatorsimulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * ElevatorConfig is a class that holds the configuration of a bank of
+ * elevators: how many there are, where they start, how long they take to travel
+ * and to load passengers, and which scheduler they use. It is immutable, so one
+ * configuration can be shared by any number of simulations.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public final class ElevatorConfig {
+    /**
+     * A single elevator on floor 0 with the default timings and scheduler.
+     */
+    public static final ElevatorConfig DEFAULT = new ElevatorConfig(1, 0,
+            Elevator.DEFAULT_TIME_TO_TRAVEL_BETWEEN_FLOORS_IN_MS, Elevator.DEFAULT_TIME_TO_WAIT_FOR_PASSENGERS_IN_MS,
+            SchedulerType.LOOK_WITH_DIRECTION);
+
+    public final int numberOfElevators;
+    public final int initialFloor;
+    public final int timeToTravelBetweenFloorsInMs;
+    public final int timeToWaitForPassengersInMs;
+    public final SchedulerType schedulerType;
+
+    /**
+     * Class constructor specifying every setting of the bank of elevators.
+     *
+     * @param numberOfElevators             the number of elevators in the bank
+     * @param initialFloor                  the floor the elevators start on
+     * @param timeToTravelBetweenFloorsInMs how long it takes to travel one
+     *                                      floor, in milliseconds
+     * @param timeToWaitForPassengersInMs   how long the doors stay open for
+     *                                      passengers, in milliseconds
+     * @param schedulerType                 the internal scheduler of the
+     *                                      elevators
+     * @throws IllegalArgumentException if there are no elevators or a time is
+     *                                  out of range
+     */
+    public ElevatorConfig(int numberOfElevators, int initialFloor, int timeToTravelBetweenFloorsInMs,
+            int timeToWaitForPassengersInMs, SchedulerType schedulerType) {
+        if (numberOfElevators < 1) {
+            throw new IllegalArgumentException("There must be at least one elevator, not " + numberOfElevators);
+        }
+        if (timeToTravelBetweenFloorsInMs <= 0) {
+            throw new IllegalArgumentException("The time to travel between floors must be positive but was "
+                    + timeToTravelBetweenFloorsInMs);
+        }
+        if (timeToWaitForPassengersInMs < 0) {
+            throw new IllegalArgumentException("The time to wait for passengers can not be negative but was "
+                    + timeToWaitForPassengersInMs);
+        }
+        this.numberOfElevators = numberOfElevators;
+        this.initialFloor = initialFloor;
+        this.timeToTravelBetweenFloorsInMs = timeToTravelBetweenFloorsInMs;
+        this.timeToWaitForPassengersInMs = timeToWaitForPassengersInMs;
+        this.schedulerType = schedulerType;
+    }
+
+    /**
+     * Creates the elevators of the bank, numbered from 1, with the schedulers
+     * created by the factory.
+     *
+     * @param clock            the clock of the elevators
+     * @param schedulerFactory creates the internal scheduler of each elevator
+     * @return the new elevators
+     */
+    public List<Elevator> createElevators(SimulationClock clock,
+            Function<Elevator, InternalScheduler> schedulerFactory) {
+        List<Elevator> elevators = new ArrayList<>();
+        for (int id = 1; id <= numberOfElevators; id++) {
+            elevators.add(new Elevator(id, initialFloor, clock, schedulerFactory, timeToTravelBetweenFloorsInMs,
+                    timeToWaitForPassengersInMs));
+        }
+        return elevators;
+    }
+
+    /**
+     * Creates the elevators of the bank, numbered from 1, with the configured
+     * scheduler type.
+     *
+     * @param clock the clock of the elevators
+     * @return the new elevators
+     */
+    public List<Elevator> createElevators(SimulationClock clock) {
+        return createElevators(clock, schedulerType::create);
+    }
+
+    /**
+     * Returns a human readable string that represents the informative contents of
+     * this configuration. The representation is subject to change, but the
+     * following may be regarded as typical:
+     *
+     * "ElevatorConfig{numberOfElevators=2, initialFloor=0,
+     * timeToTravelBetweenFloorsInMs=500, timeToWaitForPassengersInMs=500,
+     * schedulerType=LOOK_WITH_DIRECTION}"
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "ElevatorConfig{" +
+                "numberOfElevators=" + numberOfElevators +
+                ", initialFloor=" + initialFloor +
+                ", timeToTravelBetweenFloorsInMs=" + timeToTravelBetweenFloorsInMs +
+                ", timeToWaitForPassengersInMs=" + timeToWaitForPassengersInMs +
+                ", schedulerType=" + schedulerType +
+                '}';
+    }
+}
@@ -0,0 +1,45 @@
+package com.elevatorsimulation;
+
+/**
+ * ElevatorListener is an interface for receiving notifications about what an
+ * Elevator is doing. Listeners are called on the thread that is running the
+ * elevator, so they should return quickly.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public interface ElevatorListener {
+    /**
+     * Called when the elevator has moved to a new floor.
+     *
+     * @param elevator the elevator that moved
+     * @param floor    the floor the elevator is now on
+     */
+    public void onFloorChanged(Elevator elevator, int floor);
+
+    /**
+     * Called when the elevator has satisfied a request and removed it from its
+     * scheduler.
+     *
+     * @param elevator the elevator that satisfied the request
+     * @param request  the request that was satisfied
+     */
+    public void onRequestCompleted(Elevator elevator, Request request);
+
+    /**
+     * Called when the elevator has closed its doors and has no more requests to
+     * process.
+     *
+     * @param elevator the elevator that is now idle
+     */
+    public void onIdle(Elevator elevator);
+
+    /**
+     * Called when the elevator has been given a new request, by a button press
+     * or by an ExternalScheduler. Does nothing unless it is overridden.
+     *
+     * @param elevator the elevator that was given the request
+     */
+    public default void onRequestAdded(Elevator elevator) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.elevatorsimulation;
+
+/**
+ * ElevatorMXBean is the management interface of one elevator, registered with
+ * the platform MBeanServer by a MetricsExporter under the name
+ * "com.elevatorsimulation:type=Elevator,id=N". Every attribute is read without
+ * taking any of the locks of the elevator, so a JMX console polling it never
+ * holds up the elevator.
+ * <p>
+ * Times spent in a state are in seconds of the clock of the elevator, and
+ * completion and wait time percentiles are in milliseconds.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public interface ElevatorMXBean {
+    /**
+     * @return the identifier of the elevator
+     */
+    public int getId();
+
+    /**
+     * @return the floor the elevator is on
+     */
+    public int getCurrentFloor();
+
+    /**
+     * @return what the elevator is doing: IDLE, MOVING or DOORS_OPEN
+     */
+    public String getState();
+
+    /**
+     * @return the number of requests in the up queue of the scheduler
+     */
+    public int getUpQueueDepth();
+
+    /**
+     * @return the number of requests in the down queue of the scheduler
+     */
+    public int getDownQueueDepth();
+
+    /**
+     * @return the number of requests in the pending up queue of the scheduler
+     */
+    public int getPendingUpQueueDepth();
+
+    /**
+     * @return the number of requests in the pending down queue of the scheduler
+     */
+    public int getPendingDownQueueDepth();
+
+    /**
+     * @return the number of requests the elevator has completed
+     */
+    public long getRequestsCompleted();
+
+    /**
+     * @return the median time from creating to completing a request
+     */
+    public double getCompletionTimeP50InMs();
+
+    /**
+     * @return the 90th percentile of the time to complete a request
+     */
+    public double getCompletionTimeP90InMs();
+
+    /**
+     * @return the 99th percentile of the time to complete a request
+     */
+    public double getCompletionTimeP99InMs();
+
+    /**
+     * @return the 99.9th percentile of the time to complete a request
+     */
+    public double getCompletionTimeP999InMs();
+
+    /**
+     * @return the 99th percentile of the time passengers waited for the elevator
+     */
+    public double getWaitTimeP99InMs();
+
+    /**
+     * @return the number of times the elevator has opened its doors
+     */
+    public long getDoorCycles();
+
+    /**
+     * @return the time the elevator has spent idle
+     */
+    public double getIdleTimeInSeconds();
+
+    /**
+     * @return the time the elevator has spent moving
+     */
+    public double getMovingTimeInSeconds();
+
+    /**
+     * @return the time the elevator has spent with its doors open
+     */
+    public double getDoorsOpenTimeInSeconds();
+}
@@ -0,0 +1,159 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+
+/**
+ * ElevatorMetrics is a class that keeps the live gauges and counters of one
+ * elevator: the floor it is on, what it is doing, how many times it has opened
+ * its doors, and how long it has spent idle, moving and with its doors open.
+ * The times are taken from the clock of the elevator, so in a
+ * DiscreteEventSimulation they are in simulated time.
+ * <p>
+ * The metrics are only ever written by the thread that drives the elevator, and
+ * are read by a MetricsExporter on another thread. They are guarded by a
+ * SeqLock in the same way as the cells of a StatsRecorder, so reading never
+ * blocks the elevator.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class ElevatorMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * What an elevator is doing.
+     */
+    public enum State {
+        IDLE, MOVING, DOORS_OPEN
+    }
+
+    /**
+     * A consistent copy of the metrics.
+     */
+    public static final class Snapshot {
+        public final int floor;
+        public final State state;
+        public final long doorCycles;
+        public final long idleTimeInNs;
+        public final long movingTimeInNs;
+        public final long doorsOpenTimeInNs;
+
+        public Snapshot(int floor, State state, long doorCycles, long idleTimeInNs, long movingTimeInNs,
+                long doorsOpenTimeInNs) {
+            this.floor = floor;
+            this.state = state;
+            this.doorCycles = doorCycles;
+            this.idleTimeInNs = idleTimeInNs;
+            this.movingTimeInNs = movingTimeInNs;
+            this.doorsOpenTimeInNs = doorsOpenTimeInNs;
+        }
+    }
+
+    private final SeqLock seqLock;
+    private int floor;
+    private State state;
+    private long stateSinceInNs;
+    private long doorCycles;
+    private final long[] timeInStateInNs;
+
+    /**
+     * Class constructor for an elevator that is idle on the specified floor.
+     *
+     * @param floor   the floor the elevator starts on
+     * @param nowInNs the current time of the clock of the elevator
+     */
+    public ElevatorMetrics(int floor, long nowInNs) {
+        seqLock = new SeqLock();
+        this.floor = floor;
+        state = State.IDLE;
+        stateSinceInNs = nowInNs;
+        doorCycles = 0;
+        timeInStateInNs = new long[State.values().length];
+    }
+
+    /**
+     * Records that the elevator has reached a floor.
+     *
+     * @param floor the floor the elevator is now on
+     */
+    public void floorChanged(int floor) {
+        long start = seqLock.beginWrite();
+        this.floor = floor;
+        seqLock.endWrite(start);
+    }
+
+    /**
+     * Records that the elevator has started doing something else. The time
+     * since the last change is added to the time spent in the previous state.
+     *
+     * @param state   what the elevator is doing now
+     * @param nowInNs the current time of the clock of the elevator
+     */
+    public void stateChanged(State state, long nowInNs) {
+        if (state == this.state) {
+            return;
+        }
+        long start = seqLock.beginWrite();
+        changeState(state, nowInNs);
+        seqLock.endWrite(start);
+    }
+
+    /**
+     * Records that the elevator has opened its doors, which counts as one door
+     * cycle.
+     *
+     * @param nowInNs the current time of the clock of the elevator
+     */
+    public void doorsOpened(long nowInNs) {
+        long start = seqLock.beginWrite();
+        changeState(State.DOORS_OPEN, nowInNs);
+        doorCycles++;
+        seqLock.endWrite(start);
+    }
+
+    /**
+     * Returns a consistent copy of the metrics. The time since the last change
+     * of state is counted towards the current state.
+     *
+     * @param nowInNs the current time of the clock of the elevator
+     * @return a snapshot of the metrics
+     */
+    public Snapshot snapshot(long nowInNs) {
+        while (true) {
+            long start = seqLock.beginRead();
+            int floor = this.floor;
+            State state = this.state;
+            long stateSinceInNs = this.stateSinceInNs;
+            long doorCycles = this.doorCycles;
+            long idleTimeInNs = timeInStateInNs[State.IDLE.ordinal()];
+            long movingTimeInNs = timeInStateInNs[State.MOVING.ordinal()];
+            long doorsOpenTimeInNs = timeInStateInNs[State.DOORS_OPEN.ordinal()];
+
+            if (!seqLock.validate(start)) {
+                continue;
+            }
+
+            // The clock may be read on another thread than the one driving it,
+            // so the current state never counts for less than nothing
+            long currentStateTimeInNs = Math.max(0, nowInNs - stateSinceInNs);
+            switch (state) {
+                case IDLE:
+                    idleTimeInNs += currentStateTimeInNs;
+                    break;
+                case MOVING:
+                    movingTimeInNs += currentStateTimeInNs;
+                    break;
+                default:
+                    doorsOpenTimeInNs += currentStateTimeInNs;
+                    break;
+            }
+            return new Snapshot(floor, state, doorCycles, idleTimeInNs, movingTimeInNs, doorsOpenTimeInNs);
+        }
+    }
+
+    private void changeState(State state, long nowInNs) {
+        timeInStateInNs[this.state.ordinal()] += Math.max(0, nowInNs - stateSinceInNs);
+        this.state = state;
+        stateSinceInNs = nowInNs;
+    }
+}
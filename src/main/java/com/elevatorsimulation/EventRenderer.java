@@ -0,0 +1,135 @@
+package com.elevatorsimulation;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.*;
+
+/**
+ * EventRenderer is a class for writing SimulationEvents as lines of text. It is
+ * used by the background thread of an AsyncEventSink, so the text of the events
+ * is built and written away from the simulation threads. The output is only
+ * flushed when the renderer is told to, which the AsyncEventSink does whenever
+ * it runs out of events to render.
+ * <p>
+ * An EventRenderer is not thread safe.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class EventRenderer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(EventRenderer.class.getName());
+
+    private final Writer writer;
+    private final boolean closeWriter;
+    private final StringBuilder line;
+    private boolean failed;
+
+    /**
+     * Class constructor specifying where to write the events.
+     *
+     * @param writer      the writer to write the lines of text to
+     * @param closeWriter whether closing the renderer should close the writer
+     */
+    public EventRenderer(Writer writer, boolean closeWriter) {
+        this.writer = writer;
+        this.closeWriter = closeWriter;
+        line = new StringBuilder(128);
+        failed = false;
+    }
+
+    /**
+     * Creates a renderer that writes the events to standard output.
+     *
+     * @return a renderer for the console
+     */
+    public static EventRenderer console() {
+        return new EventRenderer(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)),
+                false);
+    }
+
+    /**
+     * Creates a renderer that writes the events to a file, replacing the file if
+     * it already exists.
+     *
+     * @param file the path of the file
+     * @return a renderer for the file
+     * @throws IOException if the file can not be created
+     */
+    public static EventRenderer file(Path file) throws IOException {
+        return new EventRenderer(Files.newBufferedWriter(file, StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * Writes an event as a line of text.
+     *
+     * @param event      the type of event
+     * @param elevatorId the id of the elevator the event happened to
+     * @param floor      the floor of the event
+     * @param direction  the direction of the event
+     * @param value      the extra value of the event
+     */
+    public void render(SimulationEvent event, int elevatorId, int floor, Direction direction, int value) {
+        line.setLength(0);
+        event.appendMessage(line, elevatorId, floor, direction, value);
+        line.append(System.lineSeparator());
+        try {
+            writer.append(line);
+        } catch (IOException e) {
+            reportFailure(e);
+        }
+    }
+
+    /**
+     * Writes a line of text that is not an event, such as a note that events
+     * were dropped.
+     *
+     * @param text the text to write
+     */
+    public void renderText(String text) {
+        try {
+            writer.append(text).append(System.lineSeparator());
+        } catch (IOException e) {
+            reportFailure(e);
+        }
+    }
+
+    /**
+     * Writes out any buffered text.
+     */
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            reportFailure(e);
+        }
+    }
+
+    /**
+     * Flushes the renderer and closes its output if it owns it.
+     */
+    @Override
+    public void close() {
+        flush();
+        if (closeWriter) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                reportFailure(e);
+            }
+        }
+    }
+
+    private void reportFailure(IOException e) {
+        // Only report the first failure, rather than one for every event
+        if (!failed) {
+            failed = true;
+            LOGGER.severe("Error writing events: " + e.getMessage());
+        }
+    }
+}
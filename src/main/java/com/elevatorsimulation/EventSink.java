@@ -0,0 +1,31 @@
+package com.elevatorsimulation;
+
+/**
+ * EventSink is an interface for receiving the SimulationEvents published by
+ * elevators and external schedulers. The fields of an event are passed as
+ * primitives so that publishing an event does not need to allocate.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public interface EventSink {
+    /**
+     * An EventSink that discards every event. This is the default for elevators
+     * and schedulers, and is used for batch runs where only the statistics are of
+     * interest.
+     */
+    EventSink NONE = (event, elevatorId, floor, direction, value) -> {
+    };
+
+    /**
+     * Publishes an event. This must not block on any output.
+     *
+     * @param event      the type of event
+     * @param elevatorId the id of the elevator the event happened to
+     * @param floor      the floor of the event
+     * @param direction  the direction of the event
+     * @param value      the extra value of the event, as described by the
+     *                   SimulationEvent
+     */
+    void publish(SimulationEvent event, int elevatorId, int floor, Direction direction, int value);
+}
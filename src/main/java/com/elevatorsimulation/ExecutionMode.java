@@ -0,0 +1,116 @@
+package com.elevatorsimulation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.*;
+
+/**
+ * ExecutionMode is an enum of the kinds of threads that the elevators and
+ * button pressers can be run on in the real time mode.
+ * <p>
+ * PLATFORM threads are ordinary operating system threads. Each one reserves its
+ * own stack, so a simulation with thousands of elevators and tens of thousands
+ * of button pressers runs out of memory.
+ * <p>
+ * VIRTUAL threads are scheduled by the JVM onto a small pool of carrier
+ * threads, and only hold on to a carrier while they are running. A blocked
+ * virtual thread (sleeping, or waiting on a ReentrantLock or Condition) costs
+ * only a small amount of heap, so many thousands of them can be started.
+ * Elevator and the internal schedulers use ReentrantLocks instead of
+ * synchronized so that a blocked virtual thread never pins its carrier.
+ * <p>
+ * Virtual threads need Java 21. The simulation is built for Java 17, so they
+ * are looked up at runtime. If they are not available, VIRTUAL falls back to
+ * platform threads with a warning.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public enum ExecutionMode {
+    /**
+     * Runs every elevator and button presser on its own platform thread.
+     */
+    PLATFORM {
+        @Override
+        public ThreadFactory threadFactory(String name) {
+            AtomicLong threadNumber = new AtomicLong(1);
+            return runnable -> new Thread(runnable, name + threadNumber.getAndIncrement());
+        }
+    },
+    /**
+     * Runs every elevator and button presser on its own virtual thread, if the
+     * JVM supports virtual threads.
+     */
+    VIRTUAL {
+        @Override
+        public ThreadFactory threadFactory(String name) {
+            ThreadFactory virtualThreadFactory = createVirtualThreadFactory(name);
+            return (virtualThreadFactory != null) ? virtualThreadFactory : PLATFORM.threadFactory(name);
+        }
+    };
+
+    private static final Logger LOGGER = Logger.getLogger(ExecutionMode.class.getName());
+
+    /**
+     * Returns a factory for creating threads of this kind. The threads are named
+     * with the specified name followed by a number.
+     *
+     * @param name the name of the threads
+     * @return a thread factory
+     */
+    public abstract ThreadFactory threadFactory(String name);
+
+    /**
+     * Returns whether virtual threads are supported by the JVM, in which case
+     * VIRTUAL does not fall back to platform threads.
+     *
+     * @return whether virtual threads are available
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.OF_VIRTUAL != null;
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String name) {
+        if (!isVirtualThreadSupported()) {
+            return null;
+        }
+        try {
+            // Thread.ofVirtual().name(name, 1).factory()
+            Object builder = VirtualThreads.OF_VIRTUAL.invoke(null);
+            builder = VirtualThreads.NAME.invoke(builder, name, 1L);
+            return (ThreadFactory) VirtualThreads.FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warning("Could not create virtual threads, using platform threads instead: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Holds the methods for creating virtual threads, which are looked up the
+     * first time they are needed.
+     */
+    private static final class VirtualThreads {
+        static final Method OF_VIRTUAL;
+        static final Method NAME;
+        static final Method FACTORY;
+
+        static {
+            Method ofVirtual = null;
+            Method name = null;
+            Method factory = null;
+            try {
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                Class<?> builderClass = ofVirtual.getReturnType();
+                name = builderClass.getMethod("name", String.class, long.class);
+                factory = builderClass.getMethod("factory");
+            } catch (NoSuchMethodException e) {
+                LOGGER.warning("Virtual threads need Java 21 or later, using platform threads instead.");
+                ofVirtual = null;
+            }
+            OF_VIRTUAL = ofVirtual;
+            NAME = name;
+            FACTORY = factory;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.elevatorsimulation;
+
+import java.util.List;
+
+/**
+ * ExternalScheduler is an interface for the scheduler that is in charge of a
+ * bank of elevators. The external buttons (UP and DOWN) on each floor belong to
+ * the whole bank, so the external scheduler decides which elevator each
+ * external button press is handed out to. The chosen elevator then uses its
+ * InternalScheduler to decide when to get to it.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public interface ExternalScheduler extends ButtonPressHandler {
+    /**
+     * Returns the elevators in the bank that this scheduler is in charge of.
+     *
+     * @return the elevators in the bank
+     */
+    public List<Elevator> getElevators();
+
+    /**
+     * Returns the elevator that an external button press is currently assigned
+     * to.
+     *
+     * @param button the external button that was pressed
+     * @return the elevator that will satisfy the button press, or null if the
+     *         button is not currently pressed
+     */
+    public Elevator getAssignedElevator(Button button);
+}
@@ -0,0 +1,509 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * IndexedLookWithDirectionInternalScheduler is a class that implements the
+ * InternalScheduler interface. It schedules requests in exactly the same order
+ * as LookWithDirectionInternalScheduler (see that class for a description of
+ * the algorithm), but it stores the requests by floor instead of in priority
+ * queues.
+ * <p>
+ * Each of the four queues (up, down, pending up and pending down) is a bitset
+ * with one bit per floor, plus a small slot per floor holding the requests for
+ * that floor in the order they were added. Adding and removing a request only
+ * touches the slot for its floor, and the next stop is found by scanning the
+ * bitset a word (64 floors) at a time from the lowest or highest occupied word.
+ * Moving the pending requests over when the direction changes only visits the
+ * floors that have pending requests. The floor range grows as needed, so the
+ * scheduler does not need to know the floors of the building up front.
+ * <p>
+ * Requests on the same floor in the same queue are returned in the order they
+ * were added. Like LookWithDirectionInternalScheduler, the queues are guarded
+ * by a ReentrantLock rather than synchronized, and the scheduler is
+ * Serializable so it can be saved in a SimulationCheckpoint.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class IndexedLookWithDirectionInternalScheduler implements InternalScheduler, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_FLOOR_CAPACITY = 128;
+
+    /**
+     * A queue of requests indexed by floor. Floors are stored as an index from the
+     * lowest floor the scheduler can currently hold.
+     */
+    private static final class FloorQueue implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long[] occupiedFloors;
+        private Request[][] slots;
+        private int[] slotSizes;
+        private int size;
+        private int lowestWordHint;
+        private int highestWordHint;
+
+        public FloorQueue(int capacity) {
+            occupiedFloors = new long[capacity >>> 6];
+            slots = new Request[capacity][];
+            slotSizes = new int[capacity];
+            size = 0;
+            lowestWordHint = occupiedFloors.length;
+            highestWordHint = -1;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void add(int index, Request request) {
+            Request[] slot = slots[index];
+            int slotSize = slotSizes[index];
+            if (slot == null) {
+                slot = new Request[2];
+                slots[index] = slot;
+            } else if (slotSize == slot.length) {
+                slot = Arrays.copyOf(slot, slotSize * 2);
+                slots[index] = slot;
+            }
+            slot[slotSize] = request;
+            slotSizes[index] = slotSize + 1;
+            size++;
+
+            int word = index >>> 6;
+            occupiedFloors[word] |= 1L << index;
+            lowestWordHint = Math.min(lowestWordHint, word);
+            highestWordHint = Math.max(highestWordHint, word);
+        }
+
+        public boolean remove(int index, Request request) {
+            Request[] slot = slots[index];
+            int slotSize = slotSizes[index];
+            for (int i = 0; i < slotSize; i++) {
+                if (slot[i] == request) {
+                    System.arraycopy(slot, i + 1, slot, i, slotSize - i - 1);
+                    slot[slotSize - 1] = null;
+                    slotSizes[index] = slotSize - 1;
+                    size--;
+                    if (slotSize == 1) {
+                        occupiedFloors[index >>> 6] &= ~(1L << index);
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public Request first(int index) {
+            return slots[index][0];
+        }
+
+        /**
+         * Returns the index of the lowest floor with a request, or -1 if empty.
+         */
+        public int lowestIndex() {
+            if (size == 0) {
+                return -1;
+            }
+            int word = lowestWordHint;
+            while (occupiedFloors[word] == 0) {
+                word++;
+            }
+            lowestWordHint = word;
+            return (word << 6) + Long.numberOfTrailingZeros(occupiedFloors[word]);
+        }
+
+        /**
+         * Returns the index of the highest floor with a request, or -1 if empty.
+         */
+        public int highestIndex() {
+            if (size == 0) {
+                return -1;
+            }
+            int word = highestWordHint;
+            while (occupiedFloors[word] == 0) {
+                word--;
+            }
+            highestWordHint = word;
+            return (word << 6) + 63 - Long.numberOfLeadingZeros(occupiedFloors[word]);
+        }
+
+        /**
+         * Moves every request in this queue to the other queue, visiting only the
+         * floors that have requests.
+         */
+        public void moveAllTo(FloorQueue other) {
+            if (size == 0) {
+                return;
+            }
+            for (int word = lowestWordHint; word <= highestWordHint; word++) {
+                long bits = occupiedFloors[word];
+                while (bits != 0) {
+                    int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+
+                    Request[] slot = slots[index];
+                    for (int i = 0; i < slotSizes[index]; i++) {
+                        other.add(index, slot[i]);
+                        slot[i] = null;
+                    }
+                    slotSizes[index] = 0;
+                }
+                occupiedFloors[word] = 0;
+            }
+            size = 0;
+            lowestWordHint = occupiedFloors.length;
+            highestWordHint = -1;
+        }
+
+        /**
+         * Copies this queue into arrays of the new capacity, shifting every floor
+         * index up by the given offset.
+         */
+        public void grow(int newCapacity, int offset) {
+            long[] oldOccupiedFloors = occupiedFloors;
+            Request[][] oldSlots = slots;
+            int[] oldSlotSizes = slotSizes;
+
+            occupiedFloors = new long[newCapacity >>> 6];
+            slots = new Request[newCapacity][];
+            slotSizes = new int[newCapacity];
+            System.arraycopy(oldSlots, 0, slots, offset, oldSlots.length);
+            System.arraycopy(oldSlotSizes, 0, slotSizes, offset, oldSlotSizes.length);
+            // The offset is always a multiple of 64, so whole words can be copied
+            System.arraycopy(oldOccupiedFloors, 0, occupiedFloors, offset >>> 6, oldOccupiedFloors.length);
+
+            if (size == 0) {
+                lowestWordHint = occupiedFloors.length;
+                highestWordHint = -1;
+            } else {
+                lowestWordHint += offset >>> 6;
+                highestWordHint += offset >>> 6;
+            }
+        }
+    }
+
+    private final FloorQueue upJobs;
+    private final FloorQueue downJobs;
+
+    private final FloorQueue pendingUpJobs;
+    private final FloorQueue pendingDownJobs;
+
+    private final Elevator elevator;
+    private final ReentrantLock lock;
+    private Direction schedulingDirection;
+    private volatile Request currentRequest;
+    private volatile long headVersion;
+    private volatile int upDepth;
+    private volatile int downDepth;
+    private volatile int pendingUpDepth;
+    private volatile int pendingDownDepth;
+    private int lowestFloor;
+    private int floorCapacity;
+    private volatile int requestCount;
+
+    /**
+     * Class constructor specifying the elevator that is being scheduled.
+     *
+     * @param elevator the elevator that is being scheduled
+     */
+    public IndexedLookWithDirectionInternalScheduler(Elevator elevator) {
+        floorCapacity = INITIAL_FLOOR_CAPACITY;
+        lowestFloor = elevator.getCurrentFloor() - floorCapacity / 2;
+
+        upJobs = new FloorQueue(floorCapacity);
+        downJobs = new FloorQueue(floorCapacity);
+
+        pendingUpJobs = new FloorQueue(floorCapacity);
+        pendingDownJobs = new FloorQueue(floorCapacity);
+
+        this.elevator = elevator;
+        lock = new ReentrantLock();
+        schedulingDirection = Direction.NONE;
+        currentRequest = null;
+        headVersion = 0;
+        upDepth = 0;
+        downDepth = 0;
+        pendingUpDepth = 0;
+        pendingDownDepth = 0;
+        requestCount = 0;
+    }
+
+    /**
+     * Returns the current scheduling direction of the scheduler. This specifies
+     * which queue is being pulled from currently.
+     *
+     * @return the current scheduling direction
+     */
+    public final Direction getSchedulingDirection() {
+        lock.lock();
+        try {
+            return schedulingDirection;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a request to the scheduler. The request goes into the same queue that
+     * LookWithDirectionInternalScheduler would put it in, and the scheduling
+     * direction is determined in the same way.
+     *
+     * @param request a new request to be scheduled
+     */
+    public void addRequest(Request request) {
+        lock.lock();
+        try {
+            int index = indexOf(request.getFloorNumber());
+
+            switch (request.getDesiredDirection()) {
+                case UP:
+                    if (request.getFloorNumber() >= elevator.getCurrentFloor() ||
+                            schedulingDirection != Direction.UP) {
+                        upJobs.add(index, request);
+                    } else {
+                        pendingUpJobs.add(index, request);
+                    }
+
+                    if (schedulingDirection == Direction.NONE) {
+                        schedulingDirection = Direction.UP;
+                    }
+                    break;
+
+                case DOWN:
+                    if (request.getFloorNumber() <= elevator.getCurrentFloor() ||
+                            schedulingDirection != Direction.DOWN) {
+                        downJobs.add(index, request);
+                    } else {
+                        pendingDownJobs.add(index, request);
+                    }
+
+                    if (schedulingDirection == Direction.NONE) {
+                        schedulingDirection = Direction.DOWN;
+                    }
+                    break;
+
+                default:
+                    if (request.getFloorNumber() >= elevator.getCurrentFloor()) {
+                        upJobs.add(index, request);
+                        if (schedulingDirection == Direction.NONE) {
+                            schedulingDirection = Direction.UP;
+                        }
+                    } else {
+                        downJobs.add(index, request);
+                        if (schedulingDirection == Direction.NONE) {
+                            schedulingDirection = Direction.DOWN;
+                        }
+                    }
+                    break;
+            }
+            requestCount++;
+            updateCurrentRequest();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the specified request from the queue of the current scheduling
+     * direction. If there are no more requests in the current direction, then a
+     * direction switch will occur and pending requests will get moved to the main
+     * queues at this time. If there are no requests at all then the scheduling
+     * direction will be set to NONE.
+     * 
+     * @param request the request that was satified that will be removed from the
+     *                scheduler
+     */
+    public void removeRequest(Request request) {
+        lock.lock();
+        try {
+            int index = request.getFloorNumber() - lowestFloor;
+            if (index >= 0 && index < floorCapacity) {
+                FloorQueue queue = (schedulingDirection == Direction.UP) ? upJobs : downJobs;
+                if (queue.remove(index, request)) {
+                    requestCount--;
+                }
+            }
+            updateSchedulingDirection();
+            updateCurrentRequest();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the specified request from the scheduler without it having been
+     * satisfied. The request is looked for in all of the queues. If this leaves no
+     * more requests in the current direction, then the direction is switched in
+     * the same way as for removeRequest.
+     *
+     * @param request the request to take away from the scheduler
+     * @return whether the request was found and removed
+     */
+    public boolean cancelRequest(Request request) {
+        lock.lock();
+        try {
+            int index = request.getFloorNumber() - lowestFloor;
+            if (index < 0 || index >= floorCapacity) {
+                return false;
+            }
+
+            boolean removed = upJobs.remove(index, request) || downJobs.remove(index, request)
+                    || pendingUpJobs.remove(index, request) || pendingDownJobs.remove(index, request);
+            if (removed) {
+                requestCount--;
+                updateSchedulingDirection();
+                updateCurrentRequest();
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateSchedulingDirection() {
+        if (schedulingDirection == Direction.UP) {
+            if (upJobs.isEmpty()) {
+                pendingUpJobs.moveAllTo(upJobs);
+
+                if (!downJobs.isEmpty()) {
+                    schedulingDirection = Direction.DOWN;
+                } else if (upJobs.isEmpty()) {
+                    schedulingDirection = Direction.NONE;
+                }
+            }
+        } else {
+            if (downJobs.isEmpty()) {
+                pendingDownJobs.moveAllTo(downJobs);
+
+                if (!upJobs.isEmpty()) {
+                    schedulingDirection = Direction.UP;
+                } else if (downJobs.isEmpty()) {
+                    schedulingDirection = Direction.NONE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the current highest priority request in the eyes of the scheduler.
+     * When going up this is the lowest floor in the up queue, and when going down
+     * it is the highest floor in the down queue.
+     * <p>
+     * The request is worked out whenever the queues change and kept in a
+     * volatile field, so this does not need to take the lock.
+     *
+     * @returns the current highest priority request
+     */
+    public Request getCurrentRequest() {
+        return currentRequest;
+    }
+
+    /**
+     * Returns the version of the current request, which is counted up whenever
+     * the current request changes. It is kept in a volatile field, so this does
+     * not need to take the lock.
+     *
+     * @return the version of the current request
+     */
+    @Override
+    public long getHeadVersion() {
+        return headVersion;
+    }
+
+    /**
+     * Works out the current request after the queues have changed, and counts up
+     * the head version if it is a different request. The queue depths are
+     * published at the same time. Must be called while holding the lock, which
+     * is also what makes the increment safe.
+     */
+    private void updateCurrentRequest() {
+        Request request;
+        if (schedulingDirection == Direction.UP) {
+            int index = upJobs.lowestIndex();
+            request = (index >= 0) ? upJobs.first(index) : null;
+        } else {
+            int index = downJobs.highestIndex();
+            request = (index >= 0) ? downJobs.first(index) : null;
+        }
+        if (request != currentRequest) {
+            currentRequest = request;
+            headVersion++;
+        }
+        upDepth = upJobs.size();
+        downDepth = downJobs.size();
+        pendingUpDepth = pendingUpJobs.size();
+        pendingDownDepth = pendingDownJobs.size();
+    }
+
+    /**
+     * Returns how many requests are waiting in one of the queues. The depths are
+     * kept in volatile fields whenever the queues change, so this does not need
+     * to take the lock.
+     *
+     * @param direction the direction of the queue, either UP or DOWN
+     * @param pending   whether to count the pending queue for the direction
+     *                  rather than the main queue
+     * @return the number of requests in the queue
+     */
+    @Override
+    public int getQueueDepth(Direction direction, boolean pending) {
+        switch (direction) {
+            case UP:
+                return pending ? pendingUpDepth : upDepth;
+            case DOWN:
+                return pending ? pendingDownDepth : downDepth;
+            default:
+                throw new IllegalArgumentException("There is no queue for direction " + direction);
+        }
+    }
+
+    /**
+     * Returns whether the scheduler has any requests. The count of requests is
+     * kept in a volatile field, so this does not need to take the lock.
+     *
+     * @returns whether the scheduler has any requests that still need to be
+     *          processed
+     */
+    public boolean hasRequests() {
+        return requestCount > 0;
+    }
+
+    /**
+     * Returns the index for the floor, growing the floor range if the floor is
+     * outside of it. The range at least doubles every time it grows, so growing is
+     * rare.
+     */
+    private int indexOf(int floor) {
+        int index = floor - lowestFloor;
+        if (index >= 0 && index < floorCapacity) {
+            return index;
+        }
+
+        int newLowestFloor = lowestFloor;
+        int newCapacity = floorCapacity;
+        while (floor < newLowestFloor || floor >= newLowestFloor + newCapacity) {
+            if (floor < newLowestFloor) {
+                // Grow downwards, keeping the offset a multiple of a whole word
+                newLowestFloor -= newCapacity;
+            }
+            newCapacity *= 2;
+        }
+        int offset = lowestFloor - newLowestFloor;
+
+        upJobs.grow(newCapacity, offset);
+        downJobs.grow(newCapacity, offset);
+        pendingUpJobs.grow(newCapacity, offset);
+        pendingDownJobs.grow(newCapacity, offset);
+        lowestFloor = newLowestFloor;
+        floorCapacity = newCapacity;
+        return floor - lowestFloor;
+    }
+}
@@ -1,5 +1,7 @@
 package com.elevatorsimulation;
 
+import java.util.List;
+
 /**
  * InternalScheduler is an interface used by the Elevator class for determining
  * which floor the elevator should move to next. This scheduler is used for the
@@ -11,6 +13,12 @@ package com.elevatorsimulation;
  * @version 1.0
  */
 public interface InternalScheduler {
+    /**
+     * The head version of a scheduler that does not keep one, in which case the
+     * current request has to be read every time.
+     */
+    public static final long UNVERSIONED = -1;
+
     /**
      * Adds a request to the scheduler. This is intended for the elevator to take
      * button presses and then tell the scheduler there are new requests.
@@ -29,6 +37,43 @@ public interface InternalScheduler {
      */
     public void removeRequest(Request request);
 
+    /**
+     * Removes the specified request after it has been satisfied, along with every
+     * other request that the scheduler would satisfy next at the same floor, so
+     * that the elevator can satisfy all of them with one stop. The removed
+     * requests are added to the list in the order they would have been
+     * satisfied, starting with the specified request.
+     * <p>
+     * The default implementation removes the request and then keeps removing the
+     * current request for as long as it is for the same floor, so the requests
+     * are satisfied in the same order as when they are removed one at a time.
+     *
+     * @param request        the request that was satisfied
+     * @param servedRequests the list that the removed requests are added to
+     */
+    public default void removeServedRequests(Request request, List<Request> servedRequests) {
+        removeRequest(request);
+        servedRequests.add(request);
+
+        Request next = getCurrentRequest();
+        while (next != null && next.getFloorNumber() == request.getFloorNumber()) {
+            removeRequest(next);
+            servedRequests.add(next);
+            next = getCurrentRequest();
+        }
+    }
+
+    /**
+     * Removes the specified request from the scheduler without it having been
+     * satisfied. This is intended for an external scheduler that is handing the
+     * request to a different elevator. Unlike removeRequest, the request may be
+     * anywhere in the schedule.
+     *
+     * @param request the request to take away from the scheduler
+     * @return whether the request was found and removed
+     */
+    public boolean cancelRequest(Request request);
+
     /**
      * Retrieves the current highest priority request in the eyes of the scheduler.
      * This is the request that the elevator will satisfy next.
@@ -37,6 +82,40 @@ public interface InternalScheduler {
      */
     public Request getCurrentRequest();
 
+    /**
+     * Returns a stamp for the current request. The stamp changes whenever the
+     * request returned by getCurrentRequest changes, so an elevator that is
+     * moving towards the current request only needs to read it again when the
+     * stamp is different. It is called by the elevator at every floor, so it must
+     * be cheap and must not block.
+     * <p>
+     * The default implementation returns UNVERSIONED, so the elevator reads the
+     * current request at every floor.
+     *
+     * @return the version of the current request, or UNVERSIONED
+     */
+    public default long getHeadVersion() {
+        return UNVERSIONED;
+    }
+
+    /**
+     * Returns how many requests are waiting in one of the queues of the
+     * scheduler, for monitoring. It is read by a MetricsExporter while the
+     * elevator is running, so it must be cheap and must not block. The value may
+     * be slightly out of date, but is never a mix of two states of one queue.
+     * <p>
+     * The default implementation returns 0, for a scheduler that does not keep
+     * its queues by direction.
+     *
+     * @param direction the direction of the queue, either UP or DOWN
+     * @param pending   whether to count the pending queue for the direction
+     *                  rather than the main queue
+     * @return the number of requests in the queue
+     */
+    public default int getQueueDepth(Direction direction, boolean pending) {
+        return 0;
+    }
+
     /**
      * Returns whether the scheduler has any requests in its queue.
      *
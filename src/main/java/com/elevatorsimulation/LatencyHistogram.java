@@ -0,0 +1,224 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram is a class for recording latencies in nanoseconds and
+ * reading back percentiles of them. It uses a fixed amount of memory no matter
+ * how many latencies are recorded or how large they are.
+ * <p>
+ * Latencies below 128 nanoseconds are counted exactly. Larger latencies are
+ * counted in logarithmic buckets: every power of two is split into 64 equal
+ * sub-buckets, so a percentile is never off by more than 1/64 (about 1.6%) of
+ * its value. Recording a latency only computes the bucket from the position of
+ * the highest set bit and increments a counter, so it takes constant time and
+ * does not allocate.
+ * <p>
+ * Histograms can be merged, so the latencies of many elevators or many runs can
+ * be combined into one histogram before the percentiles are read.
+ * <p>
+ * A LatencyHistogram is not thread safe. The StatsRecorder of a StatsCollector
+ * gives every recording thread its own histograms, and hands out merged copies
+ * of them.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class LatencyHistogram implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS; // 128
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1; // 64
+    private static final int MAX_SHIFT = 62 - (SUB_BUCKET_BITS - 1); // The highest bit of a positive long is 62
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF_COUNT;
+
+    private final long[] counts;
+    private long totalCount;
+    private long sum;
+    private long min;
+    private long max;
+
+    /**
+     * Class constructor for an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new long[BUCKET_COUNT];
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param latencyInNs the latency in nanoseconds
+     * @throws IllegalArgumentException if the latency is negative
+     */
+    public void record(long latencyInNs) {
+        if (latencyInNs < 0) {
+            throw new IllegalArgumentException("Latency can not be negative: " + latencyInNs);
+        }
+        counts[bucketIndex(latencyInNs)]++;
+        totalCount++;
+        sum += latencyInNs;
+        min = Math.min(min, latencyInNs);
+        max = Math.max(max, latencyInNs);
+    }
+
+    /**
+     * Adds all the latencies recorded by another histogram to this histogram.
+     *
+     * @param other the histogram to merge into this one
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns a copy of this histogram that is not affected by later changes to
+     * this histogram.
+     *
+     * @return a copy of this histogram
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Removes all recorded latencies.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the sum of all recorded latencies.
+     *
+     * @return the sum of the latencies in nanoseconds
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the smallest recorded latency, or 0 if nothing has been recorded.
+     *
+     * @return the smallest latency in nanoseconds
+     */
+    public long getMin() {
+        return (totalCount > 0) ? min : 0;
+    }
+
+    /**
+     * Returns the largest recorded latency, or 0 if nothing has been recorded.
+     *
+     * @return the largest latency in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the average of the recorded latencies, or NaN if nothing has been
+     * recorded.
+     *
+     * @return the average latency in nanoseconds
+     */
+    public double getMean() {
+        return (totalCount > 0) ? (double) sum / totalCount : Double.NaN;
+    }
+
+    /**
+     * Returns the latency that the specified percentage of the recorded latencies
+     * are at or below. The result is the largest latency that falls in the same
+     * bucket, limited to the range of recorded latencies.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency at the percentile in nanoseconds, or 0 if nothing has
+     *         been recorded
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long countSoFar = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            countSoFar += counts[i];
+            if (countSoFar >= rank) {
+                return Math.max(min, Math.min(max, highestValueInBucket(i)));
+            }
+        }
+        return max;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // Keep the highest SUB_BUCKET_BITS - 1 bits below the leading one
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift); // 64 to 127
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        // For the last bucket this wraps around from Long.MIN_VALUE to Long.MAX_VALUE
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Returns a human readable string that represents the informative contents of
+     * this histogram. Latencies are output in nanoseconds. The representation is
+     * subject to change, but the following may be regarded as typical:
+     * 
+     * "LatencyHistogram{count=9, p50=5404999999, p90=12918456319,
+     * p99=12918456319, p99.9=12918456319, max=12900000000}"
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" +
+                "count=" + totalCount +
+                ", p50=" + getValueAtPercentile(50) +
+                ", p90=" + getValueAtPercentile(90) +
+                ", p99=" + getValueAtPercentile(99) +
+                ", p99.9=" + getValueAtPercentile(99.9) +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -1,7 +1,9 @@
 package com.elevatorsimulation;
 
+import java.io.Serializable;
 import java.util.Comparator;
 import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * LookWithDirectionInternalScheduler is a class that implements the
@@ -19,11 +21,38 @@ import java.util.PriorityQueue;
  * Requests that cannot be satisfied for the current direction (would require
  * backtracking) are placed in pending queues, that are then copied over when
  * the direction of travel once again returns to the desired direction.
+ * <p>
+ * The queues are guarded by a ReentrantLock rather than synchronized, so an
+ * elevator running on a virtual thread does not pin its carrier thread while it
+ * waits for the lock.
+ * <p>
+ * The scheduler is Serializable. The queues are ordered by a named comparator
+ * rather than a lambda, so they are saved along with the requests in a
+ * SimulationCheckpoint.
  *
  * @author Michael Zigment
  * @version 1.0
  */
-public class LookWithDirectionInternalScheduler implements InternalScheduler {
+public class LookWithDirectionInternalScheduler implements InternalScheduler, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Orders requests by floor, either ascending or descending.
+     */
+    private static final class FloorOrder implements Comparator<Request>, Serializable {
+        private static final long serialVersionUID = 1L;
+        private final boolean descending;
+
+        FloorOrder(boolean descending) {
+            this.descending = descending;
+        }
+
+        @Override
+        public int compare(Request a, Request b) {
+            return descending ? Integer.compare(b.getFloorNumber(), a.getFloorNumber())
+                    : Integer.compare(a.getFloorNumber(), b.getFloorNumber());
+        }
+    }
 
     private final PriorityQueue<Request> upJobs;
     private final PriorityQueue<Request> downJobs;
@@ -32,7 +61,14 @@ public class LookWithDirectionInternalScheduler implements InternalScheduler {
     private final PriorityQueue<Request> pendingDownJobs;
 
     private final Elevator elevator;
+    private final ReentrantLock lock;
     private Direction schedulingDirection;
+    private volatile Request currentRequest;
+    private volatile long headVersion;
+    private volatile int upDepth;
+    private volatile int downDepth;
+    private volatile int pendingUpDepth;
+    private volatile int pendingDownDepth;
 
     /**
      * Class constructor specifying the elevator that is being scheduled.
@@ -40,18 +76,21 @@ public class LookWithDirectionInternalScheduler implements InternalScheduler {
      * @param elevator the elevator that is being scheduled
      */
     public LookWithDirectionInternalScheduler(Elevator elevator) {
-        upJobs = new PriorityQueue<Request>(
-                Comparator.comparingInt(Request::getFloorNumber));
-        downJobs = new PriorityQueue<Request>(
-                Comparator.comparingInt(Request::getFloorNumber).reversed());
+        upJobs = new PriorityQueue<Request>(new FloorOrder(false));
+        downJobs = new PriorityQueue<Request>(new FloorOrder(true));
 
-        pendingUpJobs = new PriorityQueue<Request>(
-                Comparator.comparingInt(Request::getFloorNumber));
-        pendingDownJobs = new PriorityQueue<Request>(
-                Comparator.comparingInt(Request::getFloorNumber).reversed());
+        pendingUpJobs = new PriorityQueue<Request>(new FloorOrder(false));
+        pendingDownJobs = new PriorityQueue<Request>(new FloorOrder(true));
 
         this.elevator = elevator;
+        lock = new ReentrantLock();
         schedulingDirection = Direction.NONE;
+        currentRequest = null;
+        headVersion = 0;
+        upDepth = 0;
+        downDepth = 0;
+        pendingUpDepth = 0;
+        pendingDownDepth = 0;
     }
 
     /**
@@ -60,8 +99,13 @@ public class LookWithDirectionInternalScheduler implements InternalScheduler {
      *
      * @return the current scheduling direction
      */
-    public synchronized final Direction getSchedulingDirection() {
-        return schedulingDirection;
+    public final Direction getSchedulingDirection() {
+        lock.lock();
+        try {
+            return schedulingDirection;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -73,47 +117,53 @@ public class LookWithDirectionInternalScheduler implements InternalScheduler {
      *
      * @param request a new request to be scheduled
      */
-    public synchronized void addRequest(Request request) {
-        switch (request.getDesiredDirection()) {
-            case UP:
-                if (request.getFloorNumber() >= elevator.getCurrentFloor() ||
-                        schedulingDirection != Direction.UP) {
-                    upJobs.add(request);
-                } else {
-                    pendingUpJobs.add(request);
-                }
-
-                if (schedulingDirection == Direction.NONE) {
-                    schedulingDirection = Direction.UP;
-                }
-                break;
-
-            case DOWN:
-                if (request.getFloorNumber() <= elevator.getCurrentFloor() ||
-                        schedulingDirection != Direction.DOWN) {
-                    downJobs.add(request);
-                } else {
-                    pendingDownJobs.add(request);
-                }
-
-                if (schedulingDirection == Direction.NONE) {
-                    schedulingDirection = Direction.DOWN;
-                }
-                break;
+    public void addRequest(Request request) {
+        lock.lock();
+        try {
+            switch (request.getDesiredDirection()) {
+                case UP:
+                    if (request.getFloorNumber() >= elevator.getCurrentFloor() ||
+                            schedulingDirection != Direction.UP) {
+                        upJobs.add(request);
+                    } else {
+                        pendingUpJobs.add(request);
+                    }
 
-            default:
-                if (request.getFloorNumber() >= elevator.getCurrentFloor()) {
-                    upJobs.add(request);
                     if (schedulingDirection == Direction.NONE) {
                         schedulingDirection = Direction.UP;
                     }
-                } else {
-                    downJobs.add(request);
+                    break;
+
+                case DOWN:
+                    if (request.getFloorNumber() <= elevator.getCurrentFloor() ||
+                            schedulingDirection != Direction.DOWN) {
+                        downJobs.add(request);
+                    } else {
+                        pendingDownJobs.add(request);
+                    }
+
                     if (schedulingDirection == Direction.NONE) {
                         schedulingDirection = Direction.DOWN;
                     }
-                }
-                break;
+                    break;
+
+                default:
+                    if (request.getFloorNumber() >= elevator.getCurrentFloor()) {
+                        upJobs.add(request);
+                        if (schedulingDirection == Direction.NONE) {
+                            schedulingDirection = Direction.UP;
+                        }
+                    } else {
+                        downJobs.add(request);
+                        if (schedulingDirection == Direction.NONE) {
+                            schedulingDirection = Direction.DOWN;
+                        }
+                    }
+                    break;
+            }
+            updateCurrentRequest();
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -128,10 +178,47 @@ public class LookWithDirectionInternalScheduler implements InternalScheduler {
      * @param request the request that was satified that will be removed from the
      *                scheduler
      */
-    public synchronized void removeRequest(Request request) {
-        if (schedulingDirection == Direction.UP) {
-            upJobs.remove(request);
+    public void removeRequest(Request request) {
+        lock.lock();
+        try {
+            if (schedulingDirection == Direction.UP) {
+                upJobs.remove(request);
+            } else {
+                downJobs.remove(request);
+            }
+            updateSchedulingDirection();
+            updateCurrentRequest();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the specified request from the scheduler without it having been
+     * satisfied. The request is looked for in all of the queues. If this leaves no
+     * more requests in the current direction, then the direction is switched in
+     * the same way as for removeRequest.
+     *
+     * @param request the request to take away from the scheduler
+     * @return whether the request was found and removed
+     */
+    public boolean cancelRequest(Request request) {
+        lock.lock();
+        try {
+            boolean removed = upJobs.remove(request) || downJobs.remove(request)
+                    || pendingUpJobs.remove(request) || pendingDownJobs.remove(request);
+            if (removed) {
+                updateSchedulingDirection();
+                updateCurrentRequest();
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
 
+    private void updateSchedulingDirection() {
+        if (schedulingDirection == Direction.UP) {
             if (upJobs.isEmpty()) {
                 // Copy pending over
                 upJobs.addAll(pendingUpJobs);
@@ -144,8 +231,6 @@ public class LookWithDirectionInternalScheduler implements InternalScheduler {
                 }
             }
         } else {
-            downJobs.remove(request);
-
             if (downJobs.isEmpty()) {
                 // Copy pending over
                 downJobs.addAll(pendingDownJobs);
@@ -164,14 +249,65 @@ public class LookWithDirectionInternalScheduler implements InternalScheduler {
      * Retrieves the current highest priority request in the eyes of the scheduler.
      * This is the request that the elevator will satisfy next. The scheduling
      * direction will determine which queue to pull from.
+     * <p>
+     * The request is worked out whenever the queues change and kept in a
+     * volatile field, so this does not need to take the lock.
      *
      * @returns the current highest priority request
      */
-    public synchronized Request getCurrentRequest() {
-        if (schedulingDirection == Direction.UP) {
-            return upJobs.peek();
-        } else {
-            return downJobs.peek();
+    public Request getCurrentRequest() {
+        return currentRequest;
+    }
+
+    /**
+     * Returns the version of the current request, which is counted up whenever
+     * the current request changes. It is kept in a volatile field, so this does
+     * not need to take the lock.
+     *
+     * @return the version of the current request
+     */
+    @Override
+    public long getHeadVersion() {
+        return headVersion;
+    }
+
+    /**
+     * Works out the current request after the queues have changed, and counts up
+     * the head version if it is a different request. The queue depths are
+     * published at the same time. Must be called while holding the lock, which
+     * is also what makes the increment safe.
+     */
+    private void updateCurrentRequest() {
+        Request request = (schedulingDirection == Direction.UP) ? upJobs.peek() : downJobs.peek();
+        if (request != currentRequest) {
+            currentRequest = request;
+            headVersion++;
+        }
+        upDepth = upJobs.size();
+        downDepth = downJobs.size();
+        pendingUpDepth = pendingUpJobs.size();
+        pendingDownDepth = pendingDownJobs.size();
+    }
+
+    /**
+     * Returns how many requests are waiting in one of the queues. The depths are
+     * kept in volatile fields whenever the queues change, so this does not need
+     * to take the lock.
+     *
+     * @param direction the direction of the queue, either UP or DOWN
+     * @param pending   whether to count the pending queue for the direction
+     *                  rather than the main queue
+     * @return the number of requests in the queue
+     */
+    @Override
+    public int getQueueDepth(Direction direction, boolean pending) {
+        switch (direction) {
+            case UP:
+                return pending ? pendingUpDepth : upDepth;
+            case DOWN:
+                return pending ? pendingDownDepth : downDepth;
+            default:
+                throw new IllegalArgumentException("There is no queue for direction " + direction);
         }
     }
 
@@ -183,7 +319,12 @@ public class LookWithDirectionInternalScheduler implements InternalScheduler {
      * @returns whether the scheduler has any requests that still need to be
      *          processed
      */
-    public synchronized boolean hasRequests() {
-        return !upJobs.isEmpty() || !downJobs.isEmpty();
+    public boolean hasRequests() {
+        lock.lock();
+        try {
+            return !upJobs.isEmpty() || !downJobs.isEmpty();
+        } finally {
+            lock.unlock();
+        }
     }
 }
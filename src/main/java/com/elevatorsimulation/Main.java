@@ -1,5 +1,16 @@
 package com.elevatorsimulation;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import javax.management.JMException;
+
 /**
  * The main class of the application. This is the class that gets executed in
  * order to run.
@@ -8,6 +19,53 @@ package com.elevatorsimulation;
  * @version 1.0
  */
 public class Main {
+    private static final long DEFAULT_CHECKPOINT_INTERVAL_IN_MS = 60_000;
+    private static final long SHUTDOWN_CHECKPOINT_TIMEOUT_IN_MS = 5_000;
+    private static final String USAGE = "Usage: Main [--config FILE] [--discrete-event] [--elevators N] "
+            + "[--scheduler TYPE] [--dispatch MODE] [--trace FILE] [--events TARGET] [--drop-events] "
+            + "[--thread-mode MODE] [--traffic PATTERN] [--floors N] [--population N] [--arrival-rate PERCENT] "
+            + "[--passengers N] [--seed N] [--record-decisions DIRECTORY] [--shadow TYPE,...] "
+            + "[--checkpoint FILE] [--checkpoint-interval SECONDS] [--stop-at SECONDS] [--resume FILE] [--jmx] "
+            + "[--metrics-port PORT] [--request-log FILE]";
+
+    /**
+     * Where and how often the discrete event simulation is checkpointed, and
+     * when it stops.
+     */
+    private static final class CheckpointSettings {
+        public final String checkpointFile;
+        public final long intervalInMs;
+        public final long stopAtInMs;
+
+        public CheckpointSettings(String checkpointFile, long intervalInMs, long stopAtInMs) {
+            this.checkpointFile = checkpointFile;
+            this.intervalInMs = intervalInMs;
+            this.stopAtInMs = stopAtInMs;
+        }
+
+        public boolean isEnabled() {
+            return checkpointFile != null;
+        }
+    }
+
+    /**
+     * How the live metrics of the elevators are published while the simulation
+     * runs.
+     */
+    private static final class MetricsSettings {
+        public final boolean jmx;
+        public final int port;
+
+        public MetricsSettings(boolean jmx, int port) {
+            this.jmx = jmx;
+            this.port = port;
+        }
+
+        public boolean isEnabled() {
+            return jmx || port >= 0;
+        }
+    }
+
     /**
      * The main method of the application. Creates an Elevator object and a
      * ButtonPresser object and runs them in separate threads. The method then waits
@@ -16,26 +74,408 @@ public class Main {
      * will direct it to finish whatever is remaining in its queue. The method waits
      * for the elevator to finish all its remaining requests and then the scorecard
      * containing the elevator statistics is printed out.
+     * <p>
+     * If the "--discrete-event" argument is given, the simulation is instead run
+     * as a DiscreteEventSimulation on a VirtualClock, which produces the same
+     * statistics as fast as possible instead of in real time.
+     * <p>
+     * If the "--elevators N" argument is given with N greater than one, then a
+     * bank of N elevators is simulated and the button presses are handed out to
+     * the elevators by a NearestCarExternalScheduler.
+     * <p>
+     * The "--dispatch MODE" argument sets the DispatchMode of the hall calls.
+     * With DESTINATION, generated passengers enter their destination on their
+     * floor, and a bank of elevators is scheduled by a
+     * DestinationDispatchExternalScheduler instead. The default is CONVENTIONAL.
+     * <p>
+     * The "--scheduler TYPE" argument selects the SchedulerType used by the
+     * elevators. The default is LOOK_WITH_DIRECTION.
+     * <p>
+     * The "--trace FILE" argument sets the csv file that the button presses are
+     * streamed from. The default is ButtonPresser.DEFAULT_CSV_FILE. Files ending
+     * in ".elvb" are read as binary traces written by the BinaryTraceConverter.
+     * <p>
+     * What the elevators are doing is published to an AsyncEventSink, which
+     * writes it out on a background thread. The "--events TARGET" argument sets
+     * where the events go: "console" (the default), "none", or the path of a file.
+     * By default the simulation waits for the output when the event buffer is
+     * full. "--drop-events" drops events instead.
+     * <p>
+     * The "--thread-mode MODE" argument sets the ExecutionMode that the elevators
+     * and the ButtonPresser run on in the real time mode. VIRTUAL runs them on
+     * virtual threads (Java 21 or later), which allows thousands of elevators. The
+     * default is PLATFORM.
+     * <p>
+     * The "--traffic PATTERN" argument generates passengers with a
+     * TrafficGenerator instead of reading a trace. The pattern is one of the
+     * TrafficGenerator.Pattern values. The building has floors 0 (the lobby) to
+     * "--floors N" (default 20) and a population of "--population N" (default
+     * 1000), and "--arrival-rate PERCENT" of the population arrives every five
+     * minutes (default 12). "--passengers N" passengers are generated (default
+     * 1000) from the seed "--seed S" (default 1).
+     * <p>
+     * The "--record-decisions DIR" argument records the inputs and decisions of
+     * the scheduler of every elevator with a RecordingInternalScheduler, to a
+     * decision log in the directory for each elevator. The logs can be replayed
+     * with the SchedulerReplayer.
+     * <p>
+     * The "--shadow TYPE,TYPE,..." argument runs a ShadowSimulation instead,
+     * which replays the trace once through a bank of elevators for each of the
+     * listed SchedulerTypes in lock-step, and prints their statistics side by
+     * side. It always runs in simulated time, and the lanes do not publish
+     * events or record their decisions.
+     * <p>
+     * The "--config FILE" argument loads a SimulationConfig from a properties
+     * file, which configures the elevators (including their timings and starting
+     * floor), the building and the traffic. Any of the other arguments override
+     * the values from the file.
+     * <p>
+     * The "--checkpoint FILE" argument saves a SimulationCheckpoint of the
+     * discrete event simulation to the file every "--checkpoint-interval
+     * SECONDS" of wall clock time (default 60), and once more if the simulation
+     * is stopped early with Ctrl-C. "--stop-at SECONDS" stops the simulation at
+     * that simulated time and saves a checkpoint, such as to fork what-if
+     * branches from a warmed up building. "--resume FILE" carries on from a
+     * checkpoint instead of starting a new simulation, in which case the
+     * arguments that configure the simulation are ignored.
+     * <p>
+     * The "--jmx" argument registers an ElevatorMXBean for every elevator, and
+     * "--metrics-port PORT" serves the metrics of the elevators in the Prometheus
+     * text format at "http://localhost:PORT/metrics", both with a
+     * MetricsExporter for as long as the simulation runs.
+     * <p>
+     * The "--request-log FILE" argument writes a record of every completed
+     * request to a RequestLog, which can be analysed after the run with a
+     * RequestLogQuery. The log can not be saved in a checkpoint, so checkpoints
+     * are switched off.
      *
-     * @param args any command line arguments (none currently)
+     * @param args any command line arguments. "--discrete-event" runs the
+     *             simulation in simulated time. "--elevators N" sets the
+     *             number of elevators. "--scheduler TYPE" sets the internal
+     *             scheduler. "--dispatch MODE" sets how the hall calls
+     *             work. "--trace FILE" sets the csv file (or binary
+     *             trace) of button presses. "--events TARGET" sets where
+     *             events are written. "--drop-events" drops events rather
+     *             than waiting when output falls behind. "--thread-mode
+     *             MODE" sets the kind of threads to run on. "--traffic
+     *             PATTERN" generates traffic instead, configured with
+     *             "--floors N", "--population N", "--arrival-rate PERCENT",
+     *             "--passengers N" and "--seed S". "--record-decisions
+     *             DIR" records the decisions of the schedulers.
+     *             "--shadow TYPE,TYPE,..." compares schedulers on the trace.
+     *             "--config FILE" loads the configuration from a file.
+     *             "--checkpoint FILE", "--checkpoint-interval SECONDS",
+     *             "--stop-at SECONDS" and "--resume FILE" save and resume
+     *             checkpoints of the discrete event simulation. "--jmx"
+     *             and "--metrics-port PORT" publish live metrics.
+     *             "--request-log FILE" records every completed request.
      */
     public static void main(String[] args) {
         AsciiArt.printTitle();
 
-        Elevator myElevator = new Elevator(1, 0);
-        ButtonPresser myButtonPresser = new ButtonPresser(myElevator);
-        Thread elevatorThread = new Thread(myElevator);
-        Thread buttonPresserThread = new Thread(myButtonPresser);
+        SimulationConfig config = SimulationConfig.DEFAULT;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--config")) {
+                try {
+                    config = SimulationConfig.load(Path.of(args[i + 1]));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.out.println("Could not load the configuration '" + args[i + 1] + "': " + e.getMessage()
+                            + "\n" + USAGE);
+                    return;
+                }
+            }
+        }
+
+        boolean discreteEvent = false;
+        int numberOfElevators = config.elevatorConfig.numberOfElevators;
+        SchedulerType schedulerType = config.elevatorConfig.schedulerType;
+        DispatchMode dispatchMode = config.dispatchMode;
+        String traceFile = config.traceFile;
+        String eventTarget = "console";
+        AsyncEventSink.OverflowPolicy overflowPolicy = AsyncEventSink.OverflowPolicy.BLOCK;
+        ExecutionMode executionMode = ExecutionMode.PLATFORM;
+        TrafficGenerator.Pattern trafficPattern = config.trafficPattern;
+        int highestFloor = config.building.highestFloor;
+        int population = config.building.population;
+        double arrivalRatePercent = config.arrivalRatePercent;
+        long passengers = config.numberOfPassengers;
+        long seed = config.seed;
+        String decisionDirectory = null;
+        List<SchedulerType> shadowSchedulerTypes = null;
+        String checkpointFile = null;
+        long checkpointIntervalInMs = DEFAULT_CHECKPOINT_INTERVAL_IN_MS;
+        long stopAtInMs = Long.MAX_VALUE;
+        String resumeFile = null;
+        boolean jmx = false;
+        int metricsPort = -1;
+        String requestLogFile = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--config")) {
+                    Arguments.value(args, i);
+                    i++; // Already loaded
+                } else if (args[i].equals("--discrete-event")) {
+                    discreteEvent = true;
+                } else if (args[i].equals("--elevators")) {
+                    numberOfElevators = Arguments.intValue(args, i++);
+                } else if (args[i].equals("--scheduler")) {
+                    schedulerType = Arguments.enumValue(args, i++, SchedulerType.class);
+                } else if (args[i].equals("--dispatch")) {
+                    dispatchMode = Arguments.enumValue(args, i++, DispatchMode.class);
+                } else if (args[i].equals("--trace")) {
+                    traceFile = Arguments.value(args, i++);
+                } else if (args[i].equals("--events")) {
+                    eventTarget = Arguments.value(args, i++);
+                } else if (args[i].equals("--drop-events")) {
+                    overflowPolicy = AsyncEventSink.OverflowPolicy.DROP;
+                } else if (args[i].equals("--thread-mode")) {
+                    executionMode = Arguments.enumValue(args, i++, ExecutionMode.class);
+                } else if (args[i].equals("--traffic")) {
+                    trafficPattern = Arguments.enumValue(args, i++, TrafficGenerator.Pattern.class);
+                } else if (args[i].equals("--floors")) {
+                    highestFloor = Arguments.intValue(args, i++);
+                } else if (args[i].equals("--population")) {
+                    population = Arguments.intValue(args, i++);
+                } else if (args[i].equals("--arrival-rate")) {
+                    arrivalRatePercent = Arguments.doubleValue(args, i++);
+                } else if (args[i].equals("--passengers")) {
+                    passengers = Arguments.longValue(args, i++);
+                } else if (args[i].equals("--seed")) {
+                    seed = Arguments.longValue(args, i++);
+                } else if (args[i].equals("--record-decisions")) {
+                    decisionDirectory = Arguments.value(args, i++);
+                } else if (args[i].equals("--shadow")) {
+                    shadowSchedulerTypes = Arguments.enumListValue(args, i++, SchedulerType.class);
+                } else if (args[i].equals("--checkpoint")) {
+                    checkpointFile = Arguments.value(args, i++);
+                } else if (args[i].equals("--checkpoint-interval")) {
+                    checkpointIntervalInMs = Math.round(Arguments.doubleValue(args, i++) * 1000);
+                } else if (args[i].equals("--stop-at")) {
+                    stopAtInMs = Math.round(Arguments.doubleValue(args, i++) * 1000);
+                } else if (args[i].equals("--resume")) {
+                    resumeFile = Arguments.value(args, i++);
+                } else if (args[i].equals("--jmx")) {
+                    jmx = true;
+                } else if (args[i].equals("--metrics-port")) {
+                    metricsPort = Arguments.intValue(args, i++);
+                } else if (args[i].equals("--request-log")) {
+                    requestLogFile = Arguments.value(args, i++);
+                } else {
+                    System.out.println("Ignoring unknown argument '" + args[i] + "'.");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n" + USAGE);
+            return;
+        }
+
+        ElevatorConfig elevatorConfig = new ElevatorConfig(numberOfElevators, config.elevatorConfig.initialFloor,
+                config.elevatorConfig.timeToTravelBetweenFloorsInMs,
+                config.elevatorConfig.timeToWaitForPassengersInMs, schedulerType);
+        SimulationConfig simulationConfig = new SimulationConfig(elevatorConfig, dispatchMode,
+                new TrafficGenerator.Building(config.building.lowestFloor, highestFloor, config.building.lobbyFloor,
+                        population),
+                trafficPattern, arrivalRatePercent, passengers, seed, traceFile);
+
+        if (shadowSchedulerTypes != null) {
+            if (trafficPattern != null) {
+                System.out.println("Generated traffic depends on the elevators, so --shadow replays the trace '"
+                        + traceFile + "' instead.");
+            }
+            runShadowSimulation(elevatorConfig, shadowSchedulerTypes, traceFile);
+            return;
+        }
+
+        EventSink eventSink = createEventSink(eventTarget, overflowPolicy);
+        MetricsSettings metricsSettings = new MetricsSettings(jmx, metricsPort);
+        CheckpointSettings checkpointSettings = new CheckpointSettings(checkpointFile, checkpointIntervalInMs,
+                stopAtInMs);
+        RequestLog requestLog = null;
+        if (requestLogFile != null) {
+            if (checkpointSettings.isEnabled()) {
+                System.out.println("A request log can not be saved in a checkpoint, so checkpoints are "
+                        + "switched off.");
+                checkpointSettings = new CheckpointSettings(null, checkpointIntervalInMs, Long.MAX_VALUE);
+            }
+            try {
+                // Simulated times start at 0, so only real time needs an origin
+                long originInNs = (discreteEvent || resumeFile != null) ? 0 : System.nanoTime();
+                requestLog = new RequestLog(Path.of(requestLogFile), originInNs);
+            } catch (IOException e) {
+                System.out.println("Could not write requests to '" + requestLogFile + "': " + e.getMessage());
+            }
+        }
+        if (resumeFile != null) {
+            resumeDiscreteEventSimulation(Path.of(resumeFile), eventSink, checkpointSettings, metricsSettings,
+                    requestLog);
+            closeRequestLog(requestLog);
+            return;
+        }
+        if (!discreteEvent && (checkpointFile != null || stopAtInMs != Long.MAX_VALUE)) {
+            System.out.println("Checkpoints are only taken of the discrete event simulation, so they are "
+                    + "switched off. Add --discrete-event to take them.");
+            checkpointSettings = new CheckpointSettings(null, checkpointIntervalInMs, Long.MAX_VALUE);
+        }
+        if (decisionDirectory != null && checkpointSettings.isEnabled()) {
+            System.out.println("Recorded decisions can not be saved in a checkpoint, so checkpoints are "
+                    + "switched off.");
+            checkpointSettings = new CheckpointSettings(null, checkpointIntervalInMs, Long.MAX_VALUE);
+        }
+        RequestLog elevatorRequestLog = requestLog;
+        Function<List<Elevator>, ButtonPresser> buttonPresserFactory = elevators -> {
+            if (elevatorRequestLog != null) {
+                elevatorRequestLog.attach(elevators);
+            }
+            return simulationConfig.createButtonPresser(elevators,
+                    createButtonPressHandler(simulationConfig, elevators, eventSink));
+        };
+
+        Function<Elevator, InternalScheduler> schedulerFactory = elevatorConfig.schedulerType::create;
+        List<RecordingInternalScheduler> recorders = new CopyOnWriteArrayList<>();
+        if (decisionDirectory != null) {
+            Path directory = Path.of(decisionDirectory);
+            try {
+                Files.createDirectories(directory);
+                schedulerFactory = RecordingInternalScheduler.recording(schedulerFactory, directory, recorders);
+                // Also write out the logs if the simulation is stopped early
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> closeRecorders(recorders)));
+            } catch (IOException e) {
+                System.out.println("Could not record decisions to '" + decisionDirectory + "': " + e.getMessage());
+            }
+        }
+
+        if (discreteEvent) {
+            runDiscreteEventSimulation(elevatorConfig, schedulerFactory, buttonPresserFactory, eventSink,
+                    checkpointSettings, metricsSettings);
+        } else {
+            runRealTimeSimulation(elevatorConfig, schedulerFactory, buttonPresserFactory, eventSink,
+                    executionMode, metricsSettings);
+        }
+        closeRecorders(recorders);
+        closeRequestLog(requestLog);
+    }
+
+    private static EventSink createEventSink(String eventTarget, AsyncEventSink.OverflowPolicy overflowPolicy) {
+        if (eventTarget.equals("none")) {
+            return EventSink.NONE;
+        } else if (eventTarget.equals("console")) {
+            return new AsyncEventSink(EventRenderer.console(), overflowPolicy);
+        }
+
+        try {
+            return new AsyncEventSink(EventRenderer.file(Path.of(eventTarget)), overflowPolicy);
+        } catch (IOException e) {
+            System.out.println("Could not write events to '" + eventTarget + "': " + e.getMessage());
+            return EventSink.NONE;
+        }
+    }
+
+    private static void closeEventSink(EventSink eventSink) {
+        if (eventSink instanceof AsyncEventSink) {
+            ((AsyncEventSink) eventSink).close();
+        }
+    }
+
+    private static void closeRecorders(List<RecordingInternalScheduler> recorders) {
+        for (RecordingInternalScheduler recorder : recorders) {
+            recorder.close();
+        }
+    }
+
+    private static void closeRequestLog(RequestLog requestLog) {
+        if (requestLog != null) {
+            requestLog.close();
+            System.out.println("Wrote " + requestLog.getNumberOfRecords() + " requests to '" + requestLog.getFile()
+                    + "'. Query them with RequestLogQuery.");
+        }
+    }
+
+    /**
+     * Starts publishing the metrics of the elevators, if asked to. Anything that
+     * fails to start is reported and left out, so the simulation runs either way.
+     */
+    private static MetricsExporter startMetricsExporter(List<Elevator> elevators, MetricsSettings metricsSettings) {
+        if (!metricsSettings.isEnabled()) {
+            return null;
+        }
+        MetricsExporter metricsExporter = new MetricsExporter(elevators);
+        if (metricsSettings.jmx) {
+            try {
+                metricsExporter.registerMBeans();
+            } catch (JMException e) {
+                System.out.println("Could not register the elevator MBeans: " + e.getMessage());
+            }
+        }
+        if (metricsSettings.port >= 0) {
+            try {
+                metricsExporter.startHttpServer(metricsSettings.port);
+                System.out.println("Serving metrics at http://localhost:" + metricsExporter.getPort() + "/metrics");
+            } catch (IOException e) {
+                System.out.println("Could not serve metrics on port " + metricsSettings.port + ": "
+                        + e.getMessage());
+            }
+        }
+        return metricsExporter;
+    }
+
+    private static void closeMetricsExporter(MetricsExporter metricsExporter) {
+        if (metricsExporter != null) {
+            metricsExporter.close();
+        }
+    }
+
+    private static List<Elevator> createElevators(ElevatorConfig elevatorConfig,
+            Function<Elevator, InternalScheduler> schedulerFactory, SimulationClock clock, EventSink eventSink) {
+        List<Elevator> elevators = elevatorConfig.createElevators(clock, schedulerFactory);
+        for (Elevator elevator : elevators) {
+            elevator.setEventSink(eventSink);
+        }
+        return elevators;
+    }
+
+    private static ButtonPressHandler createButtonPressHandler(SimulationConfig simulationConfig,
+            List<Elevator> elevators, EventSink eventSink) {
+        ButtonPressHandler buttonPressHandler = simulationConfig.createButtonPressHandler(elevators);
+        setEventSink(buttonPressHandler, eventSink);
+        return buttonPressHandler;
+    }
+
+    private static void setEventSink(ButtonPressHandler buttonPressHandler, EventSink eventSink) {
+        if (buttonPressHandler instanceof NearestCarExternalScheduler) {
+            ((NearestCarExternalScheduler) buttonPressHandler).setEventSink(eventSink);
+        } else if (buttonPressHandler instanceof DestinationDispatchExternalScheduler) {
+            ((DestinationDispatchExternalScheduler) buttonPressHandler).setEventSink(eventSink);
+        }
+    }
+
+    private static void runRealTimeSimulation(ElevatorConfig elevatorConfig,
+            Function<Elevator, InternalScheduler> schedulerFactory,
+            Function<List<Elevator>, ButtonPresser> buttonPresserFactory, EventSink eventSink,
+            ExecutionMode executionMode, MetricsSettings metricsSettings) {
+        List<Elevator> myElevators = createElevators(elevatorConfig, schedulerFactory, new RealTimeClock(),
+                eventSink);
+        ButtonPresser myButtonPresser = buttonPresserFactory.apply(myElevators);
+        MetricsExporter metricsExporter = startMetricsExporter(myElevators, metricsSettings);
+        ThreadFactory elevatorThreadFactory = executionMode.threadFactory("elevator-");
+        List<Thread> elevatorThreads = new ArrayList<>();
+        for (Elevator elevator : myElevators) {
+            elevatorThreads.add(elevatorThreadFactory.newThread(elevator));
+        }
+        Thread buttonPresserThread = executionMode.threadFactory("button-presser-").newThread(myButtonPresser);
 
         System.out.println("\nStarting Elevator Simulation...\n");
 
-        elevatorThread.start();
+        for (Thread elevatorThread : elevatorThreads) {
+            elevatorThread.start();
+        }
         buttonPresserThread.start();
 
         Runtime.getRuntime().addShutdownHook(new Thread() {
             public void run() {
                 System.out.println("Shutting down...");
-                myElevator.terminate();
+                for (Elevator elevator : myElevators) {
+                    elevator.terminate();
+                }
 
                 try {
                     Thread.sleep(100);
@@ -43,9 +483,8 @@ public class Main {
                     System.out.println("ShutdownHook interrupted.");
                 }
 
-                AsciiArt.printScorecard();
-                System.out.println("Elevator " + myElevator.getId() + ":");
-                System.out.println(myElevator.getStats() + "\n");
+                closeEventSink(eventSink);
+                printScorecard(myElevators);
             }
         });
 
@@ -56,14 +495,150 @@ public class Main {
             System.out.println("ButtonPresserThread.join() interrupted.");
         }
 
-        // Signal the elevator to stop after finishing all remaining requests
-        myElevator.terminate();
+        // Signal the elevators to stop after finishing all remaining requests
+        for (Elevator elevator : myElevators) {
+            elevator.terminate();
+        }
 
-        // Wait for the elevator to finish the remaining requests
+        // Wait for the elevators to finish the remaining requests
         try {
-            elevatorThread.join();
+            for (Thread elevatorThread : elevatorThreads) {
+                elevatorThread.join();
+            }
         } catch (InterruptedException e) {
             System.out.println("ElevatorThread.join() interrupted.");
         }
+        closeMetricsExporter(metricsExporter);
+    }
+
+    private static void runDiscreteEventSimulation(ElevatorConfig elevatorConfig,
+            Function<Elevator, InternalScheduler> schedulerFactory,
+            Function<List<Elevator>, ButtonPresser> buttonPresserFactory, EventSink eventSink,
+            CheckpointSettings checkpointSettings, MetricsSettings metricsSettings) {
+        VirtualClock clock = new VirtualClock();
+        List<Elevator> myElevators = createElevators(elevatorConfig, schedulerFactory, clock, eventSink);
+        ButtonPresser myButtonPresser = buttonPresserFactory.apply(myElevators);
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(clock, myButtonPresser,
+                myElevators.toArray(new Elevator[0]));
+
+        System.out.println("\nStarting Discrete Event Elevator Simulation...\n");
+
+        runWithCheckpoints(simulation, eventSink, checkpointSettings, metricsSettings);
+    }
+
+    private static void resumeDiscreteEventSimulation(Path checkpointFile, EventSink eventSink,
+            CheckpointSettings checkpointSettings, MetricsSettings metricsSettings, RequestLog requestLog) {
+        DiscreteEventSimulation simulation;
+        try {
+            SimulationCheckpoint checkpoint = SimulationCheckpoint.load(checkpointFile);
+            simulation = checkpoint.restore();
+        } catch (IOException e) {
+            System.out.println("Could not resume from the checkpoint '" + checkpointFile + "': " + e.getMessage());
+            closeEventSink(eventSink);
+            return;
+        }
+        attachEventSink(simulation, eventSink);
+        if (requestLog != null) {
+            requestLog.attach(simulation.getElevators());
+        }
+
+        System.out.println("\nResuming Discrete Event Elevator Simulation at "
+                + (simulation.getSimulatedTimeInMs() * 0.001) + " simulated seconds...\n");
+
+        runWithCheckpoints(simulation, eventSink, checkpointSettings, metricsSettings);
+    }
+
+    /**
+     * The event sinks are not part of a checkpoint, so they are set again on
+     * everything that publishes events.
+     */
+    private static void attachEventSink(DiscreteEventSimulation simulation, EventSink eventSink) {
+        for (Elevator elevator : simulation.getElevators()) {
+            elevator.setEventSink(eventSink);
+        }
+        ButtonPressHandler buttonPressHandler = simulation.getButtonPresser().getButtonPressHandler();
+        if (buttonPressHandler instanceof TrafficGenerator) {
+            buttonPressHandler = ((TrafficGenerator) buttonPressHandler).getButtonPressHandler();
+        }
+        setEventSink(buttonPressHandler, eventSink);
+    }
+
+    private static void runWithCheckpoints(DiscreteEventSimulation simulation, EventSink eventSink,
+            CheckpointSettings checkpointSettings, MetricsSettings metricsSettings) {
+        MetricsExporter metricsExporter = startMetricsExporter(simulation.getElevators(), metricsSettings);
+        CheckpointWriter checkpointWriter = null;
+        Thread shutdownHook = null;
+        if (checkpointSettings.checkpointFile != null) {
+            CheckpointWriter writer = new CheckpointWriter(Path.of(checkpointSettings.checkpointFile));
+            simulation.setCheckpointWriter(writer, checkpointSettings.intervalInMs);
+            // Save the progress if the simulation is stopped early
+            shutdownHook = new Thread(() -> {
+                long checkpoints = writer.getCheckpointsSubmitted() + 1;
+                simulation.requestCheckpoint();
+                try {
+                    writer.awaitCheckpoints(checkpoints, SHUTDOWN_CHECKPOINT_TIMEOUT_IN_MS);
+                } catch (InterruptedException e) {
+                    System.out.println("ShutdownHook interrupted.");
+                }
+            });
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            checkpointWriter = writer;
+        }
+
+        boolean finished = simulation.runUntil(checkpointSettings.stopAtInMs);
+
+        if (checkpointWriter != null) {
+            if (!finished) {
+                try {
+                    checkpointWriter.submit(SimulationCheckpoint.capture(simulation));
+                } catch (IOException e) {
+                    System.out.println("Could not take a checkpoint: " + e.getMessage());
+                }
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down, so the hook is running
+            }
+            checkpointWriter.close();
+        }
+        closeMetricsExporter(metricsExporter);
+        closeEventSink(eventSink);
+
+        System.out.println("\nSimulated " + (simulation.getSimulatedTimeInMs() * 0.001) + " seconds in "
+                + simulation.getEventsProcessed() + " events.\n");
+        if (!finished) {
+            System.out.println("Stopped before the end of the simulation"
+                    + ((checkpointWriter != null) ? ", and saved a checkpoint to '"
+                            + checkpointSettings.checkpointFile + "'" : "")
+                    + ".\n");
+        }
+        printScorecard(simulation.getElevators());
+    }
+
+    private static void runShadowSimulation(ElevatorConfig elevatorConfig, List<SchedulerType> schedulerTypes,
+            String traceFile) {
+        ShadowSimulation simulation = new ShadowSimulation(SimulationConfig.openTrace(traceFile), elevatorConfig);
+        for (SchedulerType schedulerType : schedulerTypes) {
+            simulation.addLane(schedulerType.name(), schedulerType::create);
+        }
+
+        System.out.println("\nStarting Shadow Elevator Simulation of " + schedulerTypes.size()
+                + " schedulers...\n");
+
+        simulation.run();
+
+        System.out.println("Simulated " + (simulation.getSimulatedTimeInMs() * 0.001) + " seconds in "
+                + simulation.getEventsProcessed() + " events.\n");
+        AsciiArt.printScorecard();
+        System.out.println(simulation.getScorecard());
+    }
+
+    private static void printScorecard(List<Elevator> elevators) {
+        AsciiArt.printScorecard();
+        for (Elevator elevator : elevators) {
+            System.out.println("Elevator " + elevator.getId() + ":");
+            System.out.println(elevator.getStats() + "\n");
+        }
     }
-}
\ No newline at end of file
+}
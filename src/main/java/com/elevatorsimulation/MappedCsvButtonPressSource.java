@@ -0,0 +1,445 @@
+package com.elevatorsimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.*;
+
+/**
+ * MappedCsvButtonPressSource is a class that implements the ButtonPressSource
+ * interface by streaming button presses from a csv file. The format of the
+ * file is described in the README: every row holds the requested floor, the
+ * requested direction and the delay before pressing, separated by commas. A
+ * row for a destination button has the destination floor as a fourth field,
+ * and its direction must be towards the destination.
+ * <p>
+ * The file is memory-mapped a window at a time and each row is only parsed
+ * when next() is called, so the simulation can start straight away and memory
+ * use does not grow with the size of the file. The fields are parsed directly
+ * from the mapped bytes without creating any Strings or other objects. Rows
+ * that can not be parsed are logged along with their line number and skipped.
+ * <p>
+ * The file is closed once the last row has been read, or when close() is
+ * called.
+ * <p>
+ * When the source is serialized, for a SimulationCheckpoint, only the path of
+ * the file and the position in it are saved. The restored source maps the file
+ * again and carries on from the same row, so the file must not have changed.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class MappedCsvButtonPressSource implements ButtonPressSource, Closeable, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(MappedCsvButtonPressSource.class.getName());
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final byte[] UP = "UP".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DOWN = "DOWN".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NONE = "NONE".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The serialized form of a MappedCsvButtonPressSource, which is the position
+     * in the file and the current row.
+     */
+    private static final class SerializedForm implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String csvFile;
+        private final int windowSize;
+        private final boolean open;
+        private final long offset;
+        private final long lineNumber;
+        private final long malformedRows;
+        private final int floor;
+        private final Direction direction;
+        private final long delayBeforePressing;
+        private final int destinationFloor;
+
+        SerializedForm(MappedCsvButtonPressSource source) {
+            csvFile = source.csvFile.toString();
+            windowSize = source.windowSize;
+            open = source.channel != null;
+            offset = open ? source.windowStart + source.position : 0;
+            lineNumber = source.lineNumber;
+            malformedRows = source.malformedRows;
+            floor = source.floor;
+            direction = source.direction;
+            delayBeforePressing = source.delayBeforePressing;
+            destinationFloor = source.destinationFloor;
+        }
+
+        private Object readResolve() {
+            MappedCsvButtonPressSource source = new MappedCsvButtonPressSource(Path.of(csvFile), windowSize);
+            if (open) {
+                source.restore(offset, lineNumber, malformedRows, floor, direction, delayBeforePressing,
+                        destinationFloor);
+            } else {
+                source.close();
+            }
+            return source;
+        }
+    }
+
+    private final Path csvFile;
+    private final int windowSize;
+    private FileChannel channel;
+    private long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private long lineNumber;
+    private long malformedRows;
+
+    // Fields of the current row, and the position while parsing it
+    private int floor;
+    private Direction direction;
+    private long delayBeforePressing;
+    private int destinationFloor;
+    private int parsePosition;
+
+    /**
+     * Class constructor specifying the csv file to stream the button presses
+     * from. If the file can not be opened, the error is logged and the source has
+     * no button presses.
+     *
+     * @param csvFile the path of the csv file
+     */
+    public MappedCsvButtonPressSource(String csvFile) {
+        this(Path.of(csvFile), DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Class constructor specifying the csv file and how much of it to map at a
+     * time. A row can not be longer than the window.
+     *
+     * @param csvFile    the path of the csv file
+     * @param windowSize the number of bytes to map at a time
+     */
+    MappedCsvButtonPressSource(Path csvFile, int windowSize) {
+        this.csvFile = csvFile;
+        this.windowSize = windowSize;
+        lineNumber = 0;
+        malformedRows = 0;
+        destinationFloor = Button.NO_DESTINATION;
+
+        LOGGER.info("Streaming button presses from file '" + csvFile + "'...");
+        try {
+            channel = FileChannel.open(csvFile, StandardOpenOption.READ);
+            fileSize = channel.size();
+            map(0);
+        } catch (NoSuchFileException e) {
+            LOGGER.severe("Could not open file '" + csvFile + "'! ");
+            channel = null;
+        } catch (IOException e) {
+            LOGGER.severe("Error reading '" + csvFile + "'!");
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    /**
+     * Returns the number of rows that were skipped because they could not be
+     * parsed.
+     *
+     * @return the number of malformed rows so far
+     */
+    public long getMalformedRows() {
+        return malformedRows;
+    }
+
+    @Override
+    public boolean next() {
+        while (channel != null) {
+            int lineEnd;
+            try {
+                lineEnd = findLineEnd();
+            } catch (IOException e) {
+                LOGGER.severe("Error reading '" + csvFile + "'!");
+                e.printStackTrace();
+                close();
+                return false;
+            }
+            if (lineEnd < 0) {
+                close();
+                return false;
+            }
+
+            lineNumber++;
+            int lineStart = position;
+            position = lineEnd + 1;
+            if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            if (parseRow(lineStart, lineEnd)) {
+                return true;
+            }
+            reportMalformedRow(lineStart, lineEnd);
+        }
+        return false;
+    }
+
+    @Override
+    public int getFloor() {
+        return floor;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public int getDestinationFloor() {
+        return destinationFloor;
+    }
+
+    @Override
+    public long getDelayBeforePressing() {
+        return delayBeforePressing;
+    }
+
+    /**
+     * Closes the file. No more button presses are returned after this.
+     */
+    @Override
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warning("Error closing '" + csvFile + "'.");
+            }
+            channel = null;
+            window = null;
+            LOGGER.info("Done reading file.");
+        }
+    }
+
+    private void restore(long offset, long lineNumber, long malformedRows, int floor, Direction direction,
+            long delayBeforePressing, int destinationFloor) {
+        this.lineNumber = lineNumber;
+        this.malformedRows = malformedRows;
+        this.floor = floor;
+        this.direction = direction;
+        this.delayBeforePressing = delayBeforePressing;
+        this.destinationFloor = destinationFloor;
+        if (channel == null) {
+            return;
+        }
+        if (offset > fileSize) {
+            LOGGER.severe("File '" + csvFile + "' is shorter than when the checkpoint was taken!");
+            close();
+            return;
+        }
+        try {
+            map(offset);
+        } catch (IOException e) {
+            LOGGER.severe("Error reading '" + csvFile + "'!");
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("A MappedCsvButtonPressSource must be restored from its SerializedForm");
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        long length = Math.min(windowSize, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        position = 0;
+    }
+
+    /**
+     * Finds the end of the row starting at the current position, moving the
+     * window forward if the row continues past it.
+     *
+     * @return the index of the newline (or the end of the file) in the window, or
+     *         -1 if there are no more rows
+     */
+    private int findLineEnd() throws IOException {
+        while (true) {
+            int limit = window.limit();
+            boolean windowReachesEnd = windowStart + limit >= fileSize;
+            if (position >= limit && windowReachesEnd) {
+                return -1;
+            }
+
+            for (int i = position; i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    return i;
+                }
+            }
+
+            if (windowReachesEnd) {
+                return limit; // The last row has no newline
+            }
+            if (position == 0) {
+                LOGGER.severe("Row on line " + (lineNumber + 1) + " of '" + csvFile
+                        + "' is longer than " + windowSize + " bytes!");
+                return -1;
+            }
+            map(windowStart + position);
+        }
+    }
+
+    private boolean parseRow(int start, int end) {
+        parsePosition = start;
+
+        skipSpaces(end);
+        long parsedFloor = parseNumber(end, true);
+        skipSpaces(end);
+        if (parsedFloor < Integer.MIN_VALUE || parsedFloor > Integer.MAX_VALUE || !skipSeparator(end)) {
+            return false;
+        }
+
+        int tokenStart = parsePosition;
+        while (parsePosition < end && window.get(parsePosition) != ','
+                && window.get(parsePosition) != ' ' && window.get(parsePosition) != '\t') {
+            parsePosition++;
+        }
+        Direction parsedDirection = matchDirection(tokenStart, parsePosition);
+        if (parsedDirection == null) {
+            return false;
+        }
+        skipSpaces(end);
+        if (!skipSeparator(end)) {
+            return false;
+        }
+
+        long parsedDelay = parseNumber(end, false);
+        if (parsedDelay == Long.MIN_VALUE) {
+            return false;
+        }
+        skipSpaces(end);
+
+        long parsedDestination = Button.NO_DESTINATION;
+        if (parsePosition != end) {
+            if (!skipSeparator(end)) {
+                return false;
+            }
+            parsedDestination = parseNumber(end, true);
+            skipSpaces(end);
+            // The destination has to be a floor in the direction of the button
+            if (parsedDestination <= Integer.MIN_VALUE || parsedDestination > Integer.MAX_VALUE
+                    || parsedDirection != ((parsedDestination > parsedFloor) ? Direction.UP
+                            : (parsedDestination < parsedFloor) ? Direction.DOWN : null)) {
+                return false;
+            }
+        }
+        if (parsePosition != end) {
+            return false;
+        }
+
+        floor = (int) parsedFloor;
+        direction = parsedDirection;
+        delayBeforePressing = parsedDelay;
+        destinationFloor = (int) parsedDestination;
+        return true;
+    }
+
+    private void skipSpaces(int end) {
+        while (parsePosition < end && (window.get(parsePosition) == ' ' || window.get(parsePosition) == '\t')) {
+            parsePosition++;
+        }
+    }
+
+    private boolean skipSeparator(int end) {
+        if (parsePosition >= end || window.get(parsePosition) != ',') {
+            return false;
+        }
+        parsePosition++;
+        skipSpaces(end);
+        return true;
+    }
+
+    /**
+     * Parses a decimal number at the parse position.
+     *
+     * @return the number, or Long.MIN_VALUE if there is no valid number
+     */
+    private long parseNumber(int end, boolean allowSign) {
+        boolean negative = false;
+        if (allowSign && parsePosition < end
+                && (window.get(parsePosition) == '-' || window.get(parsePosition) == '+')) {
+            negative = window.get(parsePosition) == '-';
+            parsePosition++;
+        }
+
+        int digitsStart = parsePosition;
+        long value = 0;
+        while (parsePosition < end) {
+            int digit = window.get(parsePosition) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+            parsePosition++;
+        }
+        if (parsePosition == digitsStart) {
+            return Long.MIN_VALUE;
+        }
+        return negative ? -value : value;
+    }
+
+    private Direction matchDirection(int start, int end) {
+        if (matches(start, end, UP)) {
+            return Direction.UP;
+        } else if (matches(start, end, DOWN)) {
+            return Direction.DOWN;
+        } else if (matches(start, end, NONE)) {
+            return Direction.NONE;
+        }
+        return null;
+    }
+
+    private boolean matches(int start, int end, byte[] token) {
+        if (end - start != token.length) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            if (window.get(start + i) != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reportMalformedRow(int start, int end) {
+        malformedRows++;
+
+        int fields = 1;
+        for (int i = start; i < end; i++) {
+            if (window.get(i) == ',') {
+                fields++;
+            }
+        }
+        if (fields != 3 && fields != 4) {
+            LOGGER.severe("Wrong number of fields found on line " + lineNumber + "! Expected 3 or 4 but got "
+                    + fields);
+        } else {
+            byte[] row = new byte[end - start];
+            window.get(start, row);
+            LOGGER.severe("Could not parse line " + lineNumber + ": '"
+                    + new String(row, StandardCharsets.US_ASCII) + "'");
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.elevatorsimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.*;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * MetricsExporter is a class that publishes the live metrics of a bank of
+ * elevators while the simulation is running. The metrics of each elevator are
+ * its current floor, the depth of each of the queues of its scheduler, the
+ * number of completed requests, percentiles of the completion and wait times,
+ * the number of door cycles, and how long it has spent idle, moving and with
+ * its doors open.
+ * <p>
+ * The metrics can be published in two ways, which can be used together:
+ * <ul>
+ * <li>registerMBeans registers an ElevatorMXBean for every elevator with the
+ * platform MBeanServer, so they can be watched with JConsole or any other JMX
+ * client.</li>
+ * <li>startHttpServer serves the metrics at "/metrics" in the Prometheus text
+ * exposition format, on the loopback address only. The server is the one that
+ * comes with the JDK, so no other library is needed.</li>
+ * </ul>
+ * <p>
+ * Every metric is read without taking a lock: the floor, state and times from
+ * the seqlock of the ElevatorMetrics, the queue depths from volatile fields of
+ * the scheduler, and the completed requests from a StatsRecorder snapshot,
+ * which each scrape takes once per elevator. A scrape can therefore never hold
+ * up an elevator, although the metrics of different elevators are not read at
+ * exactly the same moment.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class MetricsExporter implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(MetricsExporter.class.getName());
+    public static final String DOMAIN = "com.elevatorsimulation";
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final double NANOSECONDS_PER_SECOND = 1_000_000_000.0;
+    private static final double NANOSECONDS_PER_MILLISECOND = 1_000_000.0;
+    private static final long MAX_STATS_AGE_IN_NS = 1_000_000_000L;
+
+    /**
+     * A snapshot of the statistics of an elevator and the wall clock time it
+     * was taken at.
+     */
+    private static final class TimedStats {
+        public final StatsRecorder.Snapshot stats;
+        public final long takenInNs;
+
+        public TimedStats(StatsRecorder.Snapshot stats, long takenInNs) {
+            this.stats = stats;
+            this.takenInNs = takenInNs;
+        }
+    }
+
+    /**
+     * The MBean of one elevator. A JMX client reads the attributes one at a
+     * time, so the percentile attributes share a snapshot of the statistics for
+     * up to a second rather than each merging the histograms again. The number
+     * of completed requests is read without a snapshot.
+     */
+    private static final class ElevatorMonitor implements ElevatorMXBean {
+        private final Elevator elevator;
+        private volatile TimedStats timedStats;
+
+        ElevatorMonitor(Elevator elevator) {
+            this.elevator = elevator;
+        }
+
+        private StatsRecorder.Snapshot stats() {
+            long now = System.nanoTime();
+            TimedStats current = timedStats;
+            if (current == null || now - current.takenInNs > MAX_STATS_AGE_IN_NS) {
+                current = new TimedStats(elevator.getStatsCollector().getSnapshot(), now);
+                timedStats = current;
+            }
+            return current.stats;
+        }
+
+        @Override
+        public int getId() {
+            return elevator.getId();
+        }
+
+        @Override
+        public int getCurrentFloor() {
+            return elevator.getMetrics().floor;
+        }
+
+        @Override
+        public String getState() {
+            return elevator.getMetrics().state.name();
+        }
+
+        @Override
+        public int getUpQueueDepth() {
+            return elevator.getQueueDepth(Direction.UP, false);
+        }
+
+        @Override
+        public int getDownQueueDepth() {
+            return elevator.getQueueDepth(Direction.DOWN, false);
+        }
+
+        @Override
+        public int getPendingUpQueueDepth() {
+            return elevator.getQueueDepth(Direction.UP, true);
+        }
+
+        @Override
+        public int getPendingDownQueueDepth() {
+            return elevator.getQueueDepth(Direction.DOWN, true);
+        }
+
+        @Override
+        public long getRequestsCompleted() {
+            return elevator.getStatsCollector().getRequestsCompleted();
+        }
+
+        @Override
+        public double getCompletionTimeP50InMs() {
+            return completionTimeAtPercentileInMs(50);
+        }
+
+        @Override
+        public double getCompletionTimeP90InMs() {
+            return completionTimeAtPercentileInMs(90);
+        }
+
+        @Override
+        public double getCompletionTimeP99InMs() {
+            return completionTimeAtPercentileInMs(99);
+        }
+
+        @Override
+        public double getCompletionTimeP999InMs() {
+            return completionTimeAtPercentileInMs(99.9);
+        }
+
+        @Override
+        public double getWaitTimeP99InMs() {
+            return stats().waitTimes.getValueAtPercentile(99) / NANOSECONDS_PER_MILLISECOND;
+        }
+
+        @Override
+        public long getDoorCycles() {
+            return elevator.getMetrics().doorCycles;
+        }
+
+        @Override
+        public double getIdleTimeInSeconds() {
+            return elevator.getMetrics().idleTimeInNs / NANOSECONDS_PER_SECOND;
+        }
+
+        @Override
+        public double getMovingTimeInSeconds() {
+            return elevator.getMetrics().movingTimeInNs / NANOSECONDS_PER_SECOND;
+        }
+
+        @Override
+        public double getDoorsOpenTimeInSeconds() {
+            return elevator.getMetrics().doorsOpenTimeInNs / NANOSECONDS_PER_SECOND;
+        }
+
+        private double completionTimeAtPercentileInMs(double percentile) {
+            return stats().completionTimes.getValueAtPercentile(percentile) / NANOSECONDS_PER_MILLISECOND;
+        }
+    }
+
+    private final List<Elevator> elevators;
+    private final List<ObjectName> registeredNames;
+    private HttpServer server;
+
+    /**
+     * Class constructor specifying the elevators to publish the metrics of.
+     * Nothing is published until registerMBeans or startHttpServer is called.
+     *
+     * @param elevators the elevators to publish the metrics of
+     */
+    public MetricsExporter(List<Elevator> elevators) {
+        this.elevators = new ArrayList<>(elevators);
+        registeredNames = new ArrayList<>();
+        server = null;
+    }
+
+    /**
+     * Returns the name that the MBean of an elevator is registered under.
+     *
+     * @param elevatorId the identifier of the elevator
+     * @return the name of the MBean of the elevator
+     * @throws JMException if the name is not valid
+     */
+    public static ObjectName objectName(int elevatorId) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Elevator,id=" + elevatorId);
+    }
+
+    /**
+     * Registers an ElevatorMXBean for every elevator with the platform
+     * MBeanServer.
+     *
+     * @throws JMException if an MBean can not be registered, such as when an
+     *                     elevator with the same id is already registered
+     */
+    public void registerMBeans() throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (Elevator elevator : elevators) {
+            ObjectName name = objectName(elevator.getId());
+            mBeanServer.registerMBean(new ElevatorMonitor(elevator), name);
+            registeredNames.add(name);
+        }
+    }
+
+    /**
+     * Starts serving the metrics at "/metrics" on the loopback address.
+     *
+     * @param port the port to listen on, or 0 to pick a free port
+     * @throws IOException if the server can not be started
+     */
+    public void startHttpServer(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("The metrics server is already running on port " + getPort());
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this::handleScrape);
+        server.start();
+    }
+
+    /**
+     * Returns the port that the metrics are served on.
+     *
+     * @return the port, or -1 if the server has not been started
+     */
+    public int getPort() {
+        return (server != null) ? server.getAddress().getPort() : -1;
+    }
+
+    /**
+     * Returns the current metrics of all of the elevators in the Prometheus text
+     * exposition format. This is what is served at "/metrics".
+     *
+     * @return the metrics as text
+     */
+    public String scrape() {
+        int count = elevators.size();
+        ElevatorMetrics.Snapshot[] metrics = new ElevatorMetrics.Snapshot[count];
+        StatsRecorder.Snapshot[] stats = new StatsRecorder.Snapshot[count];
+        String[] labels = new String[count];
+        for (int i = 0; i < count; i++) {
+            Elevator elevator = elevators.get(i);
+            metrics[i] = elevator.getMetrics();
+            stats[i] = elevator.getStatsCollector().getSnapshot();
+            labels[i] = "elevator=\"" + elevator.getId() + "\"";
+        }
+
+        StringBuilder text = new StringBuilder(1024 + count * 2048);
+
+        writeHeader(text, "elevator_current_floor", "gauge", "The floor the elevator is on.");
+        for (int i = 0; i < count; i++) {
+            writeSample(text, "elevator_current_floor", labels[i], metrics[i].floor);
+        }
+
+        writeHeader(text, "elevator_moving", "gauge", "1 if the elevator is moving, otherwise 0.");
+        for (int i = 0; i < count; i++) {
+            writeSample(text, "elevator_moving", labels[i],
+                    (metrics[i].state == ElevatorMetrics.State.MOVING) ? 1 : 0);
+        }
+
+        writeHeader(text, "elevator_queue_depth", "gauge",
+                "The number of requests in each queue of the scheduler of the elevator.");
+        for (int i = 0; i < count; i++) {
+            Elevator elevator = elevators.get(i);
+            writeSample(text, "elevator_queue_depth", labels[i] + ",queue=\"up\"",
+                    elevator.getQueueDepth(Direction.UP, false));
+            writeSample(text, "elevator_queue_depth", labels[i] + ",queue=\"down\"",
+                    elevator.getQueueDepth(Direction.DOWN, false));
+            writeSample(text, "elevator_queue_depth", labels[i] + ",queue=\"pending_up\"",
+                    elevator.getQueueDepth(Direction.UP, true));
+            writeSample(text, "elevator_queue_depth", labels[i] + ",queue=\"pending_down\"",
+                    elevator.getQueueDepth(Direction.DOWN, true));
+        }
+
+        writeHeader(text, "elevator_requests_completed_total", "counter",
+                "The number of requests the elevator has completed.");
+        for (int i = 0; i < count; i++) {
+            writeSample(text, "elevator_requests_completed_total", labels[i],
+                    stats[i].completionTimes.getCount());
+        }
+
+        writeHeader(text, "elevator_completion_time_seconds", "summary",
+                "The time from creating a request to the elevator completing it.");
+        for (int i = 0; i < count; i++) {
+            writeSummary(text, "elevator_completion_time_seconds", labels[i], stats[i].completionTimes);
+        }
+
+        writeHeader(text, "elevator_wait_time_seconds", "summary",
+                "The time passengers waited for the elevator after pressing an UP or DOWN button.");
+        for (int i = 0; i < count; i++) {
+            writeSummary(text, "elevator_wait_time_seconds", labels[i], stats[i].waitTimes);
+        }
+
+        writeHeader(text, "elevator_door_cycles_total", "counter",
+                "The number of times the elevator has opened its doors.");
+        for (int i = 0; i < count; i++) {
+            writeSample(text, "elevator_door_cycles_total", labels[i], metrics[i].doorCycles);
+        }
+
+        writeHeader(text, "elevator_state_seconds_total", "counter",
+                "The time the elevator has spent in each state, by the clock of the simulation.");
+        for (int i = 0; i < count; i++) {
+            writeSample(text, "elevator_state_seconds_total", labels[i] + ",state=\"idle\"",
+                    metrics[i].idleTimeInNs / NANOSECONDS_PER_SECOND);
+            writeSample(text, "elevator_state_seconds_total", labels[i] + ",state=\"moving\"",
+                    metrics[i].movingTimeInNs / NANOSECONDS_PER_SECOND);
+            writeSample(text, "elevator_state_seconds_total", labels[i] + ",state=\"doors_open\"",
+                    metrics[i].doorsOpenTimeInNs / NANOSECONDS_PER_SECOND);
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Stops the server and unregisters the MBeans. The exporter can not be
+     * started again afterwards.
+     */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            try {
+                mBeanServer.unregisterMBean(name);
+            } catch (JMException e) {
+                LOGGER.warning("Could not unregister " + name + ": " + e.getMessage());
+            }
+        }
+        registeredNames.clear();
+    }
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void writeHeader(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(StringBuilder text, String name, String labels, long value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void writeSample(StringBuilder text, String name, String labels, double value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void writeSummary(StringBuilder text, String name, String labels, LatencyHistogram histogram) {
+        for (double quantile : QUANTILES) {
+            writeSample(text, name, labels + ",quantile=\"" + quantile + "\"",
+                    histogram.getValueAtPercentile(quantile * 100) / NANOSECONDS_PER_SECOND);
+        }
+        writeSample(text, name + "_sum", labels, histogram.getSum() / NANOSECONDS_PER_SECOND);
+        writeSample(text, name + "_count", labels, histogram.getCount());
+    }
+}
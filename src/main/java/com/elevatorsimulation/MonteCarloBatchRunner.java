@@ -0,0 +1,387 @@
+package com.elevatorsimulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * MonteCarloBatchRunner is a class for evaluating a scheduler over many
+ * randomized traffic scenarios. Each run is an independent
+ * DiscreteEventSimulation with its own elevators, schedulers and stats
+ * collectors, driven by a RandomButtonPressSource. Run i uses the seed
+ * (baseSeed + i), so every run is deterministic and the results do not depend
+ * on how many threads are used.
+ * <p>
+ * The runs are spread over a ForkJoinPool. The range of runs is split in half
+ * recursively, so idle worker threads steal the remaining halves from busy ones
+ * and all cores stay busy until the last run. Since the runs share nothing,
+ * throughput scales with the number of cores.
+ * <p>
+ * The results of all runs are aggregated into the mean of each statistic with
+ * a 95% confidence interval. The completion time histograms of all runs are
+ * also merged to report percentiles over every request of the batch.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class MonteCarloBatchRunner {
+
+    /**
+     * The description of the randomized scenario that every run simulates.
+     */
+    public static final class Scenario {
+        public final int numberOfElevators;
+        public final SchedulerType schedulerType;
+        public final int lowestFloor;
+        public final int highestFloor;
+        public final int buttonPressesPerRun;
+        public final double meanDelayInMs;
+
+        /**
+         * Class constructor specifying the elevators and the traffic of the
+         * scenario.
+         *
+         * @param numberOfElevators   the number of elevators in the bank
+         * @param schedulerType       the internal scheduler of the elevators
+         * @param lowestFloor         the lowest floor of the building
+         * @param highestFloor        the highest floor of the building
+         * @param buttonPressesPerRun how many button presses each run simulates
+         * @param meanDelayInMs       the average delay between button presses, in
+         *                            milliseconds
+         */
+        public Scenario(int numberOfElevators, SchedulerType schedulerType, int lowestFloor, int highestFloor,
+                int buttonPressesPerRun, double meanDelayInMs) {
+            this.numberOfElevators = numberOfElevators;
+            this.schedulerType = schedulerType;
+            this.lowestFloor = lowestFloor;
+            this.highestFloor = highestFloor;
+            this.buttonPressesPerRun = buttonPressesPerRun;
+            this.meanDelayInMs = meanDelayInMs;
+        }
+
+        @Override
+        public String toString() {
+            return "Scenario{" +
+                    "numberOfElevators=" + numberOfElevators +
+                    ", schedulerType=" + schedulerType +
+                    ", lowestFloor=" + lowestFloor +
+                    ", highestFloor=" + highestFloor +
+                    ", buttonPressesPerRun=" + buttonPressesPerRun +
+                    ", meanDelayInMs=" + meanDelayInMs +
+                    '}';
+        }
+    }
+
+    /**
+     * The statistics of a single run.
+     */
+    public static final class RunResult {
+        public final long seed;
+        public final long requestsCompleted;
+        public final double averageCompletionTimeInMs;
+        public final long slowestCompletionTimeInMs;
+        public final long simulatedTimeInMs;
+        public final LatencyHistogram completionTimes;
+
+        public RunResult(long seed, long requestsCompleted, double averageCompletionTimeInMs,
+                long slowestCompletionTimeInMs, long simulatedTimeInMs, LatencyHistogram completionTimes) {
+            this.seed = seed;
+            this.requestsCompleted = requestsCompleted;
+            this.averageCompletionTimeInMs = averageCompletionTimeInMs;
+            this.slowestCompletionTimeInMs = slowestCompletionTimeInMs;
+            this.simulatedTimeInMs = simulatedTimeInMs;
+            this.completionTimes = completionTimes;
+        }
+
+        @Override
+        public String toString() {
+            return "RunResult{" +
+                    "seed=" + seed +
+                    ", requestsCompleted=" + requestsCompleted +
+                    ", averageCompletionTimeInMs=" + averageCompletionTimeInMs +
+                    ", slowestCompletionTimeInMs=" + slowestCompletionTimeInMs +
+                    ", simulatedTimeInMs=" + simulatedTimeInMs +
+                    '}';
+        }
+    }
+
+    /**
+     * The mean of a statistic over all runs with the half width of its 95%
+     * confidence interval.
+     */
+    public static final class Estimate {
+        // Two sided 95% critical values of the t distribution for 1 to 30 degrees
+        // of freedom. The normal value is used beyond that.
+        private static final double[] T_CRITICAL_VALUES = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365,
+                2.306, 2.262, 2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+                2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+        private static final double Z_CRITICAL_VALUE = 1.960;
+
+        public final double mean;
+        public final double standardDeviation;
+        public final double halfWidth;
+
+        public Estimate(double[] values) {
+            int count = values.length;
+            double sum = 0;
+            for (double value : values) {
+                sum += value;
+            }
+            mean = (count > 0) ? sum / count : Double.NaN;
+
+            if (count > 1) {
+                double squaredDifferences = 0;
+                for (double value : values) {
+                    squaredDifferences += (value - mean) * (value - mean);
+                }
+                standardDeviation = Math.sqrt(squaredDifferences / (count - 1));
+                double critical = (count - 1 <= T_CRITICAL_VALUES.length) ? T_CRITICAL_VALUES[count - 2]
+                        : Z_CRITICAL_VALUE;
+                halfWidth = critical * standardDeviation / Math.sqrt(count);
+            } else {
+                standardDeviation = Double.NaN;
+                halfWidth = Double.NaN;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f +/- %.3f", mean, halfWidth);
+        }
+    }
+
+    /**
+     * The results of every run along with the aggregated statistics.
+     */
+    public static final class BatchResult {
+        public final Scenario scenario;
+        public final List<RunResult> runs;
+        public final Estimate requestsCompleted;
+        public final Estimate averageCompletionTimeInMs;
+        public final Estimate slowestCompletionTimeInMs;
+        public final LatencyHistogram completionTimes;
+        public final long elapsedTimeInMs;
+
+        public BatchResult(Scenario scenario, List<RunResult> runs, long elapsedTimeInMs) {
+            this.scenario = scenario;
+            this.runs = Collections.unmodifiableList(runs);
+            this.elapsedTimeInMs = elapsedTimeInMs;
+
+            double[] completed = new double[runs.size()];
+            double[] averages = new double[runs.size()];
+            double[] slowest = new double[runs.size()];
+            completionTimes = new LatencyHistogram();
+            for (int i = 0; i < runs.size(); i++) {
+                completionTimes.add(runs.get(i).completionTimes);
+                completed[i] = runs.get(i).requestsCompleted;
+                averages[i] = runs.get(i).averageCompletionTimeInMs;
+                slowest[i] = runs.get(i).slowestCompletionTimeInMs;
+            }
+            requestsCompleted = new Estimate(completed);
+            averageCompletionTimeInMs = new Estimate(averages);
+            slowestCompletionTimeInMs = new Estimate(slowest);
+        }
+
+        /**
+         * Returns a human readable summary of the batch. Times are output in
+         * seconds, with the half width of the 95% confidence interval. The
+         * representation is subject to change, but the following may be regarded
+         * as typical:
+         * 
+         * " Runs: 100 (2.5 seconds)"
+         * " Requests Completed Per Run: 741.230 +/- 1.512"
+         * " Average Completion Time: 4.117 +/- 0.052 seconds"
+         * " Slowest Completion Time: 14.870 +/- 0.320 seconds"
+         * " Completion Percentiles: p50 3.5 / p90 8.6 / p99 13.1 / p99.9 16.6 seconds"
+         *
+         * @return a string representation of the object
+         */
+        @Override
+        public String toString() {
+            return "  Runs:                        " + runs.size() + " (" + (elapsedTimeInMs * 0.001) + " seconds)"
+                    + "\n  Requests Completed Per Run:  " + requestsCompleted
+                    + "\n  Average Completion Time:     " + String.format("%.3f +/- %.3f seconds",
+                            averageCompletionTimeInMs.mean * 0.001, averageCompletionTimeInMs.halfWidth * 0.001)
+                    + "\n  Slowest Completion Time:     " + String.format("%.3f +/- %.3f seconds",
+                            slowestCompletionTimeInMs.mean * 0.001, slowestCompletionTimeInMs.halfWidth * 0.001)
+                    + "\n  Completion Percentiles:      " + StatsCollector.formatPercentiles(completionTimes)
+                    + '\n';
+        }
+    }
+
+    private static final String USAGE = "Usage: MonteCarloBatchRunner [--runs N] [--seed S] [--button-presses N] "
+            + "[--lowest-floor N] [--highest-floor N] [--mean-delay MS] [--elevators N] [--scheduler TYPE] "
+            + "[--threads N] [--show-runs]";
+
+    private final Scenario scenario;
+    private final int numberOfRuns;
+    private final long baseSeed;
+    private final int parallelism;
+
+    /**
+     * Class constructor specifying the scenario, how many runs to do, the seed of
+     * the first run and how many threads to use.
+     *
+     * @param scenario     the scenario that every run simulates
+     * @param numberOfRuns how many runs to do
+     * @param baseSeed     the seed of the first run
+     * @param parallelism  how many threads to run simulations on
+     */
+    public MonteCarloBatchRunner(Scenario scenario, int numberOfRuns, long baseSeed, int parallelism) {
+        this.scenario = scenario;
+        this.numberOfRuns = numberOfRuns;
+        this.baseSeed = baseSeed;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs all of the simulations and aggregates the results.
+     *
+     * @return the results of the batch
+     */
+    public BatchResult run() {
+        long startTime = System.nanoTime();
+        List<RunResult> results = new ArrayList<>();
+        if (numberOfRuns > 0) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                results = RangeTask.map(pool, numberOfRuns, run -> runOnce(scenario, baseSeed + run));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        long elapsedTimeInMs = (System.nanoTime() - startTime) / 1_000_000;
+        return new BatchResult(scenario, results, elapsedTimeInMs);
+    }
+
+    /**
+     * Runs a single simulation of the scenario with the specified seed. Nothing
+     * is printed while the simulation runs.
+     *
+     * @param scenario the scenario to simulate
+     * @param seed     the seed for the random button presses
+     * @return the statistics of the run
+     */
+    public static RunResult runOnce(Scenario scenario, long seed) {
+        VirtualClock clock = new VirtualClock();
+        List<Elevator> elevators = new ArrayList<>();
+        for (int id = 1; id <= scenario.numberOfElevators; id++) {
+            elevators.add(new Elevator(id, scenario.lowestFloor, clock, scenario.schedulerType::create));
+        }
+
+        ButtonPressHandler buttonPressHandler;
+        if (elevators.size() == 1) {
+            buttonPressHandler = elevators.get(0);
+        } else {
+            buttonPressHandler = new NearestCarExternalScheduler(elevators);
+        }
+
+        ButtonPressSource buttonPressSource = new RandomButtonPressSource(seed, scenario.buttonPressesPerRun,
+                scenario.lowestFloor, scenario.highestFloor, scenario.meanDelayInMs);
+        ButtonPresser buttonPresser = new ButtonPresser(buttonPressHandler, buttonPressSource);
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(clock, buttonPresser,
+                elevators.toArray(new Elevator[0]));
+        simulation.run();
+
+        StatsRecorder.Snapshot stats = StatsCollector.combine(elevators);
+        LongSummaryStatistics statistics = stats.summaryStatistics;
+        return new RunResult(seed, statistics.getCount(), statistics.getAverage(),
+                (statistics.getCount() > 0) ? statistics.getMax() : 0, simulation.getSimulatedTimeInMs(),
+                stats.completionTimes);
+    }
+
+    /**
+     * Runs a batch from the command line and prints the results.
+     *
+     * @param args "--runs N", "--seed S", "--button-presses N", "--lowest-floor
+     *             N", "--highest-floor N", "--mean-delay MS", "--elevators N",
+     *             "--scheduler TYPE", "--threads N" and "--show-runs" to also
+     *             print the result of every run
+     */
+    public static void main(String[] args) {
+        int numberOfRuns = 100;
+        long baseSeed = 1;
+        int buttonPressesPerRun = 1000;
+        int lowestFloor = -2;
+        int highestFloor = 10;
+        double meanDelayInMs = 1000;
+        int numberOfElevators = 1;
+        SchedulerType schedulerType = SchedulerType.LOOK_WITH_DIRECTION;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        boolean showRuns = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--runs":
+                        numberOfRuns = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--seed":
+                        baseSeed = Arguments.longValue(args, i);
+                        i++;
+                        break;
+                    case "--button-presses":
+                        buttonPressesPerRun = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--lowest-floor":
+                        lowestFloor = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--highest-floor":
+                        highestFloor = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--mean-delay":
+                        meanDelayInMs = Arguments.doubleValue(args, i);
+                        i++;
+                        break;
+                    case "--elevators":
+                        numberOfElevators = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--scheduler":
+                        schedulerType = Arguments.enumValue(args, i, SchedulerType.class);
+                        i++;
+                        break;
+                    case "--threads":
+                        parallelism = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--show-runs":
+                        showRuns = true;
+                        break;
+                    default:
+                        System.out.println("Ignoring unknown argument '" + args[i] + "'.");
+                        break;
+                }
+            }
+            if (numberOfRuns < 0 || numberOfElevators < 1 || parallelism < 1) {
+                throw new IllegalArgumentException("--runs can not be negative, and --elevators and --threads "
+                        + "must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n" + USAGE);
+            return;
+        }
+
+        Scenario scenario = new Scenario(numberOfElevators, schedulerType, lowestFloor, highestFloor,
+                buttonPressesPerRun, meanDelayInMs);
+        System.out.println("Running " + numberOfRuns + " simulations of " + scenario + " on "
+                + parallelism + " threads...\n");
+
+        BatchResult result = new MonteCarloBatchRunner(scenario, numberOfRuns, baseSeed, parallelism).run();
+
+        if (showRuns) {
+            for (RunResult run : result.runs) {
+                System.out.println(run);
+            }
+            System.out.println();
+        }
+        AsciiArt.printScorecard();
+        System.out.println(result);
+    }
+}
@@ -0,0 +1,394 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * NearestCarExternalScheduler is a class that implements the ExternalScheduler
+ * interface. It hands each external button press to the elevator in the bank
+ * that is estimated to reach it the soonest, which is a variation of the
+ * classic "nearest car" group control algorithm.
+ * <p>
+ * The estimate is calculated from a small amount of state that is kept for
+ * every elevator and updated as the elevators report floor changes, completed
+ * requests and becoming idle. The state is the current floor, the direction of
+ * movement, the number of assigned external requests and the highest and lowest
+ * stops the elevator has been given since it was last idle. An elevator moving
+ * towards the request in the requested direction only has to cover the
+ * distance to it. Otherwise the elevator is assumed to go as far as its
+ * furthest stop before turning around. Every assigned request adds the time
+ * spent waiting for passengers. Evaluating an elevator therefore never looks
+ * at the queues of its InternalScheduler, so a decision only costs one small
+ * calculation per elevator in the bank.
+ * <p>
+ * When an elevator becomes idle, the outstanding external requests of the other
+ * elevators are checked to see if the idle elevator would now get to them
+ * sooner, and if so they are reassigned to it. The outstanding requests are
+ * checked in the order they were assigned, so the reassignments are the same
+ * every time the simulation is run (or resumed from a SimulationCheckpoint).
+ * <p>
+ * Internal button presses (NONE direction) are sent to the elevator that most
+ * recently picked up passengers for an external request, since that is the
+ * elevator the passenger would be standing in.
+ * <p>
+ * A destination button is treated the way a conventional building would
+ * treat the passenger: it presses the UP or DOWN button on their floor, and the
+ * destination is remembered with the hall call. When an elevator picks the
+ * passengers of the hall call up, the button for each of their destinations is
+ * pressed inside that elevator. So a trace of destination calls can be run
+ * with conventional dispatching, to compare it with a
+ * DestinationDispatchExternalScheduler.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class NearestCarExternalScheduler implements ExternalScheduler, ElevatorListener, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final class ElevatorState implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public final Elevator elevator;
+        public int floor;
+        public Direction direction;
+        public int assignedRequests;
+        public int highestStop;
+        public int lowestStop;
+
+        public ElevatorState(Elevator elevator) {
+            this.elevator = elevator;
+            floor = elevator.getCurrentFloor();
+            direction = Direction.NONE;
+            assignedRequests = 0;
+            highestStop = floor;
+            lowestStop = floor;
+        }
+    }
+
+    private static final class Assignment implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public final Request request;
+        public ElevatorState elevatorState;
+        public int[] destinations;
+        public int destinationCount;
+
+        public Assignment(Request request, ElevatorState elevatorState) {
+            this.request = request;
+            this.elevatorState = elevatorState;
+            destinations = null;
+            destinationCount = 0;
+        }
+
+        public void addDestination(int destination) {
+            if (destinations == null) {
+                destinations = new int[4];
+            } else if (destinationCount == destinations.length) {
+                destinations = Arrays.copyOf(destinations, destinationCount * 2);
+            }
+            destinations[destinationCount++] = destination;
+        }
+    }
+
+    private final List<Elevator> elevators;
+    private final List<ElevatorState> elevatorStates;
+    private final Map<Elevator, ElevatorState> elevatorStatesByElevator;
+    private final Map<Button, Assignment> assignments;
+    private final SimulationClock clock;
+    private final ReentrantLock lock;
+    private ElevatorState lastPickupElevator;
+    private transient volatile EventSink eventSink;
+
+    /**
+     * Class constructor specifying the bank of elevators to schedule. The
+     * scheduler registers itself as a listener on each of the elevators. Requests
+     * are timestamped with the clock of the first elevator.
+     *
+     * @param elevators the elevators in the bank
+     * @throws IllegalArgumentException if no elevators are given
+     */
+    public NearestCarExternalScheduler(List<Elevator> elevators) {
+        if (elevators.isEmpty()) {
+            throw new IllegalArgumentException("A bank needs at least one elevator");
+        }
+
+        this.elevators = Collections.unmodifiableList(new ArrayList<>(elevators));
+        elevatorStates = new ArrayList<>();
+        elevatorStatesByElevator = new IdentityHashMap<>();
+        for (Elevator elevator : elevators) {
+            ElevatorState state = new ElevatorState(elevator);
+            elevatorStates.add(state);
+            elevatorStatesByElevator.put(elevator, state);
+            elevator.addElevatorListener(this);
+        }
+        assignments = new LinkedHashMap<>();
+        clock = elevators.get(0).getClock();
+        lock = new ReentrantLock();
+        lastPickupElevator = null;
+        eventSink = EventSink.NONE;
+    }
+
+    /**
+     * Sets where the scheduler publishes the SimulationEvents that describe its
+     * decisions. By default the events are discarded. The sink is not part of a
+     * SimulationCheckpoint, so it has to be set again after resuming.
+     *
+     * @param eventSink the sink to publish events to
+     */
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    @Override
+    public List<Elevator> getElevators() {
+        return elevators;
+    }
+
+    /**
+     * Returns the elevator that an external button press is currently assigned
+     * to. A destination button is assigned along with the hall call on its floor.
+     *
+     * @param button the external button that was pressed
+     * @return the elevator that will satisfy the button press, or null if the
+     *         button is not currently pressed
+     */
+    @Override
+    public Elevator getAssignedElevator(Button button) {
+        lock.lock();
+        try {
+            Assignment assignment = assignments.get(hallCall(button));
+            return (assignment != null) ? assignment.elevatorState.elevator : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Processes the pressing of a button for the bank. An external button press
+     * is turned into a request and handed to the elevator that is estimated to
+     * reach it the soonest. If the external button has already been pressed, then
+     * nothing will happen. An internal button press is sent to the elevator that
+     * most recently picked up passengers. The destination of a destination button
+     * is kept until its passenger is picked up.
+     *
+     * @param button the button that was pressed
+     */
+    @Override
+    public void pressElevatorButton(Button button) {
+        lock.lock();
+        try {
+            if (button.direction == Direction.NONE) {
+                ElevatorState state = (lastPickupElevator != null) ? lastPickupElevator : elevatorStates.get(0);
+                addStop(state, button.floor);
+                state.elevator.pressElevatorButton(button);
+                return;
+            }
+
+            eventSink.publish(SimulationEvent.HALL_CALL_PRESSED, 0, button.floor, button.direction, 0);
+
+            Button hallCall = hallCall(button);
+            Assignment existing = assignments.get(hallCall);
+            if (existing != null) {
+                if (button.hasDestination()) {
+                    existing.addDestination(button.destinationFloor);
+                }
+                eventSink.publish(SimulationEvent.HALL_CALL_IGNORED, 0, button.floor, button.direction, 0);
+                return;
+            }
+
+            Request request = new Request(button.floor, button.direction, clock.nanoTime());
+            ElevatorState best = null;
+            long bestCost = Long.MAX_VALUE;
+            for (ElevatorState state : elevatorStates) {
+                long cost = estimateCost(state, request, false);
+                if (cost < bestCost) {
+                    best = state;
+                    bestCost = cost;
+                }
+            }
+
+            Assignment assignment = new Assignment(request, best);
+            if (button.hasDestination()) {
+                assignment.addDestination(button.destinationFloor);
+            }
+            assignments.put(hallCall, assignment);
+            assign(best, request);
+
+            eventSink.publish(SimulationEvent.HALL_CALL_ASSIGNED, best.elevator.getId(), button.floor,
+                    button.direction, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onFloorChanged(Elevator elevator, int floor) {
+        lock.lock();
+        try {
+            moveTo(elevatorStatesByElevator.get(elevator), floor);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the hall call of a completed request, and presses the buttons for
+     * the destinations of its passengers inside the elevator that picked them up.
+     *
+     * @param elevator the elevator that satisfied the request
+     * @param request  the request that was satisfied
+     */
+    @Override
+    public void onRequestCompleted(Elevator elevator, Request request) {
+        lock.lock();
+        try {
+            if (request.getDesiredDirection() == Direction.NONE) {
+                return;
+            }
+
+            Button button = Button.of(request.getFloorNumber(), request.getDesiredDirection());
+            Assignment assignment = assignments.get(button);
+            if (assignment == null || assignment.request != request) {
+                return;
+            }
+
+            assignments.remove(button);
+            assignment.elevatorState.assignedRequests--;
+            lastPickupElevator = elevatorStatesByElevator.get(elevator);
+            for (int i = 0; i < assignment.destinationCount; i++) {
+                addStop(lastPickupElevator, assignment.destinations[i]);
+                elevator.pressElevatorButton(Button.of(assignment.destinations[i], Direction.NONE));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the elevator as idle and checks whether any outstanding external
+     * requests of the other elevators would be reached sooner by it. Requests are
+     * only moved if the idle elevator would get there at least one floor of travel
+     * sooner, so that requests do not bounce between elevators that are about
+     * equally good.
+     *
+     * @param elevator the elevator that is now idle
+     */
+    @Override
+    public void onIdle(Elevator elevator) {
+        lock.lock();
+        try {
+            ElevatorState idleState = elevatorStatesByElevator.get(elevator);
+            becomeIdle(idleState);
+
+            long hysteresis = elevator.getTimeToTravelBetweenFloorsInMs();
+            for (Assignment assignment : assignments.values()) {
+                ElevatorState current = assignment.elevatorState;
+                if (current == idleState) {
+                    continue;
+                }
+
+                long currentCost = estimateCost(current, assignment.request, true);
+                long idleCost = estimateCost(idleState, assignment.request, false);
+                if (idleCost + hysteresis <= currentCost && current.elevator.cancelRequest(assignment.request)) {
+                    current.assignedRequests--;
+                    assignment.elevatorState = idleState;
+                    assign(idleState, assignment.request);
+
+                    eventSink.publish(SimulationEvent.HALL_CALL_REASSIGNED, current.elevator.getId(),
+                            assignment.request.getFloorNumber(), assignment.request.getDesiredDirection(),
+                            elevator.getId());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void assign(ElevatorState state, Request request) {
+        state.assignedRequests++;
+        addStop(state, request.getFloorNumber());
+        state.elevator.assignRequest(request);
+    }
+
+    private static Button hallCall(Button button) {
+        return button.hasDestination() ? Button.of(button.floor, button.direction) : button;
+    }
+
+    static void moveTo(ElevatorState state, int floor) {
+        if (floor > state.floor) {
+            state.direction = Direction.UP;
+        } else if (floor < state.floor) {
+            state.direction = Direction.DOWN;
+        }
+        state.floor = floor;
+        addStop(state, floor);
+    }
+
+    static void becomeIdle(ElevatorState state) {
+        state.direction = Direction.NONE;
+        state.highestStop = state.floor;
+        state.lowestStop = state.floor;
+    }
+
+    static void addStop(ElevatorState state, int floor) {
+        state.highestStop = Math.max(state.highestStop, floor);
+        state.lowestStop = Math.min(state.lowestStop, floor);
+    }
+
+    /**
+     * Estimates how long (in milliseconds) it would take the elevator to reach the
+     * request.
+     *
+     * @param state           the state of the elevator
+     * @param request         the request to reach
+     * @param alreadyAssigned whether the request is already one of the assigned
+     *                        requests of the elevator
+     * @return the estimated time to reach the request
+     */
+    static long estimateCost(ElevatorState state, Request request, boolean alreadyAssigned) {
+        int floor = state.floor;
+        int requestedFloor = request.getFloorNumber();
+        Direction requestedDirection = request.getDesiredDirection();
+        long distance;
+
+        if (state.direction == Direction.UP) {
+            int top = Math.max(Math.max(state.highestStop, floor), requestedFloor);
+            if (requestedFloor >= floor && requestedDirection == Direction.UP) {
+                distance = requestedFloor - floor;
+            } else if (requestedDirection == Direction.DOWN) {
+                distance = (top - floor) + (top - requestedFloor);
+            } else {
+                int bottom = Math.min(state.lowestStop, requestedFloor);
+                distance = (top - floor) + (top - bottom) + (requestedFloor - bottom);
+            }
+        } else if (state.direction == Direction.DOWN) {
+            int bottom = Math.min(Math.min(state.lowestStop, floor), requestedFloor);
+            if (requestedFloor <= floor && requestedDirection == Direction.DOWN) {
+                distance = floor - requestedFloor;
+            } else if (requestedDirection == Direction.UP) {
+                distance = (floor - bottom) + (requestedFloor - bottom);
+            } else {
+                int top = Math.max(state.highestStop, requestedFloor);
+                distance = (floor - bottom) + (top - bottom) + (top - requestedFloor);
+            }
+        } else {
+            distance = Math.abs(floor - requestedFloor);
+        }
+
+        int otherRequests = state.assignedRequests - (alreadyAssigned ? 1 : 0);
+        return distance * state.elevator.getTimeToTravelBetweenFloorsInMs()
+                + (long) otherRequests * state.elevator.getTimeToWaitForPassengersInMs();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        eventSink = EventSink.NONE;
+    }
+}
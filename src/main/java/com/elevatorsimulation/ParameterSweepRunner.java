@@ -0,0 +1,303 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ParameterSweepRunner is a class for capacity planning. It expands a grid of
+ * elevator configurations (every combination of the numbers of elevators,
+ * starting floors, travel times, passenger wait times and schedulers) and runs
+ * the same traffic through each of them as an independent
+ * DiscreteEventSimulation. The building and the traffic (a trace or a
+ * TrafficGenerator with a fixed seed) come from a base SimulationConfig, so the
+ * only difference between the grid points is the elevators.
+ * <p>
+ * Like the MonteCarloBatchRunner, the grid points are spread over a
+ * ForkJoinPool by splitting the range of points in half recursively, so all
+ * cores stay busy until the last point. The points share nothing, so the
+ * results are the same no matter how many threads are used.
+ * <p>
+ * It can be run from the command line with the values of each parameter as a
+ * comma separated list:
+ * <p>
+ * "java com.elevatorsimulation.ParameterSweepRunner --config building.properties
+ * --elevators 2,4,6 --travel-time 400,500 --scheduler
+ * LOOK_WITH_DIRECTION,INDEXED_LOOK_WITH_DIRECTION"
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class ParameterSweepRunner {
+
+    /**
+     * The statistics of the simulation of one grid point.
+     */
+    public static final class PointResult {
+        public final ElevatorConfig elevatorConfig;
+        public final long requestsCompleted;
+        public final double averageCompletionTimeInMs;
+        public final long slowestCompletionTimeInMs;
+        public final LatencyHistogram completionTimes;
+        public final LatencyHistogram waitTimes;
+        public final long simulatedTimeInMs;
+
+        public PointResult(ElevatorConfig elevatorConfig, long requestsCompleted, double averageCompletionTimeInMs,
+                long slowestCompletionTimeInMs, LatencyHistogram completionTimes, LatencyHistogram waitTimes,
+                long simulatedTimeInMs) {
+            this.elevatorConfig = elevatorConfig;
+            this.requestsCompleted = requestsCompleted;
+            this.averageCompletionTimeInMs = averageCompletionTimeInMs;
+            this.slowestCompletionTimeInMs = slowestCompletionTimeInMs;
+            this.completionTimes = completionTimes;
+            this.waitTimes = waitTimes;
+            this.simulatedTimeInMs = simulatedTimeInMs;
+        }
+
+        /**
+         * Returns how many requests were completed per hour of simulated time.
+         *
+         * @return the throughput of the elevators
+         */
+        public double getRequestsPerHour() {
+            return (simulatedTimeInMs > 0) ? requestsCompleted * 3_600_000.0 / simulatedTimeInMs : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "PointResult{" +
+                    "elevatorConfig=" + elevatorConfig +
+                    ", requestsCompleted=" + requestsCompleted +
+                    ", averageCompletionTimeInMs=" + averageCompletionTimeInMs +
+                    ", slowestCompletionTimeInMs=" + slowestCompletionTimeInMs +
+                    ", simulatedTimeInMs=" + simulatedTimeInMs +
+                    '}';
+        }
+    }
+
+    private static final String USAGE = "Usage: ParameterSweepRunner [--config FILE] [--elevators N,...] "
+            + "[--start-floor N,...] [--travel-time MS,...] [--wait-time MS,...] [--scheduler TYPE,...] "
+            + "[--threads N]";
+
+    private final SimulationConfig baseConfig;
+    private final List<ElevatorConfig> points;
+    private final int parallelism;
+
+    /**
+     * Class constructor specifying the building and traffic, the grid points and
+     * how many threads to use.
+     *
+     * @param baseConfig  the building and traffic that every point simulates
+     * @param points      the elevator configurations to simulate
+     * @param parallelism how many threads to run simulations on
+     */
+    public ParameterSweepRunner(SimulationConfig baseConfig, List<ElevatorConfig> points, int parallelism) {
+        this.baseConfig = baseConfig;
+        this.points = Collections.unmodifiableList(new ArrayList<>(points));
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Expands a grid into every combination of its values. The scheduler changes
+     * fastest, so the schedulers are next to each other for every other
+     * combination of values.
+     *
+     * @param elevatorCounts  the numbers of elevators
+     * @param initialFloors   the starting floors
+     * @param travelTimesInMs the times to travel one floor
+     * @param waitTimesInMs   the times to wait for passengers
+     * @param schedulerTypes  the schedulers
+     * @return the elevator configuration of every grid point
+     * @throws IllegalArgumentException if any value is not valid
+     */
+    public static List<ElevatorConfig> expandGrid(List<Integer> elevatorCounts, List<Integer> initialFloors,
+            List<Integer> travelTimesInMs, List<Integer> waitTimesInMs, List<SchedulerType> schedulerTypes) {
+        List<ElevatorConfig> points = new ArrayList<>();
+        for (int numberOfElevators : elevatorCounts) {
+            for (int initialFloor : initialFloors) {
+                for (int travelTimeInMs : travelTimesInMs) {
+                    for (int waitTimeInMs : waitTimesInMs) {
+                        for (SchedulerType schedulerType : schedulerTypes) {
+                            points.add(new ElevatorConfig(numberOfElevators, initialFloor, travelTimeInMs,
+                                    waitTimeInMs, schedulerType));
+                        }
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Runs all of the grid points.
+     *
+     * @return the results in the same order as the points
+     */
+    public List<PointResult> run() {
+        if (points.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return RangeTask.map(pool, points.size(), point -> runPoint(baseConfig, points.get(point)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs a single simulation of one grid point. Nothing is printed while the
+     * simulation runs.
+     *
+     * @param baseConfig     the building and traffic to simulate
+     * @param elevatorConfig the elevators to simulate
+     * @return the statistics of the simulation
+     */
+    public static PointResult runPoint(SimulationConfig baseConfig, ElevatorConfig elevatorConfig) {
+        VirtualClock clock = new VirtualClock();
+        List<Elevator> elevators = elevatorConfig.createElevators(clock);
+        ButtonPressHandler buttonPressHandler = baseConfig.createButtonPressHandler(elevators);
+        ButtonPresser buttonPresser = baseConfig.createButtonPresser(elevators, buttonPressHandler);
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(clock, buttonPresser,
+                elevators.toArray(new Elevator[0]));
+        simulation.run();
+
+        StatsRecorder.Snapshot stats = StatsCollector.combine(elevators);
+        LongSummaryStatistics statistics = stats.summaryStatistics;
+        return new PointResult(elevatorConfig, statistics.getCount(), statistics.getAverage(),
+                (statistics.getCount() > 0) ? statistics.getMax() : 0, stats.completionTimes, stats.waitTimes,
+                simulation.getSimulatedTimeInMs());
+    }
+
+    /**
+     * Returns a table with a row for every grid point. Times are output in
+     * seconds. The representation is subject to change, but the following may be
+     * regarded as typical:
+     *
+     * <pre>
+     * Cars  Start  Travel ms  Wait ms  Scheduler                    Requests  Average     p90     p99  Wait avg  Wait p90  Per hour
+     *    4      0        500      500  LOOK_WITH_DIRECTION              3515    4.503  10.066  15.838     2.914     8.120    2702.9
+     * </pre>
+     *
+     * @param results the results to output
+     * @return the table of results
+     */
+    public static String formatTable(List<PointResult> results) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%4s %6s %10s %8s  %-27s %9s %8s %7s %7s %9s %9s %9s%n", "Cars", "Start",
+                "Travel ms", "Wait ms", "Scheduler", "Requests", "Average", "p90", "p99", "Wait avg", "Wait p90",
+                "Per hour"));
+        for (PointResult result : results) {
+            ElevatorConfig config = result.elevatorConfig;
+            builder.append(String.format("%4d %6d %10d %8d  %-27s %9d %8s %7s %7s %9s %9s %9.1f%n",
+                    config.numberOfElevators, config.initialFloor, config.timeToTravelBetweenFloorsInMs,
+                    config.timeToWaitForPassengersInMs, config.schedulerType, result.requestsCompleted,
+                    (result.requestsCompleted > 0) ? String.format("%.3f", result.averageCompletionTimeInMs * 0.001)
+                            : "N/A",
+                    formatPercentile(result.completionTimes, 90), formatPercentile(result.completionTimes, 99),
+                    (result.waitTimes.getCount() > 0) ? String.format("%.3f", result.waitTimes.getMean() / 1e9)
+                            : "N/A",
+                    formatPercentile(result.waitTimes, 90), result.getRequestsPerHour()));
+        }
+        return builder.toString();
+    }
+
+    private static String formatPercentile(LatencyHistogram histogram, double percentile) {
+        if (histogram.getCount() == 0) {
+            return "N/A";
+        }
+        return String.format("%.3f", histogram.getValueAtPercentile(percentile) / 1e9);
+    }
+
+    /**
+     * Runs a parameter sweep from the command line and prints the table of
+     * results.
+     *
+     * @param args "--config FILE" for the building, traffic and the default
+     *             elevators, and comma separated values for "--elevators",
+     *             "--start-floor", "--travel-time", "--wait-time" and
+     *             "--scheduler". "--threads N" sets how many threads to use.
+     */
+    public static void main(String[] args) {
+        SimulationConfig baseConfig = SimulationConfig.DEFAULT;
+        List<Integer> elevatorCounts = null;
+        List<Integer> initialFloors = null;
+        List<Integer> travelTimesInMs = null;
+        List<Integer> waitTimesInMs = null;
+        List<SchedulerType> schedulerTypes = null;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        List<ElevatorConfig> points;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--config":
+                        String file = Arguments.value(args, i);
+                        try {
+                            baseConfig = SimulationConfig.load(Path.of(file));
+                        } catch (IOException | IllegalArgumentException e) {
+                            System.out.println("Could not load the configuration '" + file + "': " + e.getMessage());
+                            return;
+                        }
+                        i++;
+                        break;
+                    case "--elevators":
+                        elevatorCounts = Arguments.intListValue(args, i);
+                        i++;
+                        break;
+                    case "--start-floor":
+                        initialFloors = Arguments.intListValue(args, i);
+                        i++;
+                        break;
+                    case "--travel-time":
+                        travelTimesInMs = Arguments.intListValue(args, i);
+                        i++;
+                        break;
+                    case "--wait-time":
+                        waitTimesInMs = Arguments.intListValue(args, i);
+                        i++;
+                        break;
+                    case "--scheduler":
+                        schedulerTypes = Arguments.enumListValue(args, i, SchedulerType.class);
+                        i++;
+                        break;
+                    case "--threads":
+                        parallelism = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    default:
+                        System.out.println("Ignoring unknown argument '" + args[i] + "'.");
+                        break;
+                }
+            }
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("--threads must be positive but was " + parallelism);
+            }
+
+            // Parameters that are not swept keep the value from the configuration
+            ElevatorConfig base = baseConfig.elevatorConfig;
+            points = expandGrid(
+                    (elevatorCounts != null) ? elevatorCounts : List.of(base.numberOfElevators),
+                    (initialFloors != null) ? initialFloors : List.of(base.initialFloor),
+                    (travelTimesInMs != null) ? travelTimesInMs : List.of(base.timeToTravelBetweenFloorsInMs),
+                    (waitTimesInMs != null) ? waitTimesInMs : List.of(base.timeToWaitForPassengersInMs),
+                    (schedulerTypes != null) ? schedulerTypes : List.of(base.schedulerType));
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n" + USAGE);
+            return;
+        }
+        System.out.println("Running " + points.size() + " grid points on " + parallelism + " threads...\n");
+
+        long startTime = System.nanoTime();
+        List<PointResult> results = new ParameterSweepRunner(baseConfig, points, parallelism).run();
+        long elapsedTimeInMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        AsciiArt.printScorecard();
+        System.out.print(formatTable(results));
+        System.out.println("\n(" + (elapsedTimeInMs * 0.001) + " seconds)");
+    }
+}
@@ -0,0 +1,164 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * PressedButtonRegistry is a class for keeping track of which buttons of an
+ * elevator are currently pressed. A button is identified by its floor and
+ * direction, so no Button object is needed to press or clear one.
+ * <p>
+ * Each button of the floors in a fixed range has one bit in an
+ * AtomicLongArray. Pressing a button sets its bit with a single compare and
+ * set, which tells whether the button was already pressed, so two threads
+ * pressing the same button at the same time can never both see it as newly
+ * pressed. Neither pressing nor clearing takes a lock or allocates.
+ * <p>
+ * Buttons for floors outside of the range are kept in a concurrent set
+ * instead, which is just as safe but allocates a key for every press.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class PressedButtonRegistry implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The lowest floor held in the bitmap by default.
+     */
+    public static final int DEFAULT_LOWEST_FLOOR = -128;
+
+    /**
+     * The highest floor held in the bitmap by default.
+     */
+    public static final int DEFAULT_HIGHEST_FLOOR = 1023;
+
+    private static final int DIRECTIONS = Direction.values().length;
+
+    private final int lowestFloor;
+    private final int highestFloor;
+    private final AtomicLongArray bits;
+    private final Set<Long> outOfRangeButtons;
+
+    /**
+     * Class constructor for a registry whose bitmap holds the floors from
+     * DEFAULT_LOWEST_FLOOR to DEFAULT_HIGHEST_FLOOR.
+     */
+    public PressedButtonRegistry() {
+        this(DEFAULT_LOWEST_FLOOR, DEFAULT_HIGHEST_FLOOR);
+    }
+
+    /**
+     * Class constructor specifying the range of floors held in the bitmap.
+     *
+     * @param lowestFloor  the lowest floor held in the bitmap
+     * @param highestFloor the highest floor held in the bitmap
+     */
+    public PressedButtonRegistry(int lowestFloor, int highestFloor) {
+        if (highestFloor < lowestFloor) {
+            throw new IllegalArgumentException("The highest floor " + highestFloor
+                    + " is below the lowest floor " + lowestFloor);
+        }
+        this.lowestFloor = lowestFloor;
+        this.highestFloor = highestFloor;
+        long numberOfBits = ((long) highestFloor - lowestFloor + 1) * DIRECTIONS;
+        bits = new AtomicLongArray((int) ((numberOfBits + 63) >>> 6));
+        outOfRangeButtons = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Presses the button for the specified floor and direction, unless it is
+     * already pressed.
+     *
+     * @param floor     the floor of the button
+     * @param direction the direction of the button
+     * @return true if the button was pressed by this call, or false if it was
+     *         already pressed
+     */
+    public boolean tryPress(int floor, Direction direction) {
+        if (!isInRange(floor)) {
+            return outOfRangeButtons.add(key(floor, direction));
+        }
+        int index = bitIndex(floor, direction);
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+        return true;
+    }
+
+    /**
+     * Releases the button for the specified floor and direction, so that it can
+     * be pressed again.
+     *
+     * @param floor     the floor of the button
+     * @param direction the direction of the button
+     */
+    public void clear(int floor, Direction direction) {
+        if (!isInRange(floor)) {
+            outOfRangeButtons.remove(key(floor, direction));
+            return;
+        }
+        int index = bitIndex(floor, direction);
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) == 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current & ~mask));
+    }
+
+    /**
+     * Returns whether the button for the specified floor and direction is
+     * currently pressed.
+     *
+     * @param floor     the floor of the button
+     * @param direction the direction of the button
+     * @return whether the button is pressed
+     */
+    public boolean isPressed(int floor, Direction direction) {
+        if (!isInRange(floor)) {
+            return outOfRangeButtons.contains(key(floor, direction));
+        }
+        int index = bitIndex(floor, direction);
+        return (bits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    private boolean isInRange(int floor) {
+        return floor >= lowestFloor && floor <= highestFloor;
+    }
+
+    private int bitIndex(int floor, Direction direction) {
+        return (floor - lowestFloor) * DIRECTIONS + direction.ordinal();
+    }
+
+    private static Long key(int floor, Direction direction) {
+        return ((long) floor << 2) | direction.ordinal();
+    }
+
+    /**
+     * Returns a human readable string that represents the informative contents of
+     * this registry. The representation is subject to change, but the following
+     * may be regarded as typical:
+     *
+     * "PressedButtonRegistry{lowestFloor=-128, highestFloor=1023}"
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "PressedButtonRegistry{" +
+                "lowestFloor=" + lowestFloor +
+                ", highestFloor=" + highestFloor +
+                '}';
+    }
+}
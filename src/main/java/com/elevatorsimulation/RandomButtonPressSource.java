@@ -0,0 +1,93 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+
+/**
+ * RandomButtonPressSource is a class that implements the ButtonPressSource
+ * interface by generating random button presses from a seed. The same seed
+ * always produces the same button presses. Floors are picked uniformly from the
+ * range of floors, the button is equally likely to be an internal button, an
+ * UP button or a DOWN button (there is no UP button on the highest floor and no
+ * DOWN button on the lowest floor), and the delays between button presses are
+ * exponentially distributed, which makes the button presses a Poisson process.
+ * <p>
+ * The source is Serializable, so a simulation that it drives can be saved in a
+ * SimulationCheckpoint and carry on with the same button presses.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class RandomButtonPressSource implements ButtonPressSource, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final SplitMix64Random random;
+    private final int numberOfButtonPresses;
+    private final int lowestFloor;
+    private final int highestFloor;
+    private final double meanDelayInMs;
+    private int buttonPressesGenerated;
+    private int floor;
+    private Direction direction;
+    private long delayBeforePressing;
+
+    /**
+     * Class constructor specifying the seed, how many button presses to generate
+     * and what they should look like.
+     *
+     * @param seed                  the seed for the random numbers
+     * @param numberOfButtonPresses how many button presses to generate
+     * @param lowestFloor           the lowest floor of the building
+     * @param highestFloor          the highest floor of the building
+     * @param meanDelayInMs         the average delay between button presses, in
+     *                              milliseconds
+     * @throws IllegalArgumentException if the highest floor is not above the
+     *                                  lowest floor
+     */
+    public RandomButtonPressSource(long seed, int numberOfButtonPresses, int lowestFloor, int highestFloor,
+            double meanDelayInMs) {
+        if (highestFloor <= lowestFloor) {
+            throw new IllegalArgumentException("The highest floor (" + highestFloor
+                    + ") must be above the lowest floor (" + lowestFloor + ")");
+        }
+
+        random = new SplitMix64Random(seed);
+        this.numberOfButtonPresses = numberOfButtonPresses;
+        this.lowestFloor = lowestFloor;
+        this.highestFloor = highestFloor;
+        this.meanDelayInMs = meanDelayInMs;
+        buttonPressesGenerated = 0;
+    }
+
+    @Override
+    public boolean next() {
+        if (buttonPressesGenerated >= numberOfButtonPresses) {
+            return false;
+        }
+        buttonPressesGenerated++;
+
+        floor = random.nextInt(lowestFloor, highestFloor + 1);
+        direction = Direction.values()[random.nextInt(3)];
+        if (direction == Direction.UP && floor == highestFloor) {
+            direction = Direction.DOWN;
+        } else if (direction == Direction.DOWN && floor == lowestFloor) {
+            direction = Direction.UP;
+        }
+        delayBeforePressing = Math.round(-meanDelayInMs * Math.log(1.0 - random.nextDouble()));
+        return true;
+    }
+
+    @Override
+    public int getFloor() {
+        return floor;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public long getDelayBeforePressing() {
+        return delayBeforePressing;
+    }
+}
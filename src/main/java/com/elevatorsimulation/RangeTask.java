@@ -0,0 +1,111 @@
+package com.elevatorsimulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * RangeTask is a class for spreading independent pieces of work, numbered from
+ * 0, over a ForkJoinPool. The range of pieces is split in half recursively, so
+ * idle worker threads steal the remaining halves from busy ones and all cores
+ * stay busy until the last piece. The results of the pieces are combined in
+ * the order of the pieces, so the outcome does not depend on how many threads
+ * are used.
+ * <p>
+ * It is used for the runs of a MonteCarloBatchRunner, the grid points of a
+ * ParameterSweepRunner, the shards of a ShardedSimulation and the blocks of a
+ * RequestLogQuery.
+ *
+ * @param <T> the type of the result of each piece
+ * @author Michael Zigment
+ * @version 1.0
+ */
+final class RangeTask<T> extends RecursiveTask<T> {
+    private static final long serialVersionUID = 1L;
+    private final int from;
+    private final int to;
+    private final IntFunction<T> piece;
+    private final BinaryOperator<T> combiner;
+
+    private RangeTask(int from, int to, IntFunction<T> piece, BinaryOperator<T> combiner) {
+        this.from = from;
+        this.to = to;
+        this.piece = piece;
+        this.combiner = combiner;
+    }
+
+    @Override
+    protected T compute() {
+        if (to - from == 1) {
+            return piece.apply(from);
+        }
+
+        int middle = (from + to) >>> 1;
+        RangeTask<T> second = new RangeTask<>(middle, to, piece, combiner);
+        second.fork();
+        T first = new RangeTask<>(from, middle, piece, combiner).compute();
+        return combiner.apply(first, second.join());
+    }
+
+    /**
+     * Does every piece of work and combines the results from the first piece to
+     * the last. The pieces run on the pool, or on the calling thread if the pool
+     * is null.
+     *
+     * @param <T>      the type of the result of each piece
+     * @param pool     the pool to run the pieces on, or null
+     * @param pieces   how many pieces there are. This must be positive.
+     * @param piece    does the piece with the specified number
+     * @param combiner combines the results of two neighbouring ranges of pieces
+     * @return the combined result of all pieces
+     */
+    static <T> T reduce(ForkJoinPool pool, int pieces, IntFunction<T> piece, BinaryOperator<T> combiner) {
+        RangeTask<T> task = new RangeTask<>(0, pieces, piece, combiner);
+        return (pool != null) ? pool.invoke(task) : task.compute();
+    }
+
+    /**
+     * Does every piece of work and returns the results in the order of the
+     * pieces.
+     *
+     * @param <T>    the type of the result of each piece
+     * @param pool   the pool to run the pieces on, or null
+     * @param pieces how many pieces there are
+     * @param piece  does the piece with the specified number
+     * @return the result of every piece
+     */
+    static <T> List<T> map(ForkJoinPool pool, int pieces, IntFunction<T> piece) {
+        if (pieces == 0) {
+            return new ArrayList<>();
+        }
+        return reduce(pool, pieces, i -> {
+            List<T> results = new ArrayList<>();
+            results.add(piece.apply(i));
+            return results;
+        }, (first, second) -> {
+            first.addAll(second);
+            return first;
+        });
+    }
+
+    /**
+     * Does every piece of work.
+     *
+     * @param pool   the pool to run the pieces on, or null
+     * @param pieces how many pieces there are
+     * @param piece  does the piece with the specified number
+     */
+    static void forEach(ForkJoinPool pool, int pieces, IntConsumer piece) {
+        if (pieces == 0) {
+            return;
+        }
+        reduce(pool, pieces, i -> {
+            piece.accept(i);
+            return null;
+        }, (first, second) -> null);
+    }
+}
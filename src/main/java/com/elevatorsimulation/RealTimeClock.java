@@ -0,0 +1,24 @@
+package com.elevatorsimulation;
+
+/**
+ * RealTimeClock is a class that implements the SimulationClock interface using
+ * the monotonic system clock (System.nanoTime), so measured times are not
+ * skewed if the wall clock is adjusted while the simulation is running. This is
+ * the clock used when the elevator and button presser threads run in real time
+ * and sleep between events.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class RealTimeClock implements SimulationClock {
+
+    /**
+     * Returns the current time of the monotonic system clock.
+     *
+     * @return the current value of System.nanoTime
+     */
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+}
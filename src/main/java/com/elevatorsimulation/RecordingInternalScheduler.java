@@ -0,0 +1,317 @@
+package com.elevatorsimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.logging.*;
+
+/**
+ * RecordingInternalScheduler is a class that implements the InternalScheduler
+ * interface by passing every call on to another scheduler and writing the
+ * inputs and decisions of that scheduler to a decision log. The log can be
+ * replayed by the SchedulerReplayer to check that a scheduler makes the same
+ * decisions, or to see where a changed scheduler decides differently, without
+ * depending on the timing of the threads that made the recording.
+ * <p>
+ * A decision log starts with a 16 byte header:
+ * <ul>
+ * <li>the magic bytes "ELVS"</li>
+ * <li>the format version as an unsigned 16 bit integer (currently 1)</li>
+ * <li>the size of each record in bytes as an unsigned 16 bit integer
+ * (currently 16)</li>
+ * <li>the id of the elevator as a 32 bit integer</li>
+ * <li>the floor the elevator started on as a 32 bit integer</li>
+ * </ul>
+ * The header is followed by one fixed size record for every call, in the order
+ * the calls were made:
+ * <ul>
+ * <li>the operation as a byte (see the OP constants)</li>
+ * <li>the ordinal of the direction of the request as a byte</li>
+ * <li>the result of a cancel as a byte (1 if the request was removed)</li>
+ * <li>a reserved byte</li>
+ * <li>the floor of the request, or the new floor of the elevator, as a 32 bit
+ * integer</li>
+ * <li>the id of the request as a 64 bit integer, or -1 for none</li>
+ * </ul>
+ * All values are big-endian. Requests are numbered in the order they were
+ * added. The floor of the elevator is an input to the schedulers, so whenever
+ * it has changed since the last call, an OP_FLOOR record is written first.
+ * Calls to hasRequests are not recorded, since they only depend on what was
+ * added and removed, and they are by far the most frequent.
+ * <p>
+ * The calls are recorded while holding a lock, so the log has them in exactly
+ * the order the scheduler saw them. If writing the log fails, the error is
+ * logged and the recording stops, but the scheduler keeps working.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class RecordingInternalScheduler implements InternalScheduler, Closeable {
+    static final byte[] MAGIC = { 'E', 'L', 'V', 'S' };
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 16;
+
+    static final byte OP_FLOOR = 0;
+    static final byte OP_ADD = 1;
+    static final byte OP_REMOVE = 2;
+    static final byte OP_CANCEL = 3;
+    static final byte OP_CURRENT = 4;
+
+    private static final Logger LOGGER = Logger.getLogger(RecordingInternalScheduler.class.getName());
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InternalScheduler scheduler;
+    private final Elevator elevator;
+    private final Path logFile;
+    private final ReentrantLock lock;
+    private final Map<Request, Long> requestIds;
+    private FileChannel channel;
+    private final ByteBuffer buffer;
+    private long nextRequestId;
+    private int lastFloor;
+    private long recordsWritten;
+
+    /**
+     * Class constructor specifying the scheduler to record, the elevator it
+     * schedules and the file to write the decision log to.
+     *
+     * @param scheduler the scheduler whose calls are recorded
+     * @param elevator  the elevator that is being scheduled
+     * @param logFile   the path of the decision log to write
+     * @throws IOException if the file can not be created
+     */
+    public RecordingInternalScheduler(InternalScheduler scheduler, Elevator elevator, Path logFile)
+            throws IOException {
+        this.scheduler = scheduler;
+        this.elevator = elevator;
+        this.logFile = logFile;
+        lock = new ReentrantLock();
+        requestIds = new IdentityHashMap<>();
+        nextRequestId = 0;
+        lastFloor = elevator.getCurrentFloor();
+        recordsWritten = 0;
+
+        channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.put(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) RECORD_SIZE);
+        buffer.putInt(elevator.getId());
+        buffer.putInt(lastFloor);
+    }
+
+    /**
+     * Creates a scheduler factory that records the schedulers created by another
+     * factory. The decision log of each elevator is written to the directory as
+     * "elevator-ID.elvs". If a log can not be created, the error is logged and
+     * that scheduler is not recorded.
+     *
+     * @param schedulerFactory the factory for the schedulers to record
+     * @param directory        the directory to write the decision logs to
+     * @param recorders        the list that every recording scheduler is added
+     *                         to, so that they can be closed
+     * @return a factory for recording schedulers
+     */
+    public static Function<Elevator, InternalScheduler> recording(
+            Function<Elevator, InternalScheduler> schedulerFactory, Path directory,
+            List<RecordingInternalScheduler> recorders) {
+        return elevator -> {
+            InternalScheduler scheduler = schedulerFactory.apply(elevator);
+            Path logFile = directory.resolve("elevator-" + elevator.getId() + ".elvs");
+            try {
+                RecordingInternalScheduler recorder = new RecordingInternalScheduler(scheduler, elevator, logFile);
+                recorders.add(recorder);
+                return recorder;
+            } catch (IOException e) {
+                LOGGER.severe("Could not record decisions to '" + logFile + "': " + e.getMessage());
+                return scheduler;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of records written to the decision log so far.
+     *
+     * @return the number of records
+     */
+    public long getRecordsWritten() {
+        lock.lock();
+        try {
+            return recordsWritten;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addRequest(Request request) {
+        lock.lock();
+        try {
+            recordFloor();
+            long requestId = nextRequestId++;
+            requestIds.put(request, requestId);
+            scheduler.addRequest(request);
+            record(OP_ADD, request.getDesiredDirection(), false, request.getFloorNumber(), requestId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeRequest(Request request) {
+        lock.lock();
+        try {
+            recordFloor();
+            scheduler.removeRequest(request);
+            Long requestId = requestIds.remove(request);
+            record(OP_REMOVE, request.getDesiredDirection(), false, request.getFloorNumber(),
+                    (requestId != null) ? requestId : -1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean cancelRequest(Request request) {
+        lock.lock();
+        try {
+            recordFloor();
+            boolean removed = scheduler.cancelRequest(request);
+            Long requestId = removed ? requestIds.remove(request) : requestIds.get(request);
+            record(OP_CANCEL, request.getDesiredDirection(), removed, request.getFloorNumber(),
+                    (requestId != null) ? requestId : -1);
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Request getCurrentRequest() {
+        lock.lock();
+        try {
+            recordFloor();
+            Request request = scheduler.getCurrentRequest();
+            if (request == null) {
+                record(OP_CURRENT, Direction.NONE, false, 0, -1);
+            } else {
+                Long requestId = requestIds.get(request);
+                record(OP_CURRENT, request.getDesiredDirection(), false, request.getFloorNumber(),
+                        (requestId != null) ? requestId : -1);
+            }
+            return request;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getHeadVersion() {
+        return scheduler.getHeadVersion();
+    }
+
+    @Override
+    public int getQueueDepth(Direction direction, boolean pending) {
+        return scheduler.getQueueDepth(direction, pending);
+    }
+
+    @Override
+    public boolean hasRequests() {
+        return scheduler.hasRequests();
+    }
+
+    /**
+     * Writes out the rest of the decision log and closes the file. The calls are
+     * still passed on to the scheduler after this, but are no longer recorded.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (channel == null) {
+                return;
+            }
+            try {
+                write();
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.severe("Error writing '" + logFile + "': " + e.getMessage());
+            }
+            channel = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordFloor() {
+        int floor = elevator.getCurrentFloor();
+        if (floor != lastFloor) {
+            lastFloor = floor;
+            record(OP_FLOOR, Direction.NONE, false, floor, -1);
+        }
+    }
+
+    private void record(byte operation, Direction direction, boolean result, int floor, long requestId) {
+        if (channel == null) {
+            return;
+        }
+        if (buffer.remaining() < RECORD_SIZE) {
+            try {
+                write();
+            } catch (IOException e) {
+                LOGGER.severe("Error writing '" + logFile + "', no more decisions will be recorded: "
+                        + e.getMessage());
+                try {
+                    channel.close();
+                } catch (IOException closeException) {
+                    LOGGER.warning("Error closing '" + logFile + "'.");
+                }
+                channel = null;
+                return;
+            }
+        }
+        buffer.put(operation);
+        buffer.put((byte) direction.ordinal());
+        buffer.put(result ? (byte) 1 : (byte) 0);
+        buffer.put((byte) 0);
+        buffer.putInt(floor);
+        buffer.putLong(requestId);
+        recordsWritten++;
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Returns a human readable string that represents the informative contents of
+     * this recording scheduler. The representation is subject to change, but the
+     * following may be regarded as typical:
+     *
+     * "RecordingInternalScheduler{logFile=decisions/elevator-1.elvs,
+     * recordsWritten=120}"
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "RecordingInternalScheduler{" +
+                "logFile=" + logFile +
+                ", recordsWritten=" + getRecordsWritten() +
+                '}';
+    }
+}
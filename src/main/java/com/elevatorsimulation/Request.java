@@ -1,6 +1,6 @@
 package com.elevatorsimulation;
 
-import java.time.Instant;
+import java.io.Serializable;
 
 /**
  * Request is a class used to represent a button press for scheduling an
@@ -11,15 +11,27 @@ import java.time.Instant;
  * the information for floor requests and whether an up or down button was
  * pressed. It also has a timestamp for creation to track how long a request has
  * been around before it is satisfied.
+ * <p>
+ * A request only holds primitive fields and a Direction. The timestamp is a
+ * monotonic time in nanoseconds from a SimulationClock (or System.nanoTime),
+ * so creating a request allocates nothing besides the request itself, and
+ * working out how long it took needs no Instant or Duration.
+ * <p>
+ * A request made by a destination Button also carries the floor the passenger
+ * wants to go to. It is scheduled like any other UP or DOWN request for the
+ * floor the passenger is waiting on, and when the elevator picks the passenger
+ * up it makes the request for the destination itself.
  *
  * @author Michael Zigment
  * @version 1.0
  */
-public class Request {
+public class Request implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private final int floorNumber;
     private final Direction desiredDirection;
-    private final Instant timeCreated;
+    private final long timeCreatedInNs;
+    private final int destinationFloor;
 
     /**
      * Class constructor specifying a requested floor. This represents an internal
@@ -30,7 +42,8 @@ public class Request {
     public Request(int floorNumber) {
         this.floorNumber = floorNumber;
         desiredDirection = Direction.NONE;
-        timeCreated = Instant.now();
+        timeCreatedInNs = System.nanoTime();
+        destinationFloor = Button.NO_DESTINATION;
     }
 
     /**
@@ -42,9 +55,43 @@ public class Request {
      * @param desiredDirection the requested direction for the external button press
      */
     public Request(int floorNumber, Direction desiredDirection) {
+        this(floorNumber, desiredDirection, System.nanoTime());
+    }
+
+    /**
+     * Class constructor specifying a requested floor, a requested direction and
+     * the time the request was created. This is used when the time is taken from
+     * a SimulationClock rather than System.nanoTime.
+     *
+     * @param floorNumber      the requested floor
+     * @param desiredDirection the requested direction. NONE represents an internal
+     *                         button press.
+     * @param timeCreatedInNs  the time that the request was created in
+     *                         nanoseconds
+     */
+    public Request(int floorNumber, Direction desiredDirection, long timeCreatedInNs) {
         this.floorNumber = floorNumber;
         this.desiredDirection = desiredDirection;
-        timeCreated = Instant.now();
+        this.timeCreatedInNs = timeCreatedInNs;
+        destinationFloor = Button.NO_DESTINATION;
+    }
+
+    /**
+     * Class constructor for the request of a destination button, specifying the
+     * floor the passenger is waiting on, the floor they want to go to and the
+     * time the request was created. The desired direction is worked out from the
+     * two floors.
+     *
+     * @param floorNumber      the floor the passenger is waiting on
+     * @param destinationFloor the floor the passenger wants to go to
+     * @param timeCreatedInNs  the time that the request was created in
+     *                         nanoseconds
+     */
+    public Request(int floorNumber, int destinationFloor, long timeCreatedInNs) {
+        this.floorNumber = floorNumber;
+        desiredDirection = (destinationFloor > floorNumber) ? Direction.UP : Direction.DOWN;
+        this.timeCreatedInNs = timeCreatedInNs;
+        this.destinationFloor = destinationFloor;
     }
 
     /**
@@ -69,13 +116,34 @@ public class Request {
     }
 
     /**
-     * Returns the time the request was created. The time is used to calculate
-     * statistics for the life of a request.
+     * Returns the floor the passenger wants to go to, for the request of a
+     * destination button.
+     *
+     * @return the destination floor, or Button.NO_DESTINATION for any other
+     *         request
+     */
+    public final int getDestinationFloor() {
+        return destinationFloor;
+    }
+
+    /**
+     * Returns whether the request was made by a destination button.
+     *
+     * @return true if the request has a destination floor
+     */
+    public final boolean hasDestination() {
+        return destinationFloor != Button.NO_DESTINATION;
+    }
+
+    /**
+     * Returns the time the request was created in nanoseconds. The time is used
+     * to calculate statistics for the life of a request, and is only meaningful
+     * relative to other times from the same clock.
      *
-     * @return the time that the request was created
+     * @return the time that the request was created in nanoseconds
      */
-    public final Instant getTimeCreated() {
-        return timeCreated;
+    public final long getTimeCreatedInNs() {
+        return timeCreatedInNs;
     }
 
     /**
@@ -83,7 +151,7 @@ public class Request {
      * this request. The representation is subject to change, but the
      * following may be regarded as typical:
      * 
-     * "Request{floorNumber=1, desiredDirection=NONE, timeCreated=500}"
+     * "Request{floorNumber=1, desiredDirection=NONE, timeCreatedInNs=500000000}"
      *
      * @return a string representation of the object
      */
@@ -92,7 +160,8 @@ public class Request {
         return "Request{" +
                 "floorNumber=" + floorNumber +
                 ", desiredDirection=" + desiredDirection +
-                ", timeCreated=" + timeCreated +
+                ", timeCreatedInNs=" + timeCreatedInNs +
+                (hasDestination() ? ", destinationFloor=" + destinationFloor : "") +
                 '}';
     }
 }
\ No newline at end of file
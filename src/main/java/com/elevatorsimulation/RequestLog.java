@@ -0,0 +1,322 @@
+package com.elevatorsimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * RequestLog is a class for keeping a record of every request the elevators
+ * complete, so a run can be analysed afterwards with a RequestLogQuery instead
+ * of being run again with more logging. It is an ElevatorListener, so it is
+ * added to each of the elevators, and writes a record for every completed
+ * request with:
+ * <ul>
+ * <li>the floor of the request</li>
+ * <li>the direction of the request, which is NONE for a car call</li>
+ * <li>when the request was created</li>
+ * <li>when it was served</li>
+ * <li>the id of the elevator that served it</li>
+ * <li>the number of floors that elevator travelled since it last served a
+ * request, so the floors travelled to a stop are only counted once even if
+ * several requests are served there</li>
+ * </ul>
+ * Times are in nanoseconds since the origin the log was created with, which is
+ * 0 for a VirtualClock.
+ * <p>
+ * The records are stored by column rather than one after another, so a query
+ * only reads the columns it needs and reads each of them straight out of the
+ * file without making any objects. The file is made of blocks of
+ * RECORDS_PER_BLOCK records, and each block holds the columns one after
+ * another: the created times and the served times as 64 bit integers, the
+ * floors, the elevator ids and the floors travelled as 32 bit integers, and
+ * the ordinals of the directions as bytes. The blocks follow a 64 byte header:
+ * <ul>
+ * <li>the magic bytes "ELVR"</li>
+ * <li>the format version as a 16 bit integer (currently 1)</li>
+ * <li>the number of columns as a 16 bit integer (currently 6)</li>
+ * <li>the number of records in a block as a 32 bit integer</li>
+ * <li>the number of records as a 64 bit integer</li>
+ * <li>the lowest and highest floor of any record as 32 bit integers</li>
+ * <li>the latest created time of any record as a 64 bit integer</li>
+ * </ul>
+ * The rest of the header is left as zeros. Unlike the binary traces, all
+ * values are little-endian, since that is the native order of the machines
+ * the queries are run on. Each block is memory-mapped when the first record is
+ * written to it, and the header is kept up to date after every record.
+ * <p>
+ * Records can be written from any number of elevator threads at once. Once
+ * the log is closed, records for requests the elevators still complete are
+ * dropped and counted rather than stopping the elevators. A log can not be
+ * saved in a SimulationCheckpoint.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class RequestLog implements ElevatorListener, Closeable {
+    static final byte[] MAGIC = { 'E', 'L', 'V', 'R' };
+    static final int VERSION = 1;
+    static final int COLUMNS = 6;
+    static final int HEADER_SIZE = 64;
+    static final int COUNT_OFFSET = 12;
+    static final int LOWEST_FLOOR_OFFSET = 20;
+    static final int HIGHEST_FLOOR_OFFSET = 24;
+    static final int LATEST_CREATED_OFFSET = 28;
+
+    /**
+     * The number of records in each block of the file.
+     */
+    public static final int RECORDS_PER_BLOCK = 64 * 1024;
+
+    /**
+     * The number of bytes of one record over all of its columns.
+     */
+    public static final int RECORD_SIZE = 8 + 8 + 4 + 4 + 4 + 1;
+
+    /**
+     * The size of a block in bytes.
+     */
+    static final long BLOCK_SIZE = (long) RECORDS_PER_BLOCK * RECORD_SIZE;
+
+    static final int CREATED_OFFSET = 0;
+    static final int SERVED_OFFSET = CREATED_OFFSET + 8 * RECORDS_PER_BLOCK;
+    static final int FLOOR_OFFSET = SERVED_OFFSET + 8 * RECORDS_PER_BLOCK;
+    static final int ELEVATOR_OFFSET = FLOOR_OFFSET + 4 * RECORDS_PER_BLOCK;
+    static final int FLOORS_TRAVELLED_OFFSET = ELEVATOR_OFFSET + 4 * RECORDS_PER_BLOCK;
+    static final int DIRECTION_OFFSET = FLOORS_TRAVELLED_OFFSET + 4 * RECORDS_PER_BLOCK;
+
+    /**
+     * How far an elevator has travelled, for working out the floors travelled
+     * to each stop.
+     */
+    private static final class Odometer {
+        public long floorsTravelled;
+        public long floorsTravelledAtLastStop;
+        public int floor;
+
+        public Odometer(int floor) {
+            this.floor = floor;
+        }
+    }
+
+    private final Path file;
+    private final long originInNs;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final Map<Elevator, Odometer> odometers;
+    private final ReentrantLock lock;
+    private MappedByteBuffer block;
+    private int blockRecords;
+    private long numberOfRecords;
+    private long droppedRecords;
+    private int lowestFloor;
+    private int highestFloor;
+    private long latestCreatedInNs;
+
+    /**
+     * Class constructor specifying the file to write the records to and the
+     * time that the times of the records are measured from. The file is
+     * replaced if it already exists.
+     *
+     * @param file       the path of the file to write
+     * @param originInNs the time of the clock of the elevators that the times
+     *                   of the records are measured from, such as 0 for a
+     *                   VirtualClock or the time the simulation started for a
+     *                   RealTimeClock
+     * @throws IOException if the file can not be created
+     */
+    public RequestLog(Path file, long originInNs) throws IOException {
+        this.file = file;
+        this.originInNs = originInNs;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC);
+        header.putShort((short) VERSION);
+        header.putShort((short) COLUMNS);
+        header.putInt(RECORDS_PER_BLOCK);
+        odometers = new IdentityHashMap<>();
+        lock = new ReentrantLock();
+        block = null;
+        blockRecords = RECORDS_PER_BLOCK;
+        numberOfRecords = 0;
+        lowestFloor = Integer.MAX_VALUE;
+        highestFloor = Integer.MIN_VALUE;
+        latestCreatedInNs = Long.MIN_VALUE;
+        updateHeader();
+    }
+
+    /**
+     * Returns the path of the file the records are written to.
+     *
+     * @return the path of the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the number of records written so far.
+     *
+     * @return the number of records
+     */
+    public long getNumberOfRecords() {
+        lock.lock();
+        try {
+            return numberOfRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of records that were dropped because they were written
+     * after the log was closed.
+     *
+     * @return the number of dropped records
+     */
+    public long getDroppedRecords() {
+        lock.lock();
+        try {
+            return droppedRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the log as a listener on each of the elevators, starting the count of
+     * the floors they travel from the floors they are on now.
+     *
+     * @param elevators the elevators whose requests are recorded
+     */
+    public void attach(Iterable<Elevator> elevators) {
+        for (Elevator elevator : elevators) {
+            lock.lock();
+            try {
+                odometers.put(elevator, new Odometer(elevator.getCurrentFloor()));
+            } finally {
+                lock.unlock();
+            }
+            elevator.addElevatorListener(this);
+        }
+    }
+
+    /**
+     * Writes a record for a completed request. If the log has been closed, the
+     * record is dropped and counted instead.
+     *
+     * @param floor           the floor of the request
+     * @param direction       the direction of the request
+     * @param createdInNs     when the request was created, since the origin
+     * @param servedInNs      when the request was served, since the origin
+     * @param elevatorId      the id of the elevator that served the request
+     * @param floorsTravelled the floors the elevator travelled to serve it
+     * @throws IllegalStateException if the file can not be extended
+     */
+    public void append(int floor, Direction direction, long createdInNs, long servedInNs, int elevatorId,
+            int floorsTravelled) {
+        lock.lock();
+        try {
+            if (!channel.isOpen()) {
+                droppedRecords++;
+                return;
+            }
+            if (blockRecords == RECORDS_PER_BLOCK) {
+                long position = HEADER_SIZE + (numberOfRecords / RECORDS_PER_BLOCK) * BLOCK_SIZE;
+                block = channel.map(FileChannel.MapMode.READ_WRITE, position, BLOCK_SIZE);
+                block.order(ByteOrder.LITTLE_ENDIAN);
+                blockRecords = 0;
+            }
+
+            int i = blockRecords;
+            block.putLong(CREATED_OFFSET + 8 * i, createdInNs);
+            block.putLong(SERVED_OFFSET + 8 * i, servedInNs);
+            block.putInt(FLOOR_OFFSET + 4 * i, floor);
+            block.putInt(ELEVATOR_OFFSET + 4 * i, elevatorId);
+            block.putInt(FLOORS_TRAVELLED_OFFSET + 4 * i, floorsTravelled);
+            block.put(DIRECTION_OFFSET + i, (byte) direction.ordinal());
+            blockRecords++;
+
+            numberOfRecords++;
+            lowestFloor = Math.min(lowestFloor, floor);
+            highestFloor = Math.max(highestFloor, floor);
+            latestCreatedInNs = Math.max(latestCreatedInNs, createdInNs);
+            updateHeader();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not extend the request log '" + file + "'", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateHeader() {
+        header.putLong(COUNT_OFFSET, numberOfRecords);
+        header.putInt(LOWEST_FLOOR_OFFSET, lowestFloor);
+        header.putInt(HIGHEST_FLOOR_OFFSET, highestFloor);
+        header.putLong(LATEST_CREATED_OFFSET, latestCreatedInNs);
+    }
+
+    @Override
+    public void onFloorChanged(Elevator elevator, int floor) {
+        lock.lock();
+        try {
+            Odometer odometer = odometers.computeIfAbsent(elevator, e -> new Odometer(floor));
+            odometer.floorsTravelled += Math.abs(floor - odometer.floor);
+            odometer.floor = floor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a record for the request, served at the current time of the clock
+     * of the elevator.
+     *
+     * @param elevator the elevator that satisfied the request
+     * @param request  the request that was satisfied
+     */
+    @Override
+    public void onRequestCompleted(Elevator elevator, Request request) {
+        long servedInNs = elevator.getClock().nanoTime();
+        int floorsTravelled;
+        lock.lock();
+        try {
+            Odometer odometer = odometers.computeIfAbsent(elevator, e -> new Odometer(e.getCurrentFloor()));
+            floorsTravelled = (int) Math.min(Integer.MAX_VALUE,
+                    odometer.floorsTravelled - odometer.floorsTravelledAtLastStop);
+            odometer.floorsTravelledAtLastStop = odometer.floorsTravelled;
+        } finally {
+            lock.unlock();
+        }
+        append(request.getFloorNumber(), request.getDesiredDirection(), request.getTimeCreatedInNs() - originInNs,
+                servedInNs - originInNs, elevator.getId(), floorsTravelled);
+    }
+
+    @Override
+    public void onIdle(Elevator elevator) {
+    }
+
+    /**
+     * Closes the file. The records already written stay in the file, and any
+     * written after this are dropped.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The records are in the mapped file either way
+        } finally {
+            lock.unlock();
+        }
+    }
+}
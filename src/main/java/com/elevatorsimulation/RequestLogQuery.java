@@ -0,0 +1,600 @@
+package com.elevatorsimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * RequestLogQuery is a class for analysing the records of a RequestLog after
+ * a run, such as to find which floors wait longest during the morning rush.
+ * The records can be grouped by floor or by window of time, with the number of
+ * requests, their average and longest completion times and the floors
+ * travelled to serve them in each group, or their completion times can be put
+ * in a LatencyHistogram for percentiles. Every query can be narrowed with a
+ * Filter to the requests created during a span of time, on one floor, or to
+ * hall calls only, whose completion time is how long the passengers waited.
+ * <p>
+ * Each block of the log is memory-mapped once when the log is opened, and a
+ * query scans the columns it needs straight out of the mapped blocks without
+ * making any objects for the records. The blocks are split between the
+ * threads of a ForkJoinPool by a RangeTask, like the runs of a
+ * MonteCarloBatchRunner, and the results of each half are merged, so the
+ * results do not depend on the number of threads. A query reads at most 25
+ * bytes of columns for each record, so a log of 100 million requests that is
+ * in the page cache is scanned in under a second even on a single core.
+ * <p>
+ * It can be run from the command line with the log to query:
+ * <p>
+ * "java com.elevatorsimulation.RequestLogQuery --log requests.elvr --group-by
+ * floor --from 3600 --to 7200 --hall-calls"
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class RequestLogQuery implements Closeable {
+    /**
+     * The floor of a Filter that matches requests on any floor.
+     */
+    public static final int ANY_FLOOR = Integer.MIN_VALUE;
+
+    private static final int MAX_GROUPS = 16 * 1024 * 1024;
+    private static final byte NONE_ORDINAL = (byte) Direction.NONE.ordinal();
+    private static final String USAGE = "Usage: RequestLogQuery --log FILE [--group-by floor|window] "
+            + "[--window SECONDS] [--from SECONDS] [--to SECONDS] [--floor N] [--hall-calls] [--threads N]";
+
+    /**
+     * Which records a query looks at.
+     */
+    public static final class Filter {
+        /**
+         * A filter that matches every record.
+         */
+        public static final Filter ALL = new Filter(Long.MIN_VALUE, Long.MAX_VALUE, ANY_FLOOR, false);
+
+        public final long fromInNs;
+        public final long toInNs;
+        public final int floor;
+        public final boolean hallCallsOnly;
+
+        /**
+         * Class constructor specifying the records to match.
+         *
+         * @param fromInNs      the earliest created time to match
+         * @param toInNs        the created time to match up to, but not including
+         * @param floor         the floor to match, or ANY_FLOOR
+         * @param hallCallsOnly whether to only match UP and DOWN requests, and
+         *                      not car calls
+         * @throws IllegalArgumentException if the span of time is empty
+         */
+        public Filter(long fromInNs, long toInNs, int floor, boolean hallCallsOnly) {
+            if (toInNs <= fromInNs) {
+                throw new IllegalArgumentException("The filter must end after it starts but goes from " + fromInNs
+                        + " to " + toInNs + " ns");
+            }
+            this.fromInNs = fromInNs;
+            this.toInNs = toInNs;
+            this.floor = floor;
+            this.hallCallsOnly = hallCallsOnly;
+        }
+
+        @Override
+        public String toString() {
+            return "Filter{" +
+                    "fromInNs=" + fromInNs +
+                    ", toInNs=" + toInNs +
+                    ", floor=" + floor +
+                    ", hallCallsOnly=" + hallCallsOnly +
+                    '}';
+        }
+    }
+
+    /**
+     * The statistics of the requests in one group, which is a floor or a window
+     * of time.
+     */
+    public static final class Group {
+        public final long key;
+        public final long requests;
+        public final long totalCompletionTimeInNs;
+        public final long longestCompletionTimeInNs;
+        public final long floorsTravelled;
+
+        public Group(long key, long requests, long totalCompletionTimeInNs, long longestCompletionTimeInNs,
+                long floorsTravelled) {
+            this.key = key;
+            this.requests = requests;
+            this.totalCompletionTimeInNs = totalCompletionTimeInNs;
+            this.longestCompletionTimeInNs = longestCompletionTimeInNs;
+            this.floorsTravelled = floorsTravelled;
+        }
+
+        /**
+         * Returns the average completion time of the requests in the group.
+         *
+         * @return the average completion time in nanoseconds
+         */
+        public double getAverageCompletionTimeInNs() {
+            return (double) totalCompletionTimeInNs / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Group{" +
+                    "key=" + key +
+                    ", requests=" + requests +
+                    ", totalCompletionTimeInNs=" + totalCompletionTimeInNs +
+                    ", longestCompletionTimeInNs=" + longestCompletionTimeInNs +
+                    ", floorsTravelled=" + floorsTravelled +
+                    '}';
+        }
+    }
+
+    /**
+     * The partial result of a query over some of the blocks. Each kind of query
+     * has its own loop over the columns, so the loops stay simple for the JIT
+     * compiler.
+     */
+    private abstract static class Aggregate {
+        public abstract Aggregate newEmpty();
+
+        public abstract void scan(ByteBuffer block, int records, Filter filter);
+
+        public abstract void merge(Aggregate other);
+    }
+
+    /**
+     * The groups of a query by floor or by window of time, indexed from the
+     * lowest floor or from the start of the first window.
+     */
+    private static final class GroupAggregate extends Aggregate {
+        public final boolean byFloor;
+        public final long base;
+        public final long windowInNs;
+        public final double inverseWindow;
+        public final long[] requests;
+        public final long[] totalCompletionTimes;
+        public final long[] longestCompletionTimes;
+        public final long[] floorsTravelled;
+
+        public GroupAggregate(boolean byFloor, long base, long windowInNs, int groups) {
+            this.byFloor = byFloor;
+            this.base = base;
+            this.windowInNs = windowInNs;
+            inverseWindow = byFloor ? 0 : 1.0 / windowInNs;
+            requests = new long[groups];
+            totalCompletionTimes = new long[groups];
+            longestCompletionTimes = new long[groups];
+            floorsTravelled = new long[groups];
+        }
+
+        @Override
+        public Aggregate newEmpty() {
+            return new GroupAggregate(byFloor, base, windowInNs, requests.length);
+        }
+
+        @Override
+        public void scan(ByteBuffer block, int records, Filter filter) {
+            // Windows only start from the base, so nothing is created before it
+            long fromInNs = byFloor ? filter.fromInNs : Math.max(filter.fromInNs, base);
+            long toInNs = filter.toInNs;
+            int onlyFloor = filter.floor;
+            boolean hallCallsOnly = filter.hallCallsOnly;
+            for (int i = 0; i < records; i++) {
+                long createdInNs = block.getLong(RequestLog.CREATED_OFFSET + 8 * i);
+                if (createdInNs < fromInNs || createdInNs >= toInNs) {
+                    continue;
+                }
+                int floor = block.getInt(RequestLog.FLOOR_OFFSET + 4 * i);
+                if ((onlyFloor != ANY_FLOOR && floor != onlyFloor)
+                        || (hallCallsOnly && block.get(RequestLog.DIRECTION_OFFSET + i) == NONE_ORDINAL)) {
+                    continue;
+                }
+
+                int group;
+                if (byFloor) {
+                    group = (int) (floor - base);
+                } else {
+                    // Multiplying by the inverse is much faster than dividing, and
+                    // is only ever one window out, which is corrected
+                    long sinceBase = createdInNs - base;
+                    long window = (long) (sinceBase * inverseWindow);
+                    if (window * windowInNs > sinceBase) {
+                        window--;
+                    } else if ((window + 1) * windowInNs <= sinceBase) {
+                        window++;
+                    }
+                    if (window >= requests.length) {
+                        continue;
+                    }
+                    group = (int) window;
+                }
+                long completionTimeInNs = block.getLong(RequestLog.SERVED_OFFSET + 8 * i) - createdInNs;
+                requests[group]++;
+                totalCompletionTimes[group] += completionTimeInNs;
+                longestCompletionTimes[group] = Math.max(longestCompletionTimes[group], completionTimeInNs);
+                floorsTravelled[group] += block.getInt(RequestLog.FLOORS_TRAVELLED_OFFSET + 4 * i);
+            }
+        }
+
+        @Override
+        public void merge(Aggregate other) {
+            GroupAggregate groups = (GroupAggregate) other;
+            for (int group = 0; group < requests.length; group++) {
+                requests[group] += groups.requests[group];
+                totalCompletionTimes[group] += groups.totalCompletionTimes[group];
+                longestCompletionTimes[group] = Math.max(longestCompletionTimes[group],
+                        groups.longestCompletionTimes[group]);
+                floorsTravelled[group] += groups.floorsTravelled[group];
+            }
+        }
+
+        public List<Group> toGroups() {
+            List<Group> groups = new ArrayList<>();
+            for (int group = 0; group < requests.length; group++) {
+                if (requests[group] > 0) {
+                    long key = byFloor ? base + group : base + group * windowInNs;
+                    groups.add(new Group(key, requests[group], totalCompletionTimes[group],
+                            longestCompletionTimes[group], floorsTravelled[group]));
+                }
+            }
+            return Collections.unmodifiableList(groups);
+        }
+    }
+
+    private static final class HistogramAggregate extends Aggregate {
+        public final LatencyHistogram completionTimes = new LatencyHistogram();
+
+        @Override
+        public Aggregate newEmpty() {
+            return new HistogramAggregate();
+        }
+
+        @Override
+        public void scan(ByteBuffer block, int records, Filter filter) {
+            long fromInNs = filter.fromInNs;
+            long toInNs = filter.toInNs;
+            int onlyFloor = filter.floor;
+            boolean hallCallsOnly = filter.hallCallsOnly;
+            for (int i = 0; i < records; i++) {
+                long createdInNs = block.getLong(RequestLog.CREATED_OFFSET + 8 * i);
+                if (createdInNs < fromInNs || createdInNs >= toInNs
+                        || (onlyFloor != ANY_FLOOR && block.getInt(RequestLog.FLOOR_OFFSET + 4 * i) != onlyFloor)
+                        || (hallCallsOnly && block.get(RequestLog.DIRECTION_OFFSET + i) == NONE_ORDINAL)) {
+                    continue;
+                }
+                completionTimes.record(block.getLong(RequestLog.SERVED_OFFSET + 8 * i) - createdInNs);
+            }
+        }
+
+        @Override
+        public void merge(Aggregate other) {
+            completionTimes.add(((HistogramAggregate) other).completionTimes);
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] blocks;
+    private final long numberOfRecords;
+    private final int lowestFloor;
+    private final int highestFloor;
+    private final long latestCreatedInNs;
+    private final ForkJoinPool pool;
+
+    /**
+     * Class constructor specifying the request log to query and how many threads
+     * to scan it with. The records that are in the log when it is opened are
+     * queried, so a log that is still being written can be queried as well.
+     *
+     * @param file        the path of the request log
+     * @param parallelism how many threads to scan the log on, or 1 to scan it
+     *                    on the calling thread
+     * @throws IOException              if the file can not be read or is not a
+     *                                  request log
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    public RequestLogQuery(Path file, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive but was " + parallelism);
+        }
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < RequestLog.HEADER_SIZE) {
+                throw new IOException("'" + file + "' is too short to be a request log");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, RequestLog.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] magic = new byte[RequestLog.MAGIC.length];
+            header.get(magic);
+            int version = header.getShort();
+            int columns = header.getShort();
+            int recordsPerBlock = header.getInt();
+            if (!Arrays.equals(magic, RequestLog.MAGIC) || version != RequestLog.VERSION
+                    || columns != RequestLog.COLUMNS || recordsPerBlock != RequestLog.RECORDS_PER_BLOCK) {
+                throw new IOException("'" + file + "' is not a request log of version " + RequestLog.VERSION);
+            }
+            numberOfRecords = header.getLong(RequestLog.COUNT_OFFSET);
+            lowestFloor = header.getInt(RequestLog.LOWEST_FLOOR_OFFSET);
+            highestFloor = header.getInt(RequestLog.HIGHEST_FLOOR_OFFSET);
+            latestCreatedInNs = header.getLong(RequestLog.LATEST_CREATED_OFFSET);
+            if (numberOfRecords < 0 || (numberOfRecords > 0 && lowestFloor > highestFloor)) {
+                throw new IOException("The header of '" + file + "' is corrupt");
+            }
+
+            int numberOfBlocks = (int) ((numberOfRecords + RequestLog.RECORDS_PER_BLOCK - 1)
+                    / RequestLog.RECORDS_PER_BLOCK);
+            if (channel.size() < RequestLog.HEADER_SIZE + numberOfBlocks * RequestLog.BLOCK_SIZE) {
+                throw new IOException("'" + file + "' is shorter than its " + numberOfRecords + " records");
+            }
+            blocks = new MappedByteBuffer[numberOfBlocks];
+            for (int block = 0; block < numberOfBlocks; block++) {
+                blocks[block] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        RequestLog.HEADER_SIZE + block * RequestLog.BLOCK_SIZE, RequestLog.BLOCK_SIZE);
+                blocks[block].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Returns the number of records that are queried.
+     *
+     * @return the number of records
+     */
+    public long getNumberOfRecords() {
+        return numberOfRecords;
+    }
+
+    /**
+     * Returns the lowest floor of any record.
+     *
+     * @return the lowest floor, or Integer.MAX_VALUE if there are no records
+     */
+    public int getLowestFloor() {
+        return lowestFloor;
+    }
+
+    /**
+     * Returns the highest floor of any record.
+     *
+     * @return the highest floor, or Integer.MIN_VALUE if there are no records
+     */
+    public int getHighestFloor() {
+        return highestFloor;
+    }
+
+    /**
+     * Groups the matching requests by their floor.
+     *
+     * @param filter the requests to include
+     * @return a group for every floor with matching requests, keyed by the floor
+     *         and ordered from the lowest floor
+     * @throws IllegalArgumentException if the log spans too many floors
+     */
+    public List<Group> groupByFloor(Filter filter) {
+        if (numberOfRecords == 0) {
+            return Collections.emptyList();
+        }
+        long floors = (long) highestFloor - lowestFloor + 1;
+        if (floors > MAX_GROUPS) {
+            throw new IllegalArgumentException("The floors from " + lowestFloor + " to " + highestFloor + " would make "
+                    + floors + " groups, but at most " + MAX_GROUPS + " can be made");
+        }
+        GroupAggregate empty = new GroupAggregate(true, lowestFloor, 0, (int) floors);
+        return ((GroupAggregate) run(empty, filter)).toGroups();
+    }
+
+    /**
+     * Groups the matching requests by the window of time they were created in.
+     * The windows start at the start of the filter, or at the origin of the log
+     * if the filter has no start, and requests created before the origin are
+     * left out.
+     *
+     * @param windowInNs the length of each window in nanoseconds
+     * @param filter     the requests to include
+     * @return a group for every window with matching requests, keyed by the start
+     *         of the window and ordered from the earliest window
+     * @throws IllegalArgumentException if the window is not positive or there
+     *                                  would be too many windows
+     */
+    public List<Group> groupByTimeWindow(long windowInNs, Filter filter) {
+        if (windowInNs <= 0) {
+            throw new IllegalArgumentException("The window must be positive but was " + windowInNs + " ns");
+        }
+        long base = (filter.fromInNs == Long.MIN_VALUE) ? 0 : filter.fromInNs;
+        long end = Math.min(filter.toInNs, latestCreatedInNs + 1);
+        if (numberOfRecords == 0 || end <= base) {
+            return Collections.emptyList();
+        }
+        long windows = (end - base - 1) / windowInNs + 1;
+        if (windows > MAX_GROUPS) {
+            throw new IllegalArgumentException("A window of " + windowInNs + " ns would make " + windows
+                    + " windows, but at most " + MAX_GROUPS + " can be made");
+        }
+        GroupAggregate empty = new GroupAggregate(false, base, windowInNs, (int) windows);
+        return ((GroupAggregate) run(empty, filter)).toGroups();
+    }
+
+    /**
+     * Returns a histogram of the completion times of the matching requests, from
+     * which percentiles can be read.
+     *
+     * @param filter the requests to include
+     * @return the histogram of completion times, in nanoseconds
+     */
+    public LatencyHistogram getCompletionTimeHistogram(Filter filter) {
+        return ((HistogramAggregate) run(new HistogramAggregate(), filter)).completionTimes;
+    }
+
+    private Aggregate run(Aggregate empty, Filter filter) {
+        if (pool == null || blocks.length <= 1) {
+            return scanBlocks(empty, filter, 0, blocks.length);
+        }
+        return RangeTask.reduce(pool, blocks.length, block -> scanBlocks(empty, filter, block, block + 1),
+                (first, second) -> {
+                    first.merge(second);
+                    return first;
+                });
+    }
+
+    private Aggregate scanBlocks(Aggregate empty, Filter filter, int fromBlock, int toBlock) {
+        Aggregate aggregate = empty.newEmpty();
+        for (int block = fromBlock; block < toBlock; block++) {
+            long firstRecord = (long) block * RequestLog.RECORDS_PER_BLOCK;
+            int records = (int) Math.min(RequestLog.RECORDS_PER_BLOCK, numberOfRecords - firstRecord);
+            aggregate.scan(blocks[block], records, filter);
+        }
+        return aggregate;
+    }
+
+    /**
+     * Closes the log and stops the threads. The mapped blocks are released once
+     * they are no longer used.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing was written, so there is nothing to lose
+        }
+    }
+
+    /**
+     * Returns a table of groups. Times are output in seconds. The representation
+     * is subject to change, but the following may be regarded as typical:
+     *
+     * <pre>
+     * Floor      Requests  Average  Longest  Floors
+     * 3               412    6.214   19.500    2871
+     * </pre>
+     *
+     * @param keyName   the heading of the keys
+     * @param groups    the groups to output
+     * @param keyInTime whether the keys are times, which are output in seconds
+     * @return the table of the groups
+     */
+    public static String formatTable(String keyName, List<Group> groups, boolean keyInTime) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-10s %9s %8s %8s %8s%n", keyName, "Requests", "Average", "Longest",
+                "Floors"));
+        for (Group group : groups) {
+            String key = keyInTime ? String.format("%.3f", group.key * 1e-9) : String.valueOf(group.key);
+            builder.append(String.format("%-10s %9d %8.3f %8.3f %8d%n", key, group.requests,
+                    group.getAverageCompletionTimeInNs() * 1e-9, group.longestCompletionTimeInNs * 1e-9,
+                    group.floorsTravelled));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Runs a query from the command line and prints the results, along with the
+     * percentiles of the completion times of the matching requests.
+     *
+     * @param args "--log FILE" for the request log to query, "--group-by floor"
+     *             or "--group-by window" with "--window SECONDS" (default 300)
+     *             for how to group the requests, "--from SECONDS" and "--to
+     *             SECONDS" for when the requests were created, "--floor N" for
+     *             one floor, "--hall-calls" for hall calls only, and "--threads
+     *             N" for how many threads to scan with.
+     */
+    public static void main(String[] args) {
+        String logFile = null;
+        String groupBy = null;
+        long windowInNs = 300_000_000_000L;
+        long fromInNs = Long.MIN_VALUE;
+        long toInNs = Long.MAX_VALUE;
+        int floor = ANY_FLOOR;
+        boolean hallCallsOnly = false;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--log":
+                        logFile = Arguments.value(args, i);
+                        i++;
+                        break;
+                    case "--group-by":
+                        groupBy = Arguments.value(args, i);
+                        i++;
+                        break;
+                    case "--window":
+                        windowInNs = Math.round(Arguments.doubleValue(args, i) * 1e9);
+                        i++;
+                        break;
+                    case "--from":
+                        fromInNs = Math.round(Arguments.doubleValue(args, i) * 1e9);
+                        i++;
+                        break;
+                    case "--to":
+                        toInNs = Math.round(Arguments.doubleValue(args, i) * 1e9);
+                        i++;
+                        break;
+                    case "--floor":
+                        floor = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--hall-calls":
+                        hallCallsOnly = true;
+                        break;
+                    case "--threads":
+                        parallelism = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    default:
+                        System.out.println("Ignoring unknown argument '" + args[i] + "'.");
+                        break;
+                }
+            }
+            if (logFile == null) {
+                throw new IllegalArgumentException("--log is required");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n" + USAGE);
+            return;
+        }
+
+        try (RequestLogQuery query = new RequestLogQuery(Path.of(logFile), parallelism)) {
+            Filter filter = new Filter(fromInNs, toInNs, floor, hallCallsOnly);
+            long startTime = System.nanoTime();
+            String table = null;
+            if ("floor".equals(groupBy)) {
+                table = formatTable("Floor", query.groupByFloor(filter), false);
+            } else if ("window".equals(groupBy)) {
+                table = formatTable("Window", query.groupByTimeWindow(windowInNs, filter), true);
+            } else if (groupBy != null) {
+                System.out.println("Ignoring unknown grouping '" + groupBy + "'.");
+            }
+            LatencyHistogram completionTimes = query.getCompletionTimeHistogram(filter);
+            long elapsedTimeInMs = (System.nanoTime() - startTime) / 1_000_000;
+
+            if (table != null) {
+                System.out.println(table);
+            }
+            System.out.println(completionTimes.getCount() + " of " + query.getNumberOfRecords()
+                    + " requests match");
+            System.out.println("Completion Percentiles: " + StatsCollector.formatPercentiles(completionTimes));
+            System.out.println("(" + (elapsedTimeInMs * 0.001) + " seconds)");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Could not query '" + logFile + "': " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * SchedulerReplayer is a class for replaying a decision log written by a
+ * RecordingInternalScheduler into any InternalScheduler, and comparing the
+ * decisions the scheduler makes with the ones that were recorded.
+ * <p>
+ * The scheduler is given the recorded inputs in the recorded order: the floor
+ * changes of the elevator and the requests that were added, removed and
+ * cancelled. Every recorded getCurrentRequest and cancelRequest is repeated
+ * and its result compared, so replaying with the scheduler that made the
+ * recording finds no differences no matter how the threads were timed. The
+ * replay is open loop: after a scheduler has decided differently, it is still
+ * given the recorded inputs, which is what the elevator did with the recorded
+ * decisions. The first difference is therefore the most meaningful one.
+ * <p>
+ * The log is memory-mapped a window at a time and read without any parsing,
+ * and the requests are looked up by their id in an array, so the only
+ * allocations are the replayed requests themselves.
+ * <p>
+ * It can be run from the command line with the decision logs to replay and
+ * optionally the scheduler to replay them into:
+ * <p>
+ * "java com.elevatorsimulation.SchedulerReplayer decisions/elevator-1.elvs
+ * --scheduler INDEXED_LOOK_WITH_DIRECTION"
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class SchedulerReplayer {
+    private static final int DEFAULT_RECORDS_PER_WINDOW = 64 * 1024 * 1024 / RecordingInternalScheduler.RECORD_SIZE;
+    private static final int MAX_REPORTED_DIFFERENCES = 10;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final String USAGE = "Usage: SchedulerReplayer LOG... [--scheduler TYPE]";
+
+    /**
+     * The outcome of replaying a decision log.
+     */
+    public static final class Result {
+        public final int elevatorId;
+        public final long records;
+        public final long decisions;
+        public final long differences;
+        public final List<String> firstDifferences;
+
+        /**
+         * Class constructor specifying the outcome of a replay.
+         *
+         * @param elevatorId       the id of the elevator that was recorded
+         * @param records          the number of records replayed
+         * @param decisions        the number of decisions compared
+         * @param differences      the number of decisions that were different
+         * @param firstDifferences descriptions of the first differences
+         */
+        public Result(int elevatorId, long records, long decisions, long differences,
+                List<String> firstDifferences) {
+            this.elevatorId = elevatorId;
+            this.records = records;
+            this.decisions = decisions;
+            this.differences = differences;
+            this.firstDifferences = Collections.unmodifiableList(firstDifferences);
+        }
+
+        /**
+         * Returns a human readable string that represents the outcome of the
+         * replay. The representation is subject to change, but the following may
+         * be regarded as typical:
+         *
+         * "Elevator 1: replayed 1200 records, 310 of 310 decisions matched"
+         *
+         * @return a string representation of the object
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("Elevator ").append(elevatorId).append(": replayed ").append(records)
+                    .append(" records, ").append(decisions - differences).append(" of ").append(decisions)
+                    .append(" decisions matched");
+            for (String difference : firstDifferences) {
+                builder.append("\n  ").append(difference);
+            }
+            if (differences > firstDifferences.size()) {
+                builder.append("\n  ...");
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Replays a decision log into a new scheduler and compares its decisions with
+     * the recorded ones.
+     *
+     * @param logFile          the decision log to replay
+     * @param schedulerFactory creates the scheduler to replay into
+     * @return the outcome of the replay
+     * @throws IOException if the log can not be read or is not a decision log
+     */
+    public static Result replay(Path logFile, Function<Elevator, InternalScheduler> schedulerFactory)
+            throws IOException {
+        return replay(logFile, schedulerFactory, DEFAULT_RECORDS_PER_WINDOW);
+    }
+
+    static Result replay(Path logFile, Function<Elevator, InternalScheduler> schedulerFactory,
+            int recordsPerWindow) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(RecordingInternalScheduler.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is full or the file ends
+            }
+            header.flip();
+            if (header.remaining() < RecordingInternalScheduler.HEADER_SIZE) {
+                throw new IOException("File '" + logFile + "' is too short to be a decision log");
+            }
+            for (byte magicByte : RecordingInternalScheduler.MAGIC) {
+                if (header.get() != magicByte) {
+                    throw new IOException("File '" + logFile + "' is not a decision log");
+                }
+            }
+            int version = Short.toUnsignedInt(header.getShort());
+            int recordSize = Short.toUnsignedInt(header.getShort());
+            if (version != RecordingInternalScheduler.VERSION
+                    || recordSize != RecordingInternalScheduler.RECORD_SIZE) {
+                throw new IOException("Unsupported decision log version " + version + " with records of "
+                        + recordSize + " bytes in '" + logFile + "'");
+            }
+            int elevatorId = header.getInt();
+            int initialFloor = header.getInt();
+
+            InternalScheduler[] scheduler = new InternalScheduler[1];
+            Elevator elevator = new Elevator(elevatorId, initialFloor, new VirtualClock(), e -> {
+                scheduler[0] = schedulerFactory.apply(e);
+                return scheduler[0];
+            });
+
+            Replay replay = new Replay(elevator, scheduler[0]);
+            long numberOfRecords = (channel.size() - RecordingInternalScheduler.HEADER_SIZE)
+                    / RecordingInternalScheduler.RECORD_SIZE;
+            for (long first = 0; first < numberOfRecords; first += recordsPerWindow) {
+                int windowRecords = (int) Math.min(recordsPerWindow, numberOfRecords - first);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        RecordingInternalScheduler.HEADER_SIZE + first * RecordingInternalScheduler.RECORD_SIZE,
+                        (long) windowRecords * RecordingInternalScheduler.RECORD_SIZE);
+                for (int i = 0; i < windowRecords; i++) {
+                    replay.apply(window, i * RecordingInternalScheduler.RECORD_SIZE, first + i);
+                }
+            }
+            return new Result(elevatorId, numberOfRecords, replay.decisions, replay.differences,
+                    replay.firstDifferences);
+        }
+    }
+
+    /**
+     * Holds the state of a replay in progress.
+     */
+    private static final class Replay {
+        private final Elevator elevator;
+        private final InternalScheduler scheduler;
+        private Request[] requests;
+        private long decisions;
+        private long differences;
+        private final List<String> firstDifferences;
+
+        public Replay(Elevator elevator, InternalScheduler scheduler) {
+            this.elevator = elevator;
+            this.scheduler = scheduler;
+            requests = new Request[1024];
+            decisions = 0;
+            differences = 0;
+            firstDifferences = new ArrayList<>();
+        }
+
+        public void apply(ByteBuffer window, int position, long recordIndex) throws IOException {
+            byte operation = window.get(position);
+            int directionOrdinal = window.get(position + 1);
+            boolean result = window.get(position + 2) != 0;
+            int floor = window.getInt(position + 4);
+            long requestId = window.getLong(position + 8);
+            if (directionOrdinal < 0 || directionOrdinal >= DIRECTIONS.length || requestId < -1
+                    || requestId >= Integer.MAX_VALUE) {
+                throw new IOException("Record " + recordIndex + " of the decision log is corrupt");
+            }
+
+            switch (operation) {
+                case RecordingInternalScheduler.OP_FLOOR:
+                    elevator.setCurrentFloor(floor);
+                    break;
+                case RecordingInternalScheduler.OP_ADD:
+                    Request request = new Request(floor, DIRECTIONS[directionOrdinal], 0);
+                    if (requestId >= requests.length) {
+                        requests = Arrays.copyOf(requests, Math.max(requests.length * 2, (int) requestId + 1));
+                    }
+                    requests[(int) requestId] = request;
+                    scheduler.addRequest(request);
+                    break;
+                case RecordingInternalScheduler.OP_REMOVE:
+                    if (requestId >= 0) {
+                        scheduler.removeRequest(addedRequest(requestId, recordIndex));
+                        requests[(int) requestId] = null;
+                    }
+                    break;
+                case RecordingInternalScheduler.OP_CANCEL:
+                    if (requestId >= 0) {
+                        boolean removed = scheduler.cancelRequest(addedRequest(requestId, recordIndex));
+                        decisions++;
+                        if (removed != result) {
+                            addDifference("Record " + recordIndex + ": cancelling request " + requestId
+                                    + " returned " + removed + " but " + result + " was recorded");
+                        }
+                        if (removed) {
+                            requests[(int) requestId] = null;
+                        }
+                    }
+                    break;
+                case RecordingInternalScheduler.OP_CURRENT:
+                    Request expected = (requestId >= 0) ? addedRequest(requestId, recordIndex) : null;
+                    Request actual = scheduler.getCurrentRequest();
+                    decisions++;
+                    if (actual != expected) {
+                        addDifference("Record " + recordIndex + ": expected " + describe(expected, requestId)
+                                + " but got " + describe(actual, -1));
+                    }
+                    break;
+                default:
+                    throw new IOException("Record " + recordIndex
+                            + " of the decision log has the unknown operation " + operation);
+            }
+        }
+
+        /**
+         * Returns the request with the id, which a truncated or corrupt log may
+         * refer to without having added it, or after it was removed.
+         */
+        private Request addedRequest(long requestId, long recordIndex) throws IOException {
+            Request request = (requestId < requests.length) ? requests[(int) requestId] : null;
+            if (request == null) {
+                throw new IOException("Record " + recordIndex + " of the decision log refers to request " + requestId
+                        + ", which is not in the scheduler");
+            }
+            return request;
+        }
+
+        private void addDifference(String description) {
+            differences++;
+            if (firstDifferences.size() < MAX_REPORTED_DIFFERENCES) {
+                firstDifferences.add(description);
+            }
+        }
+
+        private static String describe(Request request, long requestId) {
+            if (request == null) {
+                return "no request";
+            }
+            return ((requestId >= 0) ? "request " + requestId + " " : "")
+                    + "(floor " + request.getFloorNumber() + " " + request.getDesiredDirection() + ")";
+        }
+    }
+
+    /**
+     * Replays decision logs from the command line and prints the outcome of each.
+     *
+     * @param args the decision logs to replay, and "--scheduler TYPE" to replay
+     *             them into a different SchedulerType than the default
+     *             LOOK_WITH_DIRECTION
+     */
+    public static void main(String[] args) {
+        SchedulerType schedulerType = SchedulerType.LOOK_WITH_DIRECTION;
+        List<Path> logFiles = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--scheduler")) {
+                    schedulerType = Arguments.enumValue(args, i++, SchedulerType.class);
+                } else {
+                    logFiles.add(Path.of(args[i]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n" + USAGE);
+            return;
+        }
+        if (logFiles.isEmpty()) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        for (Path logFile : logFiles) {
+            try {
+                long start = System.nanoTime();
+                Result result = replay(logFile, schedulerType::create);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.println(result);
+                System.out.println("  (" + Math.round(result.records / Math.max(seconds, 1e-9))
+                        + " records per second)");
+            } catch (IOException e) {
+                System.out.println("Could not replay '" + logFile + "': " + e.getMessage());
+            }
+        }
+    }
+}
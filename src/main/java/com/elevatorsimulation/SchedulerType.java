@@ -0,0 +1,39 @@
+package com.elevatorsimulation;
+
+/**
+ * The internal scheduling algorithms that an Elevator can be run with. Each
+ * type knows how to create its InternalScheduler for an elevator.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public enum SchedulerType {
+    /**
+     * The LOOK algorithm with a desired direction, using priority queues.
+     */
+    LOOK_WITH_DIRECTION {
+        @Override
+        public InternalScheduler create(Elevator elevator) {
+            return new LookWithDirectionInternalScheduler(elevator);
+        }
+    },
+
+    /**
+     * The LOOK algorithm with a desired direction, using requests indexed by
+     * floor.
+     */
+    INDEXED_LOOK_WITH_DIRECTION {
+        @Override
+        public InternalScheduler create(Elevator elevator) {
+            return new IndexedLookWithDirectionInternalScheduler(elevator);
+        }
+    };
+
+    /**
+     * Creates a new scheduler of this type for the elevator.
+     *
+     * @param elevator the elevator that will be scheduled
+     * @return a new scheduler for the elevator
+     */
+    public abstract InternalScheduler create(Elevator elevator);
+}
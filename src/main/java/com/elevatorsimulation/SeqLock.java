@@ -0,0 +1,83 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * SeqLock is a class for guarding fields that only one thread writes but any
+ * thread may read, without ever blocking the writer. The writer makes the
+ * sequence number odd while it updates the fields and even again afterwards,
+ * and a reader copies the fields and retries if the sequence number was odd or
+ * changed while copying. The writer updates the fields between beginWrite and
+ * endWrite, and a reader copies them between beginRead and validate, starting
+ * again until validate returns true.
+ * <p>
+ * It is used by the cells of a StatsRecorder and by ElevatorMetrics.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+final class SeqLock implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(SeqLock.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long sequence;
+
+    /**
+     * Starts an update by the writing thread. Only one thread may ever write.
+     *
+     * @return the sequence number to pass to endWrite
+     */
+    long beginWrite() {
+        long start = sequence;
+        SEQUENCE.setOpaque(this, start + 1);
+        VarHandle.storeStoreFence();
+        return start;
+    }
+
+    /**
+     * Finishes an update, publishing the updated fields to readers.
+     *
+     * @param start the sequence number returned by beginWrite
+     */
+    void endWrite(long start) {
+        SEQUENCE.setRelease(this, start + 2);
+    }
+
+    /**
+     * Waits until no update is in progress and returns the sequence number,
+     * after which the fields can be copied.
+     *
+     * @return the sequence number to pass to validate
+     */
+    long beginRead() {
+        while (true) {
+            long start = (long) SEQUENCE.getAcquire(this);
+            if ((start & 1) == 0) {
+                return start;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns whether the fields copied since beginRead are consistent, which
+     * is when no update has started in the meantime.
+     *
+     * @param start the sequence number returned by beginRead
+     * @return true if the copy can be used, or false if it must be retried
+     */
+    boolean validate(long start) {
+        VarHandle.loadLoadFence();
+        return (long) SEQUENCE.getOpaque(this) == start;
+    }
+}
@@ -0,0 +1,256 @@
+package com.elevatorsimulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.function.Function;
+
+/**
+ * ShadowSimulation is a class for comparing several schedulers on the same
+ * button presses in a single pass. Every scheduler gets its own lane: a bank of
+ * elevators with their own schedulers and their own StatsCollectors, and an
+ * external scheduler when there is more than one elevator. The button presses
+ * are read from the source only once, and each one is pressed in every lane at
+ * the same simulated time.
+ * <p>
+ * All of the lanes run in one DiscreteEventSimulation on a shared VirtualClock,
+ * so they advance in lock-step. The lanes do not share any other state, so the
+ * statistics of each lane are exactly the same as a discrete event run with
+ * only that scheduler would produce, but the trace is parsed once instead of
+ * once per scheduler.
+ * <p>
+ * A shadow simulation can only be run once.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class ShadowSimulation implements Runnable, ButtonPressHandler {
+    private static final int MIN_COLUMN_WIDTH = 12;
+
+    /**
+     * The elevators of one scheduler and the handler that its button presses go
+     * to.
+     */
+    public static final class Lane {
+        public final String name;
+        public final List<Elevator> elevators;
+        public final ButtonPressHandler buttonPressHandler;
+
+        public Lane(String name, List<Elevator> elevators, ButtonPressHandler buttonPressHandler) {
+            this.name = name;
+            this.elevators = Collections.unmodifiableList(elevators);
+            this.buttonPressHandler = buttonPressHandler;
+        }
+
+        /**
+         * Returns the statistics of all the elevators in the lane combined, taken
+         * from one snapshot of each elevator so they agree with each other.
+         *
+         * @return the combined statistics
+         */
+        public StatsRecorder.Snapshot getSnapshot() {
+            return StatsCollector.combine(elevators);
+        }
+    }
+
+    private final VirtualClock clock;
+    private final ButtonPressSource buttonPressSource;
+    private final ElevatorConfig elevatorConfig;
+    private final List<Lane> lanes;
+    private DiscreteEventSimulation simulation;
+
+    /**
+     * Class constructor specifying the button presses and the size of the bank
+     * of elevators in every lane.
+     *
+     * @param buttonPressSource the source of the button presses shared by all
+     *                          of the lanes
+     * @param numberOfElevators how many elevators each lane has
+     * @param initialFloor      the floor the elevators start on
+     */
+    public ShadowSimulation(ButtonPressSource buttonPressSource, int numberOfElevators, int initialFloor) {
+        this(buttonPressSource, new ElevatorConfig(numberOfElevators, initialFloor,
+                Elevator.DEFAULT_TIME_TO_TRAVEL_BETWEEN_FLOORS_IN_MS,
+                Elevator.DEFAULT_TIME_TO_WAIT_FOR_PASSENGERS_IN_MS, SchedulerType.LOOK_WITH_DIRECTION));
+    }
+
+    /**
+     * Class constructor specifying the button presses and the bank of elevators
+     * in every lane. The scheduler type of the configuration is not used, since
+     * each lane has its own.
+     *
+     * @param buttonPressSource the source of the button presses shared by all
+     *                          of the lanes
+     * @param elevatorConfig    the elevators of each lane
+     */
+    public ShadowSimulation(ButtonPressSource buttonPressSource, ElevatorConfig elevatorConfig) {
+        clock = new VirtualClock();
+        this.buttonPressSource = buttonPressSource;
+        this.elevatorConfig = elevatorConfig;
+        lanes = new ArrayList<>();
+    }
+
+    /**
+     * Adds a lane whose elevators use the schedulers created by the factory. The
+     * lanes must be added before the simulation is run.
+     *
+     * @param name             the name of the lane in the scorecard
+     * @param schedulerFactory creates the scheduler of each elevator in the lane
+     * @return the new lane
+     */
+    public Lane addLane(String name, Function<Elevator, InternalScheduler> schedulerFactory) {
+        if (simulation != null) {
+            throw new IllegalStateException("Lanes can not be added once the simulation has run");
+        }
+        List<Elevator> elevators = elevatorConfig.createElevators(clock, schedulerFactory);
+        ButtonPressHandler buttonPressHandler = (elevators.size() == 1) ? elevators.get(0)
+                : new NearestCarExternalScheduler(elevators);
+        Lane lane = new Lane(name, elevators, buttonPressHandler);
+        lanes.add(lane);
+        return lane;
+    }
+
+    /**
+     * Returns the lanes in the order they were added.
+     *
+     * @return the lanes
+     */
+    public List<Lane> getLanes() {
+        return Collections.unmodifiableList(lanes);
+    }
+
+    /**
+     * Returns the simulated time in milliseconds.
+     *
+     * @return the current simulated time in milliseconds
+     */
+    public long getSimulatedTimeInMs() {
+        return clock.currentTimeInMs();
+    }
+
+    /**
+     * Returns the number of events that have been processed so far, over all of
+     * the lanes.
+     *
+     * @return the number of processed events
+     */
+    public long getEventsProcessed() {
+        return (simulation != null) ? simulation.getEventsProcessed() : 0;
+    }
+
+    /**
+     * Presses the button in every lane.
+     *
+     * @param button the button that was pressed
+     */
+    @Override
+    public void pressElevatorButton(Button button) {
+        for (int i = 0; i < lanes.size(); i++) {
+            lanes.get(i).buttonPressHandler.pressElevatorButton(button);
+        }
+    }
+
+    /**
+     * Runs every lane until all button presses have been executed and all
+     * requests have been processed by the elevators of every lane.
+     */
+    @Override
+    public void run() {
+        if (simulation != null) {
+            throw new IllegalStateException("A shadow simulation can only be run once");
+        }
+        List<Elevator> elevators = new ArrayList<>();
+        for (Lane lane : lanes) {
+            elevators.addAll(lane.elevators);
+        }
+        simulation = new DiscreteEventSimulation(clock, new ButtonPresser(this, buttonPressSource),
+                elevators.toArray(new Elevator[0]));
+        simulation.run();
+    }
+
+    /**
+     * Returns a table with a column of statistics for each lane, so the lanes can
+     * be compared side by side. Times are output in seconds. The representation
+     * is subject to change, but the following may be regarded as typical:
+     *
+     * <pre>
+     *                            LOOK_WITH_DIRECTION  INDEXED_LOOK_WITH_DIRECTION
+     * Total Requests Completed                     9                            9
+     * Fastest Completion Time                  0.500                        0.500
+     * Slowest Completion Time                 13.500                       13.500
+     * Average Completion Time                  6.167                        6.167
+     * Completion p50                           6.442                        6.442
+     * ...
+     * </pre>
+     *
+     * @return the scorecard of the lanes
+     */
+    public String getScorecard() {
+        int numberOfLanes = lanes.size();
+        LongSummaryStatistics[] statistics = new LongSummaryStatistics[numberOfLanes];
+        LatencyHistogram[] completionTimes = new LatencyHistogram[numberOfLanes];
+        LatencyHistogram[] waitTimes = new LatencyHistogram[numberOfLanes];
+        String[] names = new String[numberOfLanes];
+        for (int i = 0; i < numberOfLanes; i++) {
+            Lane lane = lanes.get(i);
+            names[i] = lane.name;
+            StatsRecorder.Snapshot snapshot = lane.getSnapshot();
+            statistics[i] = snapshot.summaryStatistics;
+            completionTimes[i] = snapshot.completionTimes;
+            waitTimes[i] = snapshot.waitTimes;
+        }
+
+        String[][] rows = new String[12][numberOfLanes];
+        String[] labels = { "Total Requests Completed", "Fastest Completion Time", "Slowest Completion Time",
+                "Average Completion Time", "Completion p50", "Completion p90", "Completion p99",
+                "Completion p99.9", "Wait Time p50", "Wait Time p90", "Wait Time p99", "Wait Time p99.9" };
+        for (int i = 0; i < numberOfLanes; i++) {
+            boolean completed = statistics[i].getCount() > 0;
+            rows[0][i] = String.valueOf(statistics[i].getCount());
+            rows[1][i] = completed ? formatSeconds(statistics[i].getMin() * 1_000_000) : "N/A";
+            rows[2][i] = completed ? formatSeconds(statistics[i].getMax() * 1_000_000) : "N/A";
+            rows[3][i] = completed ? formatSeconds(Math.round(statistics[i].getAverage() * 1_000_000)) : "N/A";
+            rows[4][i] = formatPercentile(completionTimes[i], 50);
+            rows[5][i] = formatPercentile(completionTimes[i], 90);
+            rows[6][i] = formatPercentile(completionTimes[i], 99);
+            rows[7][i] = formatPercentile(completionTimes[i], 99.9);
+            rows[8][i] = formatPercentile(waitTimes[i], 50);
+            rows[9][i] = formatPercentile(waitTimes[i], 90);
+            rows[10][i] = formatPercentile(waitTimes[i], 99);
+            rows[11][i] = formatPercentile(waitTimes[i], 99.9);
+        }
+
+        int labelWidth = 0;
+        for (String label : labels) {
+            labelWidth = Math.max(labelWidth, label.length());
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-" + labelWidth + "s", ""));
+        int[] widths = new int[numberOfLanes];
+        for (int i = 0; i < numberOfLanes; i++) {
+            widths[i] = Math.max(MIN_COLUMN_WIDTH, names[i].length()) + 2;
+            builder.append(String.format("%" + widths[i] + "s", names[i]));
+        }
+        builder.append('\n');
+        for (int row = 0; row < labels.length; row++) {
+            builder.append(String.format("%-" + labelWidth + "s", labels[row]));
+            for (int i = 0; i < numberOfLanes; i++) {
+                builder.append(String.format("%" + widths[i] + "s", rows[row][i]));
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String formatPercentile(LatencyHistogram histogram, double percentile) {
+        if (histogram.getCount() == 0) {
+            return "N/A";
+        }
+        return formatSeconds(histogram.getValueAtPercentile(percentile));
+    }
+
+    private static String formatSeconds(long timeInNs) {
+        return String.format("%.3f", timeInNs / 1e9);
+    }
+}
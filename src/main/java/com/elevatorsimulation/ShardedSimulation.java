@@ -0,0 +1,523 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ShardedSimulation is a class for simulating a campus or a building with many
+ * banks of elevators on all cores. Every bank is a shard with its own
+ * DiscreteEventSimulation, elevators and button presses, so the shards can
+ * advance on different threads.
+ * <p>
+ * Shards can be linked by Transfers, such as the sky lobby of a tall building
+ * where passengers leave one bank and walk over to another. Every time an
+ * elevator of the first shard stops at the transfer floor for a car call, a
+ * group of passengers walks to the other bank and presses a destination
+ * button there once the walk is over. The walk time is the lookahead that
+ * makes conservative synchronization possible: the shards all advance through
+ * the same window of simulated time, which is never longer than the shortest
+ * walk time, so passengers that leave a shard during one window always arrive
+ * in a later window. Between windows, once every shard has reached the end of
+ * the window, the passengers are handed to their shards in the order of their
+ * arrival time, then of the shard they left and then of when they left it.
+ * Without any transfers the shards never have to wait for each other, and the
+ * whole simulation is one window.
+ * <p>
+ * Passengers who arrive by a transfer ride to its destination floor, and if
+ * another transfer leaves from that floor of that shard they carry on through
+ * it. The transfers can therefore not form a cycle, or the same passengers
+ * would keep going round it and the simulation would never finish.
+ * <p>
+ * The order of the events within a shard, and the order that transfers are
+ * handed over in, does not depend on the threads, so the results are
+ * identical to a sequential run of the same shards (with a parallelism of 1),
+ * and shards without transfers come out the same as running their
+ * simulations on their own. The shards of a window are spread over a
+ * ForkJoinPool by a RangeTask, like the runs of a MonteCarloBatchRunner, so as
+ * long as there are at least as many similarly busy shards as threads, the wall
+ * clock time falls nearly linearly with the number of threads.
+ * <p>
+ * It can be run from the command line with the banks configured by a
+ * SimulationConfig, where bank i uses the seed of the configuration plus i:
+ * <p>
+ * "java com.elevatorsimulation.ShardedSimulation --config building.properties
+ * --shards 8 --threads 4 --transfer 20,20,35,30000"
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class ShardedSimulation {
+
+    /**
+     * One bank of elevators, with its simulation and the handler that the
+     * buttons of passengers arriving from other shards are pressed on.
+     */
+    public static final class Shard {
+        public final String name;
+        public final DiscreteEventSimulation simulation;
+        public final ButtonPressHandler buttonPressHandler;
+        private final List<Arrival> departures;
+
+        /**
+         * Class constructor specifying the name of the shard, its simulation and
+         * the handler for its hall calls.
+         *
+         * @param name               the name of the shard
+         * @param simulation         the simulation of the bank
+         * @param buttonPressHandler the handler that passengers arriving from
+         *                           other shards press their buttons on
+         */
+        public Shard(String name, DiscreteEventSimulation simulation, ButtonPressHandler buttonPressHandler) {
+            this.name = name;
+            this.simulation = simulation;
+            this.buttonPressHandler = buttonPressHandler;
+            departures = new ArrayList<>();
+        }
+    }
+
+    /**
+     * A link between two shards where passengers change from one bank to the
+     * other.
+     */
+    public static final class Transfer {
+        public final int fromShard;
+        public final int fromFloor;
+        public final int toShard;
+        public final int toFloor;
+        public final int destinationFloor;
+        public final long walkTimeInMs;
+
+        /**
+         * Class constructor specifying where the passengers leave the first bank,
+         * where they board the second bank and where they are going, and how long
+         * they take to walk between the banks.
+         *
+         * @param fromShard        the index of the shard the passengers leave
+         * @param fromFloor        the floor they leave it on
+         * @param toShard          the index of the shard they go to
+         * @param toFloor          the floor they board it on
+         * @param destinationFloor the floor they are going to in that shard
+         * @param walkTimeInMs     the time to walk between the banks
+         * @throws IllegalArgumentException if the walk time is not positive or the
+         *                                  destination is the boarding floor
+         */
+        public Transfer(int fromShard, int fromFloor, int toShard, int toFloor, int destinationFloor,
+                long walkTimeInMs) {
+            if (walkTimeInMs <= 0) {
+                throw new IllegalArgumentException("The walk time must be positive but was " + walkTimeInMs);
+            }
+            if (destinationFloor == toFloor) {
+                throw new IllegalArgumentException("The destination of a transfer can not be the floor "
+                        + toFloor + " it boards on");
+            }
+            this.fromShard = fromShard;
+            this.fromFloor = fromFloor;
+            this.toShard = toShard;
+            this.toFloor = toFloor;
+            this.destinationFloor = destinationFloor;
+            this.walkTimeInMs = walkTimeInMs;
+        }
+
+        @Override
+        public String toString() {
+            return "Transfer{" +
+                    "fromShard=" + fromShard +
+                    ", fromFloor=" + fromFloor +
+                    ", toShard=" + toShard +
+                    ", toFloor=" + toFloor +
+                    ", destinationFloor=" + destinationFloor +
+                    ", walkTimeInMs=" + walkTimeInMs +
+                    '}';
+        }
+    }
+
+    /**
+     * A group of passengers who will arrive at another shard.
+     */
+    private static final class Arrival {
+        public final long timeInMs;
+        public final int toShard;
+        public final Button button;
+
+        public Arrival(long timeInMs, int toShard, Button button) {
+            this.timeInMs = timeInMs;
+            this.toShard = toShard;
+            this.button = button;
+        }
+    }
+
+    /**
+     * Sends passengers to another shard when an elevator of its shard stops at
+     * the transfer floor for a car call. It only runs on the thread of its
+     * shard, and the departures are only read between windows.
+     */
+    private static final class TransferListener implements ElevatorListener {
+        private final Transfer transfer;
+        private final Shard shard;
+        private final Button button;
+
+        public TransferListener(Transfer transfer, Shard shard) {
+            this.transfer = transfer;
+            this.shard = shard;
+            button = Button.destination(transfer.toFloor, transfer.destinationFloor);
+        }
+
+        @Override
+        public void onFloorChanged(Elevator elevator, int floor) {
+        }
+
+        @Override
+        public void onRequestCompleted(Elevator elevator, Request request) {
+            if (request.getDesiredDirection() == Direction.NONE && request.getFloorNumber() == transfer.fromFloor) {
+                long nowInMs = elevator.getClock().nanoTime() / 1_000_000;
+                shard.departures.add(new Arrival(nowInMs + transfer.walkTimeInMs, transfer.toShard, button));
+            }
+        }
+
+        @Override
+        public void onIdle(Elevator elevator) {
+        }
+    }
+
+    private static final String USAGE = "Usage: ShardedSimulation [--config FILE] [--shards N] [--threads N] "
+            + "[--transfer FROM,TO,DESTINATION,WALK_MS]";
+
+    private final List<Shard> shards;
+    private final List<Transfer> transfers;
+    private final int parallelism;
+    private final long lookaheadInMs;
+    private long windows;
+    private long transfersDelivered;
+
+    /**
+     * Class constructor specifying the shards, the transfers between them and
+     * how many threads to use. The transfers register listeners on the
+     * elevators of the shards they leave from.
+     *
+     * @param shards      the shards to simulate
+     * @param transfers   the links between the shards
+     * @param parallelism how many threads to run the shards on, or 1 to run
+     *                    them one after another on the calling thread
+     * @throws IllegalArgumentException if there are no shards, the parallelism is
+     *                                  not positive, a transfer links a shard
+     *                                  that does not exist, or the transfers form
+     *                                  a cycle
+     */
+    public ShardedSimulation(List<Shard> shards, List<Transfer> transfers, int parallelism) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least one shard");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive but was " + parallelism);
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.transfers = Collections.unmodifiableList(new ArrayList<>(transfers));
+        this.parallelism = parallelism;
+
+        for (Transfer transfer : transfers) {
+            if (transfer.fromShard < 0 || transfer.fromShard >= shards.size()
+                    || transfer.toShard < 0 || transfer.toShard >= shards.size()) {
+                throw new IllegalArgumentException("There is no shard for " + transfer);
+            }
+        }
+        int[] states = new int[transfers.size()];
+        for (int i = 0; i < transfers.size(); i++) {
+            if (leadsToCycle(transfers, i, states)) {
+                throw new IllegalArgumentException("Passengers would keep transferring in a cycle through "
+                        + transfers.get(i));
+            }
+        }
+
+        long lookahead = Long.MAX_VALUE;
+        for (Transfer transfer : transfers) {
+            Shard shard = shards.get(transfer.fromShard);
+            TransferListener listener = new TransferListener(transfer, shard);
+            for (Elevator elevator : shard.simulation.getElevators()) {
+                elevator.addElevatorListener(listener);
+            }
+            lookahead = Math.min(lookahead, transfer.walkTimeInMs);
+        }
+        lookaheadInMs = lookahead;
+        windows = 0;
+        transfersDelivered = 0;
+    }
+
+    /**
+     * Returns whether the passengers of a transfer can come back to it by taking
+     * the transfers that leave from where it takes them. The states are 0 for a
+     * transfer that has not been visited, 1 while its onward transfers are
+     * being followed and 2 once they are known not to lead to a cycle.
+     */
+    private static boolean leadsToCycle(List<Transfer> transfers, int index, int[] states) {
+        if (states[index] != 0) {
+            return states[index] == 1;
+        }
+        states[index] = 1;
+        Transfer transfer = transfers.get(index);
+        for (int next = 0; next < transfers.size(); next++) {
+            Transfer onward = transfers.get(next);
+            if (onward.fromShard == transfer.toShard && onward.fromFloor == transfer.destinationFloor
+                    && leadsToCycle(transfers, next, states)) {
+                return true;
+            }
+        }
+        states[index] = 2;
+        return false;
+    }
+
+    /**
+     * Creates a shard for a bank of elevators with the elevators, the handler
+     * for the hall calls and the button presses of a configuration.
+     *
+     * @param name   the name of the shard
+     * @param config the configuration of the bank
+     * @return a new shard
+     */
+    public static Shard createShard(String name, SimulationConfig config) {
+        VirtualClock clock = new VirtualClock();
+        List<Elevator> elevators = config.elevatorConfig.createElevators(clock);
+        ButtonPressHandler buttonPressHandler = config.createButtonPressHandler(elevators);
+        ButtonPresser buttonPresser = config.createButtonPresser(elevators, buttonPressHandler);
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(clock, buttonPresser,
+                elevators.toArray(new Elevator[0]));
+        return new Shard(name, simulation, buttonPressHandler);
+    }
+
+    /**
+     * Returns the shards that are simulated.
+     *
+     * @return the shards, in the order they were given
+     */
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the longest window of simulated time that the shards advance
+     * through without waiting for each other, which is the shortest walk time
+     * of the transfers.
+     *
+     * @return the lookahead in milliseconds, or Long.MAX_VALUE if there are no
+     *         transfers
+     */
+    public long getLookaheadInMs() {
+        return lookaheadInMs;
+    }
+
+    /**
+     * Returns how many windows the shards have advanced through.
+     *
+     * @return the number of windows
+     */
+    public long getWindows() {
+        return windows;
+    }
+
+    /**
+     * Returns how many groups of passengers have been handed from one shard to
+     * another.
+     *
+     * @return the number of transfers delivered
+     */
+    public long getTransfersDelivered() {
+        return transfersDelivered;
+    }
+
+    /**
+     * Returns the total number of events processed by the simulations of all the
+     * shards.
+     *
+     * @return the number of processed events
+     */
+    public long getEventsProcessed() {
+        long eventsProcessed = 0;
+        for (Shard shard : shards) {
+            eventsProcessed += shard.simulation.getEventsProcessed();
+        }
+        return eventsProcessed;
+    }
+
+    /**
+     * Runs every shard until all of them have finished and no passengers are
+     * still walking between them. Windows in which nothing happens are skipped.
+     */
+    public void run() {
+        ForkJoinPool pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+        try {
+            long windowStartInMs = 0;
+            boolean started = false;
+            while (true) {
+                long nextEventTimeInMs = Long.MAX_VALUE;
+                for (Shard shard : shards) {
+                    nextEventTimeInMs = Math.min(nextEventTimeInMs, shard.simulation.getNextEventTimeInMs());
+                }
+                if (started && nextEventTimeInMs == Long.MAX_VALUE) {
+                    return;
+                }
+                if (started) {
+                    windowStartInMs = Math.max(windowStartInMs, nextEventTimeInMs);
+                }
+                long windowEndInMs = (windowStartInMs > Long.MAX_VALUE - lookaheadInMs) ? Long.MAX_VALUE
+                        : windowStartInMs + lookaheadInMs - 1;
+
+                RangeTask.forEach(pool, shards.size(), shard -> advance(shards.get(shard), windowEndInMs));
+                windows++;
+                started = true;
+                deliverTransfers();
+
+                if (windowEndInMs == Long.MAX_VALUE) {
+                    return;
+                }
+                windowStartInMs = windowEndInMs + 1;
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void advance(Shard shard, long windowEndInMs) {
+        DiscreteEventSimulation simulation = shard.simulation;
+        // A shard that has not started yet has no events, but still has to start
+        if (simulation.getNextEventTimeInMs() <= windowEndInMs || !simulation.isFinished()) {
+            simulation.runUntil(windowEndInMs);
+        }
+    }
+
+    private void deliverTransfers() {
+        List<Arrival> arrivals = new ArrayList<>();
+        for (Shard shard : shards) {
+            arrivals.addAll(shard.departures);
+            shard.departures.clear();
+        }
+        // The sort is stable, so arrivals at the same time stay in the order of
+        // the shard they left and then of when they left it
+        arrivals.sort((first, second) -> Long.compare(first.timeInMs, second.timeInMs));
+        for (Arrival arrival : arrivals) {
+            Shard shard = shards.get(arrival.toShard);
+            shard.simulation.scheduleButtonPress(arrival.timeInMs, shard.buttonPressHandler, arrival.button);
+            transfersDelivered++;
+        }
+    }
+
+    /**
+     * Returns a table with a row for the elevators of every shard. Times are
+     * output in seconds. The representation is subject to change, but the
+     * following may be regarded as typical:
+     *
+     * <pre>
+     * Shard        Cars  Requests  Average  Slowest  Simulated
+     * bank-0          4      3515    4.503   21.000   4912.300
+     * </pre>
+     *
+     * @return the table of the shards
+     */
+    public String formatTable() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-12s %4s %9s %8s %8s %10s%n", "Shard", "Cars", "Requests", "Average",
+                "Slowest", "Simulated"));
+        for (Shard shard : shards) {
+            LongSummaryStatistics statistics = StatsCollector.combine(shard.simulation.getElevators())
+                    .summaryStatistics;
+            builder.append(String.format("%-12s %4d %9d %8s %8s %10.3f%n", shard.name,
+                    shard.simulation.getElevators().size(), statistics.getCount(),
+                    (statistics.getCount() > 0) ? String.format("%.3f", statistics.getAverage() * 0.001) : "N/A",
+                    (statistics.getCount() > 0) ? String.format("%.3f", statistics.getMax() * 0.001) : "N/A",
+                    shard.simulation.getSimulatedTimeInMs() * 0.001));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Runs a sharded simulation from the command line and prints the table of
+     * the shards.
+     *
+     * @param args "--config FILE" for the banks, "--shards N" for the number of
+     *             banks, "--threads N" for how many threads to use, and
+     *             "--transfer FROM,TO,DESTINATION,WALK_MS" to link every bank to
+     *             the next one, with passengers leaving each bank on floor FROM
+     *             and boarding the next bank on floor TO to go to floor
+     *             DESTINATION after walking for WALK_MS milliseconds.
+     */
+    public static void main(String[] args) {
+        SimulationConfig config = SimulationConfig.DEFAULT;
+        int numberOfShards = Runtime.getRuntime().availableProcessors();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        List<Integer> transfer = null;
+        ShardedSimulation simulation;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--config":
+                        String file = Arguments.value(args, i);
+                        try {
+                            config = SimulationConfig.load(Path.of(file));
+                        } catch (IOException | IllegalArgumentException e) {
+                            System.out.println("Could not load the configuration '" + file + "': " + e.getMessage());
+                            return;
+                        }
+                        i++;
+                        break;
+                    case "--shards":
+                        numberOfShards = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--threads":
+                        parallelism = Arguments.intValue(args, i);
+                        i++;
+                        break;
+                    case "--transfer":
+                        transfer = Arguments.intListValue(args, i);
+                        if (transfer.size() != 4) {
+                            throw new IllegalArgumentException("--transfer needs FROM,TO,DESTINATION,WALK_MS");
+                        }
+                        i++;
+                        break;
+                    default:
+                        System.out.println("Ignoring unknown argument '" + args[i] + "'.");
+                        break;
+                }
+            }
+            if (numberOfShards < 1 || parallelism < 1) {
+                throw new IllegalArgumentException("--shards and --threads must be positive");
+            }
+
+            List<Shard> shards = new ArrayList<>();
+            for (int i = 0; i < numberOfShards; i++) {
+                SimulationConfig shardConfig = new SimulationConfig(config.elevatorConfig, config.dispatchMode,
+                        config.building, config.trafficPattern, config.arrivalRatePercent,
+                        config.numberOfPassengers, config.seed + i, config.traceFile);
+                shards.add(createShard("bank-" + i, shardConfig));
+            }
+            List<Transfer> transfers = new ArrayList<>();
+            if (transfer != null && numberOfShards > 1) {
+                for (int i = 0; i < numberOfShards; i++) {
+                    transfers.add(new Transfer(i, transfer.get(0), (i + 1) % numberOfShards, transfer.get(1),
+                            transfer.get(2), transfer.get(3)));
+                }
+            }
+            simulation = new ShardedSimulation(shards, transfers, parallelism);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n" + USAGE);
+            return;
+        }
+        System.out.println("Running " + numberOfShards + " shards on " + parallelism + " threads...\n");
+
+        long startTime = System.nanoTime();
+        simulation.run();
+        long elapsedTimeInMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        AsciiArt.printScorecard();
+        System.out.print(simulation.formatTable());
+        System.out.println("\n" + simulation.getEventsProcessed() + " events in " + simulation.getWindows()
+                + " windows, " + simulation.getTransfersDelivered() + " transfers (" + (elapsedTimeInMs * 0.001)
+                + " seconds)");
+    }
+}
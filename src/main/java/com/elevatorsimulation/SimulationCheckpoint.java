@@ -0,0 +1,220 @@
+package com.elevatorsimulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * SimulationCheckpoint is a class that holds a copy of the whole state of a
+ * DiscreteEventSimulation: the clock, the pending events, the elevators with
+ * their schedulers, pressed buttons, doors and statistics, the external
+ * scheduler, and the position in the trace or the state of the traffic
+ * generator. A checkpoint can be restored any number of times, and every
+ * restored simulation carries on exactly as the original would have, so many
+ * what-if branches can be forked from one warmed up building.
+ * <p>
+ * The state is captured by serializing the simulation into memory, which is
+ * the only part that has to happen on the simulation thread. Compressing the
+ * copy and writing it to a file can then be done on another thread, such as by
+ * a CheckpointWriter, while the simulation carries on.
+ * <p>
+ * A checkpoint file starts with a 24 byte header:
+ * <ul>
+ * <li>the magic bytes "ELVC"</li>
+ * <li>the format version as an unsigned 16 bit integer (currently 2, which added
+ * the destinations of buttons and requests)</li>
+ * <li>two bytes that are always zero</li>
+ * <li>the simulated time in milliseconds as a 64 bit integer</li>
+ * <li>the number of processed events as a 64 bit integer</li>
+ * </ul>
+ * The header is followed by the serialized simulation, compressed with gzip.
+ * All values are big-endian. Files are written to a temporary file first and
+ * then moved into place, so a crash while writing never leaves a damaged
+ * checkpoint behind.
+ * <p>
+ * Trace files are not copied into the checkpoint, only the position in them,
+ * so they must still be there, unchanged, when a checkpoint is restored. The
+ * event sinks of the elevators and the external scheduler are not saved
+ * either. A simulation with a RecordingInternalScheduler can not be captured.
+ * <p>
+ * Restoring only accepts the classes of the simulation and the JDK collections,
+ * locks and boxed values they are made of, and limits how deep the object graph
+ * and how long its arrays can be, so a damaged or hostile checkpoint file can
+ * not deserialize anything else.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public final class SimulationCheckpoint {
+    static final byte[] MAGIC = { 'E', 'L', 'V', 'C' };
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 24;
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter("maxdepth=64;"
+            + "maxarray=1048576;com.elevatorsimulation.*;java.util.*;java.util.concurrent.*;"
+            + "java.util.concurrent.atomic.*;java.util.concurrent.locks.*;java.lang.Object;java.lang.Enum;"
+            + "java.lang.Number;java.lang.Boolean;java.lang.Integer;java.lang.Long;java.lang.String;!*");
+
+    private final byte[] state;
+    private final long simulatedTimeInMs;
+    private final long eventsProcessed;
+
+    private SimulationCheckpoint(byte[] state, long simulatedTimeInMs, long eventsProcessed) {
+        this.state = state;
+        this.simulatedTimeInMs = simulatedTimeInMs;
+        this.eventsProcessed = eventsProcessed;
+    }
+
+    /**
+     * Captures the state of a simulation. This must be called on the thread that
+     * runs the simulation, between events, or while it is not running.
+     *
+     * @param simulation the simulation to capture
+     * @return a checkpoint holding a copy of the simulation
+     * @throws IOException if part of the simulation can not be serialized
+     */
+    public static SimulationCheckpoint capture(DiscreteEventSimulation simulation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(simulation);
+        }
+        return new SimulationCheckpoint(bytes.toByteArray(), simulation.getSimulatedTimeInMs(),
+                simulation.getEventsProcessed());
+    }
+
+    /**
+     * Loads a checkpoint from a file written by writeTo.
+     *
+     * @param file the checkpoint file
+     * @return the checkpoint in the file
+     * @throws IOException if the file can not be read or is not a checkpoint
+     */
+    public static SimulationCheckpoint load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("File '" + file + "' is not a simulation checkpoint");
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + " in '" + file + "'");
+            }
+            in.readUnsignedShort();
+            long simulatedTimeInMs = in.readLong();
+            long eventsProcessed = in.readLong();
+
+            try (InputStream gzip = new GZIPInputStream(in)) {
+                return new SimulationCheckpoint(gzip.readAllBytes(), simulatedTimeInMs, eventsProcessed);
+            }
+        }
+    }
+
+    /**
+     * Returns the simulated time at which the checkpoint was taken.
+     *
+     * @return the simulated time in milliseconds
+     */
+    public long getSimulatedTimeInMs() {
+        return simulatedTimeInMs;
+    }
+
+    /**
+     * Returns the number of events the simulation had processed when the
+     * checkpoint was taken.
+     *
+     * @return the number of processed events
+     */
+    public long getEventsProcessed() {
+        return eventsProcessed;
+    }
+
+    /**
+     * Returns the size of the captured state before it is compressed.
+     *
+     * @return the size of the state in bytes
+     */
+    public int getSizeInBytes() {
+        return state.length;
+    }
+
+    /**
+     * Creates a new simulation from the checkpoint. Each call returns a separate
+     * simulation that shares nothing with the others, apart from reading the
+     * same trace file.
+     *
+     * @return the restored simulation, ready to carry on running
+     * @throws IOException if the state can not be restored
+     */
+    public DiscreteEventSimulation restore() throws IOException {
+        return restore(state);
+    }
+
+    /**
+     * Writes the checkpoint to a file, replacing any checkpoint already there.
+     * The checkpoint is written to a temporary file next to it first and then
+     * moved into place.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file can not be written
+     */
+    public void writeTo(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temporaryFile))) {
+                out.write(MAGIC);
+                out.writeShort(VERSION);
+                out.writeShort(0);
+                out.writeLong(simulatedTimeInMs);
+                out.writeLong(eventsProcessed);
+                try (OutputStream gzip = new GZIPOutputStream(out, 64 * 1024)) {
+                    gzip.write(state);
+                }
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static DiscreteEventSimulation restore(byte[] state) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            in.setObjectInputFilter(FILTER);
+            return (DiscreteEventSimulation) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("The checkpoint does not hold a simulation: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a human readable string that represents the informative contents of
+     * this checkpoint. The representation is subject to change, but the
+     * following may be regarded as typical:
+     *
+     * "SimulationCheckpoint{simulatedTimeInMs=3600000, eventsProcessed=18514,
+     * sizeInBytes=182344}"
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "SimulationCheckpoint{" +
+                "simulatedTimeInMs=" + simulatedTimeInMs +
+                ", eventsProcessed=" + eventsProcessed +
+                ", sizeInBytes=" + state.length +
+                '}';
+    }
+}
@@ -0,0 +1,22 @@
+package com.elevatorsimulation;
+
+/**
+ * SimulationClock is an interface used to tell the time in a simulation. The
+ * time could be taken from the wall clock when the simulation runs in real
+ * time, or from a virtual clock that is advanced by a discrete event
+ * simulation. Requests are timestamped with this clock and statistics are
+ * calculated with it, so the same statistics come out in either mode.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public interface SimulationClock {
+    /**
+     * Returns the current time of the simulation in nanoseconds. The time is
+     * only meaningful relative to other times from the same clock, like
+     * System.nanoTime, so it is never affected by the wall clock being adjusted.
+     *
+     * @return the current time of the simulation in nanoseconds
+     */
+    public long nanoTime();
+}
@@ -0,0 +1,307 @@
+package com.elevatorsimulation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.*;
+
+/**
+ * SimulationConfig is a class that holds everything that describes a
+ * simulation: the bank of elevators, the building, and where the button presses
+ * come from, which is either a trace file or a TrafficGenerator. It is
+ * immutable.
+ * <p>
+ * A configuration can be loaded from a properties file. Every key is optional
+ * and defaults to the value in DEFAULT:
+ * <ul>
+ * <li>elevator.count - the number of elevators (1)</li>
+ * <li>elevator.startFloor - the floor the elevators start on (0)</li>
+ * <li>elevator.travelTimeMs - the time to travel one floor (500)</li>
+ * <li>elevator.passengerWaitTimeMs - the time the doors stay open (500)</li>
+ * <li>elevator.scheduler - the SchedulerType (LOOK_WITH_DIRECTION)</li>
+ * <li>elevator.dispatch - the DispatchMode of the hall calls
+ * (CONVENTIONAL)</li>
+ * <li>building.lowestFloor, building.highestFloor, building.lobbyFloor and
+ * building.population - the building the traffic is generated for (0, 20, 0
+ * and 1000)</li>
+ * <li>traffic.pattern - the TrafficGenerator.Pattern, or empty to read the
+ * trace instead (empty)</li>
+ * <li>traffic.arrivalRate, traffic.passengers and traffic.seed - the settings
+ * of the TrafficGenerator (12, 1000 and 1)</li>
+ * <li>trace.file - the trace of button presses
+ * (ButtonPresser.DEFAULT_CSV_FILE)</li>
+ * </ul>
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public final class SimulationConfig {
+    private static final Logger LOGGER = Logger.getLogger(SimulationConfig.class.getName());
+    private static final Set<String> KEYS = new HashSet<>(Arrays.asList("elevator.count", "elevator.startFloor",
+            "elevator.travelTimeMs", "elevator.passengerWaitTimeMs", "elevator.scheduler", "elevator.dispatch",
+            "building.lowestFloor", "building.highestFloor", "building.lobbyFloor", "building.population",
+            "traffic.pattern", "traffic.arrivalRate", "traffic.passengers", "traffic.seed", "trace.file"));
+
+    /**
+     * The configuration used when nothing else is configured: the default
+     * elevator replaying the default trace.
+     */
+    public static final SimulationConfig DEFAULT = new SimulationConfig(ElevatorConfig.DEFAULT,
+            new TrafficGenerator.Building(0, 20, 0, 1000), null, 12, 1000, 1, ButtonPresser.DEFAULT_CSV_FILE);
+
+    public final ElevatorConfig elevatorConfig;
+    public final DispatchMode dispatchMode;
+    public final TrafficGenerator.Building building;
+    public final TrafficGenerator.Pattern trafficPattern;
+    public final double arrivalRatePercent;
+    public final long numberOfPassengers;
+    public final long seed;
+    public final String traceFile;
+
+    /**
+     * Class constructor specifying every setting of the simulation other than the
+     * dispatch mode, which is CONVENTIONAL.
+     *
+     * @param elevatorConfig     the bank of elevators
+     * @param building           the building that traffic is generated for
+     * @param trafficPattern     the pattern of the generated traffic, or null to
+     *                           read the button presses from the trace file
+     * @param arrivalRatePercent the percentage of the population that arrives in
+     *                           five minutes
+     * @param numberOfPassengers how many passengers to generate
+     * @param seed               the seed of the generated traffic
+     * @param traceFile          the csv file or binary trace of button presses
+     * @throws IllegalArgumentException if traffic is generated and the arrival
+     *                                  rate is not positive
+     */
+    public SimulationConfig(ElevatorConfig elevatorConfig, TrafficGenerator.Building building,
+            TrafficGenerator.Pattern trafficPattern, double arrivalRatePercent, long numberOfPassengers, long seed,
+            String traceFile) {
+        this(elevatorConfig, DispatchMode.CONVENTIONAL, building, trafficPattern, arrivalRatePercent,
+                numberOfPassengers, seed, traceFile);
+    }
+
+    /**
+     * Class constructor specifying every setting of the simulation.
+     *
+     * @param elevatorConfig     the bank of elevators
+     * @param dispatchMode       how the hall calls of the bank work
+     * @param building           the building that traffic is generated for
+     * @param trafficPattern     the pattern of the generated traffic, or null to
+     *                           read the button presses from the trace file
+     * @param arrivalRatePercent the percentage of the population that arrives in
+     *                           five minutes
+     * @param numberOfPassengers how many passengers to generate
+     * @param seed               the seed of the generated traffic
+     * @param traceFile          the csv file or binary trace of button presses
+     * @throws IllegalArgumentException if traffic is generated and the arrival
+     *                                  rate is not positive
+     */
+    public SimulationConfig(ElevatorConfig elevatorConfig, DispatchMode dispatchMode,
+            TrafficGenerator.Building building, TrafficGenerator.Pattern trafficPattern, double arrivalRatePercent,
+            long numberOfPassengers, long seed, String traceFile) {
+        if (trafficPattern != null && !(arrivalRatePercent > 0)) {
+            throw new IllegalArgumentException("The arrival rate must be positive but was " + arrivalRatePercent);
+        }
+        this.elevatorConfig = elevatorConfig;
+        this.dispatchMode = dispatchMode;
+        this.building = building;
+        this.trafficPattern = trafficPattern;
+        this.arrivalRatePercent = arrivalRatePercent;
+        this.numberOfPassengers = numberOfPassengers;
+        this.seed = seed;
+        this.traceFile = traceFile;
+    }
+
+    /**
+     * Loads a configuration from a properties file. Keys that are missing keep
+     * their default value, and keys that are not recognized are logged and
+     * ignored.
+     *
+     * @param file the properties file to load
+     * @return the loaded configuration
+     * @throws IOException              if the file can not be read
+     * @throws IllegalArgumentException if a value is not valid
+     */
+    public static SimulationConfig load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Creates a configuration from properties. Keys that are missing keep their
+     * default value, and keys that are not recognized are logged and ignored.
+     *
+     * @param properties the properties to read
+     * @return the configuration
+     * @throws IllegalArgumentException if a value is not valid
+     */
+    public static SimulationConfig fromProperties(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            if (!KEYS.contains(key)) {
+                LOGGER.warning("Ignoring unknown configuration key '" + key + "'.");
+            }
+        }
+
+        ElevatorConfig elevatorDefaults = DEFAULT.elevatorConfig;
+        ElevatorConfig elevatorConfig = new ElevatorConfig(
+                getInt(properties, "elevator.count", elevatorDefaults.numberOfElevators),
+                getInt(properties, "elevator.startFloor", elevatorDefaults.initialFloor),
+                getInt(properties, "elevator.travelTimeMs", elevatorDefaults.timeToTravelBetweenFloorsInMs),
+                getInt(properties, "elevator.passengerWaitTimeMs", elevatorDefaults.timeToWaitForPassengersInMs),
+                getEnum(properties, "elevator.scheduler", SchedulerType.class, elevatorDefaults.schedulerType));
+        TrafficGenerator.Building building = new TrafficGenerator.Building(
+                getInt(properties, "building.lowestFloor", DEFAULT.building.lowestFloor),
+                getInt(properties, "building.highestFloor", DEFAULT.building.highestFloor),
+                getInt(properties, "building.lobbyFloor", DEFAULT.building.lobbyFloor),
+                getInt(properties, "building.population", DEFAULT.building.population));
+        return new SimulationConfig(elevatorConfig,
+                getEnum(properties, "elevator.dispatch", DispatchMode.class, DEFAULT.dispatchMode), building,
+                getEnum(properties, "traffic.pattern", TrafficGenerator.Pattern.class, DEFAULT.trafficPattern),
+                getDouble(properties, "traffic.arrivalRate", DEFAULT.arrivalRatePercent),
+                getLong(properties, "traffic.passengers", DEFAULT.numberOfPassengers),
+                getLong(properties, "traffic.seed", DEFAULT.seed),
+                properties.getProperty("trace.file", DEFAULT.traceFile).trim());
+    }
+
+    private static String getValue(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        return (value == null || value.trim().isEmpty()) ? null : value.trim();
+    }
+
+    private static int getInt(Properties properties, String key, int defaultValue) {
+        return (int) getLong(properties, key, defaultValue, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private static long getLong(Properties properties, String key, long defaultValue) {
+        return getLong(properties, key, defaultValue, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private static long getLong(Properties properties, String key, long defaultValue, long min, long max) {
+        String value = getValue(properties, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long number = Long.parseLong(value);
+            if (number < min || number > max) {
+                throw new IllegalArgumentException("The value '" + value + "' of '" + key + "' is out of range");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The value '" + value + "' of '" + key + "' is not a whole number");
+        }
+    }
+
+    private static double getDouble(Properties properties, String key, double defaultValue) {
+        String value = getValue(properties, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The value '" + value + "' of '" + key + "' is not a number");
+        }
+    }
+
+    private static <E extends Enum<E>> E getEnum(Properties properties, String key, Class<E> type, E defaultValue) {
+        String value = getValue(properties, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The value '" + value + "' of '" + key + "' is not one of "
+                    + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+
+    /**
+     * Creates the handler for the button presses of the elevators for the
+     * dispatch mode.
+     *
+     * @param elevators the elevators that are simulated
+     * @return the elevator, or an ExternalScheduler for a bank of elevators
+     */
+    public ButtonPressHandler createButtonPressHandler(List<Elevator> elevators) {
+        return dispatchMode.createButtonPressHandler(elevators);
+    }
+
+    /**
+     * Creates the ButtonPresser that drives the elevators. If traffic is
+     * generated, the TrafficGenerator passes the hall calls on to the handler
+     * and listens to the elevators to press the buttons of the passengers who
+     * board them, or with destination dispatch has the passengers press
+     * destination buttons. Otherwise the button presses are read from the trace
+     * file.
+     *
+     * @param elevators          the elevators that are simulated
+     * @param buttonPressHandler the handler for the button presses, such as the
+     *                           elevator or an ExternalScheduler
+     * @return the button presser
+     */
+    public ButtonPresser createButtonPresser(List<Elevator> elevators, ButtonPressHandler buttonPressHandler) {
+        if (trafficPattern == null) {
+            return new ButtonPresser(buttonPressHandler, openTrace(traceFile));
+        }
+
+        TrafficGenerator trafficGenerator = new TrafficGenerator(trafficPattern, building, buttonPressHandler,
+                arrivalRatePercent, numberOfPassengers, seed, dispatchMode == DispatchMode.DESTINATION);
+        for (Elevator elevator : elevators) {
+            elevator.addElevatorListener(trafficGenerator);
+        }
+        return new ButtonPresser(trafficGenerator, trafficGenerator);
+    }
+
+    /**
+     * Opens a trace of button presses. Files ending in ".elvb" are read as binary
+     * traces, and anything else as a csv file.
+     *
+     * @param traceFile the path of the trace
+     * @return the source of the button presses in the trace
+     */
+    public static ButtonPressSource openTrace(String traceFile) {
+        if (traceFile.endsWith(".elvb")) {
+            return new BinaryButtonPressSource(traceFile);
+        }
+        return new MappedCsvButtonPressSource(traceFile);
+    }
+
+    /**
+     * Returns a human readable string that represents the informative contents of
+     * this configuration. The representation is subject to change, but the
+     * following may be regarded as typical:
+     *
+     * "SimulationConfig{elevatorConfig=ElevatorConfig{numberOfElevators=1, ...},
+     * dispatchMode=CONVENTIONAL, building=Building{lowestFloor=0, ...}, trafficPattern=null,
+     * arrivalRatePercent=12.0, numberOfPassengers=1000, seed=1,
+     * traceFile=src/main/resources/buttonPresser.csv}"
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "SimulationConfig{" +
+                "elevatorConfig=" + elevatorConfig +
+                ", dispatchMode=" + dispatchMode +
+                ", building=" + building +
+                ", trafficPattern=" + trafficPattern +
+                ", arrivalRatePercent=" + arrivalRatePercent +
+                ", numberOfPassengers=" + numberOfPassengers +
+                ", seed=" + seed +
+                ", traceFile=" + traceFile +
+                '}';
+    }
+}
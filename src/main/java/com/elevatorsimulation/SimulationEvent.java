@@ -0,0 +1,176 @@
+package com.elevatorsimulation;
+
+/**
+ * SimulationEvent is an enum of the things that happen in the simulation that
+ * are reported to an EventSink. Each event carries the id of the elevator it
+ * happened to, a floor, a direction and one extra value whose meaning depends
+ * on the event. The event knows how to turn these into a human readable
+ * message, so the text is only built by the EventRenderer and never on the
+ * simulation thread.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public enum SimulationEvent {
+    /**
+     * A button of the elevator was pressed.
+     */
+    BUTTON_PRESSED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[BUTTON_PRESS] Pressing button for floor: ").append(floor)
+                    .append(", direction: ").append(direction);
+        }
+    },
+    /**
+     * A button of the elevator was pressed that was already pressed.
+     */
+    BUTTON_IGNORED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[BUTTON_PRESS] Button for floor: ").append(floor)
+                    .append(", direction: ").append(direction)
+                    .append(" is already pressed. Ignoring request.");
+        }
+    },
+    /**
+     * The elevator started moving to a floor. The direction is the direction of
+     * travel.
+     */
+    DESTINATION_SET {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[DESTINATION_CHANGE] Moving elevator in direction ").append(direction)
+                    .append(" to floor ").append(floor);
+        }
+    },
+    /**
+     * The elevator changed the floor it is moving to while it was moving. The
+     * direction is the direction of travel.
+     */
+    DESTINATION_CHANGED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[DESTINATION_CHANGE] Updating elevator to move in direction ").append(direction)
+                    .append(" to floor ").append(floor);
+        }
+    },
+    /**
+     * The elevator reached a floor while moving. The value is the destination
+     * floor.
+     */
+    FLOOR_REACHED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[MOVING] Current floor is now: ").append(floor)
+                    .append(", destination floor is: ").append(value);
+        }
+    },
+    /**
+     * The elevator arrived at the floor of a request.
+     */
+    ARRIVED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[ARRIVED] Destination reached. Floor: ").append(floor);
+        }
+    },
+    /**
+     * The doors of the elevator opened.
+     */
+    DOORS_OPENED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[DOORS] Opening doors.");
+        }
+    },
+    /**
+     * The doors of the elevator closed.
+     */
+    DOORS_CLOSED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[DOORS] Closing doors.");
+        }
+    },
+    /**
+     * An external button of a bank of elevators was pressed.
+     */
+    HALL_CALL_PRESSED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[HALL_CALL] Pressing button for floor: ").append(floor)
+                    .append(", direction: ").append(direction);
+        }
+    },
+    /**
+     * An external button of a bank of elevators was pressed that was already
+     * pressed.
+     */
+    HALL_CALL_IGNORED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[HALL_CALL] Button for floor: ").append(floor)
+                    .append(", direction: ").append(direction)
+                    .append(" is already pressed. Ignoring request.");
+        }
+    },
+    /**
+     * An external request was assigned to an elevator.
+     */
+    HALL_CALL_ASSIGNED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[HALL_CALL] Assigned floor: ").append(floor)
+                    .append(", direction: ").append(direction)
+                    .append(" to elevator ").append(elevatorId);
+        }
+    },
+    /**
+     * An external request was moved to another elevator. The elevator id is the
+     * elevator it was moved from and the value is the elevator it was moved to.
+     */
+    HALL_CALL_REASSIGNED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[HALL_CALL] Reassigned floor: ").append(floor)
+                    .append(", direction: ").append(direction)
+                    .append(" from elevator ").append(elevatorId)
+                    .append(" to elevator ").append(value);
+        }
+    },
+    /**
+     * A destination button was pressed. The direction is the direction of travel
+     * and the value is the destination floor.
+     */
+    DESTINATION_CALL_PRESSED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[DESTINATION_CALL] Pressing destination ").append(value)
+                    .append(" on floor: ").append(floor);
+        }
+    },
+    /**
+     * The passenger of a destination button was assigned to an elevator. The
+     * value is the destination floor.
+     */
+    DESTINATION_CALL_ASSIGNED {
+        @Override
+        void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value) {
+            message.append("[DESTINATION_CALL] Assigned floor: ").append(floor)
+                    .append(", destination: ").append(value)
+                    .append(" to elevator ").append(elevatorId);
+        }
+    };
+
+    /**
+     * Appends the human readable message for an occurrence of this event.
+     *
+     * @param message    the builder to append the message to
+     * @param elevatorId the id of the elevator the event happened to
+     * @param floor      the floor of the event
+     * @param direction  the direction of the event
+     * @param value      the extra value of the event
+     */
+    abstract void appendMessage(StringBuilder message, int elevatorId, int floor, Direction direction, int value);
+}
@@ -0,0 +1,111 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+
+/**
+ * SplitMix64Random is a class for generating pseudo random numbers with the
+ * SplitMix64 algorithm. It returns exactly the same numbers as a
+ * java.util.SplittableRandom created with the same seed, but unlike
+ * SplittableRandom it is Serializable, so generated traffic can be saved in a
+ * SimulationCheckpoint and carry on with the same numbers when it is resumed.
+ * <p>
+ * The whole state of the generator is a single long that is advanced by a
+ * constant for every number, and then mixed to produce the number.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+final class SplitMix64Random implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed;
+
+    /**
+     * Class constructor specifying the seed.
+     *
+     * @param seed the seed for the random numbers
+     */
+    SplitMix64Random(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns a random int.
+     *
+     * @return the next random int
+     */
+    int nextInt() {
+        long z = seed += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /**
+     * Returns a random long.
+     *
+     * @return the next random long
+     */
+    long nextLong() {
+        long z = seed += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a random double from zero (inclusive) to one (exclusive).
+     *
+     * @return the next random double
+     */
+    double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Returns a random int from zero (inclusive) to the bound (exclusive).
+     *
+     * @param bound the upper bound, which must be positive
+     * @return the next random int below the bound
+     * @throws IllegalArgumentException if the bound is not positive
+     */
+    int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("The bound must be positive but was " + bound);
+        }
+        return nextInt(0, bound);
+    }
+
+    /**
+     * Returns a random int from the origin (inclusive) to the bound (exclusive).
+     *
+     * @param origin the lowest value that can be returned
+     * @param bound  the upper bound, which must be greater than the origin
+     * @return the next random int in the range
+     * @throws IllegalArgumentException if the bound is not greater than the
+     *                                  origin
+     */
+    int nextInt(int origin, int bound) {
+        if (origin >= bound) {
+            throw new IllegalArgumentException("The bound " + bound + " must be greater than the origin " + origin);
+        }
+        int r = nextInt();
+        int n = bound - origin;
+        int m = n - 1;
+        if ((n & m) == 0) {
+            return (r & m) + origin;
+        } else if (n > 0) {
+            // Reject the values that would make the lower numbers more likely
+            for (int u = r >>> 1; u + m - (r = u % n) < 0; u = nextInt() >>> 1) {
+                // Keep drawing
+            }
+            return r + origin;
+        }
+        // The range does not fit in an int
+        while (r < origin || r >= bound) {
+            r = nextInt();
+        }
+        return r;
+    }
+}
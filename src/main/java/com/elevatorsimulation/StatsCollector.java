@@ -1,26 +1,38 @@
 package com.elevatorsimulation;
 
+import java.io.Serializable;
+import java.util.List;
 import java.util.LongSummaryStatistics;
-import java.time.Duration;
-import java.time.Instant;
 
 /**
  * StatsCollector is a wrapper for the LongSummaryStatistics class.
  * StatsCollector enables collecting time statistics on completed Request
  * objects, specifically how long a Request took to go from creation to being
  * satisfied. It also provides a pretty format for outputting the statistics.
+ * <p>
+ * Besides the summary statistics, the times are recorded in LatencyHistograms
+ * at nanosecond resolution so percentiles can be reported. The completion time
+ * histogram holds every request. The wait time histogram only holds external
+ * (UP or DOWN) requests, for which the completion time is how long the
+ * passenger waited for the elevator to arrive.
+ * <p>
+ * The times are recorded by a StatsRecorder, so any number of threads can add
+ * completed requests without taking a lock, and reading the statistics never
+ * blocks the threads that are recording them.
  *
  * @author Michael Zigment
  * @version 1.0
  */
-public class StatsCollector {
-    private final LongSummaryStatistics summaryStatistics;
+public class StatsCollector implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final StatsRecorder recorder;
 
     /**
      * Class constructor.
      */
     public StatsCollector() {
-        summaryStatistics = new LongSummaryStatistics();
+        recorder = new StatsRecorder();
     }
 
     /**
@@ -30,10 +42,117 @@ public class StatsCollector {
      * @param request the request that was completed and will have its time
      *                calculated and saved off
      */
-    public synchronized void addCompletedRequest(Request request) {
-        Instant timeNow = Instant.now();
-        Duration duration = Duration.between(request.getTimeCreated(), timeNow);
-        summaryStatistics.accept(duration.toMillis()); // Duration in milliseconds
+    public void addCompletedRequest(Request request) {
+        addCompletedRequest(request, System.nanoTime());
+    }
+
+    /**
+     * Calculates and saves off the time it took for a Request to be satisfied,
+     * using the specified completion time rather than System.nanoTime. This is
+     * used when the time is taken from a SimulationClock, which must be the same
+     * clock that the request was created with.
+     *
+     * @param request           the request that was completed and will have its
+     *                          time calculated and saved off
+     * @param timeCompletedInNs the time that the request was completed in
+     *                          nanoseconds
+     */
+    public void addCompletedRequest(Request request, long timeCompletedInNs) {
+        recorder.record(timeCompletedInNs - request.getTimeCreatedInNs(),
+                request.getDesiredDirection() != Direction.NONE);
+    }
+
+    /**
+     * Returns a consistent copy of all the statistics collected so far.
+     *
+     * @return a snapshot of the statistics
+     */
+    public StatsRecorder.Snapshot getSnapshot() {
+        return recorder.snapshot();
+    }
+
+    /**
+     * Returns how many requests have been completed so far, without copying the
+     * rest of the statistics.
+     *
+     * @return the number of completed requests
+     */
+    public long getRequestsCompleted() {
+        return recorder.getCount();
+    }
+
+    /**
+     * Returns a copy of the statistics collected so far. Times are in
+     * milliseconds.
+     *
+     * @return a copy of the summary statistics for the completed requests
+     */
+    public LongSummaryStatistics getSummaryStatistics() {
+        return recorder.snapshot().summaryStatistics;
+    }
+
+    /**
+     * Returns a copy of the histogram of completion times of all requests.
+     *
+     * @return a copy of the completion time histogram, in nanoseconds
+     */
+    public LatencyHistogram getCompletionTimeHistogram() {
+        return recorder.snapshot().completionTimes;
+    }
+
+    /**
+     * Returns a copy of the histogram of wait times, which are the completion
+     * times of external (UP or DOWN) requests.
+     *
+     * @return a copy of the wait time histogram, in nanoseconds
+     */
+    public LatencyHistogram getWaitTimeHistogram() {
+        return recorder.snapshot().waitTimes;
+    }
+
+    /**
+     * Returns the statistics of several elevators combined, as if they had all
+     * been collected by one StatsCollector. Each elevator is snapshotted once.
+     *
+     * @param elevators the elevators whose statistics to combine
+     * @return the combined statistics
+     */
+    static StatsRecorder.Snapshot combine(List<Elevator> elevators) {
+        LongSummaryStatistics statistics = new LongSummaryStatistics();
+        LatencyHistogram completionTimes = new LatencyHistogram();
+        LatencyHistogram waitTimes = new LatencyHistogram();
+        for (Elevator elevator : elevators) {
+            StatsRecorder.Snapshot snapshot = elevator.getStatsCollector().getSnapshot();
+            statistics.combine(snapshot.summaryStatistics);
+            completionTimes.add(snapshot.completionTimes);
+            waitTimes.add(snapshot.waitTimes);
+        }
+        return new StatsRecorder.Snapshot(statistics, completionTimes, waitTimes);
+    }
+
+    /**
+     * Returns a human readable line of the percentiles of a histogram in seconds.
+     * The representation is subject to change, but the following may be regarded
+     * as typical:
+     * 
+     * "p50 5.4 / p90 12.9 / p99 12.9 / p99.9 12.9 seconds"
+     *
+     * @param histogram the histogram to output
+     * @return the percentiles of the histogram, or "N/A" if it is empty
+     */
+    static String formatPercentiles(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "N/A";
+        }
+        return "p50 " + toSeconds(histogram.getValueAtPercentile(50))
+                + " / p90 " + toSeconds(histogram.getValueAtPercentile(90))
+                + " / p99 " + toSeconds(histogram.getValueAtPercentile(99))
+                + " / p99.9 " + toSeconds(histogram.getValueAtPercentile(99.9)) + " seconds";
+    }
+
+    private static String toSeconds(long timeInNs) {
+        // Rounded to the millisecond, like the other statistics
+        return String.valueOf(Math.round(timeInNs / 1_000_000.0) / 1000.0);
     }
 
     /**
@@ -47,11 +166,15 @@ public class StatsCollector {
      * " Fastest Completion Time: 0.195 seconds"
      * " Slowest Completion Time: 12.9 seconds"
      * " Average Completion Time: 5.753888888888889 seconds"
+     * " Completion Percentiles: p50 5.838 / p90 12.9 / p99 12.9 / p99.9 12.9 seconds"
+     * " Wait Time Percentiles: p50 6.644 / p90 12.9 / p99 12.9 / p99.9 12.9 seconds"
      *
      * @return a string representation of the object
      */
     @Override
-    public synchronized String toString() {
+    public String toString() {
+        StatsRecorder.Snapshot snapshot = recorder.snapshot();
+        LongSummaryStatistics summaryStatistics = snapshot.summaryStatistics;
         return "  Total Requests Completed:  " + summaryStatistics.getCount()
                 + "\n  Fastest Completion Time:   "
                 + ((summaryStatistics.getCount() > 0) ? ((summaryStatistics.getMin() * 0.001) + " seconds") : "N/A")
@@ -59,6 +182,8 @@ public class StatsCollector {
                 + ((summaryStatistics.getCount() > 0) ? ((summaryStatistics.getMax() * 0.001) + " seconds") : "N/A")
                 + "\n  Average Completion Time:   "
                 + ((summaryStatistics.getCount() > 0) ? ((summaryStatistics.getAverage() * 0.001) + " seconds") : "N/A")
+                + "\n  Completion Percentiles:    " + formatPercentiles(snapshot.completionTimes)
+                + "\n  Wait Time Percentiles:     " + formatPercentiles(snapshot.waitTimes)
                 + '\n';
     }
 }
@@ -0,0 +1,304 @@
+package com.elevatorsimulation;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.lang.ref.Cleaner;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * StatsRecorder is a class for recording the times of completed requests from
+ * many threads at once without any locks. It is used by StatsCollector.
+ * <p>
+ * Every thread that records a time gets its own cell, which only that thread
+ * ever writes to, so recording threads never contend with each other. Recording
+ * does not allocate once a thread has its cell.
+ * <p>
+ * A snapshot merges all of the cells. Each cell is guarded by a SeqLock, so it
+ * is always copied in a consistent state without ever blocking the writer.
+ * Snapshots are cheap enough to take every second from a monitoring thread.
+ * <p>
+ * When a thread that recorded times dies, its cell is folded into a retired
+ * cell that no thread records to, so a recorder that is used from many short
+ * lived threads (such as virtual threads) does not keep a cell for each of
+ * them. A Cleaner notices that the thread is gone once the thread's own
+ * reference to its cell has been garbage collected.
+ * <p>
+ * The cells belong to the threads that recorded them, so a recorder is
+ * serialized as a snapshot instead, and is restored with the whole snapshot in
+ * the retired cell.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class StatsRecorder implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * A consistent copy of the recorded statistics.
+     */
+    public static final class Snapshot {
+        public final LongSummaryStatistics summaryStatistics; // milliseconds
+        public final LatencyHistogram completionTimes; // nanoseconds
+        public final LatencyHistogram waitTimes; // nanoseconds
+
+        public Snapshot(LongSummaryStatistics summaryStatistics, LatencyHistogram completionTimes,
+                LatencyHistogram waitTimes) {
+            this.summaryStatistics = summaryStatistics;
+            this.completionTimes = completionTimes;
+            this.waitTimes = waitTimes;
+        }
+    }
+
+    /**
+     * The statistics recorded by a single thread.
+     */
+    private static final class Cell {
+        private final SeqLock seqLock = new SeqLock();
+        private final LatencyHistogram completionTimes = new LatencyHistogram();
+        private final LatencyHistogram waitTimes = new LatencyHistogram();
+        private long count;
+        private long sumInMs;
+        private long minInMs = Long.MAX_VALUE;
+        private long maxInMs = Long.MIN_VALUE;
+
+        void record(long durationInMs, long latencyInNs, boolean isWait) {
+            long start = seqLock.beginWrite();
+
+            count++;
+            sumInMs += durationInMs;
+            minInMs = Math.min(minInMs, durationInMs);
+            maxInMs = Math.max(maxInMs, durationInMs);
+            completionTimes.record(latencyInNs);
+            if (isWait) {
+                waitTimes.record(latencyInNs);
+            }
+
+            seqLock.endWrite(start);
+        }
+
+        long readCount() {
+            long start;
+            long value;
+            do {
+                start = seqLock.beginRead();
+                value = count;
+            } while (!seqLock.validate(start));
+            return value;
+        }
+
+        /**
+         * Adds the statistics of a cell that is no longer recorded to.
+         */
+        void add(Cell other) {
+            other.seqLock.beginRead();
+            count += other.count;
+            sumInMs += other.sumInMs;
+            minInMs = Math.min(minInMs, other.minInMs);
+            maxInMs = Math.max(maxInMs, other.maxInMs);
+            completionTimes.add(other.completionTimes);
+            waitTimes.add(other.waitTimes);
+        }
+    }
+
+    /**
+     * The cells of a recorder. They are kept apart from the recorder, so the
+     * Cleaner that retires the cell of a dead thread does not keep the recorder
+     * alive.
+     */
+    private static final class Cells {
+        public final CopyOnWriteArrayList<Cell> live = new CopyOnWriteArrayList<>();
+        public final Cell retired = new Cell();
+        public final ReentrantLock retireLock = new ReentrantLock();
+
+        public void retire(Cell cell) {
+            retireLock.lock();
+            try {
+                retired.add(cell);
+                live.remove(cell);
+            } finally {
+                retireLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The cell of a thread, which only that thread's ThreadLocal refers to. It
+     * becomes unreachable when the thread dies.
+     */
+    private static final class CellOwner {
+        public final Cell cell;
+
+        public CellOwner(Cell cell) {
+            this.cell = cell;
+        }
+    }
+
+    /**
+     * The serialized form of a StatsRecorder, which is a snapshot of all of its
+     * cells merged together.
+     */
+    private static final class SerializedForm implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long count;
+        private final long sumInMs;
+        private final long minInMs;
+        private final long maxInMs;
+        private final LatencyHistogram completionTimes;
+        private final LatencyHistogram waitTimes;
+
+        SerializedForm(Snapshot snapshot) {
+            count = snapshot.summaryStatistics.getCount();
+            sumInMs = snapshot.summaryStatistics.getSum();
+            minInMs = snapshot.summaryStatistics.getMin();
+            maxInMs = snapshot.summaryStatistics.getMax();
+            completionTimes = snapshot.completionTimes;
+            waitTimes = snapshot.waitTimes;
+        }
+
+        private Object readResolve() {
+            StatsRecorder recorder = new StatsRecorder();
+            Cell cell = recorder.cells.retired;
+            cell.count = count;
+            cell.sumInMs = sumInMs;
+            cell.minInMs = minInMs;
+            cell.maxInMs = maxInMs;
+            cell.completionTimes.add(completionTimes);
+            cell.waitTimes.add(waitTimes);
+            return recorder;
+        }
+    }
+
+    private final Cells cells;
+    private final ThreadLocal<CellOwner> threadCell;
+
+    /**
+     * Class constructor.
+     */
+    public StatsRecorder() {
+        Cells recorderCells = new Cells();
+        cells = recorderCells;
+        threadCell = ThreadLocal.withInitial(() -> createCell(recorderCells));
+    }
+
+    private static CellOwner createCell(Cells cells) {
+        Cell cell = new Cell();
+        CellOwner owner = new CellOwner(cell);
+        cells.live.add(cell);
+        CLEANER.register(owner, () -> cells.retire(cell));
+        return owner;
+    }
+
+    /**
+     * Returns the number of cells that threads are still recording to.
+     *
+     * @return the number of live cells
+     */
+    int getLiveCells() {
+        return cells.live.size();
+    }
+
+    /**
+     * Records the time it took to complete a request.
+     *
+     * @param durationInNs the time from the creation to the completion of the
+     *                     request, in nanoseconds
+     * @param isWait       whether the request was an external request, in which
+     *                     case the time is also recorded as a wait time
+     */
+    public void record(long durationInNs, boolean isWait) {
+        threadCell.get().cell.record(Math.floorDiv(durationInNs, 1_000_000L), Math.max(0, durationInNs), isWait);
+    }
+
+    /**
+     * Returns a copy of the statistics recorded so far by all threads. Each
+     * thread's statistics are copied consistently, so the summary statistics and
+     * the histograms always agree with each other. Only retiring the cell of a
+     * dead thread waits for a snapshot, never recording.
+     *
+     * @return a snapshot of the recorded statistics
+     */
+    public Snapshot snapshot() {
+        // Stops a cell from being retired while it is read, so it is counted once
+        cells.retireLock.lock();
+        try {
+            return snapshotCells();
+        } finally {
+            cells.retireLock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many times have been recorded so far by all threads. This is
+     * the count of a snapshot, without copying the histograms.
+     *
+     * @return the number of recorded times
+     */
+    public long getCount() {
+        cells.retireLock.lock();
+        try {
+            long count = cells.retired.count;
+            for (Cell cell : cells.live) {
+                count += cell.readCount();
+            }
+            return count;
+        } finally {
+            cells.retireLock.unlock();
+        }
+    }
+
+    private Snapshot snapshotCells() {
+        Cell retired = cells.retired;
+        long count = retired.count;
+        long sumInMs = retired.sumInMs;
+        long minInMs = retired.minInMs;
+        long maxInMs = retired.maxInMs;
+        LatencyHistogram completionTimes = retired.completionTimes.copy();
+        LatencyHistogram waitTimes = retired.waitTimes.copy();
+        LatencyHistogram cellCompletionTimes = new LatencyHistogram();
+        LatencyHistogram cellWaitTimes = new LatencyHistogram();
+
+        for (Cell cell : cells.live) {
+            long cellCount;
+            long cellSumInMs;
+            long cellMinInMs;
+            long cellMaxInMs;
+            long start;
+            do {
+                start = cell.seqLock.beginRead();
+                cellCount = cell.count;
+                cellSumInMs = cell.sumInMs;
+                cellMinInMs = cell.minInMs;
+                cellMaxInMs = cell.maxInMs;
+                cellCompletionTimes.reset();
+                cellCompletionTimes.add(cell.completionTimes);
+                cellWaitTimes.reset();
+                cellWaitTimes.add(cell.waitTimes);
+            } while (!cell.seqLock.validate(start));
+
+            count += cellCount;
+            sumInMs += cellSumInMs;
+            minInMs = Math.min(minInMs, cellMinInMs);
+            maxInMs = Math.max(maxInMs, cellMaxInMs);
+            completionTimes.add(cellCompletionTimes);
+            waitTimes.add(cellWaitTimes);
+        }
+
+        LongSummaryStatistics summaryStatistics = (count > 0)
+                ? new LongSummaryStatistics(count, minInMs, maxInMs, sumInMs)
+                : new LongSummaryStatistics();
+        return new Snapshot(summaryStatistics, completionTimes, waitTimes);
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(snapshot());
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("A StatsRecorder must be restored from its SerializedForm");
+    }
+}
@@ -0,0 +1,441 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TrafficGenerator is a class that implements the ButtonPressSource interface
+ * by generating passengers for a building with one of the standard elevator
+ * traffic patterns. Every passenger arrives at an origin floor wanting to go to
+ * a destination floor, and presses the UP or DOWN button on the origin floor.
+ * <p>
+ * The generator is also the ButtonPressHandler that its ButtonPresser presses
+ * the buttons on. It passes the presses on to the real handler, and the
+ * passenger starts waiting at the moment their button is pressed, rather than
+ * when the ButtonPresser moves on to them before the delay.
+ * <p>
+ * The generator is also an ElevatorListener. When an elevator completes an UP
+ * or DOWN request, every passenger waiting on that floor to go in that
+ * direction boards, and presses the button for their destination inside that
+ * elevator. So the car calls match the hall calls, the same way they would
+ * with real passengers, and they go to the elevator that actually picked the
+ * passengers up. The generator has to be added as a listener to every elevator
+ * for the car calls to be made.
+ * <p>
+ * With destination dispatch, the passengers instead enter their destination
+ * on their floor, so they press destination buttons and do not wait in the
+ * queues of the generator. The elevator presses the car calls itself when it
+ * picks each passenger up.
+ * <p>
+ * Passengers arrive as a Poisson process. The arrival rate is given the way it
+ * usually is for elevator traffic, as the percentage of the population of the
+ * building that arrives in five minutes, and the population is spread evenly
+ * over the floors other than the lobby. The patterns are:
+ * <ul>
+ * <li>UP_PEAK - everyone arrives at the lobby and goes up to their floor, like
+ * in the morning</li>
+ * <li>DOWN_PEAK - everyone goes from their floor down to the lobby, like in the
+ * evening</li>
+ * <li>INTERFLOOR - passengers go between any two floors</li>
+ * <li>LUNCH - 40% up peak, 40% down peak and 20% interfloor traffic</li>
+ * </ul>
+ * Passengers are generated one at a time as the button presses are needed, and
+ * once the queues of waiting passengers have grown, generating one allocates
+ * nothing, so there is no limit to how many can be generated. The same seed
+ * always generates the same passengers.
+ * <p>
+ * The waiting passengers and the state of the random numbers are all held in
+ * Serializable fields, so a SimulationCheckpoint of a simulation with generated
+ * traffic resumes with exactly the passengers it would have had.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class TrafficGenerator implements ButtonPressSource, ButtonPressHandler, ElevatorListener, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The standard traffic patterns.
+     */
+    public enum Pattern {
+        UP_PEAK,
+        DOWN_PEAK,
+        INTERFLOOR,
+        LUNCH
+    }
+
+    /**
+     * The floors and the population of the building that the traffic is
+     * generated for.
+     */
+    public static final class Building implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final int lowestFloor;
+        public final int highestFloor;
+        public final int lobbyFloor;
+        public final int population;
+
+        /**
+         * Class constructor specifying the floors and population of the building.
+         *
+         * @param lowestFloor  the lowest floor of the building
+         * @param highestFloor the highest floor of the building
+         * @param lobbyFloor   the floor where people enter and leave the building
+         * @param population   the number of people who work in the building
+         * @throws IllegalArgumentException if the highest floor is not above the
+         *                                  lowest floor, the lobby is not one of
+         *                                  the floors or the population is not
+         *                                  positive
+         */
+        public Building(int lowestFloor, int highestFloor, int lobbyFloor, int population) {
+            if (highestFloor <= lowestFloor) {
+                throw new IllegalArgumentException("The highest floor (" + highestFloor
+                        + ") must be above the lowest floor (" + lowestFloor + ")");
+            }
+            if (lobbyFloor < lowestFloor || lobbyFloor > highestFloor) {
+                throw new IllegalArgumentException("The lobby floor (" + lobbyFloor
+                        + ") must be between the lowest and highest floors");
+            }
+            if (population <= 0) {
+                throw new IllegalArgumentException("The population must be positive but was " + population);
+            }
+            this.lowestFloor = lowestFloor;
+            this.highestFloor = highestFloor;
+            this.lobbyFloor = lobbyFloor;
+            this.population = population;
+        }
+
+        @Override
+        public String toString() {
+            return "Building{" +
+                    "lowestFloor=" + lowestFloor +
+                    ", highestFloor=" + highestFloor +
+                    ", lobbyFloor=" + lobbyFloor +
+                    ", population=" + population +
+                    '}';
+        }
+    }
+
+    private static final double FIVE_MINUTES_IN_MS = 5 * 60 * 1000;
+    private static final int UP = 0;
+    private static final int DOWN = 1;
+
+    private final Pattern pattern;
+    private final Building building;
+    private final ButtonPressHandler buttonPressHandler;
+    private final SplitMix64Random random;
+    private final double meanDelayInMs;
+    private final long numberOfPassengers;
+    private final boolean destinationDispatch;
+    private final ReentrantLock lock;
+    private final int[][] waitingDestinations;
+    private final int[] waitingCounts;
+    private long passengersGenerated;
+    private long passengersBoarded;
+    private double arrivalTimeInMs;
+    private long pressTimeInMs;
+    private int floor;
+    private Direction direction;
+    private int destination;
+    private long delayBeforePressing;
+
+    /**
+     * Class constructor specifying the traffic pattern, the building, the handler
+     * that the button presses are passed on to, the arrival rate, how many
+     * passengers to generate and the seed.
+     *
+     * @param pattern            the traffic pattern
+     * @param building           the building to generate the passengers for
+     * @param buttonPressHandler the handler for the hall calls, such as the
+     *                           elevator or an ExternalScheduler
+     * @param arrivalRatePercent the percentage of the population that arrives in
+     *                           five minutes
+     * @param numberOfPassengers how many passengers to generate, or
+     *                           Long.MAX_VALUE to never stop
+     * @param seed               the seed for the random numbers
+     * @throws IllegalArgumentException if the arrival rate is not positive
+     */
+    public TrafficGenerator(Pattern pattern, Building building, ButtonPressHandler buttonPressHandler,
+            double arrivalRatePercent, long numberOfPassengers, long seed) {
+        this(pattern, building, buttonPressHandler, arrivalRatePercent, numberOfPassengers, seed, false);
+    }
+
+    /**
+     * Class constructor specifying the traffic pattern, the building, the handler
+     * that the button presses are passed on to, the arrival rate, how many
+     * passengers to generate, the seed and whether the passengers press
+     * destination buttons.
+     *
+     * @param pattern             the traffic pattern
+     * @param building            the building to generate the passengers for
+     * @param buttonPressHandler  the handler for the hall calls, such as the
+     *                            elevator or an ExternalScheduler
+     * @param arrivalRatePercent  the percentage of the population that arrives in
+     *                            five minutes
+     * @param numberOfPassengers  how many passengers to generate, or
+     *                            Long.MAX_VALUE to never stop
+     * @param seed                the seed for the random numbers
+     * @param destinationDispatch whether the passengers enter their destination
+     *                            on their floor rather than pressing UP or DOWN
+     * @throws IllegalArgumentException if the arrival rate is not positive
+     */
+    public TrafficGenerator(Pattern pattern, Building building, ButtonPressHandler buttonPressHandler,
+            double arrivalRatePercent, long numberOfPassengers, long seed, boolean destinationDispatch) {
+        if (!(arrivalRatePercent > 0)) {
+            throw new IllegalArgumentException("The arrival rate must be positive but was " + arrivalRatePercent);
+        }
+        this.pattern = pattern;
+        this.building = building;
+        this.buttonPressHandler = buttonPressHandler;
+        random = new SplitMix64Random(seed);
+        meanDelayInMs = FIVE_MINUTES_IN_MS / (building.population * arrivalRatePercent / 100.0);
+        this.numberOfPassengers = numberOfPassengers;
+        this.destinationDispatch = destinationDispatch;
+        lock = new ReentrantLock();
+
+        int numberOfFloors = building.highestFloor - building.lowestFloor + 1;
+        waitingDestinations = new int[numberOfFloors * 2][];
+        waitingCounts = new int[numberOfFloors * 2];
+        passengersGenerated = 0;
+        passengersBoarded = 0;
+        arrivalTimeInMs = 0;
+        pressTimeInMs = 0;
+    }
+
+    /**
+     * Returns the handler that the button presses are passed on to.
+     *
+     * @return the handler for the hall calls and car calls
+     */
+    public ButtonPressHandler getButtonPressHandler() {
+        return buttonPressHandler;
+    }
+
+    /**
+     * Returns the average time between passengers arriving.
+     *
+     * @return the average delay between button presses, in milliseconds
+     */
+    public double getMeanDelayInMs() {
+        return meanDelayInMs;
+    }
+
+    /**
+     * Returns how many passengers have been generated so far.
+     *
+     * @return the number of passengers that have arrived
+     */
+    public long getPassengersGenerated() {
+        lock.lock();
+        try {
+            return passengersGenerated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many passengers have been picked up by an elevator so far.
+     *
+     * @return the number of passengers that have boarded an elevator
+     */
+    public long getPassengersBoarded() {
+        lock.lock();
+        try {
+            return passengersBoarded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Generates the next passenger. The passenger starts waiting for an elevator
+     * once their button has been pressed.
+     *
+     * @return whether there was another passenger, false once the number of
+     *         passengers has been generated
+     */
+    @Override
+    public boolean next() {
+        if (passengersGenerated >= numberOfPassengers) {
+            return false;
+        }
+
+        // Rounding the arrival time rather than each delay keeps the rate right
+        // when the delays are much less than a millisecond
+        arrivalTimeInMs += -meanDelayInMs * Math.log(1.0 - random.nextDouble());
+        delayBeforePressing = Math.max(0, Math.round(arrivalTimeInMs) - pressTimeInMs);
+        pressTimeInMs += delayBeforePressing;
+
+        generatePassenger();
+
+        lock.lock();
+        try {
+            passengersGenerated++;
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    private void generatePassenger() {
+        Pattern passengerPattern = pattern;
+        if (pattern == Pattern.LUNCH) {
+            int choice = random.nextInt(10);
+            passengerPattern = (choice < 4) ? Pattern.UP_PEAK
+                    : (choice < 8) ? Pattern.DOWN_PEAK : Pattern.INTERFLOOR;
+        }
+
+        switch (passengerPattern) {
+            case UP_PEAK:
+                floor = building.lobbyFloor;
+                destination = randomFloorOtherThan(building.lobbyFloor);
+                break;
+            case DOWN_PEAK:
+                floor = randomFloorOtherThan(building.lobbyFloor);
+                destination = building.lobbyFloor;
+                break;
+            default:
+                floor = random.nextInt(building.lowestFloor, building.highestFloor + 1);
+                destination = randomFloorOtherThan(floor);
+                break;
+        }
+        direction = (destination > floor) ? Direction.UP : Direction.DOWN;
+    }
+
+    private int randomFloorOtherThan(int excludedFloor) {
+        int randomFloor = random.nextInt(building.lowestFloor, building.highestFloor);
+        return (randomFloor >= excludedFloor) ? randomFloor + 1 : randomFloor;
+    }
+
+    private int waitingIndex(int floor, Direction direction) {
+        return (floor - building.lowestFloor) * 2 + ((direction == Direction.UP) ? UP : DOWN);
+    }
+
+    private void addWaitingPassenger(int floor, Direction direction, int destination) {
+        int index = waitingIndex(floor, direction);
+        int[] destinations = waitingDestinations[index];
+        if (destinations == null) {
+            destinations = new int[4];
+            waitingDestinations[index] = destinations;
+        } else if (waitingCounts[index] == destinations.length) {
+            destinations = Arrays.copyOf(destinations, destinations.length * 2);
+            waitingDestinations[index] = destinations;
+        }
+        destinations[waitingCounts[index]++] = destination;
+    }
+
+    @Override
+    public int getFloor() {
+        return floor;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public int getDestinationFloor() {
+        return destinationDispatch ? destination : Button.NO_DESTINATION;
+    }
+
+    @Override
+    public long getDelayBeforePressing() {
+        return delayBeforePressing;
+    }
+
+    /**
+     * Puts the current passenger in the queue of passengers waiting on their
+     * floor, and then passes the button press on to the handler. With
+     * destination dispatch the passenger does not wait in a queue.
+     *
+     * @param button the button that the current passenger pressed
+     */
+    @Override
+    public void pressElevatorButton(Button button) {
+        if (!destinationDispatch && button.floor == floor && button.direction == direction) {
+            lock.lock();
+            try {
+                addWaitingPassenger(floor, direction, destination);
+            } finally {
+                lock.unlock();
+            }
+        }
+        buttonPressHandler.pressElevatorButton(button);
+    }
+
+    @Override
+    public void onFloorChanged(Elevator elevator, int floor) {
+    }
+
+    /**
+     * Boards every passenger waiting on the floor of the request to go in the
+     * direction of the request, and presses their destination buttons inside
+     * the elevator. A request with a destination is one passenger, who presses
+     * their own destination button.
+     *
+     * @param elevator the elevator that picked the passengers up
+     * @param request  the request that was satisfied
+     */
+    @Override
+    public void onRequestCompleted(Elevator elevator, Request request) {
+        if (request.hasDestination()) {
+            lock.lock();
+            try {
+                passengersBoarded++;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        int requestFloor = request.getFloorNumber();
+        if (request.getDesiredDirection() == Direction.NONE
+                || requestFloor < building.lowestFloor || requestFloor > building.highestFloor) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            int index = waitingIndex(requestFloor, request.getDesiredDirection());
+            int[] destinations = waitingDestinations[index];
+            for (int i = 0; i < waitingCounts[index]; i++) {
+                elevator.pressElevatorButton(Button.of(destinations[i], Direction.NONE));
+            }
+            passengersBoarded += waitingCounts[index];
+            waitingCounts[index] = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onIdle(Elevator elevator) {
+    }
+
+    /**
+     * Returns a human readable string that represents the informative contents of
+     * this traffic generator. The representation is subject to change, but the
+     * following may be regarded as typical:
+     *
+     * "TrafficGenerator{pattern=UP_PEAK, building=Building{lowestFloor=0,
+     * highestFloor=20, lobbyFloor=0, population=1000}, meanDelayInMs=2500.0,
+     * destinationDispatch=false, passengersGenerated=10, passengersBoarded=8}"
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "TrafficGenerator{" +
+                "pattern=" + pattern +
+                ", building=" + building +
+                ", meanDelayInMs=" + meanDelayInMs +
+                ", destinationDispatch=" + destinationDispatch +
+                ", passengersGenerated=" + getPassengersGenerated() +
+                ", passengersBoarded=" + getPassengersBoarded() +
+                '}';
+    }
+}
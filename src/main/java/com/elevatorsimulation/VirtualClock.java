@@ -0,0 +1,74 @@
+package com.elevatorsimulation;
+
+import java.io.Serializable;
+
+/**
+ * VirtualClock is a class that implements the SimulationClock interface using
+ * a simulated time. The time starts at the epoch and only moves forward when
+ * it is advanced, which is done by the DiscreteEventSimulation as it processes
+ * events. Time is kept in milliseconds since the start of the simulation.
+ *
+ * @author Michael Zigment
+ * @version 1.0
+ */
+public class VirtualClock implements SimulationClock, Serializable {
+    private static final long serialVersionUID = 1L;
+    private long currentTimeInMs;
+
+    /**
+     * Class constructor. The clock starts at time zero.
+     */
+    public VirtualClock() {
+        currentTimeInMs = 0;
+    }
+
+    /**
+     * Returns the current simulated time in nanoseconds.
+     *
+     * @return the current simulated time in nanoseconds
+     */
+    @Override
+    public long nanoTime() {
+        return currentTimeInMs * 1_000_000L;
+    }
+
+    /**
+     * Returns the number of milliseconds that have been simulated so far.
+     *
+     * @return the current simulated time in milliseconds
+     */
+    public long currentTimeInMs() {
+        return currentTimeInMs;
+    }
+
+    /**
+     * Moves the clock forward to the specified time. The clock can never move
+     * backwards.
+     *
+     * @param timeInMs the simulated time in milliseconds to move the clock to
+     * @throws IllegalArgumentException if the time is before the current time
+     */
+    public void advanceTo(long timeInMs) {
+        if (timeInMs < currentTimeInMs) {
+            throw new IllegalArgumentException("Cannot move the clock backwards from "
+                    + currentTimeInMs + " ms to " + timeInMs + " ms");
+        }
+        currentTimeInMs = timeInMs;
+    }
+
+    /**
+     * Returns a human readable string that represents the informative contents of
+     * this clock. The representation is subject to change, but the following may
+     * be regarded as typical:
+     * 
+     * "VirtualClock{currentTimeInMs=1500}"
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return "VirtualClock{" +
+                "currentTimeInMs=" + currentTimeInMs +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ArgumentsTest {
+
+    @Test
+    void testValues() {
+        String[] args = { "--runs", "12", "--mean-delay", "2.5", "--scheduler", "LOOK_WITH_DIRECTION" };
+
+        assertEquals(12, Arguments.intValue(args, 0));
+        assertEquals(12L, Arguments.longValue(args, 0));
+        assertEquals(2.5, Arguments.doubleValue(args, 2));
+        assertEquals(SchedulerType.LOOK_WITH_DIRECTION, Arguments.enumValue(args, 4, SchedulerType.class));
+    }
+
+    @Test
+    void testMissingAndInvalidValues() {
+        String[] args = { "--runs", "many", "--scheduler", "FASTEST", "--seed" };
+
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+                () -> Arguments.longValue(args, 4));
+        assertEquals("--seed needs a value", missing.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Arguments.intValue(args, 0));
+        assertThrows(IllegalArgumentException.class, () -> Arguments.doubleValue(args, 0));
+        assertThrows(IllegalArgumentException.class, () -> Arguments.enumValue(args, 2, SchedulerType.class));
+    }
+
+    @Test
+    void testListValues() {
+        String[] args = { "--elevators", "2, 4,6", "--scheduler", "INDEXED_LOOK_WITH_DIRECTION,LOOK_WITH_DIRECTION" };
+
+        assertEquals(List.of(2, 4, 6), Arguments.intListValue(args, 0));
+        assertEquals(List.of(SchedulerType.INDEXED_LOOK_WITH_DIRECTION, SchedulerType.LOOK_WITH_DIRECTION),
+                Arguments.enumListValue(args, 2, SchedulerType.class));
+
+        IllegalArgumentException invalid = assertThrows(IllegalArgumentException.class,
+                () -> Arguments.intListValue(new String[] { "--elevators", "2,x" }, 0));
+        assertEquals("--elevators needs a whole number but was 'x'", invalid.getMessage());
+    }
+}
@@ -0,0 +1,193 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncEventSinkTest {
+    private static String[] lines(StringWriter output) {
+        return output.toString().split(System.lineSeparator());
+    }
+
+    @Test
+    void testEventsAreRenderedInOrder() {
+        StringWriter output = new StringWriter();
+        AsyncEventSink sink = new AsyncEventSink(new EventRenderer(output, true), AsyncEventSink.OverflowPolicy.BLOCK,
+                4);
+
+        for (int floor = 0; floor < 100; floor++) {
+            sink.publish(SimulationEvent.FLOOR_REACHED, 1, floor, Direction.NONE, 100);
+        }
+        sink.close();
+
+        String[] lines = lines(output);
+        assertEquals(100, lines.length);
+        assertEquals("[MOVING] Current floor is now: 42, destination floor is: 100", lines[42]);
+        assertEquals(0, sink.getDroppedEvents());
+    }
+
+    @Test
+    void testManyPublishersWithBackpressure() throws InterruptedException {
+        StringWriter output = new StringWriter();
+        AsyncEventSink sink = new AsyncEventSink(new EventRenderer(output, true), AsyncEventSink.OverflowPolicy.BLOCK,
+                8);
+        int publishers = 4;
+        int eventsPerPublisher = 5_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int id = 1; id <= publishers; id++) {
+            int elevatorId = id;
+            threads.add(new Thread(() -> {
+                for (int floor = 0; floor < eventsPerPublisher; floor++) {
+                    sink.publish(SimulationEvent.HALL_CALL_ASSIGNED, elevatorId, floor, Direction.UP, 0);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        sink.close();
+
+        int[] nextFloor = new int[publishers + 1];
+        for (String line : lines(output)) {
+            int elevatorId = Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+            assertEquals("[HALL_CALL] Assigned floor: " + nextFloor[elevatorId] + ", direction: UP to elevator "
+                    + elevatorId, line);
+            nextFloor[elevatorId]++;
+        }
+        for (int id = 1; id <= publishers; id++) {
+            assertEquals(eventsPerPublisher, nextFloor[id]);
+        }
+    }
+
+    @Test
+    void testEventsPublishedWhileClosingAreRenderedOrDropped() throws InterruptedException {
+        StringWriter output = new StringWriter();
+        AsyncEventSink sink = new AsyncEventSink(new EventRenderer(output, true), AsyncEventSink.OverflowPolicy.BLOCK,
+                8);
+        int publishers = 4;
+        int eventsPerPublisher = 20_000;
+
+        CountDownLatch started = new CountDownLatch(publishers);
+        List<Thread> threads = new ArrayList<>();
+        for (int id = 1; id <= publishers; id++) {
+            int elevatorId = id;
+            threads.add(new Thread(() -> {
+                started.countDown();
+                for (int floor = 0; floor < eventsPerPublisher; floor++) {
+                    sink.publish(SimulationEvent.FLOOR_REACHED, elevatorId, floor, Direction.NONE, 0);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        started.await();
+        sink.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long rendered = 0;
+        for (String line : lines(output)) {
+            if (line.startsWith("[MOVING]")) {
+                rendered++;
+            }
+        }
+        assertEquals((long) publishers * eventsPerPublisher, rendered + sink.getDroppedEvents());
+    }
+
+    @Test
+    void testDropWhenFull() throws InterruptedException {
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter output = new StringWriter() {
+            @Override
+            public StringWriter append(CharSequence text) {
+                rendering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.append(text);
+            }
+        };
+        AsyncEventSink sink = new AsyncEventSink(new EventRenderer(output, true), AsyncEventSink.OverflowPolicy.DROP,
+                2);
+
+        // The first event is taken by the renderer, which then stalls while its
+        // slot is still in use, so only one more event fits
+        sink.publish(SimulationEvent.DOORS_OPENED, 1, 0, Direction.NONE, 0);
+        rendering.await();
+        for (int i = 0; i < 10; i++) {
+            sink.publish(SimulationEvent.DOORS_CLOSED, 1, 0, Direction.NONE, 0);
+        }
+        release.countDown();
+        sink.close();
+
+        assertEquals(9, sink.getDroppedEvents());
+        String[] lines = lines(output);
+        assertEquals(3, lines.length);
+        assertEquals("[EVENTS] 9 events dropped.", lines[2]);
+    }
+
+    @Test
+    void testIdleConsumerIsUnparkedByPublisher() throws InterruptedException {
+        CountDownLatch firstRendered = new CountDownLatch(1);
+        CountDownLatch secondRendered = new CountDownLatch(2);
+        StringWriter output = new StringWriter() {
+            @Override
+            public StringWriter append(CharSequence text) {
+                firstRendered.countDown();
+                secondRendered.countDown();
+                return super.append(text);
+            }
+        };
+        AsyncEventSink sink = new AsyncEventSink(new EventRenderer(output, true), AsyncEventSink.OverflowPolicy.BLOCK,
+                4);
+
+        sink.publish(SimulationEvent.DOORS_OPENED, 1, 0, Direction.NONE, 0);
+        assertTrue(firstRendered.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50); // Lets the consumer park with nothing to render
+        sink.publish(SimulationEvent.DOORS_CLOSED, 1, 0, Direction.NONE, 0);
+
+        assertTrue(secondRendered.await(5, TimeUnit.SECONDS));
+        sink.close();
+    }
+
+    @Test
+    void testElevatorPublishesEvents() {
+        StringWriter output = new StringWriter();
+        AsyncEventSink sink = new AsyncEventSink(new EventRenderer(output, true),
+                AsyncEventSink.OverflowPolicy.BLOCK);
+        Elevator elevator = new Elevator(1, 0);
+        elevator.setEventSink(sink);
+
+        elevator.pressElevatorButton(new Button(2, Direction.NONE));
+        elevator.pressElevatorButton(new Button(2, Direction.NONE));
+        sink.close();
+
+        assertEquals("[BUTTON_PRESS] Pressing button for floor: 2, direction: NONE", lines(output)[0]);
+        assertEquals("[BUTTON_PRESS] Button for floor: 2, direction: NONE is already pressed. Ignoring request.",
+                lines(output)[2]);
+    }
+
+    @Test
+    void testCapacityMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsyncEventSink(new EventRenderer(new StringWriter(), true),
+                        AsyncEventSink.OverflowPolicy.DROP, 3));
+    }
+}
@@ -0,0 +1,144 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class BinaryButtonPressSourceTest {
+    private static Path createTraceFile() throws IOException {
+        Path trace = Files.createTempFile("trace", ".elvb");
+        trace.toFile().deleteOnExit();
+        return trace;
+    }
+
+    private static List<String> readAll(ButtonPressSource source) {
+        List<String> rows = new ArrayList<>();
+        while (source.next()) {
+            rows.add(source.getFloor() + "," + source.getDirection() + "," + source.getDelayBeforePressing());
+        }
+        return rows;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 7, 1000 })
+    void testRoundTrip(int recordsPerWindow) throws IOException {
+        Path trace = createTraceFile();
+
+        long written = BinaryTraceConverter.convert(new RandomButtonPressSource(3, 500, -5, 40, 1000), trace);
+        BinaryButtonPressSource source = new BinaryButtonPressSource(trace, recordsPerWindow);
+
+        assertEquals(500, written);
+        assertEquals(500, source.getNumberOfRecords());
+        assertEquals(readAll(new RandomButtonPressSource(3, 500, -5, 40, 1000)), readAll(source));
+        assertFalse(source.next());
+        assertEquals(BinaryButtonPressSource.HEADER_SIZE + 500 * BinaryButtonPressSource.RECORD_SIZE,
+                Files.size(trace));
+    }
+
+    @Test
+    void testConvertCsv() throws IOException {
+        Path trace = createTraceFile();
+
+        BinaryTraceConverter.convert(new MappedCsvButtonPressSource(ButtonPresser.DEFAULT_CSV_FILE), trace);
+
+        assertEquals(readAll(new MappedCsvButtonPressSource(ButtonPresser.DEFAULT_CSV_FILE)),
+                readAll(new BinaryButtonPressSource(trace.toString())));
+    }
+
+    @Test
+    void testLargeDelays() throws IOException {
+        Path trace = createTraceFile();
+        List<ButtonPresser.ButtonPressEvent> events = List.of(
+                new ButtonPresser.ButtonPressEvent(1, Direction.UP, 0xFFFFFFFFL));
+
+        BinaryTraceConverter.convert(new ButtonPresser(null, events).getButtonPressSource(), trace);
+
+        assertEquals(List.of("1,UP,4294967295"), readAll(new BinaryButtonPressSource(trace.toString())));
+        assertThrows(IllegalArgumentException.class, () -> BinaryTraceConverter.convert(new ButtonPresser(null,
+                List.of(new ButtonPresser.ButtonPressEvent(1, Direction.UP, 0x100000000L))).getButtonPressSource(),
+                trace));
+    }
+
+    @Test
+    void testDestinations() throws IOException {
+        Path trace = createTraceFile();
+        List<ButtonPresser.ButtonPressEvent> events = List.of(
+                new ButtonPresser.ButtonPressEvent(0, 12, 100),
+                new ButtonPresser.ButtonPressEvent(4, Direction.NONE, 200),
+                new ButtonPresser.ButtonPressEvent(9, -1, 300));
+
+        BinaryTraceConverter.convert(new ButtonPresser(null, events).getButtonPressSource(), trace);
+        BinaryButtonPressSource source = new BinaryButtonPressSource(trace.toString());
+
+        List<String> rows = new ArrayList<>();
+        while (source.next()) {
+            rows.add(source.getFloor() + "," + source.getDirection() + "," + source.getDestinationFloor());
+        }
+        assertEquals(List.of("0,UP,12", "4,NONE," + Button.NO_DESTINATION, "9,DOWN,-1"), rows);
+    }
+
+    @Test
+    void testVersionOneTrace() throws IOException {
+        Path trace = createTraceFile();
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryButtonPressSource.HEADER_SIZE
+                + 2 * BinaryButtonPressSource.RECORD_SIZE_WITHOUT_DESTINATIONS);
+        buffer.put(BinaryButtonPressSource.MAGIC);
+        buffer.putShort((short) BinaryButtonPressSource.VERSION_WITHOUT_DESTINATIONS);
+        buffer.putShort((short) BinaryButtonPressSource.RECORD_SIZE_WITHOUT_DESTINATIONS);
+        buffer.putLong(2);
+        buffer.putInt(3).put((byte) Direction.UP.ordinal()).putInt(100);
+        buffer.putInt(-1).put((byte) Direction.NONE.ordinal()).putInt(50);
+        Files.write(trace, buffer.array());
+
+        BinaryButtonPressSource source = new BinaryButtonPressSource(trace.toString());
+
+        assertEquals(2, source.getNumberOfRecords());
+        assertEquals(List.of("3,UP,100", "-1,NONE,50"), readAll(source));
+        assertEquals(Button.NO_DESTINATION, source.getDestinationFloor());
+    }
+
+    @Test
+    void testCorruptDirectionIsSkipped() throws IOException {
+        Path trace = createTraceFile();
+        BinaryTraceConverter.convert(new RandomButtonPressSource(3, 3, 0, 10, 1000), trace);
+        byte[] bytes = Files.readAllBytes(trace);
+        bytes[BinaryButtonPressSource.HEADER_SIZE + BinaryButtonPressSource.RECORD_SIZE + 4] = 42;
+        Files.write(trace, bytes);
+
+        List<String> expected = readAll(new RandomButtonPressSource(3, 3, 0, 10, 1000));
+        BinaryButtonPressSource source = new BinaryButtonPressSource(trace.toString());
+
+        assertEquals(List.of(expected.get(0), expected.get(2)), readAll(source));
+        assertEquals(1, source.getMalformedRecords());
+    }
+
+    @Test
+    void testInvalidTrace() throws IOException {
+        Path trace = createTraceFile();
+        Files.write(trace, "2, NONE, 100\n4, DOWN, 100\n".getBytes());
+
+        assertFalse(new BinaryButtonPressSource(trace.toString()).next());
+    }
+
+    @Test
+    void testTruncatedTrace() throws IOException {
+        Path trace = createTraceFile();
+        BinaryTraceConverter.convert(new RandomButtonPressSource(3, 10, 0, 10, 1000), trace);
+        byte[] bytes = Files.readAllBytes(trace);
+        Files.write(trace, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertEquals(9, readAll(new BinaryButtonPressSource(trace.toString())).size());
+    }
+}
@@ -1,6 +1,12 @@
 package com.elevatorsimulation;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
@@ -33,4 +39,37 @@ public class ButtonTest {
         // Other Failures
         assertEquals(false, button1.equals(button5));
     }
+
+    @Test
+    void testButtonsAreShared() {
+        assertSame(Button.of(3, Direction.UP), Button.of(3, Direction.UP));
+        assertSame(Button.of(-128, Direction.NONE), Button.of(-128, Direction.NONE));
+        assertEquals(new Button(1023, Direction.DOWN), Button.of(1023, Direction.DOWN));
+        assertEquals(Direction.DOWN, Button.of(3, Direction.DOWN).direction);
+
+        // Outside of the shared range a new button is created
+        assertNotSame(Button.of(1024, Direction.UP), Button.of(1024, Direction.UP));
+        assertEquals(Button.of(-129, Direction.UP), Button.of(-129, Direction.UP));
+    }
+
+    @Test
+    void testDestinationButtons() {
+        Button up = Button.destination(0, 12);
+        Button down = Button.destination(5, -2);
+
+        assertTrue(up.hasDestination());
+        assertEquals(Direction.UP, up.direction);
+        assertEquals(12, up.destinationFloor);
+        assertEquals(Direction.DOWN, down.direction);
+        assertFalse(Button.of(0, Direction.UP).hasDestination());
+
+        assertEquals(Button.destination(0, 12), up);
+        assertEquals(Button.destination(0, 12).hashCode(), up.hashCode());
+        assertNotEquals(Button.destination(0, 11), up);
+        assertNotEquals(Button.of(0, Direction.UP), up);
+        assertEquals("Button{floor=0, direction=UP, destinationFloor=12}", up.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> Button.destination(3, 3));
+        assertThrows(IllegalArgumentException.class, () -> Button.destination(3, Button.NO_DESTINATION));
+    }
 }
@@ -0,0 +1,132 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DestinationDispatchExternalSchedulerTest {
+    private VirtualClock clock;
+    private Elevator firstElevator;
+    private Elevator secondElevator;
+
+    @BeforeEach
+    void init() {
+        clock = new VirtualClock();
+        firstElevator = new Elevator(1, 0, clock);
+        secondElevator = new Elevator(2, 0, clock);
+    }
+
+    @Test
+    void testPassengersWithNearbyDestinationsAreGrouped() {
+        DestinationDispatchExternalScheduler scheduler = new DestinationDispatchExternalScheduler(
+                List.of(firstElevator, secondElevator));
+
+        scheduler.pressElevatorButton(Button.destination(0, 10));
+        scheduler.pressElevatorButton(Button.destination(0, 10));
+        scheduler.pressElevatorButton(Button.destination(0, 3));
+        scheduler.pressElevatorButton(Button.destination(0, 11));
+
+        assertEquals(firstElevator, scheduler.getAssignedElevator(Button.destination(0, 10)));
+        assertEquals(firstElevator, scheduler.getAssignedElevator(Button.destination(0, 11)));
+        assertEquals(secondElevator, scheduler.getAssignedElevator(Button.destination(0, 3)));
+        assertNull(scheduler.getAssignedElevator(Button.destination(0, 7)));
+        assertEquals(3, scheduler.getWaitingPassengers(firstElevator));
+        assertEquals(1, scheduler.getWaitingPassengers(secondElevator));
+    }
+
+    @Test
+    void testFullTripsAreNotJoined() {
+        DestinationDispatchExternalScheduler scheduler = new DestinationDispatchExternalScheduler(
+                List.of(firstElevator, secondElevator), 2);
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.pressElevatorButton(Button.destination(0, 10));
+        }
+
+        // Once both trips are full, the cheapest elevator takes the passenger
+        assertEquals(3, scheduler.getWaitingPassengers(firstElevator));
+        assertEquals(2, scheduler.getWaitingPassengers(secondElevator));
+    }
+
+    @Test
+    void testConventionalButtonsAreScheduledByNearestCar() {
+        DestinationDispatchExternalScheduler scheduler = new DestinationDispatchExternalScheduler(
+                List.of(firstElevator, secondElevator));
+        Button button = Button.of(5, Direction.UP);
+
+        scheduler.pressElevatorButton(button);
+
+        assertNotNull(scheduler.getAssignedElevator(button));
+        assertEquals(0, scheduler.getWaitingPassengers(firstElevator));
+    }
+
+    @Test
+    void testPassengersAreDeliveredToTheirDestinations() {
+        DestinationDispatchExternalScheduler scheduler = new DestinationDispatchExternalScheduler(
+                List.of(firstElevator, secondElevator));
+        ButtonPresser buttonPresser = new ButtonPresser(scheduler, List.of(
+                new ButtonPresser.ButtonPressEvent(6, 2, 100),
+                new ButtonPresser.ButtonPressEvent(0, 8, 0),
+                new ButtonPresser.ButtonPressEvent(0, 8, 0)));
+
+        new DiscreteEventSimulation(clock, buttonPresser, firstElevator, secondElevator).run();
+
+        assertEquals(0, scheduler.getWaitingPassengers(firstElevator));
+        assertEquals(0, scheduler.getWaitingPassengers(secondElevator));
+        assertEquals(2, firstElevator.getCurrentFloor());
+        assertEquals(8, secondElevator.getCurrentFloor());
+        // Every passenger is a request, and each elevator makes one car call
+        assertEquals(2, firstElevator.getStatsCollector().getSummaryStatistics().getCount());
+        assertEquals(3, secondElevator.getStatsCollector().getSummaryStatistics().getCount());
+    }
+
+    /**
+     * Returns the combined wait time and completion time histograms of the
+     * elevators.
+     */
+    private static LatencyHistogram[] simulateUpPeak(DispatchMode dispatchMode, TrafficGenerator[] generator) {
+        VirtualClock clock = new VirtualClock();
+        List<Elevator> elevators = new ArrayList<>();
+        for (int id = 1; id <= 4; id++) {
+            elevators.add(new Elevator(id, 0, clock));
+        }
+        SimulationConfig config = new SimulationConfig(new ElevatorConfig(4, 0, 500, 500,
+                SchedulerType.LOOK_WITH_DIRECTION), dispatchMode, new TrafficGenerator.Building(0, 20, 0, 1000),
+                TrafficGenerator.Pattern.UP_PEAK, 12, 1000, 1, null);
+        ButtonPresser buttonPresser = config.createButtonPresser(elevators,
+                config.createButtonPressHandler(elevators));
+        generator[0] = (TrafficGenerator) buttonPresser.getButtonPressHandler();
+
+        new DiscreteEventSimulation(clock, buttonPresser, elevators.toArray(new Elevator[0])).run();
+
+        LatencyHistogram waitTimes = new LatencyHistogram();
+        LatencyHistogram completionTimes = new LatencyHistogram();
+        for (Elevator elevator : elevators) {
+            waitTimes.add(elevator.getStatsCollector().getWaitTimeHistogram());
+            completionTimes.add(elevator.getStatsCollector().getCompletionTimeHistogram());
+        }
+        return new LatencyHistogram[] { waitTimes, completionTimes };
+    }
+
+    @Test
+    void testDestinationDispatchImprovesUpPeak() {
+        TrafficGenerator[] conventionalGenerator = new TrafficGenerator[1];
+        TrafficGenerator[] destinationGenerator = new TrafficGenerator[1];
+        LatencyHistogram[] conventional = simulateUpPeak(DispatchMode.CONVENTIONAL, conventionalGenerator);
+        LatencyHistogram[] destination = simulateUpPeak(DispatchMode.DESTINATION, destinationGenerator);
+
+        assertEquals(1000, destinationGenerator[0].getPassengersBoarded());
+        assertEquals(1000, conventionalGenerator[0].getPassengersBoarded());
+        // Every passenger waits less on average, even though conventional hall
+        // calls only count the wait of the first passenger at each call
+        assertTrue(destination[0].getMean() < conventional[0].getMean());
+        assertTrue(destination[1].getMean() < conventional[1].getMean());
+    }
+}
@@ -0,0 +1,86 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.LongSummaryStatistics;
+
+import org.junit.jupiter.api.Test;
+
+public class DiscreteEventSimulationTest {
+
+    private static LongSummaryStatistics simulate(List<ButtonPresser.ButtonPressEvent> events) {
+        VirtualClock clock = new VirtualClock();
+        Elevator elevator = new Elevator(1, 0, clock);
+        ButtonPresser buttonPresser = new ButtonPresser(elevator, events);
+        new DiscreteEventSimulation(clock, buttonPresser, elevator).run();
+        return elevator.getStatsCollector().getSummaryStatistics();
+    }
+
+    @Test
+    void testIdleElevatorWakesUpImmediately() {
+        // Pressed at 100 ms and picked up straight away, then 3 floors of travel
+        LongSummaryStatistics stats = simulate(List.of(
+                new ButtonPresser.ButtonPressEvent(3, Direction.NONE, 100)));
+
+        assertEquals(1, stats.getCount());
+        assertEquals(1500, stats.getMax());
+    }
+
+    @Test
+    void testRequestOnCurrentFloor() {
+        LongSummaryStatistics stats = simulate(List.of(
+                new ButtonPresser.ButtonPressEvent(0, Direction.UP, 100)));
+
+        assertEquals(1, stats.getCount());
+        assertEquals(0, stats.getMax());
+    }
+
+    @Test
+    void testRepeatedButtonPressIsIgnored() {
+        LongSummaryStatistics stats = simulate(List.of(
+                new ButtonPresser.ButtonPressEvent(2, Direction.NONE, 100),
+                new ButtonPresser.ButtonPressEvent(2, Direction.NONE, 100)));
+
+        assertEquals(1, stats.getCount());
+        assertEquals(1000, stats.getMax());
+    }
+
+    @Test
+    void testNewRequestIsPickedUpWhileMoving() {
+        // Floor 4 is requested first, floor 2 is requested after passing floor 1
+        LongSummaryStatistics stats = simulate(List.of(
+                new ButtonPresser.ButtonPressEvent(4, Direction.NONE, 0),
+                new ButtonPresser.ButtonPressEvent(2, Direction.NONE, 600)));
+
+        assertEquals(2, stats.getCount());
+        assertEquals(400, stats.getMin()); // Floor 2: pressed at 600, reached at 1000
+        assertEquals(2500, stats.getMax()); // Floor 4: pressed at 0, reached at 2500
+    }
+
+    @Test
+    void testRequestsForSameFloorAreServedTogether() {
+        // Both are completed when the elevator reaches floor 3 at 1500 ms, rather
+        // than the UP call waiting for another door cycle
+        LongSummaryStatistics stats = simulate(List.of(
+                new ButtonPresser.ButtonPressEvent(3, Direction.NONE, 0),
+                new ButtonPresser.ButtonPressEvent(3, Direction.UP, 100)));
+
+        assertEquals(2, stats.getCount());
+        assertEquals(1400, stats.getMin());
+        assertEquals(1500, stats.getMax());
+    }
+
+    @Test
+    void testConfiguredTimings() {
+        VirtualClock clock = new VirtualClock();
+        Elevator elevator = new Elevator(1, 0, clock, SchedulerType.LOOK_WITH_DIRECTION::create, 1000, 2000);
+        ButtonPresser buttonPresser = new ButtonPresser(elevator, List.of(
+                new ButtonPresser.ButtonPressEvent(3, Direction.NONE, 0)));
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(clock, buttonPresser, elevator);
+        simulation.run();
+
+        assertEquals(3000, elevator.getStatsCollector().getSummaryStatistics().getMax());
+        assertEquals(5000, simulation.getSimulatedTimeInMs()); // Including the doors being open
+    }
+}
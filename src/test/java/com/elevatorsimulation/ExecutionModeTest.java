@@ -0,0 +1,53 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.jupiter.api.Test;
+
+public class ExecutionModeTest {
+
+    @Test
+    void testThreadsAreNamed() {
+        ThreadFactory factory = ExecutionMode.PLATFORM.threadFactory("elevator-");
+
+        assertEquals("elevator-1", factory.newThread(() -> {
+        }).getName());
+        assertEquals("elevator-2", factory.newThread(() -> {
+        }).getName());
+    }
+
+    @Test
+    void testElevatorsRunInEveryMode() throws InterruptedException {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            ThreadFactory factory = mode.threadFactory("elevator-");
+            List<Elevator> elevators = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Elevator elevator = new Elevator(i + 1, 0);
+                elevators.add(elevator);
+                threads.add(factory.newThread(elevator));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Elevator elevator : elevators) {
+                // Served on the current floor, so no travelling is needed
+                elevator.pressElevatorButton(new Button(0, Direction.UP));
+                elevator.terminate();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            for (Elevator elevator : elevators) {
+                assertEquals(1, elevator.getStatsCollector().getSummaryStatistics().getCount(), mode.name());
+            }
+            assertTrue(threads.get(0).getName().startsWith("elevator-"));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class IndexedLookWithDirectionInternalSchedulerTest {
+    private IndexedLookWithDirectionInternalScheduler scheduler;
+    private Elevator elevator;
+
+    @Test
+    void testHasRequests() {
+        elevator = new Elevator(1, 0);
+        scheduler = new IndexedLookWithDirectionInternalScheduler(elevator);
+
+        assertEquals(false, scheduler.hasRequests());
+
+        Request myRequest = new Request(1);
+        scheduler.addRequest(myRequest);
+        assertEquals(true, scheduler.hasRequests());
+
+        scheduler.removeRequest(scheduler.getCurrentRequest());
+        assertEquals(false, scheduler.hasRequests());
+        assertNull(scheduler.getCurrentRequest());
+    }
+
+    @ParameterizedTest
+    @MethodSource("com.elevatorsimulation.LookWithDirectionInternalSchedulerTest#testSchedulingDirection")
+    void testSchedulingDirection(int startingFloor, int requestedFloor, Direction direction,
+            Direction expectedDirection) {
+        elevator = new Elevator(1, startingFloor);
+        scheduler = new IndexedLookWithDirectionInternalScheduler(elevator);
+
+        assertEquals(Direction.NONE, scheduler.getSchedulingDirection());
+
+        Request myRequest = new Request(requestedFloor, direction);
+        scheduler.addRequest(myRequest);
+        assertEquals(expectedDirection, scheduler.getSchedulingDirection());
+
+        myRequest = scheduler.getCurrentRequest();
+        scheduler.removeRequest(myRequest);
+        assertEquals(Direction.NONE, scheduler.getSchedulingDirection());
+    }
+
+    @ParameterizedTest
+    @MethodSource("com.elevatorsimulation.LookWithDirectionInternalSchedulerTest#testFloorScheduling")
+    void testFloorScheduling(int startingFloor, int[] floorsToVisit, Direction[] requestedDirections,
+            int[] expectedOrder) {
+        elevator = new Elevator(1, startingFloor);
+        scheduler = new IndexedLookWithDirectionInternalScheduler(elevator);
+
+        for (int i = 0; i < floorsToVisit.length; i++) {
+            Request request = new Request(floorsToVisit[i], requestedDirections[i]);
+            scheduler.addRequest(request);
+        }
+
+        for (int expectedFloor : expectedOrder) {
+            Request request = scheduler.getCurrentRequest();
+            assertEquals(expectedFloor, request.getFloorNumber());
+            scheduler.removeRequest(request);
+        }
+    }
+
+    @Test
+    void testFloorRangeGrows() {
+        elevator = new Elevator(1, 0);
+        scheduler = new IndexedLookWithDirectionInternalScheduler(elevator);
+
+        int[] floors = { 5, 20000, -15000, 300, -64, 64 };
+        for (int floor : floors) {
+            scheduler.addRequest(new Request(floor));
+        }
+
+        int[] expectedOrder = { 5, 64, 300, 20000, -64, -15000 };
+        for (int expectedFloor : expectedOrder) {
+            Request request = scheduler.getCurrentRequest();
+            assertEquals(expectedFloor, request.getFloorNumber());
+            elevator.setCurrentFloor(expectedFloor);
+            scheduler.removeRequest(request);
+        }
+        assertEquals(false, scheduler.hasRequests());
+    }
+
+    /**
+     * Drives both schedulers with the same random requests while moving the
+     * elevator to each stop, and checks that they agree on every stop. At most one
+     * request is outstanding per floor, since the order of requests on the same
+     * floor is not defined for the priority queues.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = { 1, 2, 3, 4, 5 })
+    void testSameStopsAsPriorityQueueScheduler(long seed) {
+        Random random = new Random(seed);
+        elevator = new Elevator(1, 0);
+        scheduler = new IndexedLookWithDirectionInternalScheduler(elevator);
+        LookWithDirectionInternalScheduler expectedScheduler = new LookWithDirectionInternalScheduler(elevator);
+        List<Request> outstanding = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5) {
+                int floor = random.nextInt(200) - 100;
+                if (outstanding.stream().noneMatch(request -> request.getFloorNumber() == floor)) {
+                    Request request = new Request(floor, Direction.values()[random.nextInt(3)]);
+                    outstanding.add(request);
+                    scheduler.addRequest(request);
+                    expectedScheduler.addRequest(request);
+                }
+            } else if (action < 9) {
+                Request expected = expectedScheduler.getCurrentRequest();
+                assertEquals(expected, scheduler.getCurrentRequest());
+                if (expected != null) {
+                    elevator.setCurrentFloor(expected.getFloorNumber());
+                    outstanding.remove(expected);
+                    scheduler.removeRequest(expected);
+                    expectedScheduler.removeRequest(expected);
+                }
+            } else if (!outstanding.isEmpty()) {
+                Request request = outstanding.get(random.nextInt(outstanding.size()));
+                boolean cancelled = expectedScheduler.cancelRequest(request);
+                assertEquals(cancelled, scheduler.cancelRequest(request));
+                outstanding.remove(request);
+            }
+
+            assertEquals(expectedScheduler.getSchedulingDirection(), scheduler.getSchedulingDirection());
+            assertEquals(expectedScheduler.hasRequests(), scheduler.hasRequests());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler = null;
+        elevator = null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class LatencyHistogramTest {
+    @Test
+    void testBucketsCoverAllValues() {
+        assertEquals(0, LatencyHistogram.bucketIndex(0));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueInBucket(LatencyHistogram.BUCKET_COUNT - 1));
+
+        for (int index = 1; index < LatencyHistogram.BUCKET_COUNT; index++) {
+            long lowestValue = LatencyHistogram.highestValueInBucket(index - 1) + 1;
+            assertEquals(index, LatencyHistogram.bucketIndex(lowestValue));
+            assertEquals(index, LatencyHistogram.bucketIndex(LatencyHistogram.highestValueInBucket(index)));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = { 0, 50, 90, 99, 99.9, 100 })
+    void testPercentilesAreWithinBucketPrecision(double percentile) {
+        SplittableRandom random = new SplittableRandom(5);
+        long[] values = new long[10_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) (-Math.log(1 - random.nextDouble()) * 5_000_000_000.0);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        long exact = values[Math.max(0, (int) Math.ceil(percentile / 100 * values.length) - 1)];
+        long estimate = histogram.getValueAtPercentile(percentile);
+
+        assertTrue(estimate >= exact, estimate + " < " + exact);
+        assertTrue(estimate <= exact + exact / 64, estimate + " > " + exact);
+    }
+
+    @Test
+    void testMerge() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) {
+            (value % 2 == 0 ? first : second).record(value * 1000);
+        }
+
+        LatencyHistogram merged = first.copy();
+        merged.add(second);
+
+        assertEquals(50, first.getCount());
+        assertEquals(100, merged.getCount());
+        assertEquals(1000, merged.getMin());
+        assertEquals(100_000, merged.getMax());
+        assertEquals(50_500, merged.getMean(), 1e-9);
+        assertTrue(Math.abs(merged.getValueAtPercentile(50) - 50_000) <= 50_000 / 64);
+        assertThrows(IllegalArgumentException.class, () -> merged.record(-1));
+        assertThrows(IllegalArgumentException.class, () -> merged.getValueAtPercentile(101));
+    }
+
+    @Test
+    void testStatsCollectorRecordsWaitTimesForExternalRequests() {
+        StatsCollector statsCollector = new StatsCollector();
+        long start = 7_000_000_000L;
+
+        statsCollector.addCompletedRequest(new Request(1, Direction.UP, start), start + 2_000_000_000L);
+        statsCollector.addCompletedRequest(new Request(3, Direction.NONE, start), start + 5_000_000_000L);
+
+        assertEquals(2, statsCollector.getCompletionTimeHistogram().getCount());
+        assertEquals(1, statsCollector.getWaitTimeHistogram().getCount());
+        assertEquals(2_000_000_000L, statsCollector.getWaitTimeHistogram().getMax());
+        assertEquals(5_000_000_000L, statsCollector.getCompletionTimeHistogram().getValueAtPercentile(100));
+    }
+}
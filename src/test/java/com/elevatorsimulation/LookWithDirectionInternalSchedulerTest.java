@@ -2,6 +2,8 @@ package com.elevatorsimulation;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterEach;
@@ -106,6 +108,28 @@ public class LookWithDirectionInternalSchedulerTest {
         }
     }
 
+    @Test
+    void testRemoveServedRequestsAtSameFloor() {
+        elevator = new Elevator(1, 0);
+        scheduler = new LookWithDirectionInternalScheduler(elevator);
+        Request carCall = new Request(3, Direction.NONE);
+        Request upCall = new Request(3, Direction.UP);
+        Request downCall = new Request(3, Direction.DOWN);
+        scheduler.addRequest(carCall);
+        scheduler.addRequest(upCall);
+        scheduler.addRequest(downCall);
+        scheduler.addRequest(new Request(5, Direction.NONE));
+
+        List<Request> servedRequests = new ArrayList<>();
+        scheduler.removeServedRequests(scheduler.getCurrentRequest(), servedRequests);
+
+        // The DOWN call waits until the elevator comes back down from floor 5
+        assertEquals(2, servedRequests.size());
+        assertEquals(true, servedRequests.contains(carCall));
+        assertEquals(true, servedRequests.contains(upCall));
+        assertEquals(5, scheduler.getCurrentRequest().getFloorNumber());
+    }
+
     @AfterEach
     void tearDown() {
         scheduler = null;
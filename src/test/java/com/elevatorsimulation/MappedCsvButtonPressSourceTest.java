@@ -0,0 +1,90 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class MappedCsvButtonPressSourceTest {
+    private static Path writeTrace(String contents) throws IOException {
+        Path trace = Files.createTempFile("trace", ".csv");
+        trace.toFile().deleteOnExit();
+        Files.write(trace, contents.getBytes(StandardCharsets.US_ASCII));
+        return trace;
+    }
+
+    private static List<String> readAll(MappedCsvButtonPressSource source) {
+        List<String> rows = new ArrayList<>();
+        while (source.next()) {
+            rows.add(source.getFloor() + "," + source.getDirection() + "," + source.getDelayBeforePressing());
+        }
+        return rows;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 16, 17, 23, 1024 })
+    void testRowsAcrossWindows(int windowSize) throws IOException {
+        Path trace = writeTrace("2, NONE, 100\n4,DOWN,100\r\n  -3 ,\tUP , 400\n10, NONE, 0");
+
+        MappedCsvButtonPressSource source = new MappedCsvButtonPressSource(trace, windowSize);
+
+        assertEquals(List.of("2,NONE,100", "4,DOWN,100", "-3,UP,400", "10,NONE,0"), readAll(source));
+        assertEquals(0, source.getMalformedRows());
+        assertFalse(source.next());
+    }
+
+    @Test
+    void testMalformedRowsAreSkipped() throws IOException {
+        Path trace = writeTrace("1, UP, 100\n\n2, SIDEWAYS, 5\n3, UP\nx, UP, 5\n4, UP, 5, 6, 7\n"
+                + "99999999999, UP, 5\n5, DOWN, -1\n6, DOWN, 200\n");
+
+        MappedCsvButtonPressSource source = new MappedCsvButtonPressSource(trace, 1024);
+
+        assertEquals(List.of("1,UP,100", "6,DOWN,200"), readAll(source));
+        assertEquals(7, source.getMalformedRows());
+    }
+
+    @Test
+    void testDestinationColumn() throws IOException {
+        Path trace = writeTrace("0, UP, 100, 12\n9, DOWN, 50, -1\n3, UP, 5\n4, UP, 5, 2\n6, DOWN, 5, 6\n");
+
+        MappedCsvButtonPressSource source = new MappedCsvButtonPressSource(trace, 1024);
+
+        List<String> rows = new ArrayList<>();
+        while (source.next()) {
+            rows.add(source.getFloor() + "," + source.getDirection() + "," + source.getDestinationFloor());
+        }
+        assertEquals(List.of("0,UP,12", "9,DOWN,-1", "3,UP," + Button.NO_DESTINATION), rows);
+        assertEquals(2, source.getMalformedRows());
+    }
+
+    @Test
+    void testMissingFileHasNoButtonPresses() throws IOException {
+        Path trace = writeTrace("");
+        Files.delete(trace);
+
+        MappedCsvButtonPressSource source = new MappedCsvButtonPressSource(trace.toString());
+
+        assertFalse(source.next());
+    }
+
+    @Test
+    void testDefaultTrace() {
+        MappedCsvButtonPressSource source = new MappedCsvButtonPressSource(ButtonPresser.DEFAULT_CSV_FILE);
+
+        List<String> rows = readAll(source);
+
+        assertEquals(11, rows.size());
+        assertEquals("-2,NONE,100", rows.get(0));
+        assertEquals("2,DOWN,15000", rows.get(10));
+    }
+}
@@ -0,0 +1,107 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricsExporterTest {
+
+    private static List<Elevator> simulate(List<ButtonPresser.ButtonPressEvent> events) {
+        VirtualClock clock = new VirtualClock();
+        Elevator elevator = new Elevator(1, 0, clock);
+        ButtonPresser buttonPresser = new ButtonPresser(elevator, events);
+        new DiscreteEventSimulation(clock, buttonPresser, elevator).run();
+        return List.of(elevator);
+    }
+
+    @Test
+    void testElevatorMetricsAccountForAllOfTheTime() {
+        // Two stops of 3 floors each, so 3 seconds moving and 1 second with the
+        // doors open, and idle for the rest of the time
+        Elevator elevator = simulate(List.of(
+                new ButtonPresser.ButtonPressEvent(3, Direction.NONE, 100),
+                new ButtonPresser.ButtonPressEvent(0, Direction.NONE, 3000))).get(0);
+        ElevatorMetrics.Snapshot metrics = elevator.getMetrics();
+
+        assertEquals(0, metrics.floor);
+        assertEquals(ElevatorMetrics.State.IDLE, metrics.state);
+        assertEquals(2, metrics.doorCycles);
+        assertEquals(3_000_000_000L, metrics.movingTimeInNs);
+        assertEquals(1_000_000_000L, metrics.doorsOpenTimeInNs);
+        assertEquals(elevator.getClock().nanoTime(),
+                metrics.idleTimeInNs + metrics.movingTimeInNs + metrics.doorsOpenTimeInNs);
+    }
+
+    @Test
+    void testScrapeUsesPrometheusTextFormat() {
+        List<Elevator> elevators = simulate(List.of(
+                new ButtonPresser.ButtonPressEvent(3, Direction.NONE, 100),
+                new ButtonPresser.ButtonPressEvent(2, Direction.UP, 200)));
+        String text = new MetricsExporter(elevators).scrape();
+
+        assertTrue(text.contains("# TYPE elevator_requests_completed_total counter\n"));
+        assertTrue(text.contains("elevator_requests_completed_total{elevator=\"1\"} 2\n"));
+        assertTrue(text.contains("elevator_current_floor{elevator=\"1\"} 3\n"));
+        assertTrue(text.contains("elevator_queue_depth{elevator=\"1\",queue=\"pending_down\"} 0\n"));
+        assertTrue(text.contains("elevator_wait_time_seconds_count{elevator=\"1\"} 1\n"));
+        assertTrue(text.contains("elevator_door_cycles_total{elevator=\"1\"} 2\n"));
+        assertTrue(text.contains("elevator_state_seconds_total{elevator=\"1\",state=\"moving\"} 1.5\n"));
+        for (String line : text.split("\n")) {
+            assertTrue(line.startsWith("# HELP elevator_") || line.startsWith("# TYPE elevator_")
+                    || line.matches("elevator_[a-z_]+\\{[^}]*\\} [0-9.E-]+"), line);
+        }
+    }
+
+    @Test
+    void testMBeansAreRegisteredUntilClosed() throws JMException {
+        List<Elevator> elevators = simulate(List.of(new ButtonPresser.ButtonPressEvent(4, Direction.NONE, 0)));
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = MetricsExporter.objectName(1);
+
+        MetricsExporter exporter = new MetricsExporter(elevators);
+        exporter.registerMBeans();
+        try {
+            assertEquals(4, mBeanServer.getAttribute(name, "CurrentFloor"));
+            assertEquals("IDLE", mBeanServer.getAttribute(name, "State"));
+            assertEquals(1L, mBeanServer.getAttribute(name, "RequestsCompleted"));
+            assertEquals(2.0, (double) mBeanServer.getAttribute(name, "MovingTimeInSeconds"));
+        } finally {
+            exporter.close();
+        }
+        assertFalse(mBeanServer.isRegistered(name));
+    }
+
+    @Test
+    void testHttpServerServesMetrics() throws IOException {
+        List<Elevator> elevators = simulate(List.of(new ButtonPresser.ButtonPressEvent(2, Direction.NONE, 0)));
+        MetricsExporter exporter = new MetricsExporter(elevators);
+        exporter.startHttpServer(0);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    "http://localhost:" + exporter.getPort() + "/metrics").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(MetricsExporter.CONTENT_TYPE, connection.getContentType());
+            try (InputStream in = connection.getInputStream()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(body.contains("elevator_current_floor{elevator=\"1\"} 2\n"));
+            }
+        } finally {
+            exporter.close();
+        }
+        assertEquals(-1, exporter.getPort());
+    }
+}
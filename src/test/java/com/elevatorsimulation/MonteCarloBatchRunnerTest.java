@@ -0,0 +1,42 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class MonteCarloBatchRunnerTest {
+    private static final MonteCarloBatchRunner.Scenario SCENARIO = new MonteCarloBatchRunner.Scenario(2,
+            SchedulerType.LOOK_WITH_DIRECTION, -2, 10, 200, 1000);
+
+    @Test
+    void testRunsAreDeterministicPerSeed() {
+        MonteCarloBatchRunner.RunResult first = MonteCarloBatchRunner.runOnce(SCENARIO, 7);
+        MonteCarloBatchRunner.RunResult second = MonteCarloBatchRunner.runOnce(SCENARIO, 7);
+
+        assertEquals(first.toString(), second.toString());
+        assertTrue(first.requestsCompleted > 0);
+    }
+
+    @Test
+    void testResultsDoNotDependOnParallelism() {
+        MonteCarloBatchRunner.BatchResult sequential = new MonteCarloBatchRunner(SCENARIO, 12, 100, 1).run();
+        MonteCarloBatchRunner.BatchResult parallel = new MonteCarloBatchRunner(SCENARIO, 12, 100, 4).run();
+
+        assertEquals(12, parallel.runs.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals(100 + i, parallel.runs.get(i).seed);
+            assertEquals(sequential.runs.get(i).toString(), parallel.runs.get(i).toString());
+        }
+        assertEquals(sequential.averageCompletionTimeInMs.toString(), parallel.averageCompletionTimeInMs.toString());
+    }
+
+    @Test
+    void testConfidenceInterval() {
+        MonteCarloBatchRunner.Estimate estimate = new MonteCarloBatchRunner.Estimate(new double[] { 1, 2, 3, 4 });
+
+        assertEquals(2.5, estimate.mean, 1e-9);
+        assertEquals(Math.sqrt(5.0 / 3.0), estimate.standardDeviation, 1e-9);
+        assertEquals(3.182 * Math.sqrt(5.0 / 3.0) / 2, estimate.halfWidth, 1e-9);
+    }
+}
@@ -0,0 +1,108 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NearestCarExternalSchedulerTest {
+    private Elevator lowElevator;
+    private Elevator highElevator;
+    private NearestCarExternalScheduler scheduler;
+
+    @BeforeEach
+    void init() {
+        VirtualClock clock = new VirtualClock();
+        lowElevator = new Elevator(1, 0, clock);
+        highElevator = new Elevator(2, 20, clock);
+        scheduler = new NearestCarExternalScheduler(List.of(lowElevator, highElevator));
+    }
+
+    @Test
+    void testNearestIdleElevatorIsAssigned() {
+        Button lowButton = new Button(2, Direction.UP);
+        Button highButton = new Button(17, Direction.DOWN);
+
+        scheduler.pressElevatorButton(lowButton);
+        scheduler.pressElevatorButton(highButton);
+
+        assertEquals(lowElevator, scheduler.getAssignedElevator(lowButton));
+        assertEquals(highElevator, scheduler.getAssignedElevator(highButton));
+        assertNull(scheduler.getAssignedElevator(new Button(5, Direction.UP)));
+    }
+
+    @Test
+    void testElevatorMovingAwayIsAvoided() {
+        Button highButton = new Button(30, Direction.DOWN);
+        scheduler.pressElevatorButton(highButton);
+        assertEquals(highElevator, scheduler.getAssignedElevator(highButton));
+
+        // The high elevator is closer, but is moving up and away from floor 14
+        scheduler.onFloorChanged(highElevator, 21);
+        Button button = new Button(14, Direction.UP);
+
+        scheduler.pressElevatorButton(button);
+
+        assertEquals(lowElevator, scheduler.getAssignedElevator(button));
+    }
+
+    @Test
+    void testRequestIsReassignedWhenCloserElevatorBecomesIdle() {
+        Button firstButton = new Button(15, Direction.UP);
+        Button secondButton = new Button(18, Direction.DOWN);
+        scheduler.pressElevatorButton(firstButton);
+        scheduler.pressElevatorButton(secondButton);
+        assertEquals(highElevator, scheduler.getAssignedElevator(firstButton));
+        assertEquals(highElevator, scheduler.getAssignedElevator(secondButton));
+
+        // The low elevator travels up to floor 14 and becomes idle there
+        for (int floor = 1; floor <= 14; floor++) {
+            scheduler.onFloorChanged(lowElevator, floor);
+        }
+        scheduler.onIdle(lowElevator);
+
+        assertEquals(lowElevator, scheduler.getAssignedElevator(firstButton));
+        assertEquals(highElevator, scheduler.getAssignedElevator(secondButton));
+    }
+
+    @Test
+    void testCompletedRequestIsReleased() {
+        Button button = new Button(3, Direction.UP);
+        scheduler.pressElevatorButton(button);
+        assertEquals(lowElevator, scheduler.getAssignedElevator(button));
+
+        VirtualClock clock = (VirtualClock) lowElevator.getClock();
+        ButtonPresser buttonPresser = new ButtonPresser(scheduler, List.of());
+        new DiscreteEventSimulation(clock, buttonPresser, lowElevator, highElevator).run();
+
+        assertNull(scheduler.getAssignedElevator(button));
+        assertEquals(1, lowElevator.getStatsCollector().getSummaryStatistics().getCount());
+    }
+
+    @Test
+    void testDestinationButtonsAreHallCalls() {
+        scheduler.pressElevatorButton(Button.destination(3, 9));
+        scheduler.pressElevatorButton(Button.destination(3, 6));
+        assertEquals(lowElevator, scheduler.getAssignedElevator(Button.of(3, Direction.UP)));
+        assertEquals(lowElevator, scheduler.getAssignedElevator(Button.destination(3, 6)));
+
+        VirtualClock clock = (VirtualClock) lowElevator.getClock();
+        ButtonPresser buttonPresser = new ButtonPresser(scheduler, List.of());
+        new DiscreteEventSimulation(clock, buttonPresser, lowElevator, highElevator).run();
+
+        // One hall call, and a car call for each destination once picked up
+        assertEquals(3, lowElevator.getStatsCollector().getSummaryStatistics().getCount());
+        assertEquals(9, lowElevator.getCurrentFloor());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler = null;
+        lowElevator = null;
+        highElevator = null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ParameterSweepRunnerTest {
+    private static final SimulationConfig BASE_CONFIG = new SimulationConfig(ElevatorConfig.DEFAULT,
+            new TrafficGenerator.Building(0, 15, 0, 500), TrafficGenerator.Pattern.LUNCH, 12, 300, 3,
+            ButtonPresser.DEFAULT_CSV_FILE);
+
+    @Test
+    void testExpandGrid() {
+        List<ElevatorConfig> points = ParameterSweepRunner.expandGrid(List.of(1, 2), List.of(0), List.of(400, 500),
+                List.of(500), List.of(SchedulerType.LOOK_WITH_DIRECTION, SchedulerType.INDEXED_LOOK_WITH_DIRECTION));
+
+        assertEquals(8, points.size());
+        assertEquals(SchedulerType.INDEXED_LOOK_WITH_DIRECTION, points.get(1).schedulerType);
+        assertEquals(500, points.get(2).timeToTravelBetweenFloorsInMs);
+        assertEquals(2, points.get(7).numberOfElevators);
+    }
+
+    @Test
+    void testResultsDoNotDependOnParallelism() {
+        List<ElevatorConfig> points = ParameterSweepRunner.expandGrid(List.of(1, 3), List.of(0, 10),
+                List.of(300, 600), List.of(500), List.of(SchedulerType.LOOK_WITH_DIRECTION));
+
+        List<ParameterSweepRunner.PointResult> sequential = new ParameterSweepRunner(BASE_CONFIG, points, 1).run();
+        List<ParameterSweepRunner.PointResult> parallel = new ParameterSweepRunner(BASE_CONFIG, points, 4).run();
+
+        assertEquals(points.size(), parallel.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i), parallel.get(i).elevatorConfig);
+            assertEquals(sequential.get(i).toString(), parallel.get(i).toString());
+        }
+    }
+
+    @Test
+    void testSlowerElevatorsTakeLonger() {
+        ParameterSweepRunner.PointResult fast = ParameterSweepRunner.runPoint(BASE_CONFIG,
+                new ElevatorConfig(2, 0, 300, 500, SchedulerType.LOOK_WITH_DIRECTION));
+        ParameterSweepRunner.PointResult slow = ParameterSweepRunner.runPoint(BASE_CONFIG,
+                new ElevatorConfig(2, 0, 900, 500, SchedulerType.LOOK_WITH_DIRECTION));
+
+        assertTrue(fast.requestsCompleted > 0);
+        assertTrue(slow.averageCompletionTimeInMs > fast.averageCompletionTimeInMs);
+        assertTrue(ParameterSweepRunner.formatTable(List.of(fast, slow)).split("\n").length == 3);
+    }
+}
@@ -0,0 +1,132 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class PressedButtonRegistryTest {
+
+    @Test
+    void testPressAndClear() {
+        PressedButtonRegistry registry = new PressedButtonRegistry(-2, 100);
+
+        assertTrue(registry.tryPress(5, Direction.UP));
+        assertFalse(registry.tryPress(5, Direction.UP));
+        assertTrue(registry.isPressed(5, Direction.UP));
+
+        // Other directions and floors are separate buttons
+        assertFalse(registry.isPressed(5, Direction.DOWN));
+        assertFalse(registry.isPressed(5, Direction.NONE));
+        assertFalse(registry.isPressed(6, Direction.UP));
+        assertTrue(registry.tryPress(-2, Direction.NONE));
+        assertTrue(registry.tryPress(100, Direction.DOWN));
+
+        registry.clear(5, Direction.UP);
+        assertFalse(registry.isPressed(5, Direction.UP));
+        assertTrue(registry.isPressed(-2, Direction.NONE));
+        assertTrue(registry.tryPress(5, Direction.UP));
+
+        // Clearing a button that is not pressed does nothing
+        registry.clear(7, Direction.UP);
+        assertFalse(registry.isPressed(7, Direction.UP));
+    }
+
+    @Test
+    void testFloorsOutsideOfRange() {
+        PressedButtonRegistry registry = new PressedButtonRegistry(0, 10);
+
+        assertTrue(registry.tryPress(-1, Direction.UP));
+        assertFalse(registry.tryPress(-1, Direction.UP));
+        assertTrue(registry.tryPress(11, Direction.UP));
+        assertTrue(registry.tryPress(Integer.MAX_VALUE, Direction.DOWN));
+        assertTrue(registry.tryPress(Integer.MIN_VALUE, Direction.DOWN));
+        assertFalse(registry.isPressed(11, Direction.DOWN));
+
+        registry.clear(-1, Direction.UP);
+        assertFalse(registry.isPressed(-1, Direction.UP));
+        assertTrue(registry.isPressed(11, Direction.UP));
+    }
+
+    @Test
+    void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> new PressedButtonRegistry(5, 4));
+    }
+
+    @Test
+    void testOnlyOneConcurrentPressWins() throws InterruptedException {
+        int numberOfThreads = 8;
+        int floors = 200;
+        PressedButtonRegistry registry = new PressedButtonRegistry();
+        AtomicInteger successfulPresses = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int floor = 0; floor < floors; floor++) {
+                    for (Direction direction : Direction.values()) {
+                        if (registry.tryPress(floor, direction)) {
+                            successfulPresses.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(floors * Direction.values().length, successfulPresses.get());
+    }
+
+    @Test
+    void testElevatorMakesOneRequestForConcurrentPresses() throws InterruptedException {
+        Elevator elevator = new Elevator(1, 0);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int floor = 1; floor <= 50; floor++) {
+                    elevator.pressElevatorButton(new Button(floor, Direction.UP));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // The elevator is not running, so every request is still scheduled
+        int requests = 0;
+        while (elevator.hasRequests()) {
+            Request request = elevator.beginNextRequest();
+            elevator.setCurrentFloor(request.getFloorNumber());
+            elevator.arrivedAtDestination(request);
+            elevator.departFromFloor();
+            requests++;
+        }
+        assertEquals(50, requests);
+    }
+}
@@ -0,0 +1,171 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class RequestLogQueryTest {
+    private static final int RECORDS = 3 * RequestLog.RECORDS_PER_BLOCK + 123;
+    private static final long SECOND = 1_000_000_000L;
+    private static Path file;
+
+    private static int floor(int i) {
+        return i % 7 - 2;
+    }
+
+    private static Direction direction(int i) {
+        return Direction.values()[i % 3];
+    }
+
+    private static long created(int i) {
+        return i * 10_000_000L;
+    }
+
+    private static long completionTime(int i) {
+        return (1 + i % 13) * 100_000_000L + floor(i);
+    }
+
+    @BeforeAll
+    static void writeLog() throws IOException {
+        file = RequestLogTest.createLogFile();
+        try (RequestLog log = new RequestLog(file, 0)) {
+            for (int i = 0; i < RECORDS; i++) {
+                log.append(floor(i), direction(i), created(i), created(i) + completionTime(i), 1 + i % 4, i % 3);
+            }
+        }
+    }
+
+    @Test
+    void testGroupByFloor() throws IOException {
+        RequestLogQuery.Filter filter = new RequestLogQuery.Filter(100 * SECOND, 900 * SECOND,
+                RequestLogQuery.ANY_FLOOR, true);
+        long[] requests = new long[7];
+        long[] totals = new long[7];
+        long[] longest = new long[7];
+        long[] floorsTravelled = new long[7];
+        for (int i = 0; i < RECORDS; i++) {
+            if (created(i) >= filter.fromInNs && created(i) < filter.toInNs && direction(i) != Direction.NONE) {
+                int group = floor(i) + 2;
+                requests[group]++;
+                totals[group] += completionTime(i);
+                longest[group] = Math.max(longest[group], completionTime(i));
+                floorsTravelled[group] += i % 3;
+            }
+        }
+
+        try (RequestLogQuery query = new RequestLogQuery(file, 1)) {
+            List<RequestLogQuery.Group> groups = query.groupByFloor(filter);
+
+            assertEquals(7, groups.size());
+            for (int group = 0; group < 7; group++) {
+                assertEquals(group - 2, groups.get(group).key);
+                assertEquals(requests[group], groups.get(group).requests);
+                assertEquals(totals[group], groups.get(group).totalCompletionTimeInNs);
+                assertEquals(longest[group], groups.get(group).longestCompletionTimeInNs);
+                assertEquals(floorsTravelled[group], groups.get(group).floorsTravelled);
+            }
+        }
+    }
+
+    @Test
+    void testGroupByTimeWindow() throws IOException {
+        RequestLogQuery.Filter filter = new RequestLogQuery.Filter(250 * SECOND, Long.MAX_VALUE, 3, false);
+
+        try (RequestLogQuery query = new RequestLogQuery(file, 1)) {
+            List<RequestLogQuery.Group> groups = query.groupByTimeWindow(60 * SECOND, filter);
+
+            long requests = 0;
+            for (int window = 0; window < groups.size(); window++) {
+                RequestLogQuery.Group group = groups.get(window);
+                assertEquals(250 * SECOND + window * 60 * SECOND, group.key);
+                long expected = 0;
+                for (int i = 0; i < RECORDS; i++) {
+                    if (floor(i) == 3 && created(i) >= group.key && created(i) < group.key + 60 * SECOND) {
+                        expected++;
+                    }
+                }
+                assertEquals(expected, group.requests);
+                requests += group.requests;
+            }
+            assertEquals(query.getCompletionTimeHistogram(filter).getCount(), requests);
+        }
+    }
+
+    @Test
+    void testResultsDoNotDependOnParallelism() throws IOException {
+        try (RequestLogQuery sequential = new RequestLogQuery(file, 1);
+                RequestLogQuery parallel = new RequestLogQuery(file, 4)) {
+            RequestLogQuery.Filter filter = RequestLogQuery.Filter.ALL;
+
+            assertEquals(sequential.groupByFloor(filter).toString(), parallel.groupByFloor(filter).toString());
+            assertEquals(sequential.groupByTimeWindow(7 * SECOND, filter).toString(),
+                    parallel.groupByTimeWindow(7 * SECOND, filter).toString());
+            assertEquals(sequential.getCompletionTimeHistogram(filter).toString(),
+                    parallel.getCompletionTimeHistogram(filter).toString());
+        }
+    }
+
+    @Test
+    void testPercentiles() throws IOException {
+        try (RequestLogQuery query = new RequestLogQuery(file, 2)) {
+            LatencyHistogram completionTimes = query.getCompletionTimeHistogram(RequestLogQuery.Filter.ALL);
+
+            assertEquals(RECORDS, completionTimes.getCount());
+            assertTrue(completionTimes.getValueAtPercentile(50) >= 600_000_000L);
+            assertTrue(completionTimes.getValueAtPercentile(50) <= 800_000_000L);
+            assertTrue(completionTimes.getValueAtPercentile(100) >= 1_290_000_000L);
+        }
+    }
+
+    @Test
+    void testEmptyLog() throws IOException {
+        Path empty = RequestLogTest.createLogFile();
+        new RequestLog(empty, 0).close();
+
+        try (RequestLogQuery query = new RequestLogQuery(empty, 1)) {
+            assertEquals(0, query.getNumberOfRecords());
+            assertTrue(query.groupByFloor(RequestLogQuery.Filter.ALL).isEmpty());
+            assertTrue(query.groupByTimeWindow(SECOND, RequestLogQuery.Filter.ALL).isEmpty());
+            assertEquals(0, query.getCompletionTimeHistogram(RequestLogQuery.Filter.ALL).getCount());
+        }
+    }
+
+    @Test
+    void testInvalidArguments() throws IOException {
+        Path notALog = RequestLogTest.createLogFile();
+        Files.write(notALog, new byte[100]);
+
+        assertThrows(IOException.class, () -> new RequestLogQuery(notALog, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RequestLogQuery(file, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RequestLogQuery.Filter(5, 5,
+                RequestLogQuery.ANY_FLOOR, false));
+        try (RequestLogQuery query = new RequestLogQuery(file, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> query.groupByTimeWindow(0,
+                    RequestLogQuery.Filter.ALL));
+            assertThrows(IllegalArgumentException.class, () -> query.groupByTimeWindow(1,
+                    RequestLogQuery.Filter.ALL));
+        }
+    }
+
+    @Test
+    void testTooManyFloors() throws IOException {
+        Path wide = RequestLogTest.createLogFile();
+        try (RequestLog log = new RequestLog(wide, 0)) {
+            log.append(Integer.MIN_VALUE, Direction.UP, 0, SECOND, 1, 0);
+            log.append(Integer.MAX_VALUE, Direction.DOWN, SECOND, 2 * SECOND, 1, 0);
+        }
+
+        try (RequestLogQuery query = new RequestLogQuery(wide, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> query.groupByFloor(RequestLogQuery.Filter.ALL));
+            assertEquals(2, query.getCompletionTimeHistogram(RequestLogQuery.Filter.ALL).getCount());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RequestLogTest {
+    static Path createLogFile() throws IOException {
+        Path log = Files.createTempFile("requests", ".elvr");
+        log.toFile().deleteOnExit();
+        return log;
+    }
+
+    @Test
+    void testCompletedRequestsAreRecorded() throws IOException {
+        Path file = createLogFile();
+        VirtualClock clock = new VirtualClock();
+        Elevator elevator = new Elevator(7, 0, clock);
+        ButtonPresser buttonPresser = new ButtonPresser(elevator, List.of(
+                new ButtonPresser.ButtonPressEvent(4, Direction.NONE, 0),
+                new ButtonPresser.ButtonPressEvent(2, Direction.NONE, 600),
+                new ButtonPresser.ButtonPressEvent(1, Direction.UP, 5000)));
+
+        try (RequestLog log = new RequestLog(file, 0)) {
+            log.attach(List.of(elevator));
+            new DiscreteEventSimulation(clock, buttonPresser, elevator).run();
+            assertEquals(3, log.getNumberOfRecords());
+        }
+
+        try (RequestLogQuery query = new RequestLogQuery(file, 1)) {
+            assertEquals(3, query.getNumberOfRecords());
+            assertEquals(1, query.getLowestFloor());
+            assertEquals(4, query.getHighestFloor());
+
+            List<RequestLogQuery.Group> floors = query.groupByFloor(RequestLogQuery.Filter.ALL);
+            assertEquals(3, floors.size());
+            // Floor 2: pressed at 600, reached at 1000 after travelling 2 floors
+            assertEquals(2, floors.get(1).key);
+            assertEquals(400_000_000L, floors.get(1).totalCompletionTimeInNs);
+            assertEquals(2, floors.get(1).floorsTravelled);
+            // Floor 4: pressed at 0, reached at 2500 after travelling 2 more floors
+            assertEquals(2_500_000_000L, floors.get(2).longestCompletionTimeInNs);
+            assertEquals(2, floors.get(2).floorsTravelled);
+            // Floor 1: 3 floors back down from floor 4
+            assertEquals(3, floors.get(0).floorsTravelled);
+
+            LatencyHistogram completionTimes = query.getCompletionTimeHistogram(RequestLogQuery.Filter.ALL);
+            LatencyHistogram expected = elevator.getStatsCollector().getCompletionTimeHistogram();
+            assertEquals(expected.getCount(), completionTimes.getCount());
+            assertEquals(expected.getSum(), completionTimes.getSum());
+        }
+    }
+
+    @Test
+    void testRecordsSpanSeveralBlocks() throws IOException {
+        Path file = createLogFile();
+        int records = 2 * RequestLog.RECORDS_PER_BLOCK + 10;
+        try (RequestLog log = new RequestLog(file, 0)) {
+            for (int i = 0; i < records; i++) {
+                log.append(i % 5, Direction.UP, i, i + 100, 1, 1);
+            }
+        }
+
+        try (RequestLogQuery query = new RequestLogQuery(file, 1)) {
+            assertEquals(records, query.getNumberOfRecords());
+            LatencyHistogram completionTimes = query.getCompletionTimeHistogram(RequestLogQuery.Filter.ALL);
+            assertEquals(records, completionTimes.getCount());
+            assertEquals(100L * records, completionTimes.getSum());
+        }
+    }
+
+    @Test
+    void testAppendAfterClose() throws IOException {
+        RequestLog log = new RequestLog(createLogFile(), 0);
+        log.append(0, Direction.UP, 0, 1, 1, 0);
+        log.close();
+        log.append(0, Direction.UP, 0, 1, 1, 0);
+
+        assertEquals(1, log.getNumberOfRecords());
+        assertEquals(1, log.getDroppedRecords());
+    }
+}
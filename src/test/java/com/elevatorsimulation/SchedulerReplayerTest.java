@@ -0,0 +1,144 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class SchedulerReplayerTest {
+
+    /**
+     * Serves requests in the order they were added, so it decides differently
+     * than LOOK.
+     */
+    private static final class FirstComeFirstServedScheduler implements InternalScheduler {
+        private final ArrayDeque<Request> requests = new ArrayDeque<>();
+
+        @Override
+        public void addRequest(Request request) {
+            requests.add(request);
+        }
+
+        @Override
+        public void removeRequest(Request request) {
+            requests.remove(request);
+        }
+
+        @Override
+        public boolean cancelRequest(Request request) {
+            return requests.remove(request);
+        }
+
+        @Override
+        public Request getCurrentRequest() {
+            return requests.peek();
+        }
+
+        @Override
+        public boolean hasRequests() {
+            return !requests.isEmpty();
+        }
+    }
+
+    private static Path createTempDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("decisions");
+        directory.toFile().deleteOnExit();
+        return directory;
+    }
+
+    private static List<RecordingInternalScheduler> record(Path directory, int numberOfElevators)
+            throws IOException {
+        List<RecordingInternalScheduler> recorders = new ArrayList<>();
+        VirtualClock clock = new VirtualClock();
+        List<Elevator> elevators = new ArrayList<>();
+        for (int id = 1; id <= numberOfElevators; id++) {
+            elevators.add(new Elevator(id, 0, clock, RecordingInternalScheduler.recording(
+                    SchedulerType.LOOK_WITH_DIRECTION::create, directory, recorders)));
+        }
+        ButtonPressHandler handler = (numberOfElevators == 1) ? elevators.get(0)
+                : new NearestCarExternalScheduler(elevators);
+        ButtonPresser buttonPresser = new ButtonPresser(handler, new RandomButtonPressSource(3, 500, -2, 15, 700));
+        new DiscreteEventSimulation(clock, buttonPresser, elevators.toArray(new Elevator[0])).run();
+        for (RecordingInternalScheduler recorder : recorders) {
+            recorder.close();
+        }
+        for (int id = 1; id <= numberOfElevators; id++) {
+            directory.resolve("elevator-" + id + ".elvs").toFile().deleteOnExit();
+        }
+        return recorders;
+    }
+
+    @Test
+    void testReplayWithSameSchedulerMatches() throws IOException {
+        Path directory = createTempDirectory();
+        List<RecordingInternalScheduler> recorders = record(directory, 3);
+
+        for (int id = 1; id <= 3; id++) {
+            // Small windows so the log is mapped in several pieces
+            SchedulerReplayer.Result result = SchedulerReplayer.replay(directory.resolve("elevator-" + id + ".elvs"),
+                    SchedulerType.LOOK_WITH_DIRECTION::create, 100);
+
+            assertEquals(id, result.elevatorId);
+            assertEquals(recorders.get(id - 1).getRecordsWritten(), result.records);
+            assertTrue(result.decisions > 0);
+            assertEquals(0, result.differences, result.toString());
+        }
+    }
+
+    @Test
+    void testReplayWithDifferentSchedulerFindsDifferences() throws IOException {
+        Path directory = createTempDirectory();
+        record(directory, 1);
+
+        SchedulerReplayer.Result result = SchedulerReplayer.replay(directory.resolve("elevator-1.elvs"),
+                elevator -> new FirstComeFirstServedScheduler());
+
+        assertTrue(result.differences > 0);
+        assertEquals(10, result.firstDifferences.size());
+        assertTrue(result.firstDifferences.get(0).startsWith("Record "));
+    }
+
+    @Test
+    void testInvalidLog() throws IOException {
+        Path logFile = Files.createTempFile("decisions", ".elvs");
+        logFile.toFile().deleteOnExit();
+        Files.write(logFile, new byte[] { 'E', 'L', 'V', 'B', 0, 1, 0, 16, 0, 0, 0, 1, 0, 0, 0, 0 });
+
+        assertThrows(IOException.class,
+                () -> SchedulerReplayer.replay(logFile, SchedulerType.LOOK_WITH_DIRECTION::create));
+    }
+
+    @Test
+    void testRemovingARequestThatWasNeverAdded() throws IOException {
+        ByteBuffer log = ByteBuffer.allocate(RecordingInternalScheduler.HEADER_SIZE
+                + RecordingInternalScheduler.RECORD_SIZE);
+        log.put(RecordingInternalScheduler.MAGIC);
+        log.putShort((short) RecordingInternalScheduler.VERSION);
+        log.putShort((short) RecordingInternalScheduler.RECORD_SIZE);
+        log.putInt(1);
+        log.putInt(0);
+        log.put(RecordingInternalScheduler.OP_REMOVE);
+        log.put((byte) Direction.UP.ordinal());
+        log.put((byte) 0);
+        log.put((byte) 0);
+        log.putInt(3);
+        log.putLong(7);
+        Path logFile = Files.createTempFile("decisions", ".elvs");
+        logFile.toFile().deleteOnExit();
+        Files.write(logFile, log.array());
+
+        IOException e = assertThrows(IOException.class,
+                () -> SchedulerReplayer.replay(logFile, SchedulerType.LOOK_WITH_DIRECTION::create));
+        assertEquals("Record 0 of the decision log refers to request 7, which is not in the scheduler",
+                e.getMessage());
+    }
+}
@@ -0,0 +1,62 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class SchedulerTypeTest {
+
+    @ParameterizedTest
+    @EnumSource(SchedulerType.class)
+    void testHeadVersionOnlyChangesWithCurrentRequest(SchedulerType schedulerType) {
+        InternalScheduler scheduler = schedulerType.create(new Elevator(1, 0));
+        long version = scheduler.getHeadVersion();
+
+        Request floorFive = new Request(5, Direction.NONE);
+        scheduler.addRequest(floorFive);
+        assertEquals(true, scheduler.getHeadVersion() != version);
+        version = scheduler.getHeadVersion();
+
+        // Further along the way, so the current request stays the same
+        Request floorEight = new Request(8, Direction.NONE);
+        scheduler.addRequest(floorEight);
+        assertEquals(version, scheduler.getHeadVersion());
+
+        Request floorTwo = new Request(2, Direction.NONE);
+        scheduler.addRequest(floorTwo);
+        assertEquals(true, scheduler.getHeadVersion() != version);
+        assertEquals(floorTwo, scheduler.getCurrentRequest());
+        version = scheduler.getHeadVersion();
+
+        scheduler.cancelRequest(floorEight);
+        assertEquals(version, scheduler.getHeadVersion());
+
+        scheduler.removeRequest(floorTwo);
+        assertEquals(true, scheduler.getHeadVersion() != version);
+        assertEquals(floorFive, scheduler.getCurrentRequest());
+    }
+
+    @ParameterizedTest
+    @EnumSource(SchedulerType.class)
+    void testQueueDepths(SchedulerType schedulerType) {
+        InternalScheduler scheduler = schedulerType.create(new Elevator(1, 5));
+        scheduler.addRequest(new Request(7, Direction.UP));
+        scheduler.addRequest(new Request(2, Direction.UP)); // Behind the elevator, so pending
+        scheduler.addRequest(new Request(3, Direction.DOWN));
+        scheduler.addRequest(new Request(9, Direction.NONE));
+
+        assertEquals(2, scheduler.getQueueDepth(Direction.UP, false));
+        assertEquals(1, scheduler.getQueueDepth(Direction.DOWN, false));
+        assertEquals(1, scheduler.getQueueDepth(Direction.UP, true));
+        assertEquals(0, scheduler.getQueueDepth(Direction.DOWN, true));
+
+        scheduler.removeRequest(scheduler.getCurrentRequest());
+        scheduler.removeRequest(scheduler.getCurrentRequest());
+
+        // The pending UP call moves to the up queue when the direction switches
+        assertEquals(1, scheduler.getQueueDepth(Direction.UP, false));
+        assertEquals(1, scheduler.getQueueDepth(Direction.DOWN, false));
+        assertEquals(0, scheduler.getQueueDepth(Direction.UP, true));
+    }
+}
@@ -0,0 +1,62 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LongSummaryStatistics;
+
+import org.junit.jupiter.api.Test;
+
+public class ShadowSimulationTest {
+
+    @Test
+    void testLanesMatchSeparateRuns() {
+        ShadowSimulation simulation = new ShadowSimulation(new RandomButtonPressSource(7, 200, -2, 10, 1000), 2, -2);
+        simulation.addLane("look", SchedulerType.LOOK_WITH_DIRECTION::create);
+        simulation.addLane("indexed", SchedulerType.INDEXED_LOOK_WITH_DIRECTION::create);
+        simulation.run();
+
+        SchedulerType[] schedulerTypes = { SchedulerType.LOOK_WITH_DIRECTION,
+                SchedulerType.INDEXED_LOOK_WITH_DIRECTION };
+        for (int i = 0; i < schedulerTypes.length; i++) {
+            MonteCarloBatchRunner.RunResult separate = MonteCarloBatchRunner.runOnce(
+                    new MonteCarloBatchRunner.Scenario(2, schedulerTypes[i], -2, 10, 200, 1000), 7);
+            StatsRecorder.Snapshot snapshot = simulation.getLanes().get(i).getSnapshot();
+            LongSummaryStatistics statistics = snapshot.summaryStatistics;
+
+            assertTrue(statistics.getCount() > 0);
+            assertEquals(separate.requestsCompleted, statistics.getCount());
+            assertEquals(separate.averageCompletionTimeInMs, statistics.getAverage(), 1e-9);
+            assertEquals(separate.slowestCompletionTimeInMs, statistics.getMax());
+            assertEquals(separate.completionTimes.getValueAtPercentile(99),
+                    snapshot.completionTimes.getValueAtPercentile(99));
+        }
+    }
+
+    @Test
+    void testScorecardHasColumnPerLane() {
+        ShadowSimulation simulation = new ShadowSimulation(new RandomButtonPressSource(1, 20, 0, 5, 500), 1, 0);
+        simulation.addLane("first", SchedulerType.LOOK_WITH_DIRECTION::create);
+        simulation.addLane("second", SchedulerType.LOOK_WITH_DIRECTION::create);
+        simulation.run();
+
+        String[] lines = simulation.getScorecard().split("\n");
+        assertTrue(lines[0].contains("first") && lines[0].contains("second"));
+        assertTrue(lines[1].startsWith("Total Requests Completed"));
+        // Identical lanes have identical columns
+        String[] counts = lines[1].trim().split("\\s+");
+        assertEquals(counts[counts.length - 1], counts[counts.length - 2]);
+    }
+
+    @Test
+    void testCanOnlyRunOnce() {
+        ShadowSimulation simulation = new ShadowSimulation(new RandomButtonPressSource(1, 5, 0, 5, 500), 1, 0);
+        simulation.addLane("look", SchedulerType.LOOK_WITH_DIRECTION::create);
+        simulation.run();
+
+        assertThrows(IllegalStateException.class, simulation::run);
+        assertThrows(IllegalStateException.class,
+                () -> simulation.addLane("late", SchedulerType.LOOK_WITH_DIRECTION::create));
+    }
+}
@@ -0,0 +1,151 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ShardedSimulationTest {
+
+    private static SimulationConfig config(long seed) {
+        return new SimulationConfig(new ElevatorConfig(3, 0, 500, 500, SchedulerType.LOOK_WITH_DIRECTION),
+                DispatchMode.CONVENTIONAL, new TrafficGenerator.Building(0, 20, 0, 1000),
+                TrafficGenerator.Pattern.UP_PEAK, 12, 300, seed, null);
+    }
+
+    private static List<ShardedSimulation.Shard> createShards(int numberOfShards) {
+        List<ShardedSimulation.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < numberOfShards; i++) {
+            shards.add(ShardedSimulation.createShard("bank-" + i, config(1 + i)));
+        }
+        return shards;
+    }
+
+    private static List<ShardedSimulation.Transfer> createRing(int numberOfShards) {
+        List<ShardedSimulation.Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < numberOfShards; i++) {
+            transfers.add(new ShardedSimulation.Transfer(i, 20, (i + 1) % numberOfShards, 20, 10, 30_000));
+        }
+        return transfers;
+    }
+
+    private static String describe(ShardedSimulation simulation) {
+        StringBuilder builder = new StringBuilder();
+        for (ShardedSimulation.Shard shard : simulation.getShards()) {
+            builder.append(shard.simulation.getSimulatedTimeInMs()).append(' ');
+            for (Elevator elevator : shard.simulation.getElevators()) {
+                builder.append(elevator.getCurrentFloor()).append(' ')
+                        .append(elevator.getStatsCollector().getSummaryStatistics()).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    @Test
+    void testShardsWithoutTransfersMatchStandaloneRuns() {
+        ShardedSimulation sharded = new ShardedSimulation(createShards(4), List.of(), 4);
+        sharded.run();
+
+        List<ShardedSimulation.Shard> standalone = createShards(4);
+        for (ShardedSimulation.Shard shard : standalone) {
+            shard.simulation.run();
+        }
+
+        assertEquals(1, sharded.getWindows());
+        assertEquals(0, sharded.getTransfersDelivered());
+        for (int i = 0; i < 4; i++) {
+            DiscreteEventSimulation expected = standalone.get(i).simulation;
+            DiscreteEventSimulation actual = sharded.getShards().get(i).simulation;
+            assertTrue(actual.isFinished());
+            assertEquals(expected.getEventsProcessed(), actual.getEventsProcessed());
+            assertEquals(expected.getSimulatedTimeInMs(), actual.getSimulatedTimeInMs());
+            for (int elevator = 0; elevator < 3; elevator++) {
+                assertEquals(expected.getElevators().get(elevator).getStatsCollector().getSummaryStatistics()
+                        .toString(), actual.getElevators().get(elevator).getStatsCollector().getSummaryStatistics()
+                        .toString());
+            }
+        }
+    }
+
+    @Test
+    void testResultsDoNotDependOnParallelism() {
+        ShardedSimulation sequential = new ShardedSimulation(createShards(4), createRing(4), 1);
+        sequential.run();
+        ShardedSimulation parallel = new ShardedSimulation(createShards(4), createRing(4), 4);
+        parallel.run();
+
+        assertEquals(30_000, parallel.getLookaheadInMs());
+        assertTrue(parallel.getTransfersDelivered() > 0);
+        assertTrue(parallel.getWindows() > 1);
+        assertEquals(sequential.getTransfersDelivered(), parallel.getTransfersDelivered());
+        assertEquals(sequential.getWindows(), parallel.getWindows());
+        assertEquals(sequential.getEventsProcessed(), parallel.getEventsProcessed());
+        assertEquals(describe(sequential), describe(parallel));
+    }
+
+    @Test
+    void testTransferredPassengersAreServed() {
+        ShardedSimulation simulation = new ShardedSimulation(createShards(2), createRing(2), 2);
+        simulation.run();
+
+        long requests = 0;
+        for (ShardedSimulation.Shard shard : simulation.getShards()) {
+            assertTrue(shard.simulation.isFinished());
+            for (Elevator elevator : shard.simulation.getElevators()) {
+                assertTrue(!elevator.hasRequests());
+                requests += elevator.getStatsCollector().getSummaryStatistics().getCount();
+            }
+        }
+
+        ShardedSimulation independent = new ShardedSimulation(createShards(2), List.of(), 2);
+        independent.run();
+        long independentRequests = 0;
+        for (ShardedSimulation.Shard shard : independent.getShards()) {
+            for (Elevator elevator : shard.simulation.getElevators()) {
+                independentRequests += elevator.getStatsCollector().getSummaryStatistics().getCount();
+            }
+        }
+        assertTrue(requests > independentRequests);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSimulation(List.of(), List.of(), 1));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSimulation(createShards(1), List.of(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSimulation(createShards(2),
+                List.of(new ShardedSimulation.Transfer(0, 20, 2, 20, 10, 1000)), 1));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSimulation.Transfer(0, 20, 1, 20, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSimulation.Transfer(0, 20, 1, 20, 20, 1000));
+    }
+
+    @Test
+    void testTransfersCanNotFormACycle() {
+        // Passengers arriving at floor 5 of either shard would leave for the other
+        List<ShardedSimulation.Transfer> mutual = List.of(new ShardedSimulation.Transfer(0, 5, 1, 0, 5, 1000),
+                new ShardedSimulation.Transfer(1, 5, 0, 0, 5, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSimulation(createShards(2), mutual, 1));
+
+        List<ShardedSimulation.Transfer> loop = List.of(new ShardedSimulation.Transfer(0, 20, 0, 0, 20, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedSimulation(createShards(1), loop, 1));
+
+        // A chain that carries on through a second transfer is fine
+        List<ShardedSimulation.Transfer> chain = List.of(new ShardedSimulation.Transfer(0, 20, 1, 0, 10, 1000),
+                new ShardedSimulation.Transfer(1, 10, 2, 0, 15, 1000));
+        ShardedSimulation simulation = new ShardedSimulation(createShards(3), chain, 2);
+        simulation.run();
+        assertTrue(simulation.getTransfersDelivered() > 0);
+    }
+
+    @Test
+    void testButtonPressesCanNotBeScheduledInThePast() {
+        ShardedSimulation.Shard shard = ShardedSimulation.createShard("bank", config(1));
+        shard.simulation.runUntil(10_000);
+
+        assertThrows(IllegalArgumentException.class, () -> shard.simulation.scheduleButtonPress(
+                shard.simulation.getSimulatedTimeInMs() - 1, shard.buttonPressHandler, Button.of(5, Direction.UP)));
+    }
+}
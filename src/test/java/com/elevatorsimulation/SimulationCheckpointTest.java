@@ -0,0 +1,178 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+public class SimulationCheckpointTest {
+
+    private static DiscreteEventSimulation createSimulation(SchedulerType schedulerType,
+            TrafficGenerator.Pattern trafficPattern) {
+        ElevatorConfig elevatorConfig = new ElevatorConfig(3, 0, 500, 500, schedulerType);
+        SimulationConfig config = new SimulationConfig(elevatorConfig, new TrafficGenerator.Building(0, 20, 0, 1000),
+                trafficPattern, 12, 1500, 3, ButtonPresser.DEFAULT_CSV_FILE);
+        VirtualClock clock = new VirtualClock();
+        List<Elevator> elevators = elevatorConfig.createElevators(clock);
+        ButtonPresser buttonPresser = config.createButtonPresser(elevators,
+                new NearestCarExternalScheduler(elevators));
+        return new DiscreteEventSimulation(clock, buttonPresser, elevators.toArray(new Elevator[0]));
+    }
+
+    private static void assertSameStatistics(DiscreteEventSimulation expected, DiscreteEventSimulation actual) {
+        assertEquals(expected.getSimulatedTimeInMs(), actual.getSimulatedTimeInMs());
+        assertEquals(expected.getEventsProcessed(), actual.getEventsProcessed());
+        for (int i = 0; i < expected.getElevators().size(); i++) {
+            StatsRecorder.Snapshot expectedStats = expected.getElevators().get(i).getStatsCollector().getSnapshot();
+            StatsRecorder.Snapshot actualStats = actual.getElevators().get(i).getStatsCollector().getSnapshot();
+            LongSummaryStatistics expectedSummary = expectedStats.summaryStatistics;
+            LongSummaryStatistics actualSummary = actualStats.summaryStatistics;
+
+            assertTrue(expectedSummary.getCount() > 0);
+            assertEquals(expectedSummary.getCount(), actualSummary.getCount());
+            assertEquals(expectedSummary.getSum(), actualSummary.getSum());
+            assertEquals(expectedSummary.getMin(), actualSummary.getMin());
+            assertEquals(expectedSummary.getMax(), actualSummary.getMax());
+            assertEquals(expectedStats.completionTimes.getValueAtPercentile(99),
+                    actualStats.completionTimes.getValueAtPercentile(99));
+            assertEquals(expectedStats.waitTimes.getValueAtPercentile(50),
+                    actualStats.waitTimes.getValueAtPercentile(50));
+        }
+    }
+
+    @Test
+    void testResumedTrafficMatchesUninterruptedRun() throws IOException {
+        DiscreteEventSimulation uninterrupted = createSimulation(SchedulerType.LOOK_WITH_DIRECTION,
+                TrafficGenerator.Pattern.LUNCH);
+        uninterrupted.run();
+
+        DiscreteEventSimulation interrupted = createSimulation(SchedulerType.LOOK_WITH_DIRECTION,
+                TrafficGenerator.Pattern.LUNCH);
+        assertFalse(interrupted.runUntil(uninterrupted.getSimulatedTimeInMs() / 2));
+        SimulationCheckpoint checkpoint = SimulationCheckpoint.capture(interrupted);
+        DiscreteEventSimulation resumed = checkpoint.restore();
+        assertEquals(interrupted.getSimulatedTimeInMs(), resumed.getSimulatedTimeInMs());
+        resumed.run();
+
+        assertTrue(resumed.isFinished());
+        assertSameStatistics(uninterrupted, resumed);
+    }
+
+    @Test
+    void testResumedTraceFromFileMatchesUninterruptedRun() throws IOException, InterruptedException {
+        DiscreteEventSimulation uninterrupted = createSimulation(SchedulerType.INDEXED_LOOK_WITH_DIRECTION, null);
+        uninterrupted.run();
+
+        Path file = Files.createTempFile("checkpoint", ".elvc");
+        file.toFile().deleteOnExit();
+        DiscreteEventSimulation interrupted = createSimulation(SchedulerType.INDEXED_LOOK_WITH_DIRECTION, null);
+        interrupted.runUntil(5000);
+        CheckpointWriter writer = new CheckpointWriter(file);
+        writer.submit(SimulationCheckpoint.capture(interrupted));
+        assertTrue(writer.awaitCheckpoints(1, 10_000));
+        writer.close();
+        assertEquals(1, writer.getCheckpointsWritten());
+
+        SimulationCheckpoint checkpoint = SimulationCheckpoint.load(file);
+        assertEquals(interrupted.getSimulatedTimeInMs(), checkpoint.getSimulatedTimeInMs());
+        assertEquals(interrupted.getEventsProcessed(), checkpoint.getEventsProcessed());
+        DiscreteEventSimulation resumed = checkpoint.restore();
+        resumed.run();
+
+        assertSameStatistics(uninterrupted, resumed);
+    }
+
+    @Test
+    void testBranchesForkedFromOneCheckpointAreIndependent() throws IOException {
+        DiscreteEventSimulation warmedUp = createSimulation(SchedulerType.LOOK_WITH_DIRECTION,
+                TrafficGenerator.Pattern.UP_PEAK);
+        warmedUp.runUntil(60_000);
+        SimulationCheckpoint checkpoint = SimulationCheckpoint.capture(warmedUp);
+
+        DiscreteEventSimulation first = checkpoint.restore();
+        DiscreteEventSimulation second = checkpoint.restore();
+        first.run();
+
+        assertTrue(first.isFinished());
+        assertFalse(second.isFinished());
+        assertEquals(checkpoint.getSimulatedTimeInMs(), second.getSimulatedTimeInMs());
+        assertEquals(warmedUp.getSimulatedTimeInMs(), checkpoint.getSimulatedTimeInMs());
+
+        second.run();
+        warmedUp.run();
+        assertSameStatistics(warmedUp, first);
+        assertSameStatistics(warmedUp, second);
+    }
+
+    @Test
+    void testLoadRejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("not-a-checkpoint", ".elvc");
+        file.toFile().deleteOnExit();
+        Files.write(file, new byte[SimulationCheckpoint.HEADER_SIZE]);
+
+        assertThrows(IOException.class, () -> SimulationCheckpoint.load(file));
+    }
+
+    private static Path writeCheckpointOf(Object state) throws IOException {
+        Path file = Files.createTempFile("checkpoint", ".elvc");
+        file.toFile().deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.write(SimulationCheckpoint.MAGIC);
+            out.writeShort(SimulationCheckpoint.VERSION);
+            out.writeShort(0);
+            out.writeLong(0);
+            out.writeLong(0);
+            try (OutputStream gzip = new GZIPOutputStream(out);
+                    ObjectOutputStream objects = new ObjectOutputStream(gzip)) {
+                objects.writeObject(state);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    void testRestoreRejectsOtherClassesAndDeepGraphs() throws IOException {
+        SimulationCheckpoint otherClass = SimulationCheckpoint.load(writeCheckpointOf(new File("elevator")));
+        assertThrows(InvalidClassException.class, otherClass::restore);
+
+        List<Object> nested = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            List<Object> outer = new ArrayList<>();
+            outer.add(nested);
+            nested = outer;
+        }
+        SimulationCheckpoint deepGraph = SimulationCheckpoint.load(writeCheckpointOf(nested));
+        assertThrows(InvalidClassException.class, deepGraph::restore);
+
+        SimulationCheckpoint longArray = SimulationCheckpoint.load(writeCheckpointOf(new long[2_000_000]));
+        assertThrows(InvalidClassException.class, longArray::restore);
+    }
+
+    @Test
+    void testSplitMix64RandomMatchesSplittableRandom() {
+        SplittableRandom expected = new SplittableRandom(42);
+        SplitMix64Random actual = new SplitMix64Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(expected.nextInt(-3, 17), actual.nextInt(-3, 17));
+            assertEquals(expected.nextInt(10), actual.nextInt(10));
+            assertEquals(expected.nextInt(8), actual.nextInt(8));
+            assertEquals(expected.nextDouble(), actual.nextDouble());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+public class SimulationConfigTest {
+
+    @Test
+    void testLoad() throws IOException {
+        Path file = Files.createTempFile("simulation", ".properties");
+        file.toFile().deleteOnExit();
+        Files.write(file, List.of(
+                "# Four slow elevators",
+                "elevator.count=4",
+                "elevator.startFloor=10",
+                "elevator.travelTimeMs=800",
+                "elevator.scheduler=INDEXED_LOOK_WITH_DIRECTION",
+                "elevator.dispatch=DESTINATION",
+                "building.highestFloor=40",
+                "traffic.pattern=UP_PEAK",
+                "traffic.seed=7"));
+
+        SimulationConfig config = SimulationConfig.load(file);
+
+        assertEquals(4, config.elevatorConfig.numberOfElevators);
+        assertEquals(10, config.elevatorConfig.initialFloor);
+        assertEquals(800, config.elevatorConfig.timeToTravelBetweenFloorsInMs);
+        assertEquals(Elevator.DEFAULT_TIME_TO_WAIT_FOR_PASSENGERS_IN_MS,
+                config.elevatorConfig.timeToWaitForPassengersInMs);
+        assertEquals(SchedulerType.INDEXED_LOOK_WITH_DIRECTION, config.elevatorConfig.schedulerType);
+        assertEquals(DispatchMode.DESTINATION, config.dispatchMode);
+        assertEquals(40, config.building.highestFloor);
+        assertEquals(1000, config.building.population);
+        assertEquals(TrafficGenerator.Pattern.UP_PEAK, config.trafficPattern);
+        assertEquals(7, config.seed);
+    }
+
+    @Test
+    void testEmptyPropertiesAreTheDefault() {
+        SimulationConfig config = SimulationConfig.fromProperties(new Properties());
+
+        assertEquals(SimulationConfig.DEFAULT.toString(), config.toString());
+        assertNull(config.trafficPattern);
+    }
+
+    @Test
+    void testInvalidValues() {
+        Properties properties = new Properties();
+        properties.setProperty("elevator.count", "many");
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromProperties(properties));
+
+        properties.setProperty("elevator.count", "0");
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromProperties(properties));
+
+        properties.setProperty("elevator.count", "1");
+        properties.setProperty("elevator.scheduler", "SCAN");
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromProperties(properties));
+    }
+}
@@ -0,0 +1,85 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class StatsRecorderTest {
+    @Test
+    void testSnapshotsAreConsistentWhileRecording() throws InterruptedException {
+        StatsRecorder recorder = new StatsRecorder();
+        int threads = 4;
+        int recordsPerThread = 50_000;
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            writers.add(new Thread(() -> {
+                for (int i = 1; i <= recordsPerThread; i++) {
+                    recorder.record(i * 1_000_000L, i % 2 == 0);
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+
+        long previousCount = 0;
+        boolean writing = true;
+        while (writing) {
+            writing = writers.stream().anyMatch(Thread::isAlive);
+            StatsRecorder.Snapshot snapshot = recorder.snapshot();
+            long count = snapshot.summaryStatistics.getCount();
+
+            assertEquals(count, snapshot.completionTimes.getCount());
+            assertEquals(count / 2, snapshot.waitTimes.getCount(), threads);
+            assertTrue(count >= previousCount);
+            previousCount = count;
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        StatsRecorder.Snapshot snapshot = recorder.snapshot();
+        assertEquals(threads * recordsPerThread, snapshot.summaryStatistics.getCount());
+        assertEquals(threads * recordsPerThread / 2, snapshot.waitTimes.getCount());
+        assertEquals(1, snapshot.summaryStatistics.getMin());
+        assertEquals(recordsPerThread, snapshot.summaryStatistics.getMax());
+        assertEquals((recordsPerThread + 1) / 2.0, snapshot.summaryStatistics.getAverage(), 1e-9);
+    }
+
+    @Test
+    void testEmptySnapshot() {
+        StatsRecorder.Snapshot snapshot = new StatsRecorder().snapshot();
+
+        assertEquals(0, snapshot.summaryStatistics.getCount());
+        assertEquals(0, snapshot.completionTimes.getCount());
+    }
+
+    @Test
+    void testCellsOfDeadThreadsAreRetired() throws InterruptedException {
+        StatsRecorder recorder = new StatsRecorder();
+        int threads = 100;
+
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> recorder.record(1_000_000L, true));
+            writer.start();
+            writer.join();
+        }
+        for (int i = 0; i < 100 && recorder.getLiveCells() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        StatsRecorder.Snapshot snapshot = recorder.snapshot();
+        assertTrue(recorder.getLiveCells() < threads);
+        assertEquals(threads, snapshot.summaryStatistics.getCount());
+        assertEquals(threads, recorder.getCount());
+        assertEquals(threads, snapshot.completionTimes.getCount());
+        assertEquals(threads, snapshot.waitTimes.getCount());
+        assertEquals(1, snapshot.summaryStatistics.getMax());
+    }
+}
@@ -0,0 +1,141 @@
+package com.elevatorsimulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+
+import org.junit.jupiter.api.Test;
+
+public class TrafficGeneratorTest {
+    private static final TrafficGenerator.Building BUILDING = new TrafficGenerator.Building(-2, 20, 0, 1000);
+
+    private static TrafficGenerator generator(TrafficGenerator.Pattern pattern, ButtonPressHandler handler,
+            long numberOfPassengers) {
+        return new TrafficGenerator(pattern, BUILDING, handler, 12, numberOfPassengers, 7);
+    }
+
+    @Test
+    void testUpPeakStartsAtTheLobby() {
+        TrafficGenerator generator = generator(TrafficGenerator.Pattern.UP_PEAK, button -> {
+        }, 1000);
+        int up = 0;
+        int down = 0;
+        while (generator.next()) {
+            assertEquals(0, generator.getFloor());
+            if (generator.getDirection() == Direction.UP) {
+                up++;
+            } else {
+                // Going to one of the two basement floors
+                assertEquals(Direction.DOWN, generator.getDirection());
+                down++;
+            }
+        }
+        assertEquals(1000, up + down);
+        assertTrue(up > 8 * down);
+        assertFalse(generator.next());
+    }
+
+    @Test
+    void testDownPeakComesFromOtherFloors() {
+        TrafficGenerator generator = generator(TrafficGenerator.Pattern.DOWN_PEAK, button -> {
+        }, 1000);
+        boolean sawBasement = false;
+        while (generator.next()) {
+            assertNotEquals(0, generator.getFloor());
+            assertTrue(generator.getFloor() >= -2 && generator.getFloor() <= 20);
+            assertEquals((generator.getFloor() > 0) ? Direction.DOWN : Direction.UP, generator.getDirection());
+            sawBasement |= generator.getFloor() < 0;
+        }
+        assertTrue(sawBasement);
+    }
+
+    @Test
+    void testInterfloorAndLunchStayInTheBuilding() {
+        for (TrafficGenerator.Pattern pattern : List.of(TrafficGenerator.Pattern.INTERFLOOR,
+                TrafficGenerator.Pattern.LUNCH)) {
+            TrafficGenerator generator = generator(pattern, button -> {
+            }, 1000);
+            while (generator.next()) {
+                assertTrue(generator.getFloor() >= -2 && generator.getFloor() <= 20);
+                assertNotEquals(Direction.NONE, generator.getDirection());
+                assertFalse(generator.getFloor() == 20 && generator.getDirection() == Direction.UP);
+                assertFalse(generator.getFloor() == -2 && generator.getDirection() == Direction.DOWN);
+            }
+        }
+    }
+
+    @Test
+    void testArrivalRate() {
+        // 12% of 1000 people in five minutes is one every 2.5 seconds
+        TrafficGenerator generator = generator(TrafficGenerator.Pattern.INTERFLOOR, button -> {
+        }, 100_000);
+        assertEquals(2500.0, generator.getMeanDelayInMs());
+
+        long totalDelay = 0;
+        while (generator.next()) {
+            totalDelay += generator.getDelayBeforePressing();
+        }
+        assertEquals(2500.0, totalDelay / 100_000.0, 25.0);
+    }
+
+    @Test
+    void testSameSeedGeneratesSamePassengers() {
+        TrafficGenerator first = generator(TrafficGenerator.Pattern.LUNCH, button -> {
+        }, 500);
+        TrafficGenerator second = generator(TrafficGenerator.Pattern.LUNCH, button -> {
+        }, 500);
+        while (first.next()) {
+            assertTrue(second.next());
+            assertEquals(first.getFloor(), second.getFloor());
+            assertEquals(first.getDirection(), second.getDirection());
+            assertEquals(first.getDelayBeforePressing(), second.getDelayBeforePressing());
+        }
+        assertFalse(second.next());
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TrafficGenerator.Building(5, 5, 5, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TrafficGenerator.Building(0, 5, 6, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TrafficGenerator.Building(0, 5, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TrafficGenerator(TrafficGenerator.Pattern.LUNCH,
+                BUILDING, button -> {
+                }, 0, 10, 1));
+    }
+
+    @Test
+    void testEveryPassengerBoardsAndIsDelivered() {
+        VirtualClock clock = new VirtualClock();
+        List<Elevator> elevators = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            elevators.add(new Elevator(id, 0, clock));
+        }
+        TrafficGenerator generator = generator(TrafficGenerator.Pattern.LUNCH,
+                new NearestCarExternalScheduler(elevators), 2000);
+        for (Elevator elevator : elevators) {
+            elevator.addElevatorListener(generator);
+        }
+
+        new DiscreteEventSimulation(clock, new ButtonPresser(generator, generator),
+                elevators.toArray(new Elevator[0])).run();
+
+        assertEquals(2000, generator.getPassengersGenerated());
+        assertEquals(2000, generator.getPassengersBoarded());
+        long completed = 0;
+        long waits = 0;
+        for (Elevator elevator : elevators) {
+            LongSummaryStatistics statistics = elevator.getStatsCollector().getSummaryStatistics();
+            completed += statistics.getCount();
+            waits += elevator.getStatsCollector().getWaitTimeHistogram().getCount();
+        }
+        // The car calls of the passengers who boarded were completed too
+        assertTrue(waits > 0);
+        assertTrue(completed > waits);
+    }
+}